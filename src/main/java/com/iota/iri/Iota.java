@@ -3,27 +3,36 @@ package com.iota.iri;
 import com.iota.iri.conf.IotaConfig;
 import com.iota.iri.conf.TipSelConfig;
 import com.iota.iri.controllers.TipsViewModel;
-import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.network.Node;
 import com.iota.iri.network.TransactionRequester;
 import com.iota.iri.network.UDPReceiver;
 import com.iota.iri.network.replicator.Replicator;
+import com.iota.iri.service.DatabaseCheckpointer;
+import com.iota.iri.service.DatabaseRescanner;
+import com.iota.iri.service.TipsPersister;
 import com.iota.iri.service.TipsSolidifier;
+import com.iota.iri.service.TransactionPruner;
 import com.iota.iri.service.stats.LagCalculator;
 import com.iota.iri.service.stats.TransactionStatsPublisher;
-import com.iota.iri.service.DatabaseRecycler;
 import com.iota.iri.service.tipselection.*;
 import com.iota.iri.service.tipselection.impl.*;
 import com.iota.iri.storage.*;
+import com.iota.iri.storage.archive.TransactionArchive;
+import com.iota.iri.storage.memory.InMemoryPersistenceProvider;
+import com.iota.iri.storage.rocksDB.ColumnFamilyProfile;
 import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
-import com.iota.iri.utils.Pair;
+import com.iota.iri.storage.rocksDB.ShardedPersistenceProvider;
 import com.iota.iri.utils.dag.RecentTransactionsGetter;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.impl.RecentTangleGraph;
 import com.iota.iri.utils.dag.impl.RecentTransactionsGetterImpl;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
 import com.iota.iri.zmq.MessageQ;
 
+import java.io.File;
+import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.List;
-import java.util.Date;
 
 import org.apache.commons.lang3.NotImplementedException;
 import org.slf4j.Logger;
@@ -76,7 +85,11 @@ public class Iota {
     public final TipsViewModel tipsViewModel;
     public final MessageQ messageQ;
     public final TipSelector tipsSelector;
-    public final DatabaseRecycler databaseRecycler;
+    public final TransactionPruner transactionPruner;
+    public final TipsPersister tipsPersister;
+    public final TangleGraph tangleGraph;
+    public final IncrementalCumulativeWeightCalculator cumulativeWeightCalculator;
+    public final DatabaseCheckpointer databaseCheckpointer;
     public final LagCalculator lagCalculator;
 
     public final int lagCalculatorTransactionCount = 100;
@@ -99,10 +112,18 @@ public class Iota {
         udpReceiver = new UDPReceiver(node, configuration);
         ledgerValidator = new LedgerValidatorImpl();
         tipsSolidifier = new TipsSolidifier(tangle, transactionValidator, tipsViewModel);
+        tangleGraph = createTangleGraph(configuration);
+        //the precomputed weights are read directly, only their fallback calculations are shared
+        cumulativeWeightCalculator = new IncrementalCumulativeWeightCalculator(tangleGraph,
+                new CachedRatingCalculator(new DenseCumulativeWeightCalculator(tangleGraph),
+                        configuration.getRatingCacheMaxAge()));
+        transactionValidator.addSolidTransactionListener(cumulativeWeightCalculator::onSolidTransaction);
         tipsSelector = createTipSelector(configuration);
-        transactionStatsPublisher = new TransactionStatsPublisher(tangle, tipsViewModel, tipsSelector, messageQ);
-        databaseRecycler = new DatabaseRecycler(transactionValidator, transactionRequester, tipsViewModel, tangle);
-        RecentTransactionsGetter recentTransactionsGetter = new RecentTransactionsGetterImpl(tipsViewModel, tangle);
+        transactionStatsPublisher = new TransactionStatsPublisher(tangle, tipsSelector, messageQ);
+        transactionPruner = new TransactionPruner(tangle, tipsViewModel, transactionRequester, configuration);
+        tipsPersister = new TipsPersister(tipsViewModel, new File(configuration.getDbPath() + ".tips"));
+        databaseCheckpointer = new DatabaseCheckpointer(tangle, configuration);
+        RecentTransactionsGetter recentTransactionsGetter = new RecentTransactionsGetterImpl(tangle);
         lagCalculator = new LagCalculator(lagCalculatorTransactionCount, tangle, recentTransactionsGetter);
     }
 
@@ -118,9 +139,16 @@ public class Iota {
         initializeTangle();
         tangle.init();
 
-        if (configuration.isRescanDb()){
-            rescanDb();
+        DatabaseRescanner rescanner = new DatabaseRescanner(tangle, new File(configuration.getDbPath() + ".rescan"),
+                configuration.getDbRescanThreads());
+        if (configuration.isRescanDb() || rescanner.hasCheckpoint()) {
+            rescanner.rescan();
         }
+        tipsPersister.init();
+        if (tangleGraph instanceof RecentTangleGraph) {
+            ((RecentTangleGraph) tangleGraph).init();
+        }
+        cumulativeWeightCalculator.init();
 
         if (configuration.isZmqEnabled()) {
             transactionStatsPublisher.init();
@@ -131,54 +159,62 @@ public class Iota {
         udpReceiver.init();
         replicator.init();
         node.init();
-        databaseRecycler.init(new Date(System.currentTimeMillis()));
+        transactionPruner.init();
+        databaseCheckpointer.init();
     }
 
-    private void rescanDb() throws Exception {
-        //delete all transaction indexes
-        tangle.clearColumn(com.iota.iri.model.persistables.Address.class);
-        tangle.clearColumn(com.iota.iri.model.persistables.Bundle.class);
-        tangle.clearColumn(com.iota.iri.model.persistables.Approvee.class);
-        tangle.clearColumn(com.iota.iri.model.persistables.ObsoleteTag.class);
-        tangle.clearColumn(com.iota.iri.model.persistables.Tag.class);
-        tangle.clearMetadata(com.iota.iri.model.persistables.Transaction.class);
-
-        //rescan all tx & refill the columns
-        TransactionViewModel tx = TransactionViewModel.first(tangle);
-        int counter = 0;
-        while (tx != null) {
-            if (++counter % 10000 == 0) {
-                log.info("Rescanned {} Transactions", counter);
-            }
-            List<Pair<Indexable, Persistable>> saveBatch = tx.getSaveBatch();
-            saveBatch.remove(5);
-            tangle.saveBatch(saveBatch);
-            tx = tx.next(tangle);
-        }
-    }
-    
     /**
      * Gracefully shuts down by calling <tt>shutdown()</tt> on all used services.
      * Exceptions during shutdown are not caught.
      */
     public void shutdown() throws Exception {
         transactionStatsPublisher.shutdown();
+        transactionPruner.shutdown();
+        databaseCheckpointer.shutdown();
         tipsSolidifier.shutdown();
         node.shutdown();
         udpReceiver.shutdown();
         replicator.shutdown();
         transactionValidator.shutdown();
+        cumulativeWeightCalculator.shutdown();
+        tipsPersister.shutdown();
         tangle.shutdown();
         messageQ.shutdown();
     }
 
-    private void initializeTangle() {
+    private void initializeTangle() throws IOException {
         switch (configuration.getMainDb()) {
             case "rocksdb": {
+                List<String> shardPaths = configuration.getDbShardPaths();
+                if (!shardPaths.isEmpty()) {
+                    if (!configuration.getDbBootstrapPath().isEmpty()) {
+                        for (int i = 0; i < shardPaths.size(); i++) {
+                            DatabaseCheckpointer.bootstrap(new File(configuration.getDbBootstrapPath(),
+                                    ShardedPersistenceProvider.getShardFolderName(i)), new File(shardPaths.get(i)));
+                        }
+                    }
+                    tangle.addPersistenceProvider(new ShardedPersistenceProvider(
+                            shardPaths,
+                            configuration.getDbLogPath(),
+                            configuration.getDbCacheSize(),
+                            configuration.isDbTunedPerColumn(),
+                            ColumnFamilyProfile.parseAssignments(configuration.getDbColumnProfiles())));
+                    break;
+                }
+                if (!configuration.getDbBootstrapPath().isEmpty()) {
+                    DatabaseCheckpointer.bootstrap(new File(configuration.getDbBootstrapPath()),
+                            new File(configuration.getDbPath()));
+                }
                 tangle.addPersistenceProvider(new RocksDBPersistenceProvider(
                         configuration.getDbPath(),
                         configuration.getDbLogPath(),
-                        configuration.getDbCacheSize()));
+                        configuration.getDbCacheSize(),
+                        configuration.isDbTunedPerColumn(),
+                        ColumnFamilyProfile.parseAssignments(configuration.getDbColumnProfiles())));
+                break;
+            }
+            case "inmemory": {
+                tangle.addPersistenceProvider(new InMemoryPersistenceProvider());
                 break;
             }
             default: {
@@ -186,19 +222,45 @@ public class Iota {
             }
         }
         if (configuration.isZmqEnabled()) {
-            tangle.addPersistenceProvider(new ZmqPublishProvider(messageQ));
+            PersistenceProvider zmqPublishProvider = new ZmqPublishProvider(messageQ);
+            if (configuration.getZmqQueueSize() > 0) {
+                zmqPublishProvider = new AsyncPersistenceProvider(zmqPublishProvider,
+                        configuration.getZmqQueueSize(), configuration.isZmqDropOnOverflow());
+            }
+            tangle.addPersistenceProvider(zmqPublishProvider);
+        }
+        if (configuration.getDbTransactionCacheSize() > 0) {
+            tangle.setTransactionCache(new TransactionCache(configuration.getDbTransactionCacheSize()));
+        }
+        if (!configuration.getDbArchivePath().isEmpty()) {
+            TransactionArchive archive = new TransactionArchive(new File(configuration.getDbArchivePath()));
+            archive.init();
+            tangle.setArchive(archive);
+        }
+    }
+
+    /**
+     * The recent graph is updated by the transaction validator, before the other listeners see the transactions.
+     */
+    private TangleGraph createTangleGraph(TipSelConfig config) {
+        StorageTangleGraph storageTangleGraph = new StorageTangleGraph(tangle);
+        if (config.getRecentGraphSize() <= 0) {
+            return storageTangleGraph;
         }
+        RecentTangleGraph recentTangleGraph = new RecentTangleGraph(storageTangleGraph, config.getRecentGraphSize());
+        transactionValidator.addNewTransactionListener(recentTangleGraph::addTransaction);
+        transactionValidator.addSolidTransactionListener(recentTangleGraph::setSolid);
+        return recentTangleGraph;
     }
 
     private TipSelector createTipSelector(TipSelConfig config) {
-        RatingCalculator ratingCalculator = new CumulativeWeightCalculator(tangle);
-        TailFinder tailFinder = new TailFinderImpl(tangle);
-        Walker walker = new WalkerAlpha(tailFinder, tangle, messageQ, new SecureRandom(), config);
-        RecentTransactionsGetter recentTransactionsGetter = new RecentTransactionsGetterImpl(tipsViewModel, tangle);
-        StartingTipSelector startingTipSelector = new ConnectedComponentsStartingTipSelector(tangle, CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE, recentTransactionsGetter);
+        TailFinder tailFinder = new TailFinderImpl(tangleGraph);
+        Walker walker = new WalkerAlpha(tailFinder, tangleGraph, messageQ, new SecureRandom(), config);
+        StartingTipSelector startingTipSelector = new ConnectedComponentsStartingTipSelector(tangleGraph, CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE, tangleGraph);
         EntryPointSelector entryPointSelector = new EntryPointSelectorCumulativeWeightThreshold(
-            tangle, CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE, startingTipSelector, tailFinder);
+            tangleGraph, CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE, startingTipSelector, tailFinder);
         ReferenceChecker referenceChecker = new ReferenceCheckerImpl(tangle);
-        return new TipSelectorImpl(tangle, ledgerValidator, entryPointSelector, ratingCalculator, walker, referenceChecker);
+        return new TipSelectorImpl(tangleGraph, ledgerValidator, entryPointSelector, cumulativeWeightCalculator, walker,
+                referenceChecker, config.getConfidenceWalks());
     }
 }
@@ -13,7 +13,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import static com.iota.iri.controllers.TransactionViewModel.*;
 
@@ -50,6 +52,14 @@ public class TransactionValidator {
     private final Object cascadeSync = new Object();
     private final Set<Hash> newSolidTransactionsOne = new LinkedHashSet<>();
     private final Set<Hash> newSolidTransactionsTwo = new LinkedHashSet<>();
+    /**
+     * Notified of every transaction that is added to the solidification queue
+     */
+    private final List<Consumer<Hash>> solidTransactionListeners = new CopyOnWriteArrayList<>();
+    /**
+     * Notified of every transaction that was stored, before its status is updated
+     */
+    private final List<Consumer<TransactionViewModel>> newTransactionListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructor for Tangle Validator
@@ -233,7 +243,7 @@ public class TransactionValidator {
      * It iterates through all approved transactions until it finds one that is missing in the database or until it
      * reached solid transactions on all traversed subtangles. In case of a missing transactions it issues a transaction
      * request and returns false. If no missing transaction is found, it marks the processed transactions as solid in
-     * the database and returns true.
+     * the database, reports them to the solid transaction listeners and returns true.
      *
      * Since this operation can potentially take a long time to terminate if it would have to traverse big parts of the
      * tangle, it is possible to limit the amount of transactions that are allowed to be processed, while looking for
@@ -280,7 +290,10 @@ public class TransactionValidator {
             }
         }
         if (solid) {
-            updateSolidTransactions(tangle, analyzedHashes);
+            for (Hash solidified : updateSolidTransactions(tangle, analyzedHashes)) {
+                tipsViewModel.setSolid(solidified);
+                addSolidTransaction(solidified);
+            }
         }
         analyzedHashes.clear();
         return solid;
@@ -294,6 +307,29 @@ public class TransactionValidator {
                 newSolidTransactionsTwo.add(hash);
             }
         }
+        for (Consumer<Hash> listener : solidTransactionListeners) {
+            listener.accept(hash);
+        }
+    }
+
+    /**
+     * Adds a listener that is notified when a transaction became solid. The listeners are called by the threads that
+     * solidify the transactions, so they must not block.
+     *
+     * @param solidTransactionListener receives the hashes of the new solid transactions
+     */
+    public void addSolidTransactionListener(Consumer<Hash> solidTransactionListener) {
+        solidTransactionListeners.add(solidTransactionListener);
+    }
+
+    /**
+     * Adds a listener that is notified when a received transaction was stored. The listeners are called by the
+     * threads that receive the transactions, so they must not block.
+     *
+     * @param newTransactionListener receives the new transactions
+     */
+    public void addNewTransactionListener(Consumer<TransactionViewModel> newTransactionListener) {
+        newTransactionListeners.add(newTransactionListener);
     }
 
     /**
@@ -380,17 +416,41 @@ public class TransactionValidator {
     //Not part of the validation process. This should be moved to a component in charge of
     //what transaction we gossip.
     public void updateStatus(TransactionViewModel transactionViewModel) throws Exception {
-        transactionRequester.clearTransactionRequest(transactionViewModel.getHash());
-        if(transactionViewModel.getApprovers(tangle).size() == 0) {
-            tipsViewModel.addTipHash(transactionViewModel.getHash());
+        updateStatus(Collections.singletonList(transactionViewModel));
+    }
+
+    /**
+     * Performs {@link #updateStatus(TransactionViewModel)} for several transactions that were stored together. The
+     * solidity of all transactions that could be solidified is written in a single batch.
+     *
+     * @param transactionViewModels received transactions that are being updated
+     * @throws Exception if an error occurred while trying to solidify
+     */
+    public void updateStatus(List<TransactionViewModel> transactionViewModels) throws Exception {
+        List<TransactionViewModel> solidTransactions = new ArrayList<>();
+        for (TransactionViewModel transactionViewModel : transactionViewModels) {
+            for (Consumer<TransactionViewModel> listener : newTransactionListeners) {
+                listener.accept(transactionViewModel);
+            }
+            transactionRequester.clearTransactionRequest(transactionViewModel.getHash());
+            if(transactionViewModel.getApprovers(tangle).size() == 0) {
+                tipsViewModel.addTipHash(transactionViewModel.getHash());
+            }
+            tipsViewModel.removeTipHash(transactionViewModel.getTrunkTransactionHash());
+            tipsViewModel.removeTipHash(transactionViewModel.getBranchTransactionHash());
+
+            if(quickSetSolid(transactionViewModel)) {
+                solidTransactions.add(transactionViewModel);
+            }
         }
-        tipsViewModel.removeTipHash(transactionViewModel.getTrunkTransactionHash());
-        tipsViewModel.removeTipHash(transactionViewModel.getBranchTransactionHash());
 
-        if(quickSetSolid(transactionViewModel)) {
-            transactionViewModel.update(tangle, "solid|height");
-            tipsViewModel.setSolid(transactionViewModel.getHash());
-            addSolidTransaction(transactionViewModel.getHash());
+        if (!solidTransactions.isEmpty()) {
+            //the solidity has to be persisted before the solidification thread may look at the transactions
+            TransactionViewModel.updateBatch(tangle, solidTransactions, "solid|height");
+            for (TransactionViewModel transactionViewModel : solidTransactions) {
+                tipsViewModel.setSolid(transactionViewModel.getHash());
+                addSolidTransaction(transactionViewModel.getHash());
+            }
         }
     }
 
@@ -4,6 +4,7 @@ import com.iota.iri.CLIRI;
 import com.iota.iri.utils.IotaUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.beust.jcommander.JCommander;
@@ -56,9 +57,22 @@ public abstract class BaseIotaConfig implements IotaConfig {
     protected String dbPath = Defaults.DB_PATH;
     protected String dbLogPath = Defaults.DB_LOG_PATH;
     protected int dbCacheSize = Defaults.DB_CACHE_SIZE; //KB
+    protected int dbTransactionCacheSize = Defaults.DB_TRANSACTION_CACHE_SIZE;
+    protected boolean dbTunedPerColumn = Defaults.DB_TUNED_PER_COLUMN;
+    protected String dbColumnProfiles = Defaults.DB_COLUMN_PROFILES;
+    protected int dbPruningAge = Defaults.DB_PRUNING_AGE;
+    protected int dbPruningBatchSize = Defaults.DB_PRUNING_BATCH_SIZE;
+    protected long dbPruningInterval = Defaults.DB_PRUNING_INTERVAL;
     protected String mainDb = Defaults.ROCKS_DB;
     protected boolean revalidate = Defaults.REVALIDATE;
     protected boolean rescanDb = Defaults.RESCAN_DB;
+    protected int dbRescanThreads = Defaults.DB_RESCAN_THREADS;
+    protected String dbCheckpointPath = Defaults.DB_CHECKPOINT_PATH;
+    protected int dbCheckpointInterval = Defaults.DB_CHECKPOINT_INTERVAL;
+    protected int dbCheckpointRetention = Defaults.DB_CHECKPOINT_RETENTION;
+    protected String dbBootstrapPath = Defaults.DB_BOOTSTRAP_PATH;
+    protected List<String> dbShardPaths = Collections.emptyList();
+    protected String dbArchivePath = Defaults.DB_ARCHIVE_PATH;
 
     //Protocol
     protected double pReplyRandomTip = Defaults.P_REPLY_RANDOM_TIP;
@@ -70,12 +84,19 @@ public abstract class BaseIotaConfig implements IotaConfig {
     protected int zmqPort = Defaults.ZMQ_PORT;
     protected int zmqThreads = Defaults.ZMQ_THREADS;
     protected String zmqIpc = Defaults.ZMQ_IPC;
+    protected int zmqQueueSize = Defaults.ZMQ_QUEUE_SIZE;
+    protected boolean zmqDropOnOverflow = Defaults.ZMQ_DROP_ON_OVERFLOW;
     protected int qSizeNode = Defaults.QUEUE_SIZE;
+    protected int receiveBatchSize = Defaults.RECEIVE_BATCH_SIZE;
+    protected int receiveBatchLatency = Defaults.RECEIVE_BATCH_LATENCY;
     protected int cacheSizeBytes = Defaults.CACHE_SIZE_BYTES;
 
 
     //Tip Selection
     protected double alpha = Defaults.ALPHA;
+    protected long ratingCacheMaxAge = Defaults.RATING_CACHE_MAX_AGE;
+    protected int confidenceWalks = Defaults.CONFIDENCE_WALKS;
+    protected int recentGraphSize = Defaults.RECENT_GRAPH_SIZE;
 
     //PearlDiver
     protected int powThreads = Defaults.POW_THREADS;
@@ -338,6 +359,72 @@ public abstract class BaseIotaConfig implements IotaConfig {
         this.dbCacheSize = dbCacheSize;
     }
 
+    @Override
+    public int getDbTransactionCacheSize() {
+        return dbTransactionCacheSize;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-tx-cache-size"}, description = DbConfig.Descriptions.DB_TRANSACTION_CACHE_SIZE)
+    protected void setDbTransactionCacheSize(int dbTransactionCacheSize) {
+        this.dbTransactionCacheSize = dbTransactionCacheSize;
+    }
+
+    @Override
+    public boolean isDbTunedPerColumn() {
+        return dbTunedPerColumn;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-tuned-per-column"}, description = DbConfig.Descriptions.DB_TUNED_PER_COLUMN, arity = 1)
+    protected void setDbTunedPerColumn(boolean dbTunedPerColumn) {
+        this.dbTunedPerColumn = dbTunedPerColumn;
+    }
+
+    @Override
+    public String getDbColumnProfiles() {
+        return dbColumnProfiles;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-column-profiles"}, description = DbConfig.Descriptions.DB_COLUMN_PROFILES)
+    protected void setDbColumnProfiles(String dbColumnProfiles) {
+        this.dbColumnProfiles = dbColumnProfiles;
+    }
+
+    @Override
+    public int getDbPruningAge() {
+        return dbPruningAge;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-pruning-age"}, description = DbConfig.Descriptions.DB_PRUNING_AGE)
+    protected void setDbPruningAge(int dbPruningAge) {
+        this.dbPruningAge = dbPruningAge;
+    }
+
+    @Override
+    public int getDbPruningBatchSize() {
+        return dbPruningBatchSize;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-pruning-batch-size"}, description = DbConfig.Descriptions.DB_PRUNING_BATCH_SIZE)
+    protected void setDbPruningBatchSize(int dbPruningBatchSize) {
+        this.dbPruningBatchSize = dbPruningBatchSize;
+    }
+
+    @Override
+    public long getDbPruningInterval() {
+        return dbPruningInterval;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-pruning-interval"}, description = DbConfig.Descriptions.DB_PRUNING_INTERVAL)
+    protected void setDbPruningInterval(long dbPruningInterval) {
+        this.dbPruningInterval = dbPruningInterval;
+    }
+
     @Override
     public String getMainDb() {
         return mainDb;
@@ -360,6 +447,83 @@ public abstract class BaseIotaConfig implements IotaConfig {
         this.rescanDb = rescanDb;
     }
 
+    @Override
+    public int getDbRescanThreads() {
+        return dbRescanThreads;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-rescan-threads"}, description = DbConfig.Descriptions.DB_RESCAN_THREADS)
+    protected void setDbRescanThreads(int dbRescanThreads) {
+        this.dbRescanThreads = dbRescanThreads;
+    }
+
+    @Override
+    public String getDbCheckpointPath() {
+        return dbCheckpointPath;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-checkpoint-path"}, description = DbConfig.Descriptions.DB_CHECKPOINT_PATH)
+    protected void setDbCheckpointPath(String dbCheckpointPath) {
+        this.dbCheckpointPath = dbCheckpointPath;
+    }
+
+    @Override
+    public int getDbCheckpointInterval() {
+        return dbCheckpointInterval;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-checkpoint-interval"}, description = DbConfig.Descriptions.DB_CHECKPOINT_INTERVAL)
+    protected void setDbCheckpointInterval(int dbCheckpointInterval) {
+        this.dbCheckpointInterval = dbCheckpointInterval;
+    }
+
+    @Override
+    public int getDbCheckpointRetention() {
+        return dbCheckpointRetention;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-checkpoint-retention"}, description = DbConfig.Descriptions.DB_CHECKPOINT_RETENTION)
+    protected void setDbCheckpointRetention(int dbCheckpointRetention) {
+        this.dbCheckpointRetention = dbCheckpointRetention;
+    }
+
+    @Override
+    public String getDbBootstrapPath() {
+        return dbBootstrapPath;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-bootstrap-path"}, description = DbConfig.Descriptions.DB_BOOTSTRAP_PATH)
+    protected void setDbBootstrapPath(String dbBootstrapPath) {
+        this.dbBootstrapPath = dbBootstrapPath;
+    }
+
+    @Override
+    public List<String> getDbShardPaths() {
+        return dbShardPaths;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-shard-paths"}, description = DbConfig.Descriptions.DB_SHARD_PATHS)
+    protected void setDbShardPaths(String dbShardPaths) {
+        this.dbShardPaths = IotaUtils.splitStringToImmutableList(dbShardPaths, SPLIT_STRING_TO_LIST_REGEX);
+    }
+
+    @Override
+    public String getDbArchivePath() {
+        return dbArchivePath;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-archive-path"}, description = DbConfig.Descriptions.DB_ARCHIVE_PATH)
+    protected void setDbArchivePath(String dbArchivePath) {
+        this.dbArchivePath = dbArchivePath;
+    }
+
     @Override
     public int getMwm() {
         return Defaults.MWM;
@@ -451,6 +615,29 @@ public abstract class BaseIotaConfig implements IotaConfig {
         this.zmqIpc = zmqIpc;
     }
 
+    @Override
+    public int getZmqQueueSize() {
+        return zmqQueueSize;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--zmq-queue-size", description = ZMQConfig.Descriptions.ZMQ_QUEUE_SIZE)
+    protected void setZmqQueueSize(int zmqQueueSize) {
+        this.zmqQueueSize = zmqQueueSize;
+    }
+
+    @Override
+    public boolean isZmqDropOnOverflow() {
+        return zmqDropOnOverflow;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--zmq-drop-on-overflow", description = ZMQConfig.Descriptions.ZMQ_DROP_ON_OVERFLOW,
+            arity = 1)
+    protected void setZmqDropOnOverflow(boolean zmqDropOnOverflow) {
+        this.zmqDropOnOverflow = zmqDropOnOverflow;
+    }
+
     @Override
     public int getqSizeNode() {
         return qSizeNode;
@@ -462,6 +649,28 @@ public abstract class BaseIotaConfig implements IotaConfig {
         this.qSizeNode = qSizeNode;
     }
 
+    @Override
+    public int getReceiveBatchSize() {
+        return receiveBatchSize;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--receive-batch-size", description = NetworkConfig.Descriptions.RECEIVE_BATCH_SIZE)
+    protected void setReceiveBatchSize(int receiveBatchSize) {
+        this.receiveBatchSize = receiveBatchSize;
+    }
+
+    @Override
+    public int getReceiveBatchLatency() {
+        return receiveBatchLatency;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--receive-batch-latency", description = NetworkConfig.Descriptions.RECEIVE_BATCH_LATENCY)
+    protected void setReceiveBatchLatency(int receiveBatchLatency) {
+        this.receiveBatchLatency = receiveBatchLatency;
+    }
+
     @Override
     public double getpDropCacheEntry() {
         return pDropCacheEntry;
@@ -495,6 +704,42 @@ public abstract class BaseIotaConfig implements IotaConfig {
         this.alpha = alpha;
     }
 
+    @Override
+    public long getRatingCacheMaxAge() {
+        return ratingCacheMaxAge;
+    }
+
+    @JsonProperty("TIPSELECTION_RATING_CACHE_MAX_AGE")
+    @Parameter(names = "--rating-cache-max-age", description = TipSelConfig.Descriptions.RATING_CACHE_MAX_AGE)
+    protected void setRatingCacheMaxAge(long ratingCacheMaxAge) {
+        this.ratingCacheMaxAge = ratingCacheMaxAge;
+    }
+
+    @Override
+    public int getConfidenceWalks() {
+        return confidenceWalks;
+    }
+
+    @JsonProperty("TIPSELECTION_CONFIDENCE_WALKS")
+    @Parameter(names = "--confidence-walks", description = TipSelConfig.Descriptions.CONFIDENCE_WALKS)
+    protected void setConfidenceWalks(int confidenceWalks) {
+        if (confidenceWalks < 1) {
+            throw new ParameterException("CONFIDENCE_WALKS should be at least 1 (found " + confidenceWalks + ")");
+        }
+        this.confidenceWalks = confidenceWalks;
+    }
+
+    @Override
+    public int getRecentGraphSize() {
+        return recentGraphSize;
+    }
+
+    @JsonProperty("TIPSELECTION_RECENT_GRAPH_SIZE")
+    @Parameter(names = "--recent-graph-size", description = TipSelConfig.Descriptions.RECENT_GRAPH_SIZE)
+    protected void setRecentGraphSize(int recentGraphSize) {
+        this.recentGraphSize = recentGraphSize;
+    }
+
     @Override
     public int getPowThreads() {
         return powThreads;
@@ -510,7 +755,8 @@ public abstract class BaseIotaConfig implements IotaConfig {
         //API
         int API_PORT = 14265;
         String API_HOST = "localhost";
-        List<String> REMOTE_LIMIT_API = IotaUtils.createImmutableList("addNeighbors", "getNeighbors", "removeNeighbors", "attachToTangle", "interruptAttachingToTangle");
+        List<String> REMOTE_LIMIT_API = IotaUtils.createImmutableList("addNeighbors", "getNeighbors", "removeNeighbors", "attachToTangle", "interruptAttachingToTangle",
+                "createCheckpoint");
         int MAX_FIND_TRANSACTIONS = 100_000;
         int MAX_REQUESTS_LIST = 1_000;
         int MAX_GET_TRYTES = 10_000;
@@ -533,9 +779,21 @@ public abstract class BaseIotaConfig implements IotaConfig {
         String DB_PATH = "mainnetdb";
         String DB_LOG_PATH = "mainnet.log";
         int DB_CACHE_SIZE = 100_000;
+        int DB_TRANSACTION_CACHE_SIZE = 10_000;
+        boolean DB_TUNED_PER_COLUMN = true;
+        String DB_COLUMN_PROFILES = "";
+        int DB_PRUNING_AGE = 168;
+        int DB_PRUNING_BATCH_SIZE = 500;
+        long DB_PRUNING_INTERVAL = 1000;
         String ROCKS_DB = "rocksdb";
         boolean REVALIDATE = false;
         boolean RESCAN_DB = false;
+        int DB_RESCAN_THREADS = 4;
+        String DB_CHECKPOINT_PATH = "checkpoints";
+        int DB_CHECKPOINT_INTERVAL = 0;
+        int DB_CHECKPOINT_RETENTION = 2;
+        String DB_BOOTSTRAP_PATH = "";
+        String DB_ARCHIVE_PATH = "";
 
         //Protocol
         double P_REPLY_RANDOM_TIP = 0.66d;
@@ -545,6 +803,8 @@ public abstract class BaseIotaConfig implements IotaConfig {
         int PACKET_SIZE = 1650;
         int REQ_HASH_SIZE = 46;
         int QUEUE_SIZE = 1_000;
+        int RECEIVE_BATCH_SIZE = 100;
+        int RECEIVE_BATCH_LATENCY = 5;
         double P_DROP_CACHE_ENTRY = 0.02d;
         int CACHE_SIZE_BYTES = 150_000;
 
@@ -555,9 +815,14 @@ public abstract class BaseIotaConfig implements IotaConfig {
         String ZMQ_IPC = "ipc://iri";
         boolean ZMQ_ENABLED = false;
         int ZMQ_PORT = 5556;
+        int ZMQ_QUEUE_SIZE = 10000;
+        boolean ZMQ_DROP_ON_OVERFLOW = true;
 
         //TipSel
         double ALPHA = 0.001d;
+        long RATING_CACHE_MAX_AGE = 1000;
+        int CONFIDENCE_WALKS = 20;
+        int RECENT_GRAPH_SIZE = 20_000;
 
         //PearlDiver
         int POW_THREADS = 0;
@@ -1,5 +1,7 @@
 package com.iota.iri.conf;
 
+import java.util.List;
+
 /**
  * Configurations for tangle database.
  */
@@ -20,6 +22,36 @@ public interface DbConfig extends Config {
      */
     int getDbCacheSize();
 
+    /**
+     * @return {@value Descriptions#DB_TRANSACTION_CACHE_SIZE}
+     */
+    int getDbTransactionCacheSize();
+
+    /**
+     * @return {@value Descriptions#DB_TUNED_PER_COLUMN}
+     */
+    boolean isDbTunedPerColumn();
+
+    /**
+     * @return {@value Descriptions#DB_COLUMN_PROFILES}
+     */
+    String getDbColumnProfiles();
+
+    /**
+     * @return {@value Descriptions#DB_PRUNING_AGE}
+     */
+    int getDbPruningAge();
+
+    /**
+     * @return {@value Descriptions#DB_PRUNING_BATCH_SIZE}
+     */
+    int getDbPruningBatchSize();
+
+    /**
+     * @return {@value Descriptions#DB_PRUNING_INTERVAL}
+     */
+    long getDbPruningInterval();
+
     /**
      * @return {@value Descriptions#MAIN_DB}
      */
@@ -30,12 +62,73 @@ public interface DbConfig extends Config {
      */
     boolean isRescanDb();
 
+    /**
+     * @return {@value Descriptions#DB_RESCAN_THREADS}
+     */
+    int getDbRescanThreads();
+
+    /**
+     * @return {@value Descriptions#DB_CHECKPOINT_PATH}
+     */
+    String getDbCheckpointPath();
+
+    /**
+     * @return {@value Descriptions#DB_CHECKPOINT_INTERVAL}
+     */
+    int getDbCheckpointInterval();
+
+    /**
+     * @return {@value Descriptions#DB_CHECKPOINT_RETENTION}
+     */
+    int getDbCheckpointRetention();
+
+    /**
+     * @return {@value Descriptions#DB_BOOTSTRAP_PATH}
+     */
+    String getDbBootstrapPath();
+
+    /**
+     * @return {@value Descriptions#DB_SHARD_PATHS}
+     */
+    List<String> getDbShardPaths();
+
+    /**
+     * @return {@value Descriptions#DB_ARCHIVE_PATH}
+     */
+    String getDbArchivePath();
+
     interface Descriptions {
 
         String DB_PATH = "The folder where the DB saves its data.";
         String DB_LOG_PATH = "The folder where the DB logs info";
         String DB_CACHE_SIZE = "The size of the DB cache in KB";
-        String MAIN_DB = "The DB engine used to store the transactions. Currently only RocksDB is supported.";
+        String DB_TRANSACTION_CACHE_SIZE = "The number of transactions kept in the in-memory transaction cache. " +
+                "0 disables the cache.";
+        String DB_TUNED_PER_COLUMN = "Tune the transaction, index and metadata columns of the DB separately. " +
+                "When disabled all columns share the same options.";
+        String DB_COLUMN_PROFILES = "Tuning profiles that replace the default profile of DB columns, as a comma " +
+                "separated list of <column>:<profile>. The profiles are UNIFORM, TRANSACTION, INDEX and METADATA.";
+        String DB_PRUNING_AGE = "Transactions that arrived more than this number of hours ago are deleted from the DB. " +
+                "0 disables pruning.";
+        String DB_PRUNING_BATCH_SIZE = "The number of transactions that are examined for pruning at once.";
+        String DB_PRUNING_INTERVAL = "The pause between two pruning batches in milliseconds. Together with the " +
+                "batch size this limits the load pruning puts on the DB.";
+        String MAIN_DB = "The DB engine used to store the transactions: rocksdb, or inmemory " +
+                "to keep all transactions in RAM until the node shuts down.";
         String RESCAN_DB = "Rescan all transaction metadata (Approvees, Bundles, and Tags)";
+        String DB_RESCAN_THREADS = "The number of threads that rescan the transactions. An interrupted rescan is " +
+                "resumed on the next start.";
+        String DB_CHECKPOINT_PATH = "The folder where checkpoints of the DB are created.";
+        String DB_CHECKPOINT_INTERVAL = "The number of hours between two scheduled checkpoints of the DB. 0 disables " +
+                "the schedule, checkpoints can still be created with the createCheckpoint API call.";
+        String DB_CHECKPOINT_RETENTION = "The number of DB checkpoints that are kept. Older checkpoints are deleted.";
+        String DB_BOOTSTRAP_PATH = "A DB checkpoint that an empty DB is created from on startup, instead of syncing " +
+                "all transactions from the neighbors.";
+        String DB_SHARD_PATHS = "The folders of the DB shards, e.g. on different devices. If set, the transactions " +
+                "are partitioned by their hash across one DB per folder instead of the DB at the DB path. The " +
+                "number of folders cannot change once transactions were stored.";
+        String DB_ARCHIVE_PATH = "The folder where pruned transactions are archived. Archived transactions can " +
+                "still be loaded by their hash, but are not found by address, bundle or tag. Empty disables the " +
+                "archive.";
     }
 }
@@ -53,6 +53,16 @@ public interface NetworkConfig extends Config {
      */
     int getqSizeNode();
 
+    /**
+     * @return Descriptions#RECEIVE_BATCH_SIZE
+     */
+    int getReceiveBatchSize();
+
+    /**
+     * @return Descriptions#RECEIVE_BATCH_LATENCY
+     */
+    int getReceiveBatchLatency();
+
     /**
      * @return Descriptions#P_DROP_CACHE_ENTRY
      */
@@ -74,6 +84,9 @@ public interface NetworkConfig extends Config {
         String DNS_RESOLUTION_ENABLED = "Enable using DNS for neighbor peering.";
         String NEIGHBORS = "Urls of peer iota nodes.";
         String Q_SIZE_NODE = "The size of the REPLY, BROADCAST, and RECEIVE network queues.";
+        String RECEIVE_BATCH_SIZE = "The maximum number of received transactions that are stored together in one batch.";
+        String RECEIVE_BATCH_LATENCY = "The maximum time in milliseconds a received transaction waits for more " +
+                "transactions to be stored in the same batch.";
         String P_DROP_CACHE_ENTRY = DescriptionHelper.PROB_OF + "dropping recently seen transactions out of the network cache.";
         String CACHE_SIZE_BYTES = "The size of the network cache in bytes";
     }
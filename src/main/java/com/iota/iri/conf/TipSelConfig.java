@@ -12,9 +12,32 @@ public interface TipSelConfig extends Config {
      */
     double getAlpha();
 
+    /**
+     * @return Descriptions#RATING_CACHE_MAX_AGE
+     */
+    long getRatingCacheMaxAge();
+
+    /**
+     * @return Descriptions#CONFIDENCE_WALKS
+     */
+    int getConfidenceWalks();
+
+    /**
+     * @return Descriptions#RECENT_GRAPH_SIZE
+     */
+    int getRecentGraphSize();
+
     interface Descriptions {
 
         String ALPHA = "Parameter that defines the randomness of the tip selection. " +
                 "Should be a number between 0 to infinity, where 0 is most random and infinity is most deterministic.";
+        String RATING_CACHE_MAX_AGE = "The time in milliseconds for which the ratings of an entry point are shared " +
+                "between tip selections, if the entry point is not part of the precomputed weights. With 0 only " +
+                "concurrent tip selections share their ratings.";
+        String CONFIDENCE_WALKS = "The number of random walks that estimate the confidence of a transaction. " +
+                "More walks give more precise confidences at the cost of slower getConfidences calls.";
+        String RECENT_GRAPH_SIZE = "The number of latest transactions whose approvals are kept in memory for tip " +
+                "selection. Older transactions are read from the database. With 0 all transactions are read from " +
+                "the database.";
     }
 }
@@ -10,9 +10,23 @@ public interface ZMQConfig extends Config {
 
     String getZmqIpc();
 
+    /**
+     * @return {@value Descriptions#ZMQ_QUEUE_SIZE}
+     */
+    int getZmqQueueSize();
+
+    /**
+     * @return {@value Descriptions#ZMQ_DROP_ON_OVERFLOW}
+     */
+    boolean isZmqDropOnOverflow();
+
     interface Descriptions {
         String ZMQ_ENABLED = "Enabling zmq channels.";
         String ZMQ_PORT = "The port used to connect to the ZMQ feed";
         String ZMQ_IPC = "The path that is used to communicate with ZMQ in IPC";
+        String ZMQ_QUEUE_SIZE = "The number of transaction events that are queued for publishing. " +
+                "0 publishes them on the thread that stores the transaction.";
+        String ZMQ_DROP_ON_OVERFLOW = "Drop transaction events if the publishing queue is full. " +
+                "If false, storing transactions blocks until there is space in the queue.";
     }
 }
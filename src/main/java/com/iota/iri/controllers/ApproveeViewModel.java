@@ -7,7 +7,9 @@ import com.iota.iri.storage.Persistable;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.utils.Pair;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,6 +30,23 @@ public class ApproveeViewModel implements HashesViewModel {
         return new ApproveeViewModel((Approvee) tangle.load(Approvee.class, hash), hash);
     }
 
+    /**
+     * Loads the approvers of several transactions with a single storage round trip.
+     *
+     * @param tangle the tangle to load the approvers from
+     * @param hashes the hashes of the approved transactions
+     * @return the approvers in the order of {@code hashes}
+     * @throws Exception if the approvers could not be loaded
+     */
+    public static List<ApproveeViewModel> load(Tangle tangle, List<Hash> hashes) throws Exception {
+        List<Persistable> approvees = tangle.multiGet(Approvee.class, hashes);
+        List<ApproveeViewModel> approveeViewModels = new ArrayList<>(hashes.size());
+        for (int i = 0; i < hashes.size(); i++) {
+            approveeViewModels.add(new ApproveeViewModel((Approvee) approvees.get(i), hashes.get(i)));
+        }
+        return approveeViewModels;
+    }
+
     public static Map.Entry<Indexable, Persistable> getEntry(Hash hash, Hash hashToMerge) throws Exception {
         Approvee hashes = new Approvee();
         hashes.set.add(hashToMerge);
@@ -19,6 +19,8 @@ public class TipsViewModel {
 
     private final FifoHashCache<Hash> tips = new FifoHashCache<>(TipsViewModel.MAX_TIPS);
     private final FifoHashCache<Hash> solidTips = new FifoHashCache<>(TipsViewModel.MAX_TIPS);
+    // restored solid tips that were not checked against the database yet
+    private final Set<Hash> unvalidatedSolidTips = new HashSet<>();
     private final Tangle tangle;
 
     private final SecureRandom seed = new SecureRandom();
@@ -38,6 +40,7 @@ public class TipsViewModel {
         synchronized (sync) {
             if (!tips.remove(hash)) {
                 solidTips.remove(hash);
+                unvalidatedSolidTips.remove(hash);
             }
         }
     }
@@ -74,31 +77,73 @@ public class TipsViewModel {
                 populateSolidTips();
             }
 
-            int i = 0;
             Iterator<Hash> hashIterator = solidTips.descendingIterator();
-            while (hashIterator.hasNext() && i < count) {
-                result.add(hashIterator.next());
-                i++;
+            while (hashIterator.hasNext() && result.size() < count) {
+                Hash hash = hashIterator.next();
+                if (isValidSolidTip(hash)) {
+                    result.add(hash);
+                } else {
+                    solidTips.remove(hash);
+                }
             }
         }
         return result;
     }
 
-    public Hash getRandomSolidTipHash() {
-        if (solidSize() == 0) {
-            return Hash.NULL_HASH;
+    /**
+     * @return the non solid tips, the oldest first
+     */
+    public List<Hash> getNonSolidTips() {
+        synchronized (sync) {
+            return new ArrayList<>(tips.set);
         }
+    }
 
+    /**
+     * @return the solid tips, the oldest first
+     */
+    public List<Hash> getSolidTips() {
         synchronized (sync) {
-            int index = seed.nextInt(solidTips.size());
-            Iterator<Hash> hashIterator;
-            hashIterator = solidTips.iterator();
-            Hash hash = null;
-            while (index-- >= 0 && hashIterator.hasNext()) {
-                hash = hashIterator.next();
+            return new ArrayList<>(solidTips.set);
+        }
+    }
+
+    /**
+     * Adds tips that were saved before a restart. The restored solid tips are checked against the database when they
+     * are first returned by {@link #getRandomSolidTipHash()}, the non solid tips are checked by the tips solidifier.
+     *
+     * @param nonSolidTips the non solid tips, the oldest first
+     * @param solidTips the solid tips, the oldest first
+     */
+    public void restore(List<Hash> nonSolidTips, List<Hash> solidTips) {
+        synchronized (sync) {
+            nonSolidTips.forEach(tips::add);
+            for (Hash tip : solidTips) {
+                if (this.solidTips.add(tip)) {
+                    unvalidatedSolidTips.add(tip);
+                }
             }
-            return hash;
-            //return solidTips.size() != 0 ? solidTips.get(seed.nextInt(solidTips.size())) : getRandomNonSolidTipHash();
+            //tips that were evicted from the fifo do not need a validation anymore
+            unvalidatedSolidTips.retainAll(this.solidTips.set);
+        }
+    }
+
+    public Hash getRandomSolidTipHash() throws Exception {
+        synchronized (sync) {
+            while (solidTips.size() != 0) {
+                int index = seed.nextInt(solidTips.size());
+                Iterator<Hash> hashIterator;
+                hashIterator = solidTips.iterator();
+                Hash hash = null;
+                while (index-- >= 0 && hashIterator.hasNext()) {
+                    hash = hashIterator.next();
+                }
+                if (isValidSolidTip(hash)) {
+                    return hash;
+                }
+                solidTips.remove(hash);
+            }
+            return Hash.NULL_HASH;
         }
     }
 
@@ -142,9 +187,36 @@ public class TipsViewModel {
         synchronized (sync) {
             tips.clear();
             solidTips.clear();
+            unvalidatedSolidTips.clear();
+        }
+    }
+
+    /**
+     * Checks a restored solid tip against the database the first time it is handed out. Tips that were added while
+     * the node is running are always valid.
+     */
+    private boolean isValidSolidTip(Hash hash) throws Exception {
+        return !unvalidatedSolidTips.remove(hash) || isSolidTip(hash);
+    }
+
+    private boolean isSolidTip(Hash hash) throws Exception {
+        TransactionViewModel transaction = TransactionViewModel.fromHash(tangle, hash);
+        if (transaction.getType() != TransactionViewModel.FILLED_SLOT || !transaction.isSolid()) {
+            return false;
+        }
+        List<Hash> approvers = new ArrayList<>(transaction.getApprovers(tangle).getHashes());
+        for (TransactionViewModel approver : TransactionViewModel.fromHashes(tangle, approvers)) {
+            if (approver.isSolid()) {
+                return false;
+            }
         }
+        return true;
     }
 
+    /**
+     * Finds the solid tips with a search from the genesis through all solid approvers. This visits the whole tangle,
+     * so it is only used if no tips are known, e.g. because no tips were saved before the last shutdown.
+     */
     private void populateSolidTips() throws Exception {
         HashSet<Hash> visited = new HashSet<>();
   
@@ -163,9 +235,9 @@ public class TipsViewModel {
             Set<Hash> approvers = ApproveeViewModel.load(tangle, currentHash).getHashes();
 
             Set<Hash> solidApprovers = new HashSet<>();
-            for (Hash approver : approvers) {
-                if (TransactionViewModel.fromHash(tangle, approver).isSolid()) {
-                    solidApprovers.add(approver);
+            for (TransactionViewModel approver : TransactionViewModel.fromHashes(tangle, new ArrayList<>(approvers))) {
+                if (approver.isSolid()) {
+                    solidApprovers.add(approver.getHash());
                 }
             }
             
@@ -9,6 +9,7 @@ import com.iota.iri.model.persistables.Tag;
 import com.iota.iri.model.persistables.Transaction;
 import com.iota.iri.storage.Indexable;
 import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.ScanVisitor;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.utils.Converter;
 import com.iota.iri.utils.Pair;
@@ -44,6 +45,11 @@ public class TransactionViewModel {
     public static final int TRINARY_SIZE = NONCE_TRINARY_OFFSET + NONCE_TRINARY_SIZE;
     public static final int TRYTES_SIZE = TRINARY_SIZE / 3;
 
+    /**
+     * The maximum number of arrivals that are checked per requested solid transaction.
+     */
+    private static final int SOLID_ARRIVALS_SCAN_FACTOR = 10;
+
     public static final int ESSENCE_TRINARY_OFFSET = ADDRESS_TRINARY_OFFSET, ESSENCE_TRINARY_SIZE = ADDRESS_TRINARY_SIZE + VALUE_TRINARY_SIZE + OBSOLETE_TAG_TRINARY_SIZE + TIMESTAMP_TRINARY_SIZE + CURRENT_INDEX_TRINARY_SIZE + LAST_INDEX_TRINARY_SIZE;
 
 
@@ -82,6 +88,26 @@ public class TransactionViewModel {
         return transactionViewModel;
     }
 
+    /**
+     * Loads several transactions with a single storage round trip.
+     *
+     * @param tangle the tangle to load the transactions from
+     * @param hashes the hashes of the transactions
+     * @return the transactions in the order of {@code hashes}
+     * @throws Exception if the transactions could not be loaded
+     */
+    public static List<TransactionViewModel> fromHashes(Tangle tangle, List<Hash> hashes) throws Exception {
+        List<Persistable> transactions = tangle.multiGet(Transaction.class, hashes);
+        List<TransactionViewModel> transactionViewModels = new ArrayList<>(hashes.size());
+        for (int i = 0; i < hashes.size(); i++) {
+            TransactionViewModel transactionViewModel = new TransactionViewModel((Transaction) transactions.get(i),
+                    hashes.get(i));
+            fillMetadata(tangle, transactionViewModel);
+            transactionViewModels.add(transactionViewModel);
+        }
+        return transactionViewModels;
+    }
+
     public static boolean mightExist(Tangle tangle, Hash hash) throws Exception {
         return tangle.maybeHas(Transaction.class, hash);
     }
@@ -119,6 +145,43 @@ public class TransactionViewModel {
     }
 
     public boolean update(Tangle tangle, String item) throws Exception {
+        if(transaction.isStateUpdate(item) && !hash.equals(Hash.NULL_HASH)) {
+            // only the state is written, there is no need to derive the metadata fields
+            return tangle.update(transaction, hash, item);
+        }
+        deriveMetadata();
+        if(hash.equals(Hash.NULL_HASH)) {
+            return false;
+        }
+        return tangle.update(transaction, hash, item);
+    }
+
+    /**
+     * Performs {@link #update(Tangle, String)} for several transactions at once, so the storage can write all
+     * updates in a single batch.
+     *
+     * @param tangle the storage the transactions are written to
+     * @param transactionViewModels the updated transactions
+     * @param item the <tt>|</tt> separated names of the updated fields
+     * @return <tt>true</tt> if the update was written
+     * @throws Exception if the transactions could not be written
+     */
+    public static boolean updateBatch(Tangle tangle, Collection<TransactionViewModel> transactionViewModels,
+                                      String item) throws Exception {
+        List<Pair<Indexable, Persistable>> models = new ArrayList<>(transactionViewModels.size());
+        for (TransactionViewModel transactionViewModel : transactionViewModels) {
+            if (transactionViewModel.hash.equals(Hash.NULL_HASH)) {
+                continue;
+            }
+            if (!transactionViewModel.transaction.isStateUpdate(item)) {
+                transactionViewModel.deriveMetadata();
+            }
+            models.add(new Pair<>(transactionViewModel.hash, transactionViewModel.transaction));
+        }
+        return !models.isEmpty() && tangle.updateBatch(models, item);
+    }
+
+    private void deriveMetadata() {
         getAddressHash();
         getTrunkTransactionHash();
         getBranchTransactionHash();
@@ -127,10 +190,6 @@ public class TransactionViewModel {
         getObsoleteTagValue();
         setAttachmentData();
         setMetadata();
-        if(hash.equals(Hash.NULL_HASH)) {
-            return false;
-        }
-        return tangle.update(transaction, hash, item);
     }
 
     public TransactionViewModel getBranchTransaction(Tangle tangle) throws Exception {
@@ -203,15 +262,10 @@ public class TransactionViewModel {
     }
 
     public boolean store(Tangle tangle) throws Exception {
-        if (hash.equals(Hash.NULL_HASH) || exists(tangle, hash)) {
+        if (hash.equals(Hash.NULL_HASH)) {
             return false;
         }
-
-        List<Pair<Indexable, Persistable>> batch = getSaveBatch();
-        if (exists(tangle, hash)) {
-            return false;
-        }
-        return tangle.saveBatch(batch);
+        return tangle.saveBatchIfAbsent(Transaction.class, hash, getSaveBatch());
     }
 
     public ApproveeViewModel getApprovers(Tangle tangle) throws Exception {
@@ -268,7 +322,7 @@ public class TransactionViewModel {
 
     public Hash getAddressHash() {
         if(transaction.address == null) {
-            transaction.address = HashFactory.ADDRESS.create(trits(), ADDRESS_TRINARY_OFFSET);
+            transaction.address = HashFactory.ADDRESS.create(tritsOf(ADDRESS_TRINARY_OFFSET, ADDRESS_TRINARY_SIZE), 0);
         }
         return transaction.address;
     }
@@ -276,7 +330,7 @@ public class TransactionViewModel {
     public Hash getObsoleteTagValue() {
         if(transaction.obsoleteTag == null) {
             byte[] tagBytes = Converter.allocateBytesForTrits(OBSOLETE_TAG_TRINARY_SIZE);
-            Converter.bytes(trits(), OBSOLETE_TAG_TRINARY_OFFSET, tagBytes, 0, OBSOLETE_TAG_TRINARY_SIZE);
+            Converter.bytes(tritsOf(OBSOLETE_TAG_TRINARY_OFFSET, OBSOLETE_TAG_TRINARY_SIZE), 0, tagBytes, 0, OBSOLETE_TAG_TRINARY_SIZE);
 
             transaction.obsoleteTag = HashFactory.OBSOLETETAG.create(tagBytes, 0, TAG_SIZE_IN_BYTES);
         }
@@ -285,21 +339,21 @@ public class TransactionViewModel {
 
     public Hash getBundleHash() {
         if(transaction.bundle == null) {
-            transaction.bundle = HashFactory.BUNDLE.create(trits(), BUNDLE_TRINARY_OFFSET);
+            transaction.bundle = HashFactory.BUNDLE.create(tritsOf(BUNDLE_TRINARY_OFFSET, BUNDLE_TRINARY_SIZE), 0);
         }
         return transaction.bundle;
     }
 
     public Hash getTrunkTransactionHash() {
         if(transaction.trunk == null) {
-            transaction.trunk = HashFactory.TRANSACTION.create(trits(), TRUNK_TRANSACTION_TRINARY_OFFSET);
+            transaction.trunk = HashFactory.TRANSACTION.create(tritsOf(TRUNK_TRANSACTION_TRINARY_OFFSET, TRUNK_TRANSACTION_TRINARY_SIZE), 0);
         }
         return transaction.trunk;
     }
 
     public Hash getBranchTransactionHash() {
         if(transaction.branch == null) {
-            transaction.branch = HashFactory.TRANSACTION.create(trits(), BRANCH_TRANSACTION_TRINARY_OFFSET);
+            transaction.branch = HashFactory.TRANSACTION.create(tritsOf(BRANCH_TRANSACTION_TRINARY_OFFSET, BRANCH_TRANSACTION_TRINARY_SIZE), 0);
         }
         return transaction.branch;
     }
@@ -307,12 +361,32 @@ public class TransactionViewModel {
     public Hash getTagValue() {
         if(transaction.tag == null) {
             byte[] tagBytes = Converter.allocateBytesForTrits(TAG_TRINARY_SIZE);
-            Converter.bytes(trits(), TAG_TRINARY_OFFSET, tagBytes, 0, TAG_TRINARY_SIZE);
+            Converter.bytes(tritsOf(TAG_TRINARY_OFFSET, TAG_TRINARY_SIZE), 0, tagBytes, 0, TAG_TRINARY_SIZE);
             transaction.tag = HashFactory.TAG.create(tagBytes, 0, TAG_SIZE_IN_BYTES);
         }
         return transaction.tag;
     }
 
+    /**
+     * Decodes a single field of the transaction. The hashes are not part of the stored metadata, so only the trits of
+     * the field are decoded from the transaction bytes, unless all trits are decoded already.
+     *
+     * @param offset the offset of the field in trits
+     * @param size the size of the field in trits
+     * @return the trits of the field
+     */
+    private byte[] tritsOf(int offset, int size) {
+        byte[] fieldTrits = new byte[size];
+        synchronized (this) {
+            if (trits != null || transaction.bytes == null) {
+                System.arraycopy(trits(), offset, fieldTrits, 0, size);
+                return fieldTrits;
+            }
+        }
+        Converter.getTrits(transaction.bytes, offset, fieldTrits, size);
+        return fieldTrits;
+    }
+
     public long getAttachmentTimestamp() { return transaction.attachmentTimestamp; }
     public long getAttachmentTimestampLowerBound() {
         return transaction.attachmentTimestampLowerBound;
@@ -383,7 +457,108 @@ public class TransactionViewModel {
         return tangle.keysWithMissingReferences(Approvee.class, Transaction.class);
     }
 
-    public static void updateSolidTransactions(Tangle tangle, final Set<Hash> analyzedHashes) throws Exception {
+    /**
+     * Streams the hashes of approved transactions that are not stored yet, without collecting them in memory.
+     *
+     * @param tangle the tangle to scan
+     * @param visitor receives the missing hashes, returning <tt>false</tt> stops the scan
+     * @throws Exception if the scan failed
+     */
+    public static void scanMissingTransactions(Tangle tangle, ScanVisitor visitor) throws Exception {
+        tangle.scanMissingReferences(Approvee.class, Transaction.class, visitor);
+    }
+
+    /**
+     * Returns the most recently arrived transactions using the arrival index, without walking the DAG.
+     *
+     * @param tangle the tangle to query
+     * @param count the maximum number of transactions
+     * @return the hashes of the transactions, the most recent first
+     * @throws Exception if the index could not be read
+     */
+    public static List<Hash> latestArrivals(Tangle tangle, int count) throws Exception {
+        List<Hash> hashes = new ArrayList<>(count);
+        if (count > 0) {
+            tangle.scanArrivals(0, Long.MAX_VALUE, true, (key, value) -> {
+                hashes.add((Hash) key);
+                return hashes.size() < count;
+            });
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns the most recently arrived solid transactions using the arrival index. Transactions that are not solid
+     * (yet), e.g. because some of their approvees are missing, are skipped. At most
+     * {@value #SOLID_ARRIVALS_SCAN_FACTOR} times as many arrivals as requested are checked, so a node that is still
+     * syncing does not read its whole arrival index.
+     *
+     * @param tangle the tangle to query
+     * @param count the maximum number of transactions
+     * @return the hashes of the solid transactions, the most recent first
+     * @throws Exception if the index or the transactions could not be read
+     */
+    public static List<Hash> latestSolidArrivals(Tangle tangle, int count) throws Exception {
+        List<Hash> hashes = new ArrayList<>(count);
+        if (count <= 0) {
+            return hashes;
+        }
+        List<Hash> candidates = new ArrayList<>(count);
+        long[] checked = {0};
+        tangle.scanArrivals(0, Long.MAX_VALUE, true, (key, value) -> {
+            candidates.add((Hash) key);
+            if (candidates.size() == count) {
+                addSolid(tangle, candidates, hashes, count);
+            }
+            return hashes.size() < count && ++checked[0] < (long) count * SOLID_ARRIVALS_SCAN_FACTOR;
+        });
+        addSolid(tangle, candidates, hashes, count);
+        return hashes;
+    }
+
+    private static void addSolid(Tangle tangle, List<Hash> candidates, List<Hash> solid, int count)
+            throws Exception {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        //the solid flag is part of the state, which is read together with the transaction or served by the cache
+        List<Persistable> transactions = tangle.multiGet(Transaction.class, candidates);
+        for (int i = 0; i < candidates.size() && solid.size() < count; i++) {
+            if (((Transaction) transactions.get(i)).solid) {
+                solid.add(candidates.get(i));
+            }
+        }
+        candidates.clear();
+    }
+
+    /**
+     * Counts the transactions that arrived in the given time window using the arrival index.
+     *
+     * @param tangle the tangle to query
+     * @param from the earliest arrival time in milliseconds (inclusive)
+     * @param to the latest arrival time in milliseconds (exclusive)
+     * @return the number of transactions
+     * @throws Exception if the index could not be read
+     */
+    public static long countArrivals(Tangle tangle, long from, long to) throws Exception {
+        long[] count = {0};
+        tangle.scanArrivals(from, to, false, (key, value) -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * Marks the analyzed transactions as solid and updates their heights.
+     *
+     * @param tangle the tangle the transactions are stored in
+     * @param analyzedHashes the hashes of the transactions that were found to be solid
+     * @return the hashes of the transactions that were not marked as solid before
+     * @throws Exception if the transactions could not be loaded or updated
+     */
+    public static List<Hash> updateSolidTransactions(Tangle tangle, final Set<Hash> analyzedHashes) throws Exception {
+        List<Hash> solidified = new ArrayList<>();
         Iterator<Hash> hashIterator = analyzedHashes.iterator();
         TransactionViewModel transactionViewModel;
         while(hashIterator.hasNext()) {
@@ -394,8 +569,10 @@ public class TransactionViewModel {
             if(!transactionViewModel.isSolid()) {
                 transactionViewModel.updateSolid(true);
                 transactionViewModel.update(tangle, "solid|height");
+                solidified.add(transactionViewModel.getHash());
             }
         }
+        return solidified;
     }
 
     public boolean updateSolid(boolean solid) throws Exception {
@@ -3,7 +3,6 @@ package com.iota.iri.model.persistables;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.HashFactory;
 import com.iota.iri.storage.Persistable;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -15,17 +14,32 @@ public class Hashes implements Persistable {
     public Set<Hash> set = new LinkedHashSet<>();
     private static final byte delimiter = ",".getBytes()[0];
 
+    /**
+     * Encodes the hashes as <tt>hash,hash,...,hash</tt>. This is the same format the RocksDB string append merge
+     * operator produces, so single hashes can be appended to an entry as merge operands without reading it first.
+     */
     public byte[] bytes() {
-        return set.parallelStream()
-                .map(Hash::bytes)
-                .reduce((a,b) -> ArrayUtils.addAll(ArrayUtils.add(a, delimiter), b))
-                .orElse(new byte[0]);
+        if (set.isEmpty()) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[set.size() * (Hash.SIZE_IN_BYTES + 1) - 1];
+        int offset = 0;
+        for (Hash hash : set) {
+            if (offset != 0) {
+                bytes[offset++] = delimiter;
+            }
+            System.arraycopy(hash.bytes(), 0, bytes, offset, Hash.SIZE_IN_BYTES);
+            offset += Hash.SIZE_IN_BYTES;
+        }
+        return bytes;
     }
 
     public void read(byte[] bytes) {
         if(bytes != null) {
             set = new LinkedHashSet<>(bytes.length / (1 + Hash.SIZE_IN_BYTES) + 1);
-            for (int i = 0; i < bytes.length; i += 1 + Hash.SIZE_IN_BYTES) {
+            // a merge operand appended to an empty value leaves a leading delimiter behind
+            int i = bytes.length % (1 + Hash.SIZE_IN_BYTES) == 0 ? 1 : 0;
+            for (; i + Hash.SIZE_IN_BYTES <= bytes.length; i += 1 + Hash.SIZE_IN_BYTES) {
                 set.add(HashFactory.TRANSACTION.create(bytes, i, Hash.SIZE_IN_BYTES));
             }
         }
@@ -3,12 +3,19 @@ package com.iota.iri.model.persistables;
 import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.HashFactory;
-import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.StatefulPersistable;
 import com.iota.iri.utils.Serializer;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-public class Transaction implements Persistable {
+public class Transaction implements StatefulPersistable {
     private static final long serialVersionUID = 113808742723953354L;
     public static final int SIZE = 1604;
 
@@ -17,6 +24,33 @@ public class Transaction implements Persistable {
      */
     public static final int IS_SOLID_BITMASK = 0b01;
 
+    /**
+     * Names of the fields that are part of {@link #state()} and can be updated without rewriting the metadata.
+     */
+    private static final Set<String> STATE_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "validity", "arrivalTime", "height", "solidificationTime", "solid")));
+
+    private static final int STATE_SIZE =
+            Integer.BYTES + //validity
+                    Long.BYTES * 3 + //arrivalTime,height,solidificationTime
+                    1; //solid
+
+    /**
+     * First byte of the compact metadata layout. Legacy metadata starts with an address hash byte, which never takes
+     * this value.
+     */
+    private static final byte METADATA_MARKER = 0x7F;
+    private static final byte METADATA_VERSION = 2;
+
+    private static final int MAX_VARLONG_SIZE = 10;
+    private static final int MAX_METADATA_SIZE =
+            2 + //marker,version
+                    MAX_VARLONG_SIZE * 12 + //numeric fields
+                    1 + //solid
+                    MAX_VARLONG_SIZE; //sender length
+
+    private static final int MAX_INTERNED_SENDERS = 1024;
+    private static final ConcurrentMap<String, String> SENDERS = new ConcurrentHashMap<>();
 
     public byte[] bytes;
 
@@ -47,6 +81,39 @@ public class Transaction implements Persistable {
     public long height = 0;
     public String sender = "";
 
+    public Transaction() {
+    }
+
+    /**
+     * Creates a copy of a transaction. The bytes are copied, the decoded hashes are immutable and shared.
+     *
+     * @param other the transaction to copy
+     */
+    public Transaction(Transaction other) {
+        bytes = other.bytes == null ? null : other.bytes.clone();
+        address = other.address;
+        bundle = other.bundle;
+        trunk = other.trunk;
+        branch = other.branch;
+        obsoleteTag = other.obsoleteTag;
+        value = other.value;
+        currentIndex = other.currentIndex;
+        lastIndex = other.lastIndex;
+        timestamp = other.timestamp;
+        tag = other.tag;
+        attachmentTimestamp = other.attachmentTimestamp;
+        attachmentTimestampLowerBound = other.attachmentTimestampLowerBound;
+        attachmentTimestampUpperBound = other.attachmentTimestampUpperBound;
+        validity = other.validity;
+        type = other.type;
+        arrivalTime = other.arrivalTime;
+        solidificationTime = other.solidificationTime;
+        parsed = other.parsed;
+        solid = other.solid;
+        height = other.height;
+        sender = other.sender;
+    }
+
     public byte[] bytes() {
         return bytes;
     }
@@ -59,104 +126,184 @@ public class Transaction implements Persistable {
         }
     }
 
+    /**
+     * Encodes the metadata in the compact layout: a {@link #METADATA_MARKER}, the {@link #METADATA_VERSION}, the
+     * numeric fields as varints, the flags and the sender. The hashes are not stored, they are decoded from the
+     * transaction bytes when they are needed.
+     */
     @Override
     public byte[] metadata() {
-        int allocateSize =
-                Hash.SIZE_IN_BYTES * 6 + //address,bundle,trunk,branch,obsoleteTag,tag
-                        Long.BYTES * 10 + //value,currentIndex,lastIndex,timestamp,attachmentTimestampLowerBound,attachmentTimestampUpperBound,arrivalTime,height,solidificationTime
-                        Integer.BYTES * 2 + //validity,type
-                        1 + //solid
-                        sender.getBytes().length; //sender
-        ByteBuffer buffer = ByteBuffer.allocate(allocateSize);
-        buffer.put(address.bytes());
-        buffer.put(bundle.bytes());
-        buffer.put(trunk.bytes());
-        buffer.put(branch.bytes());
-        buffer.put(obsoleteTag.bytes());
-        buffer.put(Serializer.serialize(value));
-        buffer.put(Serializer.serialize(currentIndex));
-        buffer.put(Serializer.serialize(lastIndex));
-        buffer.put(Serializer.serialize(timestamp));
-
-        buffer.put(tag.bytes());
-        buffer.put(Serializer.serialize(attachmentTimestamp));
-        buffer.put(Serializer.serialize(attachmentTimestampLowerBound));
-        buffer.put(Serializer.serialize(attachmentTimestampUpperBound));
-
-        buffer.put(Serializer.serialize(validity));
-        buffer.put(Serializer.serialize(type));
-        buffer.put(Serializer.serialize(arrivalTime));
-        buffer.put(Serializer.serialize(height));
-        buffer.put(Serializer.serialize(solidificationTime));
-        //buffer.put((byte) (confirmed ? 1:0));
+        byte[] senderBytes = sender.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_METADATA_SIZE + senderBytes.length);
+        buffer.put(METADATA_MARKER);
+        buffer.put(METADATA_VERSION);
+        Serializer.putVarLong(buffer, value);
+        Serializer.putVarLong(buffer, currentIndex);
+        Serializer.putVarLong(buffer, lastIndex);
+        Serializer.putVarLong(buffer, timestamp);
+        Serializer.putVarLong(buffer, attachmentTimestamp);
+        Serializer.putVarLong(buffer, attachmentTimestampLowerBound);
+        Serializer.putVarLong(buffer, attachmentTimestampUpperBound);
+        Serializer.putVarLong(buffer, validity);
+        Serializer.putVarLong(buffer, type);
+        Serializer.putVarLong(buffer, arrivalTime);
+        Serializer.putVarLong(buffer, height);
+        Serializer.putVarLong(buffer, solidificationTime);
 
         // encode booleans in 1 byte
         byte flags = 0;
         flags |= solid ? IS_SOLID_BITMASK : 0;
         buffer.put(flags);
 
-        buffer.put(sender.getBytes());
-        return buffer.array();
+        Serializer.putVarLong(buffer, senderBytes.length);
+        buffer.put(senderBytes);
+        return Arrays.copyOf(buffer.array(), buffer.position());
     }
 
+    /**
+     * Decodes metadata in the compact layout, or in the legacy fixed size layout that was written before the compact
+     * layout existed. Legacy metadata is rewritten in the compact layout the next time the metadata is saved.
+     */
     @Override
     public void readMetadata(byte[] bytes) {
+        if (bytes == null) {
+            return;
+        }
+        if (bytes.length > 1 && bytes[0] == METADATA_MARKER && bytes[1] == METADATA_VERSION) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+            value = Serializer.getVarLong(buffer);
+            currentIndex = Serializer.getVarLong(buffer);
+            lastIndex = Serializer.getVarLong(buffer);
+            timestamp = Serializer.getVarLong(buffer);
+            attachmentTimestamp = Serializer.getVarLong(buffer);
+            attachmentTimestampLowerBound = Serializer.getVarLong(buffer);
+            attachmentTimestampUpperBound = Serializer.getVarLong(buffer);
+            validity = (int) Serializer.getVarLong(buffer);
+            type = (int) Serializer.getVarLong(buffer);
+            arrivalTime = Serializer.getVarLong(buffer);
+            height = Serializer.getVarLong(buffer);
+            solidificationTime = Serializer.getVarLong(buffer);
+
+            solid = (buffer.get() & IS_SOLID_BITMASK) != 0;
+
+            int senderLength = (int) Serializer.getVarLong(buffer);
+            sender = internSender(new String(bytes, buffer.position(), senderLength, StandardCharsets.UTF_8));
+            parsed = true;
+        } else {
+            readLegacyMetadata(bytes);
+        }
+    }
+
+    private void readLegacyMetadata(byte[] bytes) {
         int i = 0;
-        if(bytes != null) {
-            address = HashFactory.ADDRESS.create(bytes, i, Hash.SIZE_IN_BYTES);
-            i += Hash.SIZE_IN_BYTES;
-            bundle = HashFactory.BUNDLE.create(bytes, i, Hash.SIZE_IN_BYTES);
-            i += Hash.SIZE_IN_BYTES;
-            trunk = HashFactory.TRANSACTION.create(bytes, i, Hash.SIZE_IN_BYTES);
-            i += Hash.SIZE_IN_BYTES;
-            branch = HashFactory.TRANSACTION.create(bytes, i, Hash.SIZE_IN_BYTES);
-            i += Hash.SIZE_IN_BYTES;
-            obsoleteTag = HashFactory.OBSOLETETAG.create(bytes, i, Hash.SIZE_IN_BYTES);
-            i += Hash.SIZE_IN_BYTES;
-            value = Serializer.getLong(bytes, i);
-            i += Long.BYTES;
-            currentIndex = Serializer.getLong(bytes, i);
-            i += Long.BYTES;
-            lastIndex = Serializer.getLong(bytes, i);
-            i += Long.BYTES;
-            timestamp = Serializer.getLong(bytes, i);
-            i += Long.BYTES;
+        address = HashFactory.ADDRESS.create(bytes, i, Hash.SIZE_IN_BYTES);
+        i += Hash.SIZE_IN_BYTES;
+        bundle = HashFactory.BUNDLE.create(bytes, i, Hash.SIZE_IN_BYTES);
+        i += Hash.SIZE_IN_BYTES;
+        trunk = HashFactory.TRANSACTION.create(bytes, i, Hash.SIZE_IN_BYTES);
+        i += Hash.SIZE_IN_BYTES;
+        branch = HashFactory.TRANSACTION.create(bytes, i, Hash.SIZE_IN_BYTES);
+        i += Hash.SIZE_IN_BYTES;
+        obsoleteTag = HashFactory.OBSOLETETAG.create(bytes, i, Hash.SIZE_IN_BYTES);
+        i += Hash.SIZE_IN_BYTES;
+        value = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+        currentIndex = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+        lastIndex = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+        timestamp = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
 
-            tag = HashFactory.TAG.create(bytes, i, Hash.SIZE_IN_BYTES);
-            i += Hash.SIZE_IN_BYTES;
-            attachmentTimestamp = Serializer.getLong(bytes, i);
-            i += Long.BYTES;
-            attachmentTimestampLowerBound = Serializer.getLong(bytes, i);
-            i += Long.BYTES;
-            attachmentTimestampUpperBound = Serializer.getLong(bytes, i);
-            i += Long.BYTES;
+        tag = HashFactory.TAG.create(bytes, i, Hash.SIZE_IN_BYTES);
+        i += Hash.SIZE_IN_BYTES;
+        attachmentTimestamp = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+        attachmentTimestampLowerBound = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+        attachmentTimestampUpperBound = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+
+        validity = Serializer.getInteger(bytes, i);
+        i += Integer.BYTES;
+        type = Serializer.getInteger(bytes, i);
+        i += Integer.BYTES;
+        arrivalTime = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+        height = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+        solidificationTime = Serializer.getLong(bytes, i);
+        i += Long.BYTES;
+
+        // decode the boolean byte by checking the bitmasks
+        solid = (bytes[i] & IS_SOLID_BITMASK) != 0;
+        i++;
+
+        sender = internSender(new String(bytes, i, bytes.length - i));
+        parsed = true;
+    }
+
+    /**
+     * Transactions are received from a handful of neighbors, so the same few senders are shared by all transactions
+     * instead of keeping a copy per transaction.
+     */
+    private static String internSender(String sender) {
+        String interned = SENDERS.get(sender);
+        if (interned != null) {
+            return interned;
+        }
+        if (SENDERS.size() >= MAX_INTERNED_SENDERS) {
+            return sender;
+        }
+        interned = SENDERS.putIfAbsent(sender, sender);
+        return interned == null ? sender : interned;
+    }
+
+    @Override
+    public byte[] state() {
+        ByteBuffer buffer = ByteBuffer.allocate(STATE_SIZE);
+        buffer.put(Serializer.serialize(validity));
+        buffer.put(Serializer.serialize(arrivalTime));
+        buffer.put(Serializer.serialize(height));
+        buffer.put(Serializer.serialize(solidificationTime));
+        buffer.put(solid ? (byte) IS_SOLID_BITMASK : 0);
+        return buffer.array();
+    }
 
+    @Override
+    public void readState(byte[] bytes) {
+        if (bytes != null && bytes.length == STATE_SIZE) {
+            int i = 0;
             validity = Serializer.getInteger(bytes, i);
             i += Integer.BYTES;
-            type = Serializer.getInteger(bytes, i);
-            i += Integer.BYTES;
             arrivalTime = Serializer.getLong(bytes, i);
             i += Long.BYTES;
             height = Serializer.getLong(bytes, i);
             i += Long.BYTES;
             solidificationTime = Serializer.getLong(bytes, i);
             i += Long.BYTES;
-            /*
-            confirmed = bytes[i] == 1;
-            i++;
-            */
-
-            // decode the boolean byte by checking the bitmasks
             solid = (bytes[i] & IS_SOLID_BITMASK) != 0;
-            i++;
+        }
+    }
+
+    /**
+     * Only the times this node recorded are indexed. The attachment timestamp and the timestamp are chosen by the
+     * sender, so a transaction without an arrival time, e.g. after its metadata was rebuilt, is not indexed.
+     *
+     * @return <tt>true</tt> if the transaction belongs in the arrival index of the storage
+     */
+    public boolean hasArrivalTime() {
+        return arrivalTime > 0;
+    }
 
-            byte[] senderBytes = new byte[bytes.length - i];
-            if (senderBytes.length != 0) {
-                System.arraycopy(bytes, i, senderBytes, 0, senderBytes.length);
+    @Override
+    public boolean isStateUpdate(String item) {
+        for (String field : item.split("\\|")) {
+            if (!STATE_FIELDS.contains(field)) {
+                return false;
             }
-            sender = new String(senderBytes);
-            parsed = true;
         }
+        return true;
     }
 
     @Override
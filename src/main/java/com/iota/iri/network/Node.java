@@ -8,6 +8,9 @@ import com.iota.iri.crypto.SpongeFactory;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.HashFactory;
 import com.iota.iri.model.TransactionHash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.zmq.MessageQ;
 import org.apache.commons.lang3.StringUtils;
@@ -25,6 +28,7 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Class Node is the core class for handling IRI gossip protocol packets. 
@@ -414,13 +418,31 @@ public class Node {
     }
 
     /**
-     * Picks up a transaction and neighbor pair from receive queue. Calls 
-     * {@link processReceivedData} on the pair. 
+     * Picks up transaction and neighbor pairs from the receive queue and calls {@link processReceivedData} on them.
+     * Once a first pair was picked up, it keeps collecting pairs until either the configured batch size is reached
+     * or the configured latency bound expired, so the transactions can be stored in a single write.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting for more transactions
      */
-    public void processReceivedDataFromQueue() {
-        final Pair<TransactionViewModel, Neighbor> receivedData = receiveQueue.pollFirst();
-        if (receivedData != null) {
-            processReceivedData(receivedData.getLeft(), receivedData.getRight());
+    public void processReceivedDataFromQueue() throws InterruptedException {
+        int batchSize = Math.max(1, configuration.getReceiveBatchSize());
+        List<Pair<TransactionViewModel, Neighbor>> receivedData = new ArrayList<>(batchSize);
+        long deadline = 0;
+        while (receivedData.size() < batchSize) {
+            final Pair<TransactionViewModel, Neighbor> pair = receiveQueue.pollFirst();
+            if (pair != null) {
+                if (receivedData.isEmpty()) {
+                    deadline = System.currentTimeMillis() + configuration.getReceiveBatchLatency();
+                }
+                receivedData.add(pair);
+            } else if (receivedData.isEmpty() || System.currentTimeMillis() >= deadline || shuttingDown.get()) {
+                break;
+            } else {
+                Thread.sleep(PAUSE_BETWEEN_TRANSACTIONS);
+            }
+        }
+        if (!receivedData.isEmpty()) {
+            processReceivedData(receivedData);
         }
     }
 
@@ -442,31 +464,64 @@ public class Node {
      * transaction is then added to the broadcast queue, to be fruther spammed to the neighbors. 
      */
     public void processReceivedData(TransactionViewModel receivedTransactionViewModel, Neighbor neighbor) {
+        processReceivedData(Collections.singletonList(new ImmutablePair<>(receivedTransactionViewModel, neighbor)));
+    }
 
-        boolean stored = false;
+    /**
+     * Stores a batch of received transactions. The arrival time and the sender are assigned before the transactions
+     * are stored, so the transactions, their metadata and their index entries are written in a single batch. The
+     * solidity of the new transactions is then written in a second batch by
+     * {@link TransactionValidator#updateStatus(List)}, and the new transactions are broadcast.
+     *
+     * @param receivedData pairs of received transactions and the neighbors that sent them
+     */
+    public void processReceivedData(List<Pair<TransactionViewModel, Neighbor>> receivedData) {
+        List<Pair<TransactionViewModel, Neighbor>> newTransactions = new ArrayList<>(receivedData.size());
+        Map<Indexable, List<com.iota.iri.utils.Pair<Indexable, Persistable>>> batches = new LinkedHashMap<>();
+        List<Pair<TransactionViewModel, Neighbor>> received = new ArrayList<>(receivedData.size());
 
-        //store new transaction
         try {
-            stored = receivedTransactionViewModel.store(tangle);
+            for (Pair<TransactionViewModel, Neighbor> pair : receivedData) {
+                TransactionViewModel receivedTransactionViewModel = pair.getLeft();
+                Hash hash = receivedTransactionViewModel.getHash();
+                if (hash.equals(Hash.NULL_HASH) || batches.containsKey(hash)) {
+                    continue;
+                }
+                receivedTransactionViewModel.setArrivalTime(System.currentTimeMillis());
+                receivedTransactionViewModel.updateSender(pair.getRight().getAddress().toString());
+                batches.put(hash, receivedTransactionViewModel.getSaveBatch());
+                received.add(pair);
+            }
+            if (!batches.isEmpty()) {
+                //the storage decides which transactions are new, so they are checked and counted in the same write
+                Set<Indexable> inserted = tangle.saveBatchesIfAbsent(Transaction.class, batches);
+                for (Pair<TransactionViewModel, Neighbor> pair : received) {
+                    if (inserted.contains(pair.getLeft().getHash())) {
+                        newTransactions.add(pair);
+                    }
+                }
+            }
         } catch (Exception e) {
             log.error("Error accessing persistence store.", e);
-            neighbor.incInvalidTransactions();
+            receivedData.forEach(pair -> pair.getRight().incInvalidTransactions());
+            return;
         }
 
-        //if new, then broadcast to all neighbors
-        if (stored) {
-            receivedTransactionViewModel.setArrivalTime(System.currentTimeMillis());
-            try {
-                transactionValidator.updateStatus(receivedTransactionViewModel);
-                receivedTransactionViewModel.updateSender(neighbor.getAddress().toString());
-                receivedTransactionViewModel.update(tangle, "arrivalTime|sender");
-            } catch (Exception e) {
-                log.error("Error updating transactions.", e);
-            }
-            neighbor.incNewTransactions();
-            broadcast(receivedTransactionViewModel);
+        if (newTransactions.isEmpty()) {
+            return;
+        }
+        try {
+            transactionValidator.updateStatus(newTransactions.stream()
+                    .map(Pair::getLeft)
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.error("Error updating transactions.", e);
+        }
+        //new transactions are broadcast to all neighbors
+        for (Pair<TransactionViewModel, Neighbor> pair : newTransactions) {
+            pair.getRight().incNewTransactions();
+            broadcast(pair.getLeft());
         }
-
     }
 
     /**
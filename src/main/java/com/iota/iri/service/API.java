@@ -423,6 +423,12 @@ public class API {
                 case "getTips": {
                     return getTipsStatement();
                 }
+                case "createCheckpoint": {
+                    return createCheckpointStatement();
+                }
+                case "getDatabaseMetrics": {
+                    return getDatabaseMetricsStatement();
+                }
                 case "getConfidences": {
                     final List<Hash> transactions = getParameterAsList(request, "transactions", HASH_SIZE).stream()
                         .map(HashFactory.TRANSACTION::create)
@@ -620,11 +626,12 @@ public class API {
       **/
     private synchronized AbstractResponse getTrytesStatement(List<String> hashes) throws Exception {
         final List<String> elements = new LinkedList<>();
+        final List<Hash> transactionHashes = new ArrayList<>(hashes.size());
         for (final String hash : hashes) {
-            final TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(instance.tangle, HashFactory.TRANSACTION.create(hash));
-            if (transactionViewModel != null) {
-                elements.add(Converter.trytes(transactionViewModel.trits()));
-            }
+            transactionHashes.add(HashFactory.TRANSACTION.create(hash));
+        }
+        for (final TransactionViewModel transactionViewModel : TransactionViewModel.fromHashes(instance.tangle, transactionHashes)) {
+            elements.add(Converter.trytes(transactionViewModel.trits()));
         }
         if (elements.size() > maxGetTrytes){
             return ErrorResponse.create(overMaxErrorMessage);
@@ -698,6 +705,21 @@ public class API {
         }
     }
 
+    /**
+     * Creates a checkpoint of the database while the node keeps running.
+     * The checkpoint can be used to bootstrap new nodes with <tt>--db-bootstrap-path</tt>.
+     *
+     * @return {@link com.iota.iri.service.dto.CreateCheckpointResponse}
+     **/
+    private AbstractResponse createCheckpointStatement() {
+        try {
+            return CreateCheckpointResponse.create(instance.databaseCheckpointer.createCheckpoint().getPath());
+        } catch (Exception e) {
+            log.error("Checkpoint creation failed", e);
+            return ErrorResponse.create(e.getLocalizedMessage());
+        }
+    }
+
     /**
       * Tip selection which returns <tt>trunkTransaction</tt> and <tt>branchTransaction</tt>.
       * The <tt>reference</tt> is an optional hash of a transaction you want to approve.
@@ -793,9 +815,10 @@ public class API {
         }
         
         for (final TransactionViewModel transactionViewModel : elements) {
+            //the arrival time is indexed when the transaction is stored
+            transactionViewModel.setArrivalTime(System.currentTimeMillis());
             //store transactions
             if(transactionViewModel.store(instance.tangle)) {
-                transactionViewModel.setArrivalTime(System.currentTimeMillis());
                 instance.transactionValidator.updateStatus(transactionViewModel);
                 transactionViewModel.updateSender("local");
                 transactionViewModel.update(instance.tangle, "sender");
@@ -832,10 +855,21 @@ public class API {
                 instance.tipsViewModel.size(),
                 instance.transactionRequester.numberOfTransactionsToRequest(),
                 features,
-                instance.lagCalculator.getMedianArrivalLag()
+                instance.lagCalculator.getMedianArrivalLag(),
+                instance.tangle.getMetrics()
         );
     }
 
+    /**
+     * Returns the metrics of the database engine and the exact counters of the database.
+     *
+     * @return {@link com.iota.iri.service.dto.GetDatabaseMetricsResponse}
+     * @throws Exception if the metrics or counters could not be read
+     **/
+    private AbstractResponse getDatabaseMetricsStatement() throws Exception {
+        return GetDatabaseMetricsResponse.create(instance.tangle.getMetrics(), instance.tangle.getCounters());
+    }
+
     /**
      * <p>
      *     Get the inclusion states of a set of transactions.
@@ -0,0 +1,167 @@
+package com.iota.iri.service;
+
+import com.iota.iri.conf.DbConfig;
+import com.iota.iri.storage.Tangle;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Creates checkpoints of the database on a schedule or on request, and bootstraps new nodes from them.
+ *
+ * <p>
+ * Checkpoints are created online: the node keeps receiving and storing transactions while a checkpoint is written.
+ * The checkpoints are kept in {@link DbConfig#getDbCheckpointPath()}, named by their creation time, and only the most
+ * recent {@link DbConfig#getDbCheckpointRetention()} checkpoints are kept.
+ * </p>
+ * <p>
+ * A node with an empty database can be bootstrapped from a checkpoint, instead of syncing the whole tangle from its
+ * neighbors.
+ * </p>
+ */
+public class DatabaseCheckpointer {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseCheckpointer.class);
+
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+
+    private final Tangle tangle;
+    private final File checkpointFolder;
+    private final long intervalMs;
+    private final int retention;
+
+    private volatile boolean shuttingDown = false;
+    private Thread checkpointThread;
+
+    /**
+     * @param tangle the tangle to create checkpoints of
+     * @param config provides the checkpoint folder, interval and retention
+     */
+    public DatabaseCheckpointer(Tangle tangle, DbConfig config) {
+        this.tangle = tangle;
+        this.checkpointFolder = new File(config.getDbCheckpointPath());
+        this.intervalMs = TimeUnit.HOURS.toMillis(config.getDbCheckpointInterval());
+        this.retention = Math.max(1, config.getDbCheckpointRetention());
+    }
+
+    /**
+     * Starts the scheduled checkpoints if a checkpoint interval is configured.
+     */
+    public void init() {
+        if (intervalMs <= 0) {
+            return;
+        }
+        checkpointThread = new Thread(() -> {
+            while (!shuttingDown) {
+                try {
+                    Thread.sleep(intervalMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                try {
+                    createCheckpoint();
+                } catch (Exception e) {
+                    log.error("Error while creating a database checkpoint", e);
+                }
+            }
+        }, "Database Checkpointer");
+        checkpointThread.setDaemon(true);
+        checkpointThread.start();
+    }
+
+    public void shutdown() {
+        shuttingDown = true;
+        try {
+            if (checkpointThread != null && checkpointThread.isAlive()) {
+                checkpointThread.interrupt();
+                checkpointThread.join();
+            }
+        } catch (Exception e) {
+            log.error("Error in shutdown", e);
+        }
+    }
+
+    /**
+     * Creates a checkpoint of the database and deletes the checkpoints that exceed the retention.
+     *
+     * @return the folder of the new checkpoint
+     * @throws Exception if the database does not support checkpoints or the checkpoint could not be created
+     */
+    public synchronized File createCheckpoint() throws Exception {
+        if (!checkpointFolder.isDirectory() && !checkpointFolder.mkdirs()) {
+            throw new IOException("Unable to create the checkpoint folder " + checkpointFolder);
+        }
+        File checkpoint = new File(checkpointFolder, String.format("%s%013d", CHECKPOINT_PREFIX,
+                System.currentTimeMillis()));
+        long start = System.currentTimeMillis();
+        if (!tangle.createCheckpoint(checkpoint.getPath())) {
+            throw new UnsupportedOperationException("The database does not support checkpoints");
+        }
+        log.info("Created the database checkpoint {} in {} ms", checkpoint, System.currentTimeMillis() - start);
+
+        File[] checkpoints = checkpointFolder.listFiles(file -> file.isDirectory()
+                && file.getName().startsWith(CHECKPOINT_PREFIX));
+        if (checkpoints != null && checkpoints.length > retention) {
+            Arrays.sort(checkpoints);
+            for (File expired : Arrays.copyOf(checkpoints, checkpoints.length - retention)) {
+                FileUtils.deleteDirectory(expired);
+                log.info("Deleted the database checkpoint {}", expired);
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Creates the database folder from a checkpoint, unless the database already contains data. The table files are
+     * immutable, so they are hard linked if possible. All other files are copied, because the database may change them.
+     *
+     * @param checkpoint the folder of the checkpoint
+     * @param dbFolder the folder of the database
+     * @return <tt>true</tt> if the database was created from the checkpoint
+     * @throws IOException if the checkpoint could not be copied
+     */
+    public static boolean bootstrap(File checkpoint, File dbFolder) throws IOException {
+        String[] existing = dbFolder.list();
+        if (existing != null && existing.length > 0) {
+            log.info("The database {} is not empty, it is not bootstrapped from {}", dbFolder, checkpoint);
+            return false;
+        }
+        if (!checkpoint.isDirectory()) {
+            throw new IOException("The checkpoint " + checkpoint + " does not exist");
+        }
+
+        log.info("Bootstrapping the database {} from {}", dbFolder, checkpoint);
+        File bootstrapFolder = new File(dbFolder.getPath() + ".bootstrap");
+        FileUtils.deleteDirectory(bootstrapFolder);
+        Files.createDirectories(bootstrapFolder.toPath());
+        try (Stream<Path> files = Files.list(checkpoint.toPath())) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path target = bootstrapFolder.toPath().resolve(file.getFileName());
+                if (file.getFileName().toString().endsWith(".sst")) {
+                    try {
+                        Files.createLink(target, file);
+                        continue;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        log.debug("Unable to link {}, it is copied", file, e);
+                    }
+                }
+                Files.copy(file, target, StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+        //the database folder only appears once the whole checkpoint is in place
+        FileUtils.deleteDirectory(dbFolder);
+        Files.move(bootstrapFolder.toPath(), dbFolder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        log.info("Bootstrapped the database {} from {}", dbFolder, checkpoint);
+        return true;
+    }
+}
@@ -0,0 +1,199 @@
+package com.iota.iri.service;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.model.persistables.Approvee;
+import com.iota.iri.model.persistables.Bundle;
+import com.iota.iri.model.persistables.ObsoleteTag;
+import com.iota.iri.model.persistables.Tag;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the index columns (addresses, approvees, bundles and tags) and the transaction metadata from the stored
+ * transactions.
+ *
+ * <p>
+ * The transaction hashes are split into {@link #RANGES} ranges by their first byte, which are rescanned in parallel,
+ * each with a single scan of the transaction column. The index entries are written in large batches. After every batch
+ * the last rescanned key of the range is written to a checkpoint file, so an interrupted rescan is resumed where it
+ * stopped instead of clearing the indexes again.
+ * </p>
+ */
+public class DatabaseRescanner {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseRescanner.class);
+
+    /**
+     * The number of hash ranges the transactions are split into.
+     */
+    static final int RANGES = 64;
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String RANGES_PROPERTY = "ranges";
+    private static final String RANGE_PROPERTY = "range.";
+    private static final String DONE = "done";
+
+    private final Tangle tangle;
+    private final File checkpointFile;
+    private final int threads;
+
+    private final Properties checkpoint = new Properties();
+    private final AtomicLong rescannedTransactions = new AtomicLong();
+
+    /**
+     * @param tangle the tangle to rescan
+     * @param checkpointFile the file that keeps track of the progress of a rescan
+     * @param threads the number of ranges that are rescanned in parallel
+     */
+    public DatabaseRescanner(Tangle tangle, File checkpointFile, int threads) {
+        this.tangle = tangle;
+        this.checkpointFile = checkpointFile;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @return <tt>true</tt> if a rescan was interrupted and has to be resumed
+     */
+    public boolean hasCheckpoint() {
+        return checkpointFile.exists();
+    }
+
+    /**
+     * Rescans all transactions, or resumes an interrupted rescan.
+     *
+     * @throws Exception if the rescan failed, it is resumed by the next call
+     */
+    public void rescan() throws Exception {
+        if (hasCheckpoint()) {
+            try (InputStream in = new FileInputStream(checkpointFile)) {
+                checkpoint.load(in);
+            }
+            log.info("Resuming the interrupted rescan");
+        } else {
+            //delete all transaction indexes
+            tangle.clearColumn(Address.class);
+            tangle.clearColumn(Bundle.class);
+            tangle.clearColumn(Approvee.class);
+            tangle.clearColumn(ObsoleteTag.class);
+            tangle.clearColumn(Tag.class);
+            tangle.clearMetadata(Transaction.class);
+            checkpoint.setProperty(RANGES_PROPERTY, String.valueOf(RANGES));
+            saveCheckpoint();
+        }
+
+        int ranges = Integer.parseInt(checkpoint.getProperty(RANGES_PROPERTY));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int range = 0; range < ranges; range++) {
+                int index = range;
+                futures.add(executor.submit(() -> {
+                    rescanRange(index, ranges);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Files.delete(checkpointFile.toPath());
+        log.info("Rescanned {} transactions", rescannedTransactions.get());
+    }
+
+    private void rescanRange(int range, int ranges) throws Exception {
+        String progress = getProgress(range);
+        if (DONE.equals(progress)) {
+            return;
+        }
+        int start = range * 256 / ranges;
+        int end = (range + 1) * 256 / ranges;
+        //continue right after the last rescanned key
+        byte[] from = new byte[]{(byte) start};
+        if (progress != null) {
+            byte[] lastKey = Base64.getDecoder().decode(progress);
+            from = Arrays.copyOf(lastKey, lastKey.length + 1);
+        }
+        byte[] to = end == 256 ? null : new byte[]{(byte) end};
+
+        List<Pair<Indexable, Persistable>> batch = new ArrayList<>();
+        byte[][] lastKey = new byte[1][];
+        int[] transactions = {0};
+        tangle.scan(Transaction.class, from, to, false, (key, value) -> {
+            TransactionViewModel transaction = new TransactionViewModel((Transaction) value, (Hash) key);
+            batch.addAll(transaction.getSaveBatch());
+            lastKey[0] = key.bytes();
+            if (++transactions[0] == BATCH_SIZE) {
+                writeBatch(range, batch, lastKey[0], transactions[0]);
+                transactions[0] = 0;
+            }
+            return !Thread.currentThread().isInterrupted();
+        });
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("the rescan was interrupted");
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(range, batch, lastKey[0], transactions[0]);
+        }
+        setProgress(range, DONE);
+    }
+
+    private void writeBatch(int range, List<Pair<Indexable, Persistable>> batch, byte[] lastKey, int transactions)
+            throws Exception {
+        tangle.saveBatch(batch);
+        batch.clear();
+        setProgress(range, Base64.getEncoder().encodeToString(lastKey));
+        long rescanned = rescannedTransactions.addAndGet(transactions);
+        if (rescanned / BATCH_SIZE % 100 == 0) {
+            log.info("Rescanned {} transactions", rescanned);
+        }
+    }
+
+    private synchronized String getProgress(int range) {
+        return checkpoint.getProperty(RANGE_PROPERTY + range);
+    }
+
+    private synchronized void setProgress(int range, String progress) throws IOException {
+        checkpoint.setProperty(RANGE_PROPERTY + range, progress);
+        saveCheckpoint();
+    }
+
+    /**
+     * Replaces the checkpoint file atomically, so a crash never leaves a partially written checkpoint behind.
+     */
+    private synchronized void saveCheckpoint() throws IOException {
+        File temporaryFile = new File(checkpointFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temporaryFile)) {
+            checkpoint.store(out, "rescan progress");
+        }
+        Files.move(temporaryFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,159 @@
+package com.iota.iri.service;
+
+import com.iota.iri.controllers.TipsViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the tips periodically and on shutdown, and restores them on startup.
+ *
+ * <p>
+ * Without saved tips, the first tip selection after a restart has to find the solid tips with a search through the
+ * whole tangle. The restored tips are validated lazily by the {@link TipsViewModel}, so outdated tips in the file are
+ * harmless. The search is only needed if the file is missing or none of its solid tips are still solid tips.
+ * </p>
+ */
+public class TipsPersister {
+
+    private static final Logger log = LoggerFactory.getLogger(TipsPersister.class);
+
+    static final long SAVE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int VERSION = 1;
+
+    private final TipsViewModel tipsViewModel;
+    private final File tipsFile;
+
+    private volatile boolean shuttingDown = false;
+    private Thread saveThread;
+
+    /**
+     * @param tipsViewModel the tips to save and restore
+     * @param tipsFile the file the tips are saved in
+     */
+    public TipsPersister(TipsViewModel tipsViewModel, File tipsFile) {
+        this.tipsViewModel = tipsViewModel;
+        this.tipsFile = tipsFile;
+    }
+
+    /**
+     * Restores the saved tips and starts saving them periodically.
+     */
+    public void init() {
+        try {
+            restore();
+        } catch (IOException e) {
+            log.error("Unable to restore the tips from {}, they will be searched again", tipsFile, e);
+        }
+        saveThread = new Thread(() -> {
+            while (!shuttingDown) {
+                try {
+                    Thread.sleep(SAVE_INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                try {
+                    save();
+                } catch (IOException e) {
+                    log.error("Error while saving the tips", e);
+                }
+            }
+        }, "Tips Persister");
+        saveThread.setDaemon(true);
+        saveThread.start();
+    }
+
+    /**
+     * Stops the periodic saves and saves the tips a last time.
+     */
+    public void shutdown() {
+        shuttingDown = true;
+        try {
+            if (saveThread != null && saveThread.isAlive()) {
+                saveThread.interrupt();
+                saveThread.join();
+            }
+            save();
+        } catch (Exception e) {
+            log.error("Error in shutdown", e);
+        }
+    }
+
+    /**
+     * Replaces the tips file atomically, so a crash never leaves a partially written file behind.
+     *
+     * @throws IOException if the file could not be written
+     */
+    void save() throws IOException {
+        List<Hash> nonSolidTips = tipsViewModel.getNonSolidTips();
+        List<Hash> solidTips = tipsViewModel.getSolidTips();
+        File temporaryFile = new File(tipsFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temporaryFile)))) {
+            out.writeInt(VERSION);
+            writeHashes(out, nonSolidTips);
+            writeHashes(out, solidTips);
+        }
+        Files.move(temporaryFile.toPath(), tipsFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return <tt>true</tt> if tips were restored, <tt>false</tt> if no tips were saved
+     * @throws IOException if the file could not be read
+     */
+    boolean restore() throws IOException {
+        if (!tipsFile.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(tipsFile)))) {
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unknown version " + version + " of the tips file");
+            }
+            List<Hash> nonSolidTips = readHashes(in);
+            List<Hash> solidTips = readHashes(in);
+            tipsViewModel.restore(nonSolidTips, solidTips);
+            log.info("Restored {} solid and {} non solid tips", solidTips.size(), nonSolidTips.size());
+        }
+        return true;
+    }
+
+    private static void writeHashes(DataOutputStream out, List<Hash> hashes) throws IOException {
+        out.writeInt(hashes.size());
+        for (Hash hash : hashes) {
+            out.write(hash.bytes());
+        }
+    }
+
+    private static List<Hash> readHashes(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || size > TipsViewModel.MAX_TIPS) {
+            throw new IOException("Invalid number of tips " + size);
+        }
+        List<Hash> hashes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte[] bytes = new byte[Hash.SIZE_IN_BYTES];
+            in.readFully(bytes);
+            hashes.add(HashFactory.TRANSACTION.create(bytes));
+        }
+        return hashes;
+    }
+}
@@ -0,0 +1,204 @@
+package com.iota.iri.service;
+
+import com.iota.iri.TransactionValidator;
+import com.iota.iri.conf.DbConfig;
+import com.iota.iri.controllers.TipsViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.model.persistables.Approvee;
+import com.iota.iri.model.persistables.Bundle;
+import com.iota.iri.model.persistables.Hashes;
+import com.iota.iri.model.persistables.ObsoleteTag;
+import com.iota.iri.model.persistables.Tag;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.network.TransactionRequester;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continuously deletes transactions that are older than the configured age, together with their index entries.
+ * If the tangle has a {@link com.iota.iri.storage.archive.TransactionArchive}, the transactions are moved to it.
+ *
+ * <p>
+ * Expired transactions are read from the arrival index, oldest first and in small batches, so pruning never blocks
+ * the ingestion of new transactions for long. Every batch that deletes transactions moves the epoch of the {@link TransactionValidator} to
+ * the pruning horizon, so pruned transactions are not requested and stored again.
+ * </p>
+ * <p>
+ * This replaces the weekly wipe of the whole database, which forced the node to resync from its neighbors.
+ * </p>
+ */
+public class TransactionPruner {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionPruner.class);
+
+    private final Tangle tangle;
+    private final TipsViewModel tipsViewModel;
+    private final TransactionRequester transactionRequester;
+    private final long maxAgeMs;
+    private final int batchSize;
+    private final long intervalMs;
+
+    private long prunedTransactions;
+
+    private volatile boolean shuttingDown = false;
+    private Thread pruningThread;
+
+    /**
+     * @param tangle the tangle to prune
+     * @param tipsViewModel pruned transactions are removed from the tips
+     * @param transactionRequester pruned transactions are no longer requested
+     * @param config provides the pruning age, batch size and interval
+     */
+    public TransactionPruner(Tangle tangle, TipsViewModel tipsViewModel, TransactionRequester transactionRequester,
+                             DbConfig config) {
+        this.tangle = tangle;
+        this.tipsViewModel = tipsViewModel;
+        this.transactionRequester = transactionRequester;
+        this.maxAgeMs = TimeUnit.HOURS.toMillis(config.getDbPruningAge());
+        this.batchSize = config.getDbPruningBatchSize();
+        this.intervalMs = config.getDbPruningInterval();
+    }
+
+    /**
+     * Starts the pruning thread if pruning is enabled.
+     */
+    public void init() {
+        if (maxAgeMs <= 0 || batchSize <= 0) {
+            log.info("Transaction pruning is disabled");
+            return;
+        }
+        pruningThread = new Thread(() -> {
+            while (!shuttingDown) {
+                try {
+                    pruneBatch(System.currentTimeMillis());
+                } catch (Exception e) {
+                    log.error("Error while pruning transactions", e);
+                }
+                try {
+                    Thread.sleep(intervalMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }, "Transaction Pruner");
+        pruningThread.setDaemon(true);
+        pruningThread.start();
+    }
+
+    public void shutdown() {
+        shuttingDown = true;
+        try {
+            if (pruningThread != null && pruningThread.isAlive()) {
+                pruningThread.interrupt();
+                pruningThread.join();
+            }
+        } catch (Exception e) {
+            log.error("Error in shutdown", e);
+        }
+        log.info("Pruned {} transactions", prunedTransactions);
+    }
+
+    /**
+     * Deletes up to {@link DbConfig#getDbPruningBatchSize()} of the oldest transactions that arrived before the pruning
+     * horizon.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of deleted transactions
+     * @throws Exception if the transactions could not be read or deleted
+     */
+    public int pruneBatch(long now) throws Exception {
+        long horizon = now - maxAgeMs;
+
+        List<Hash> hashes = new ArrayList<>(batchSize);
+        tangle.scanArrivals(0, horizon, false, (key, value) -> {
+            if (!Hash.NULL_HASH.equals(key)) {
+                hashes.add((Hash) key);
+            }
+            return hashes.size() < batchSize;
+        });
+        List<TransactionViewModel> expired = new ArrayList<>(hashes.size());
+        List<Pair<Hash, Transaction>> archived = new ArrayList<>(hashes.size());
+        List<Persistable> transactions = tangle.multiGet(Transaction.class, hashes);
+        for (int i = 0; i < hashes.size(); i++) {
+            TransactionViewModel transaction = new TransactionViewModel((Transaction) transactions.get(i),
+                    hashes.get(i));
+            if (transaction.getType() == TransactionViewModel.FILLED_SLOT) {
+                expired.add(transaction);
+                archived.add(new Pair<>(hashes.get(i), (Transaction) transactions.get(i)));
+            }
+        }
+
+        if (!expired.isEmpty()) {
+            TransactionValidator.setLatestEpochTimestamp(horizon / 1000);
+            //the transactions are archived first, a crash in between leaves them in both places instead of neither
+            if (tangle.getArchive() != null) {
+                tangle.getArchive().append(archived);
+            }
+            prune(expired);
+            prunedTransactions += expired.size();
+            log.debug("Pruned {} transactions", expired.size());
+        }
+        return expired.size();
+    }
+
+    private void prune(List<TransactionViewModel> transactions) throws Exception {
+        Set<Hash> pruned = new HashSet<>();
+        Map<Class<? extends Hashes>, Map<Indexable, Set<Hash>>> indexEntries = new HashMap<>();
+        List<Pair<Indexable, ? extends Class<? extends Persistable>>> deletions = new ArrayList<>();
+        for (TransactionViewModel transaction : transactions) {
+            Hash hash = transaction.getHash();
+            pruned.add(hash);
+            deletions.add(new Pair<>(hash, Transaction.class));
+            //the approvers of a pruned transaction must not make it look like a missing transaction
+            deletions.add(new Pair<>(hash, Approvee.class));
+
+            addIndexEntry(indexEntries, Address.class, transaction.getAddressHash(), hash);
+            addIndexEntry(indexEntries, Bundle.class, transaction.getBundleHash(), hash);
+            addIndexEntry(indexEntries, Approvee.class, transaction.getTrunkTransactionHash(), hash);
+            addIndexEntry(indexEntries, Approvee.class, transaction.getBranchTransactionHash(), hash);
+            addIndexEntry(indexEntries, ObsoleteTag.class, transaction.getObsoleteTagValue(), hash);
+            addIndexEntry(indexEntries, Tag.class, transaction.getTagValue(), hash);
+        }
+
+        tangle.deleteBatch(deletions);
+        for (Map.Entry<Class<? extends Hashes>, Map<Indexable, Set<Hash>>> column : indexEntries.entrySet()) {
+            if (column.getKey() == Approvee.class) {
+                //the approvee entries of pruned transactions were deleted with them
+                column.getValue().keySet().removeAll(pruned);
+            }
+            tangle.removeFromIndex(column.getKey(), column.getValue());
+        }
+
+        for (Hash hash : pruned) {
+            tipsViewModel.removeTipHash(hash);
+            transactionRequester.clearTransactionRequest(hash);
+        }
+    }
+
+    private static void addIndexEntry(Map<Class<? extends Hashes>, Map<Indexable, Set<Hash>>> indexEntries,
+                                      Class<? extends Hashes> model, Indexable index, Hash hash) {
+        indexEntries.computeIfAbsent(model, key -> new HashMap<>())
+                .computeIfAbsent(index, key -> new HashSet<>())
+                .add(hash);
+    }
+
+    public long getPrunedTransactions() {
+        return prunedTransactions;
+    }
+
+}
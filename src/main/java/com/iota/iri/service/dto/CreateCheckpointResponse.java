@@ -0,0 +1,38 @@
+package com.iota.iri.service.dto;
+
+import com.iota.iri.service.API;
+
+/**
+ * 
+ * Contains information about the result of a successful {@code createCheckpoint} API call.
+ * See {@link API#createCheckpointStatement} for how this response is created.
+ *
+ */
+public class CreateCheckpointResponse extends AbstractResponse {
+
+    /**
+     * The folder of the created checkpoint.
+     */
+    private String path;
+
+    /**
+     * Creates a new {@link CreateCheckpointResponse}
+     * 
+     * @param path {@link #path}
+     * @return an {@link CreateCheckpointResponse} filled with the folder of the checkpoint
+     */
+    public static AbstractResponse create(String path) {
+        CreateCheckpointResponse res = new CreateCheckpointResponse();
+        res.path = path;
+        return res;
+    }
+
+    /**
+     * 
+     * @return {@link #path}
+     */
+    public String getPath() {
+        return path;
+    }
+
+}
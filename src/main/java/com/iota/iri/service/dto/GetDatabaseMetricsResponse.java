@@ -0,0 +1,56 @@
+package com.iota.iri.service.dto;
+
+import java.util.Map;
+
+import com.iota.iri.service.API;
+
+/**
+ *
+ * Contains information about the result of a successful {@code getDatabaseMetrics} API call.
+ * See {@link API#getDatabaseMetricsStatement} for how this response is created.
+ *
+ */
+public class GetDatabaseMetricsResponse extends AbstractResponse {
+
+    /**
+     * The metrics of the database engine, e.g. cache hits, write stalls, compactions and the file sizes of every
+     * column.
+     */
+    private Map<String, Long> metrics;
+
+    /**
+     * The exact counters of the database, e.g. the number of stored, solid and missing transactions.
+     */
+    private Map<String, Long> counters;
+
+    /**
+     * Creates a new {@link GetDatabaseMetricsResponse}
+     *
+     * @param metrics {@link #metrics}
+     * @param counters {@link #counters}
+     * @return a {@link GetDatabaseMetricsResponse} filled with the metrics and counters of the database
+     */
+    public static AbstractResponse create(Map<String, Long> metrics, Map<String, Long> counters) {
+        GetDatabaseMetricsResponse res = new GetDatabaseMetricsResponse();
+        res.metrics = metrics;
+        res.counters = counters;
+        return res;
+    }
+
+    /**
+     *
+     * @return {@link #metrics}
+     */
+    public Map<String, Long> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     *
+     * @return {@link #counters}
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+}
@@ -3,6 +3,8 @@ package com.iota.iri.service.dto;
 import com.iota.iri.service.API;
 import com.iota.iri.service.Feature;
 
+import java.util.Map;
+
 /**
  * 
  * Contains information about the result of a successful {@code getNodeInfo} API call.
@@ -89,6 +91,12 @@ public class GetNodeInfoResponse extends AbstractResponse {
      */
     private long medianArrivalLag;
 
+    /**
+     * The metrics of the database engine, e.g. the block cache hit ratio, write stalls and pending compaction bytes.
+     * See {@link com.iota.iri.storage.PersistenceProvider#getMetrics()}.
+     */
+    private Map<String, Long> databaseMetrics;
+
     /**
      * Creates a new {@link GetNodeInfoResponse}
      * 
@@ -106,13 +114,14 @@ public class GetNodeInfoResponse extends AbstractResponse {
      * @param numberOfTransactionsToRequest {@link #transactionsToRequest}
      * @param features {@link #features}
      * @param medianArrivalLag {@link #medianArrivalLag}
+     * @param databaseMetrics {@link #databaseMetrics}
      * @return a {@link GetNodeInfoResponse} filled with all the provided parameters
      */
 	public static AbstractResponse create(String appName, String appVersion, int jreAvailableProcessors, long jreFreeMemory,
 								  String jreVersion, long maxMemory, long totalMemory,
 								  int neighbors, int packetsQueueSize, long currentTimeMillis, int tips,
 								  int numberOfTransactionsToRequest, String[] features,
-								  long medianArrivalLag) {
+								  long medianArrivalLag, Map<String, Long> databaseMetrics) {
 		final GetNodeInfoResponse res = new GetNodeInfoResponse();
 		res.appName = appName;
 		res.appVersion = appVersion;
@@ -131,6 +140,7 @@ public class GetNodeInfoResponse extends AbstractResponse {
 		
 		res.features = features;
 		res.medianArrivalLag = medianArrivalLag;
+		res.databaseMetrics = databaseMetrics;
 		return res;
 	}
 
@@ -245,4 +255,12 @@ public class GetNodeInfoResponse extends AbstractResponse {
 	public long getMedianArrivalLag() {
 	    return medianArrivalLag;
 	}
+
+	/**
+	 *
+	 * @return {@link #databaseMetrics}
+	 */
+	public Map<String, Long> getDatabaseMetrics() {
+	    return databaseMetrics;
+	}
 }
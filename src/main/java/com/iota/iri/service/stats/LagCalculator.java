@@ -1,5 +1,6 @@
 package com.iota.iri.service.stats;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -29,8 +30,7 @@ public class LagCalculator {
             return -1;
           }
 
-          Long[] lags = recentTransactions.stream()
-              .map(this::fromHash)
+          Long[] lags = TransactionViewModel.fromHashes(tangle, new ArrayList<>(recentTransactions)).stream()
               .map(tx -> new Long(Math.abs(tx.getAttachmentTimestamp() - tx.getArrivalTime())))
               .toArray(Long[]::new);
           
@@ -43,12 +43,4 @@ public class LagCalculator {
 
           return median;
     }
-
-    private TransactionViewModel fromHash(Hash hash) {
-        try {
-            return TransactionViewModel.fromHash(tangle, hash);
-        } catch (Exception e) {
-            throw new RuntimeException("failed to load transaction");
-        }
-    }
 }
@@ -1,6 +1,5 @@
 package com.iota.iri.service.stats;
 
-import com.iota.iri.controllers.TipsViewModel;
 import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.service.tipselection.TipSelector;
@@ -14,7 +13,9 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -24,6 +25,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * 
  * For the confirmed transactions, the normal tip selection is performed to determine a supertip. The number of
  * transactions in its past set is then published to ZMQ.
+ *
+ * The exact counters of the database, e.g. the number of stored, solid and missing transactions, are published with
+ * one message per counter. The metrics of the database engine, e.g. the block cache hit ratio, write stalls and pending
+ * compaction bytes, are published the same way.
  */
 public class TransactionStatsPublisher {
 
@@ -31,6 +36,8 @@ public class TransactionStatsPublisher {
 
     private static final String CONFIRMED_TRANSACTIONS_TOPIC = "ct5m2h";
     private static final String TOTAL_TRANSACTIONS_TOPIC = "t5m2h";
+    private static final String DATABASE_COUNTER_TOPIC = "dbstat";
+    private static final String DATABASE_METRIC_TOPIC = "dbmetric";
 
     private static final Duration MIN_TRANSACTION_AGE_THRESHOLD = Duration.ofMinutes(5);
     private static final Duration MAX_TRANSACTION_AGE_THRESHOLD = Duration.ofHours(2);
@@ -38,7 +45,6 @@ public class TransactionStatsPublisher {
     private final Logger log = LoggerFactory.getLogger(TransactionStatsPublisher.class);
 
     private final Tangle tangle;
-    private final TipsViewModel tipsViewModel;
     private final TipSelector tipsSelector;
     private final TimeWindowedApproveeCounter approveeCounter;
 
@@ -47,11 +53,9 @@ public class TransactionStatsPublisher {
     private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
     private Thread thread;
 
-    public TransactionStatsPublisher(Tangle tangle, TipsViewModel tipsViewModel, TipSelector tipsSelector,
-            MessageQ messageQ) {
+    public TransactionStatsPublisher(Tangle tangle, TipSelector tipsSelector, MessageQ messageQ) {
 
         this.tangle = tangle;
-        this.tipsViewModel = tipsViewModel;
         this.tipsSelector = tipsSelector;
         this.approveeCounter = new TimeWindowedApproveeCounter(tangle, MIN_TRANSACTION_AGE_THRESHOLD,
                 MAX_TRANSACTION_AGE_THRESHOLD);
@@ -80,6 +84,20 @@ public class TransactionStatsPublisher {
                 } catch (Exception e) {
                     log.error("Error while getting transaction counts : {}", e);
                 }
+                try {
+                    for (Map.Entry<String, Long> counter : new TreeMap<>(tangle.getCounters()).entrySet()) {
+                        messageQ.publish(DATABASE_COUNTER_TOPIC + " %s %d", counter.getKey(), counter.getValue());
+                    }
+                } catch (Exception e) {
+                    log.error("Error while getting database counters", e);
+                }
+                try {
+                    for (Map.Entry<String, Long> metric : new TreeMap<>(tangle.getMetrics()).entrySet()) {
+                        messageQ.publish(DATABASE_METRIC_TOPIC + " %s %d", metric.getKey(), metric.getValue());
+                    }
+                } catch (Exception e) {
+                    log.error("Error while getting database metrics", e);
+                }
                 try {
                     Thread.sleep(PUBLISH_INTERVAL);
                 } catch (InterruptedException e) {
@@ -104,20 +122,10 @@ public class TransactionStatsPublisher {
 
     private long getAllTransactionsCount(Instant now) throws Exception {
 
-        // count all transactions in a scalable way, by counting the approvees of all the tips
-        HashSet<Hash> processedTransactions = new HashSet<>();
-        long count = 0;
-        for (Hash tip : tipsViewModel.getTips()) {
-            // count the tip, if it is the valid time window
-            if (approveeCounter.isInTimeWindow(now, TransactionViewModel.fromHash(tangle, tip))) {
-                count += 1 + approveeCounter.getCount(now, tip, processedTransactions);
-            } else {
-                // even if the tip is not in the time window, count approvees that might be older
-                count += approveeCounter.getCount(now, tip, processedTransactions);
-            }
-        }
-
-        return count;
+        // arrival times are stored in milliseconds, so the window can be read from the arrival index directly
+        long from = now.minus(MAX_TRANSACTION_AGE_THRESHOLD).toEpochMilli();
+        long to = now.minus(MIN_TRANSACTION_AGE_THRESHOLD).toEpochMilli() + 1;
+        return TransactionViewModel.countArrivals(tangle, from, to);
     }
 
     /**
@@ -0,0 +1,106 @@
+package com.iota.iri.service.tipselection.impl;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashId;
+import com.iota.iri.service.tipselection.RatingCalculator;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.LongSupplier;
+
+/**
+ * Implementation of <tt>RatingCalculator</tt> that shares the ratings of an entry point between concurrent tip
+ * selections.
+ *
+ * <p>
+ * The ratings of an entry point are calculated by the decorated calculator at most once every <tt>maxAge</tt>
+ * milliseconds. A tip selection that asks for the ratings while they are being calculated waits for that calculation
+ * instead of starting its own, so a burst of requests costs a single calculation. A failed calculation is not
+ * shared with later tip selections.
+ * </p>
+ * <p>
+ * The shared ratings must not be modified by their users.
+ * </p>
+ */
+public class CachedRatingCalculator implements RatingCalculator {
+
+    private final RatingCalculator ratingCalculator;
+    private final long maxAge;
+    private final LongSupplier clock;
+
+    private final Map<Hash, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * @param ratingCalculator the calculator of the shared ratings
+     * @param maxAge the time in milliseconds for which the ratings of an entry point are shared
+     */
+    public CachedRatingCalculator(RatingCalculator ratingCalculator, long maxAge) {
+        this(ratingCalculator, maxAge, System::currentTimeMillis);
+    }
+
+    //Package private for testing
+    CachedRatingCalculator(RatingCalculator ratingCalculator, long maxAge, LongSupplier clock) {
+        this.ratingCalculator = ratingCalculator;
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    @Override
+    public UnIterableMap<HashId, Integer> calculate(Hash entryPoint) throws Exception {
+        while (true) {
+            long now = clock.getAsLong();
+            Snapshot snapshot = snapshots.get(entryPoint);
+            if (snapshot == null || snapshot.isStale(now)) {
+                Snapshot calculation = new Snapshot(now,
+                        new FutureTask<>(() -> ratingCalculator.calculate(entryPoint)));
+                boolean started = snapshot == null
+                        ? snapshots.putIfAbsent(entryPoint, calculation) == null
+                        : snapshots.replace(entryPoint, snapshot, calculation);
+                if (!started) {
+                    //another tip selection started the calculation first
+                    continue;
+                }
+                //the entry point moves on, so the ratings of the previous entry points are never used again
+                snapshots.values().removeIf(other -> other.isStale(now));
+                snapshot = calculation;
+                snapshot.ratings.run();
+            }
+
+            try {
+                return snapshot.ratings.get();
+            } catch (ExecutionException e) {
+                snapshots.remove(entryPoint, snapshot);
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public int calculateSingle(Hash transaction) throws Exception {
+        return ratingCalculator.calculateSingle(transaction);
+    }
+
+    private class Snapshot {
+
+        private final long startedAt;
+        private final FutureTask<UnIterableMap<HashId, Integer>> ratings;
+
+        private Snapshot(long startedAt, FutureTask<UnIterableMap<HashId, Integer>> ratings) {
+            this.startedAt = startedAt;
+            this.ratings = ratings;
+        }
+
+        /**
+         * @return <tt>true</tt> if the calculation finished and started at least <tt>maxAge</tt> milliseconds ago
+         */
+        private boolean isStale(long now) {
+            return ratings.isDone() && now - startedAt >= maxAge;
+        }
+    }
+}
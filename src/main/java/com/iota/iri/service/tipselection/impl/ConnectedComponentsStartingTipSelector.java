@@ -1,24 +1,30 @@
 package com.iota.iri.service.tipselection.impl;
 
-import com.iota.iri.controllers.ApproveeViewModel;
-import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.service.tipselection.StartingTipSelector;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.utils.dag.RecentTransactionsGetter;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.TransactionVertex;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
 
 import java.security.SecureRandom;
 import java.util.*;
 
 public class ConnectedComponentsStartingTipSelector implements StartingTipSelector {
-    public final Tangle tangle;
+    private final TangleGraph graph;
 
     private final int maxTransactions;
     private final Random random;
     private RecentTransactionsGetter recentTransactionsGetter;
 
     public ConnectedComponentsStartingTipSelector(Tangle tangle, int maxTransactions, RecentTransactionsGetter recentTransactionsGetter) {
-        this.tangle = tangle;
+        this(new StorageTangleGraph(tangle), maxTransactions, recentTransactionsGetter);
+    }
+
+    public ConnectedComponentsStartingTipSelector(TangleGraph graph, int maxTransactions,
+                                                  RecentTransactionsGetter recentTransactionsGetter) {
+        this.graph = graph;
         this.maxTransactions = maxTransactions;
         this.random = new SecureRandom();
         this.recentTransactionsGetter = recentTransactionsGetter;
@@ -39,20 +45,20 @@ public class ConnectedComponentsStartingTipSelector implements StartingTipSelect
         while (!unvisited.isEmpty()) {
             Set<Hash> currentComponent = new HashSet<>();
 
-            // Perform DFS scan to find all elements in this component
-            Deque<Hash> stack = new ArrayDeque<>();
-            stack.push(unvisited.iterator().next());
-            while (!stack.isEmpty()) {
-                Hash currentHash = stack.pop();
-
-                if (!currentComponent.contains(currentHash)) {
-                    unvisited.remove(currentHash);
-                    currentComponent.add(currentHash);
-
-                    getAdjacent(currentHash).stream()
-                        .filter(unvisited::contains)
-                        .forEach(stack::push);
+            // Perform BFS scan to find all elements in this component, one frontier at a time
+            Hash start = unvisited.iterator().next();
+            unvisited.remove(start);
+            currentComponent.add(start);
+            List<Hash> frontier = Collections.singletonList(start);
+            while (!frontier.isEmpty()) {
+                List<Hash> next = new ArrayList<>();
+                for (Hash adjacent : getAdjacent(frontier)) {
+                    if (unvisited.remove(adjacent)) {
+                        currentComponent.add(adjacent);
+                        next.add(adjacent);
+                    }
                 }
+                frontier = next;
             }
 
             result.add(currentComponent);
@@ -61,13 +67,16 @@ public class ConnectedComponentsStartingTipSelector implements StartingTipSelect
         return result;
     }
 
-    private Collection<Hash> getAdjacent(Hash hash) throws Exception {
+    private Collection<Hash> getAdjacent(List<Hash> hashes) throws Exception {
         Collection<Hash> result = new HashSet<>();
 
-        TransactionViewModel transaction = TransactionViewModel.fromHash(tangle, hash);
-        result.addAll(ApproveeViewModel.load(tangle, hash).getHashes());
-        result.add(transaction.getBranchTransactionHash());
-        result.add(transaction.getTrunkTransactionHash());
+        for (TransactionVertex transaction : graph.getTransactions(hashes)) {
+            result.add(transaction.getBranch());
+            result.add(transaction.getTrunk());
+        }
+        for (Set<Hash> approvers : graph.getApprovers(hashes)) {
+            result.addAll(approvers);
+        }
 
         return result;
     }
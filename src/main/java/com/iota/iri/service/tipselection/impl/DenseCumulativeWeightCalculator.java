@@ -0,0 +1,278 @@
+package com.iota.iri.service.tipselection.impl;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashId;
+import com.iota.iri.model.HashPrefix;
+import com.iota.iri.service.tipselection.RatingCalculator;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of <tt>RatingCalculator</tt> that calculates the same cumulative weights as
+ * {@link CumulativeWeightCalculator} on a dense copy of the subtangle.
+ *
+ * <p>
+ * The subtangle that references the entry point is loaded once and every transaction gets an index. The approvers
+ * are kept in an adjacency array, the future sets are arrays of indices that are merged with a marker array, and the
+ * future set of a transaction is released as soon as all its approvees in the subtangle were rated. A future set that
+ * reached {@link CumulativeWeightCalculator#MAX_FUTURE_SET_SIZE} is not kept at all, since the approvees of a
+ * saturated transaction are saturated as well. Apart from the index of the hashes, no objects are created per
+ * transaction or approval.
+ * </p>
+ */
+public class DenseCumulativeWeightCalculator implements RatingCalculator {
+
+    private static final Logger log = LoggerFactory.getLogger(DenseCumulativeWeightCalculator.class);
+
+    private static final int MAX_WEIGHT = CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE + 1;
+
+    private final TangleGraph graph;
+
+    public DenseCumulativeWeightCalculator(Tangle tangle) {
+        this(new StorageTangleGraph(tangle));
+    }
+
+    public DenseCumulativeWeightCalculator(TangleGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public UnIterableMap<HashId, Integer> calculate(Hash entryPoint) throws Exception {
+        log.debug("Start calculating cw starting with tx hash {}", entryPoint);
+
+        Subtangle subtangle = load(entryPoint);
+        return new DenseRatings(subtangle.indices, subtangle.calculateWeights());
+    }
+
+    @Override
+    public int calculateSingle(Hash transaction) throws Exception {
+        return load(transaction).size();
+    }
+
+    /**
+     * Loads the transactions that reference the start transaction, in breadth first order.
+     */
+    private Subtangle load(Hash startTx) throws Exception {
+        Map<HashId, Integer> indices = new HashMap<>();
+        List<Hash> hashes = new ArrayList<>();
+        int[] approverOffsets = new int[16];
+        int[] approvers = new int[16];
+        int approverCount = 0;
+
+        indices.put(HashPrefix.createPrefix(startTx), 0);
+        hashes.add(startTx);
+        for (int i = 0; i < hashes.size(); i++) {
+            if (i + 1 >= approverOffsets.length) {
+                approverOffsets = Arrays.copyOf(approverOffsets, approverOffsets.length * 2);
+            }
+            approverOffsets[i] = approverCount;
+            for (Hash approver : graph.getApprovers(hashes.get(i))) {
+                //if not genesis (the tx that confirms itself)
+                if (Hash.NULL_HASH.equals(approver)) {
+                    continue;
+                }
+                HashId key = HashPrefix.createPrefix(approver);
+                Integer index = indices.get(key);
+                if (index == null) {
+                    index = hashes.size();
+                    indices.put(key, index);
+                    hashes.add(approver);
+                }
+                if (approverCount == approvers.length) {
+                    approvers = Arrays.copyOf(approvers, approvers.length * 2);
+                }
+                approvers[approverCount++] = index;
+            }
+        }
+        approverOffsets[hashes.size()] = approverCount;
+        return new Subtangle(indices, approverOffsets, approvers);
+    }
+
+    /**
+     * The subtangle as an adjacency array: the approvers of transaction <tt>i</tt> are
+     * <tt>approvers[approverOffsets[i]]</tt> to <tt>approvers[approverOffsets[i + 1] - 1]</tt>.
+     */
+    private static class Subtangle {
+
+        private final Map<HashId, Integer> indices;
+        private final int[] approverOffsets;
+        private final int[] approvers;
+
+        private Subtangle(Map<HashId, Integer> indices, int[] approverOffsets, int[] approvers) {
+            this.indices = indices;
+            this.approverOffsets = approverOffsets;
+            this.approvers = approvers;
+        }
+
+        private int size() {
+            return indices.size();
+        }
+
+        private int[] calculateWeights() {
+            int size = size();
+            int[] weights = new int[size];
+            int[][] futureSets = new int[size][];
+            BitSet saturated = new BitSet(size);
+
+            //the future set of a transaction is needed until all its approvees were rated
+            int[] pendingApprovees = new int[size];
+            for (int i = 0; i < approverOffsets[size]; i++) {
+                pendingApprovees[approvers[i]]++;
+            }
+
+            int[] marks = new int[size];
+            int[] futureSet = new int[CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE];
+            for (int tx : sortInTopologicalOrder()) {
+                //the transactions are marked with their index + 1, so the marks never have to be cleared
+                int mark = tx + 1;
+                int futureSetSize = 0;
+                for (int i = approverOffsets[tx]; i < approverOffsets[tx + 1]
+                        && futureSetSize < futureSet.length; i++) {
+                    int approver = approvers[i];
+                    if (saturated.get(approver)) {
+                        futureSetSize = futureSet.length;
+                        break;
+                    }
+                    if (marks[approver] != mark) {
+                        marks[approver] = mark;
+                        futureSet[futureSetSize++] = approver;
+                    }
+                    int[] approverFutureSet = futureSets[approver];
+                    for (int j = 0; j < approverFutureSet.length && futureSetSize < futureSet.length; j++) {
+                        int indirectApprover = approverFutureSet[j];
+                        if (marks[indirectApprover] != mark) {
+                            marks[indirectApprover] = mark;
+                            futureSet[futureSetSize++] = indirectApprover;
+                        }
+                    }
+                }
+
+                if (futureSetSize == futureSet.length) {
+                    saturated.set(tx);
+                    weights[tx] = MAX_WEIGHT;
+                } else {
+                    futureSets[tx] = Arrays.copyOf(futureSet, futureSetSize);
+                    weights[tx] = futureSetSize + 1;
+                }
+
+                for (int i = approverOffsets[tx]; i < approverOffsets[tx + 1]; i++) {
+                    if (--pendingApprovees[approvers[i]] == 0) {
+                        futureSets[approvers[i]] = null;
+                    }
+                }
+            }
+            return weights;
+        }
+
+        /**
+         * Sorts the transactions with a depth first search, so that every transaction comes after its approvers.
+         */
+        private int[] sortInTopologicalOrder() {
+            int size = size();
+            int[] sorted = new int[size];
+            int sortedCount = 0;
+            int[] stack = new int[size];
+            int stackSize = 0;
+            int[] nextApprover = Arrays.copyOf(approverOffsets, size);
+            BitSet visited = new BitSet(size);
+
+            stack[stackSize++] = 0;
+            visited.set(0);
+            while (stackSize > 0) {
+                int tx = stack[stackSize - 1];
+                if (nextApprover[tx] < approverOffsets[tx + 1]) {
+                    int approver = approvers[nextApprover[tx]++];
+                    if (!visited.get(approver)) {
+                        visited.set(approver);
+                        stack[stackSize++] = approver;
+                    }
+                } else {
+                    sorted[sortedCount++] = tx;
+                    stackSize--;
+                }
+            }
+            return sorted;
+        }
+    }
+
+    /**
+     * The read-only weights of a subtangle, looked up by the index of the transaction.
+     */
+    private static class DenseRatings implements UnIterableMap<HashId, Integer> {
+
+        private final Map<HashId, Integer> indices;
+        private final int[] weights;
+
+        private DenseRatings(Map<HashId, Integer> indices, int[] weights) {
+            this.indices = indices;
+            this.weights = weights;
+        }
+
+        @Override
+        public int size() {
+            return weights.length;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return weights.length == 0;
+        }
+
+        @Override
+        public boolean containsKey(HashId key) {
+            return indices.containsKey(HashPrefix.createPrefix(key));
+        }
+
+        @Override
+        public boolean containsValue(Integer value) {
+            for (int weight : weights) {
+                if (value != null && weight == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Integer get(HashId key) {
+            Integer index = indices.get(HashPrefix.createPrefix(key));
+            return index == null ? null : weights[index];
+        }
+
+        @Override
+        public Integer put(HashId key, Integer value) {
+            throw new UnsupportedOperationException("The cumulative weights are read-only");
+        }
+
+        @Override
+        public Integer remove(HashId key) {
+            throw new UnsupportedOperationException("The cumulative weights are read-only");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("The cumulative weights are read-only");
+        }
+
+        @Override
+        public Collection<Integer> values() {
+            List<Integer> values = new ArrayList<>(weights.length);
+            for (int weight : weights) {
+                values.add(weight);
+            }
+            return values;
+        }
+    }
+}
@@ -4,12 +4,15 @@ import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Objects;
 
-import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.service.tipselection.EntryPointSelector;
+import com.iota.iri.service.tipselection.RatingCalculator;
 import com.iota.iri.service.tipselection.StartingTipSelector;
 import com.iota.iri.service.tipselection.TailFinder;
 import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.TransactionVertex;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
 
 import org.apache.commons.lang3.NotImplementedException;
 
@@ -18,8 +21,8 @@ import org.apache.commons.lang3.NotImplementedException;
  * until reaching a minimum Cumulative Weight or the genesis.
  */
 public class EntryPointSelectorCumulativeWeightThreshold implements EntryPointSelector {
-    public final Tangle tangle;
-    private final CumulativeWeightCalculator cumulativeWeightCalculator;
+    private final TangleGraph graph;
+    private final RatingCalculator cumulativeWeightCalculator;
     private final StartingTipSelector startingTipSelector;
     private final int threshold;
     private final TailFinder tailFinder;
@@ -29,8 +32,14 @@ public class EntryPointSelectorCumulativeWeightThreshold implements EntryPointSe
 
     public EntryPointSelectorCumulativeWeightThreshold(Tangle tangle, int threshold,
             StartingTipSelector startingTipSelector, TailFinder tailFinder) {
-        this.tangle = tangle;
-        this.cumulativeWeightCalculator = new CumulativeWeightCalculator(tangle);
+        this(new StorageTangleGraph(tangle), threshold, startingTipSelector, tailFinder);
+    }
+
+    public EntryPointSelectorCumulativeWeightThreshold(TangleGraph graph, int threshold,
+            StartingTipSelector startingTipSelector, TailFinder tailFinder) {
+        this.graph = graph;
+        //only used for the sizes of whole subtangles, which are not bounded
+        this.cumulativeWeightCalculator = new DenseCumulativeWeightCalculator(graph);
         this.threshold = threshold;
         this.startingTipSelector = startingTipSelector;
         this.tailFinder = tailFinder;
@@ -107,9 +116,8 @@ public class EntryPointSelectorCumulativeWeightThreshold implements EntryPointSe
         path.add(currentHash);
 
         while (i < steps && !isGenesis(currentHash)) {
-            currentHash = random.nextBoolean() ?
-                TransactionViewModel.fromHash(tangle, currentHash).getTrunkTransactionHash() :
-                TransactionViewModel.fromHash(tangle, currentHash).getBranchTransactionHash();
+            TransactionVertex current = graph.getTransaction(currentHash);
+            currentHash = random.nextBoolean() ? current.getTrunk() : current.getBranch();
             
             path.add(currentHash);
             i++;
@@ -0,0 +1,429 @@
+package com.iota.iri.service.tipselection.impl;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashId;
+import com.iota.iri.model.HashPrefix;
+import com.iota.iri.service.tipselection.RatingCalculator;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.collections.impl.TransformingBoundedHashSet;
+import com.iota.iri.utils.collections.interfaces.BoundedSet;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.TransactionVertex;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of <tt>RatingCalculator</tt> that keeps the cumulative weights of the recent subtangle up to date as
+ * transactions become solid, instead of calculating them for every tip selection.
+ *
+ * <p>
+ * The cumulative weight of a transaction is the size of its future set, bounded by
+ * {@link CumulativeWeightCalculator#MAX_FUTURE_SET_SIZE}, plus one. This is the same rating that
+ * {@link CumulativeWeightCalculator} calculates, because the future set of every transaction that references the entry
+ * point is part of the future set of the entry point. A new solid transaction is added to the future sets of its
+ * ancestors, until the ancestors are saturated, i.e. their future sets reached the bound. Only the future sets of
+ * unsaturated transactions are kept, saturated transactions are only remembered to have the maximum weight.
+ * </p>
+ * <p>
+ * {@link #calculate(Hash)} returns a read-only view of the precomputed weights. The view is not restricted to the
+ * future set of the entry point, a reference is accepted if it belongs to the recent subtangle. If the entry point is
+ * not part of the recent subtangle, e.g. right after startup, the weights are calculated by a
+ * {@link DenseCumulativeWeightCalculator}. The number of kept transactions is bounded, so a solid transaction may have
+ * been evicted from the recent subtangle while it still references the entry point. The view then calculates the
+ * weights of the future set of the entry point once, and answers the evicted transactions from them. Transactions
+ * that are queued to be added are not rated until they are added.
+ * </p>
+ */
+public class IncrementalCumulativeWeightCalculator implements RatingCalculator {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalCumulativeWeightCalculator.class);
+
+    /**
+     * The maximum number of unsaturated transactions whose future sets are kept.
+     */
+    static final int MAX_TRACKED_TRANSACTIONS = 50_000;
+
+    /**
+     * The maximum number of saturated transactions that are remembered.
+     */
+    static final int MAX_SATURATED_TRANSACTIONS = 100_000;
+
+    /**
+     * The number of the latest transactions the weights are initialized from.
+     */
+    static final int INITIAL_TRANSACTIONS = EntryPointSelectorCumulativeWeightThreshold.MAX_SUBTANGLE_SIZE;
+
+    private static final int MAX_WEIGHT = CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE + 1;
+    private static final int QUEUE_CAPACITY = 100_000;
+
+    private final TangleGraph graph;
+    private final RatingCalculator fallback;
+    private final int maxTrackedTransactions;
+    private final int maxSaturatedTransactions;
+
+    private final Map<HashId, Node> tracked = new ConcurrentHashMap<>();
+    private final Set<HashId> trackedOrder = new LinkedHashSet<>();
+    private final Set<HashId> saturated = ConcurrentHashMap.newKeySet();
+    private final Deque<HashId> saturatedOrder = new ArrayDeque<>();
+
+    private final BlockingQueue<Hash> solidTransactions = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    // the queued transactions, which are not rated before they are added to the weights
+    private final Set<HashId> queuedTransactions = ConcurrentHashMap.newKeySet();
+    private final LongAdder droppedTransactions = new LongAdder();
+    private volatile boolean shuttingDown = false;
+    private Thread updateThread;
+
+    public IncrementalCumulativeWeightCalculator(Tangle tangle) {
+        this(new StorageTangleGraph(tangle));
+    }
+
+    public IncrementalCumulativeWeightCalculator(TangleGraph graph) {
+        this(graph, new DenseCumulativeWeightCalculator(graph));
+    }
+
+    /**
+     * @param graph the graph the transactions are loaded from
+     * @param fallback the calculator of the weights that are not kept, e.g. a {@link CachedRatingCalculator} that
+     *                 shares them between concurrent tip selections
+     */
+    public IncrementalCumulativeWeightCalculator(TangleGraph graph, RatingCalculator fallback) {
+        this(graph, fallback, MAX_TRACKED_TRANSACTIONS, MAX_SATURATED_TRANSACTIONS);
+    }
+
+    /**
+     * @param graph the graph the transactions are loaded from
+     * @param fallback the calculator of the weights that are not kept
+     * @param maxTrackedTransactions the maximum number of unsaturated transactions whose future sets are kept
+     * @param maxSaturatedTransactions the maximum number of saturated transactions that are remembered
+     */
+    IncrementalCumulativeWeightCalculator(TangleGraph graph, RatingCalculator fallback, int maxTrackedTransactions,
+                                          int maxSaturatedTransactions) {
+        this.graph = graph;
+        this.fallback = fallback;
+        this.maxTrackedTransactions = maxTrackedTransactions;
+        this.maxSaturatedTransactions = maxSaturatedTransactions;
+    }
+
+    /**
+     * Starts the thread that initializes the weights from the latest transactions and then updates them with the
+     * transactions that become solid.
+     */
+    public void init() {
+        updateThread = new Thread(() -> {
+            try {
+                List<Hash> latest = new ArrayList<>(graph.getRecentTransactions(INITIAL_TRANSACTIONS));
+                //oldest first, like they became solid
+                Collections.reverse(latest);
+                for (Hash hash : latest) {
+                    if (shuttingDown) {
+                        return;
+                    }
+                    if (graph.isSolid(hash)) {
+                        update(hash);
+                    }
+                }
+                log.info("Initialized the cumulative weights of {} recent transactions", tracked.size());
+            } catch (Exception e) {
+                log.error("Error while initializing the cumulative weights", e);
+            }
+            while (!shuttingDown) {
+                try {
+                    Hash hash = solidTransactions.take();
+                    try {
+                        update(hash);
+                    } finally {
+                        queuedTransactions.remove(HashPrefix.createPrefix(hash));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    log.error("Error while updating the cumulative weights", e);
+                }
+            }
+        }, "Cumulative Weight Updater");
+        updateThread.setDaemon(true);
+        updateThread.start();
+    }
+
+    public void shutdown() {
+        shuttingDown = true;
+        try {
+            if (updateThread != null && updateThread.isAlive()) {
+                updateThread.interrupt();
+                updateThread.join();
+            }
+        } catch (Exception e) {
+            log.error("Error in shutdown", e);
+        }
+        long dropped = droppedTransactions.sum();
+        if (dropped > 0) {
+            log.warn("{} solid transactions were not added to the cumulative weights", dropped);
+        }
+    }
+
+    /**
+     * Queues a transaction that became solid. Never blocks, a transaction is dropped if the queue is full.
+     *
+     * @param hash the hash of the solid transaction
+     */
+    public void onSolidTransaction(Hash hash) {
+        HashId key = HashPrefix.createPrefix(hash);
+        //added first, so the update thread cannot take the transaction before it is known to be queued
+        queuedTransactions.add(key);
+        if (!solidTransactions.offer(hash)) {
+            queuedTransactions.remove(key);
+            droppedTransactions.increment();
+        }
+    }
+
+    @Override
+    public UnIterableMap<HashId, Integer> calculate(Hash entryPoint) throws Exception {
+        if (getWeight(entryPoint) != null) {
+            return new WeightView(entryPoint);
+        }
+        log.debug("Entry point {} is not in the recent subtangle, calculating the cumulative weights", entryPoint);
+        return fallback.calculate(entryPoint);
+    }
+
+    @Override
+    public int calculateSingle(Hash transaction) throws Exception {
+        Node node = tracked.get(HashPrefix.createPrefix(transaction));
+        //the exact size of large future sets is not kept
+        return node != null ? node.weight : fallback.calculateSingle(transaction);
+    }
+
+    /**
+     * Adds a solid transaction to the future sets of its ancestors.
+     *
+     * @param hash the hash of the solid transaction
+     * @throws Exception if the transactions could not be loaded
+     */
+    synchronized void update(Hash hash) throws Exception {
+        HashId key = HashPrefix.createPrefix(hash);
+        Node node = tracked.get(key);
+        if (node == null && !saturated.contains(key)) {
+            node = load(hash);
+        }
+        //the ancestors of a saturated transaction are saturated as well
+        if (node == null) {
+            return;
+        }
+
+        Set<HashId> visited = new HashSet<>();
+        Deque<Hash> ancestors = new ArrayDeque<>();
+        ancestors.add(node.trunk);
+        ancestors.add(node.branch);
+        Hash ancestor;
+        while ((ancestor = ancestors.poll()) != null) {
+            HashId ancestorKey = HashPrefix.createPrefix(ancestor);
+            if (Hash.NULL_HASH.equals(ancestor) || !visited.add(ancestorKey) || saturated.contains(ancestorKey)) {
+                continue;
+            }
+            Node ancestorNode = tracked.get(ancestorKey);
+            if (ancestorNode == null) {
+                //the future set that is loaded from the database already contains the new transaction
+                ancestorNode = load(ancestor);
+            } else {
+                ancestorNode.add(hash);
+                if (ancestorNode.isSaturated()) {
+                    saturate(ancestorKey);
+                    ancestorNode = null;
+                }
+            }
+            if (ancestorNode != null) {
+                ancestors.add(ancestorNode.trunk);
+                ancestors.add(ancestorNode.branch);
+            }
+        }
+    }
+
+    /**
+     * Loads the future set of solid approvers of a transaction from the graph.
+     *
+     * @return the tracked transaction, or <tt>null</tt> if it is missing or saturated
+     */
+    private Node load(Hash hash) throws Exception {
+        TransactionVertex transaction = graph.getTransaction(hash);
+        if (!transaction.exists()) {
+            return null;
+        }
+        Node node = new Node(transaction.getTrunk(), transaction.getBranch());
+        Deque<Hash> approvers = new ArrayDeque<>(graph.getApprovers(hash));
+        Hash approver;
+        while ((approver = approvers.poll()) != null && !node.isSaturated()) {
+            //the genesis approves itself, and approvers that are not solid yet are added when they become solid
+            if (!Hash.NULL_HASH.equals(approver) && graph.isSolid(approver) && node.add(approver)) {
+                approvers.addAll(graph.getApprovers(approver));
+            }
+        }
+
+        HashId key = HashPrefix.createPrefix(hash);
+        if (node.isSaturated()) {
+            saturate(key);
+            return null;
+        }
+        tracked.put(key, node);
+        trackedOrder.add(key);
+        if (trackedOrder.size() > maxTrackedTransactions) {
+            Iterator<HashId> oldest = trackedOrder.iterator();
+            tracked.remove(oldest.next());
+            oldest.remove();
+        }
+        return node;
+    }
+
+    private void saturate(HashId key) {
+        if (tracked.remove(key) != null) {
+            trackedOrder.remove(key);
+        }
+        if (saturated.add(key)) {
+            saturatedOrder.add(key);
+            if (saturatedOrder.size() > maxSaturatedTransactions) {
+                saturated.remove(saturatedOrder.poll());
+            }
+        }
+    }
+
+    /**
+     * @return the weight of a transaction of the recent subtangle, or <tt>null</tt> if it is not kept
+     */
+    private Integer getWeight(HashId key) {
+        HashId prefix = HashPrefix.createPrefix(key);
+        Node node = tracked.get(prefix);
+        if (node != null) {
+            return node.weight;
+        }
+        return saturated.contains(prefix) ? MAX_WEIGHT : null;
+    }
+
+    /**
+     * A transaction whose future set has not reached the bound yet.
+     */
+    private static class Node {
+
+        private final Hash trunk;
+        private final Hash branch;
+        private final BoundedSet<HashId> futureSet = new TransformingBoundedHashSet<>(
+                CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE, HashPrefix::createPrefix);
+        // read without holding the lock of the calculator
+        private volatile int weight = 1;
+
+        private Node(Hash trunk, Hash branch) {
+            this.trunk = trunk;
+            this.branch = branch;
+        }
+
+        private boolean add(HashId approver) {
+            if (futureSet.add(approver)) {
+                weight = futureSet.size() + 1;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean isSaturated() {
+            return futureSet.isFull();
+        }
+    }
+
+    /**
+     * The current weights of the recent subtangle, which only grow while the view is used.
+     */
+    private class WeightView implements UnIterableMap<HashId, Integer> {
+
+        private final Hash entryPoint;
+        // the weights of the future set of the entry point, once a solid transaction was not found
+        private UnIterableMap<HashId, Integer> calculated;
+
+        private WeightView(Hash entryPoint) {
+            this.entryPoint = entryPoint;
+        }
+
+        @Override
+        public int size() {
+            return tracked.size() + saturated.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public boolean containsKey(HashId key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public boolean containsValue(Integer value) {
+            throw new UnsupportedOperationException("The cumulative weights cannot be searched by value");
+        }
+
+        @Override
+        public Integer get(HashId key) {
+            Integer weight = getWeight(key);
+            if (weight != null || !(key instanceof Hash)) {
+                return weight;
+            }
+            //queued transactions and approvers that are not solid yet are not rated, like before they were kept
+            if (queuedTransactions.contains(HashPrefix.createPrefix(key))) {
+                return null;
+            }
+            try {
+                //a solid transaction that is neither kept nor queued was evicted or dropped
+                return graph.isSolid((Hash) key) ? getCalculated().get(key) : null;
+            } catch (Exception e) {
+                log.error("Error while calculating the cumulative weights", e);
+                return null;
+            }
+        }
+
+        private synchronized UnIterableMap<HashId, Integer> getCalculated() throws Exception {
+            if (calculated == null) {
+                log.debug("Transactions of the future set of {} were evicted, calculating the cumulative weights",
+                        entryPoint);
+                calculated = fallback.calculate(entryPoint);
+            }
+            return calculated;
+        }
+
+        @Override
+        public Integer put(HashId key, Integer value) {
+            throw new UnsupportedOperationException("The cumulative weights are read-only");
+        }
+
+        @Override
+        public Integer remove(HashId key) {
+            throw new UnsupportedOperationException("The cumulative weights are read-only");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("The cumulative weights are read-only");
+        }
+
+        @Override
+        public Collection<Integer> values() {
+            throw new UnsupportedOperationException("The cumulative weights cannot be iterated");
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.iota.iri.service.tipselection.impl;
 
-import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.service.tipselection.TailFinder;
 import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.TransactionVertex;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
 
 import java.util.Optional;
 import java.util.Set;
@@ -14,23 +16,27 @@ import java.util.Set;
  */
 public class TailFinderImpl implements TailFinder {
 
-    private final Tangle tangle;
+    private final TangleGraph graph;
 
     public TailFinderImpl(Tangle tangle) {
-        this.tangle = tangle;
+        this(new StorageTangleGraph(tangle));
+    }
+
+    public TailFinderImpl(TangleGraph graph) {
+        this.graph = graph;
     }
 
     @Override
     public Optional<Hash> findTail(Hash hash) throws Exception {
-        TransactionViewModel tx = TransactionViewModel.fromHash(tangle, hash);
-        final Hash bundleHash = tx.getBundleHash();
+        TransactionVertex tx = graph.getTransaction(hash);
+        final Hash bundleHash = tx.getBundle();
         long index = tx.getCurrentIndex();
-        while (index-- > 0 && bundleHash.equals(tx.getBundleHash())) {
-            Set<Hash> approvees = tx.getApprovers(tangle).getHashes();
+        while (index-- > 0 && bundleHash.equals(tx.getBundle())) {
+            Set<Hash> approvees = graph.getApprovers(tx.getHash());
             boolean foundApprovee = false;
             for (Hash approvee : approvees) {
-                TransactionViewModel nextTx = TransactionViewModel.fromHash(tangle, approvee);
-                if (nextTx.getCurrentIndex() == index && bundleHash.equals(nextTx.getBundleHash())) {
+                TransactionVertex nextTx = graph.getTransaction(approvee);
+                if (nextTx.getCurrentIndex() == index && bundleHash.equals(nextTx.getBundle())) {
                     tx = nextTx;
                     foundApprovee = true;
                     break;
@@ -6,12 +6,30 @@ import com.iota.iri.model.HashId;
 import com.iota.iri.service.tipselection.*;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.TransactionVertex;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
 
 import java.security.InvalidAlgorithmParameterException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of <tt>TipSelector</tt> that selects 2 tips,
@@ -29,15 +47,32 @@ public class TipSelectorImpl implements TipSelector {
     private final Walker walker;
 
     private final LedgerValidator ledgerValidator;
-    private final Tangle tangle;
+    private final TangleGraph graph;
     private final ReferenceChecker referenceChecker;
 
+    private final int confidenceWalks;
+    private final ExecutorService confidenceExecutor;
+
     public TipSelectorImpl(Tangle tangle,
                            LedgerValidator ledgerValidator,
                            EntryPointSelector entryPointSelector,
                            RatingCalculator ratingCalculator,
                            Walker walkerAlpha,
                            ReferenceChecker referenceChecker) {
+        this(new StorageTangleGraph(tangle), ledgerValidator, entryPointSelector, ratingCalculator, walkerAlpha,
+                referenceChecker, NUMBER_OF_TIPS_IN_GET_CONFIDENCES);
+    }
+
+    /**
+     * @param confidenceWalks the number of random walks of {@link #getConfidences(List)}
+     */
+    public TipSelectorImpl(TangleGraph graph,
+                           LedgerValidator ledgerValidator,
+                           EntryPointSelector entryPointSelector,
+                           RatingCalculator ratingCalculator,
+                           Walker walkerAlpha,
+                           ReferenceChecker referenceChecker,
+                           int confidenceWalks) {
 
         this.entryPointSelector = entryPointSelector;
         this.ratingCalculator = ratingCalculator;
@@ -46,8 +81,20 @@ public class TipSelectorImpl implements TipSelector {
 
         //used by walkValidator
         this.ledgerValidator = ledgerValidator;
-        this.tangle = tangle;
+        this.graph = graph;
         this.referenceChecker = referenceChecker;
+
+        this.confidenceWalks = confidenceWalks;
+        //the idle threads time out, so the executor never has to be shut down
+        int threads = Math.max(1, Math.min(confidenceWalks, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "Confidence Walker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        this.confidenceExecutor = executor;
     }
 
     /**
@@ -74,7 +121,7 @@ public class TipSelectorImpl implements TipSelector {
 
         //random walk
         List<Hash> tips = new LinkedList<>();
-        WalkValidator walkValidator = new WalkValidatorImpl(tangle, ledgerValidator);
+        WalkValidator walkValidator = new WalkValidatorImpl(graph, ledgerValidator);
         Hash tip = walker.walk(entryPoint, rating, walkValidator);
         tips.add(tip);
 
@@ -102,31 +149,141 @@ public class TipSelectorImpl implements TipSelector {
         }
     }
 
+    /**
+     * Estimates the confidences of transactions by the share of random walks whose tips reference them.
+     *
+     * <p>
+     * The walks run in parallel. The past cone of every selected tip is collected once, within the future cone of the
+     * entry point, and answers the queries for all transactions that reference the entry point. The future cone is
+     * searched in the graph rather than taken from the rating, since a rating calculator may rate transactions
+     * outside of it or miss transactions inside of it. The search stops at the subtangle size that the entry point
+     * selection allows, {@link EntryPointSelectorCumulativeWeightThreshold#MAX_SUBTANGLE_SIZE}; a larger future cone is
+     * not used at all. A transaction outside of the future cone is referenced by every tip if the entry point
+     * references it. Only if it is not, it is searched from every tip.
+     * </p>
+     *
+     * @param transactions the transactions to estimate the confidences of
+     * @return the confidences, between 0 and 1, in the order of the transactions
+     * @throws Exception If DB fails to retrieve transactions
+     */
     @Override
     public List<Double> getConfidences(List<Hash> transactions) throws Exception {
         Hash entryPoint = entryPointSelector.getEntryPoint();
         UnIterableMap<HashId, Integer> rating = ratingCalculator.calculate(entryPoint);
 
-        List<Hash> tips = new ArrayList<>();
-        for (int i = 0; i < NUMBER_OF_TIPS_IN_GET_CONFIDENCES; i++) {
-            WalkValidator walkValidator = new WalkValidatorImpl(tangle, ledgerValidator);
-            Hash tip = walker.walk(entryPoint, rating, walkValidator);
-            tips.add(tip);
+        List<Callable<Hash>> walks = new ArrayList<>(confidenceWalks);
+        for (int i = 0; i < confidenceWalks; i++) {
+            walks.add(() -> walker.walk(entryPoint, rating, new WalkValidatorImpl(graph, ledgerValidator)));
+        }
+        List<Hash> tips = invokeAll(walks);
+
+        Set<Hash> futureCone = transactions.isEmpty() ? Collections.emptySet() : getFutureCone(entryPoint);
+        Map<Hash, Set<Hash>> pastCones = new HashMap<>();
+        if (transactions.stream().anyMatch(futureCone::contains)) {
+            List<Hash> distinctTips = new ArrayList<>(new LinkedHashSet<>(tips));
+            List<Callable<Set<Hash>>> searches = new ArrayList<>(distinctTips.size());
+            for (Hash tip : distinctTips) {
+                searches.add(() -> getPastCone(tip, futureCone));
+            }
+            List<Set<Hash>> cones = invokeAll(searches);
+            for (int i = 0; i < distinctTips.size(); i++) {
+                pastCones.put(distinctTips.get(i), cones.get(i));
+            }
         }
 
         List<Double> res = new ArrayList<>();
         for (Hash transaction : transactions) {
             int counter = 0;
 
-            for (Hash tip : tips) {
-                if (referenceChecker.doesReference(tip, transaction)) {
-                    counter++;
+            if (transaction.equals(entryPoint)) {
+                //the walks start at the entry point
+                counter = tips.size();
+            } else if (futureCone.contains(transaction)) {
+                for (Hash tip : tips) {
+                    if (pastCones.get(tip).contains(transaction)) {
+                        counter++;
+                    }
+                }
+            } else if (referenceChecker.doesReference(entryPoint, transaction)) {
+                counter = tips.size();
+            } else {
+                for (Hash tip : tips) {
+                    if (referenceChecker.doesReference(tip, transaction)) {
+                        counter++;
+                    }
                 }
             }
 
-            res.add(((double) counter) / NUMBER_OF_TIPS_IN_GET_CONFIDENCES);
+            res.add(((double) counter) / confidenceWalks);
         }
 
         return res;
     }
+
+    /**
+     * Collects the transactions that reference the entry point, excluding the entry point itself.
+     *
+     * @return the future cone, or an empty set if it is larger than
+     *         {@link EntryPointSelectorCumulativeWeightThreshold#MAX_SUBTANGLE_SIZE}
+     */
+    private Set<Hash> getFutureCone(Hash entryPoint) throws Exception {
+        Set<Hash> futureCone = new HashSet<>();
+        List<Hash> level = Collections.singletonList(entryPoint);
+        while (!level.isEmpty()) {
+            List<Hash> nextLevel = new ArrayList<>();
+            for (Set<Hash> approvers : graph.getApprovers(level)) {
+                for (Hash approver : approvers) {
+                    //the genesis approves itself
+                    if (!approver.equals(entryPoint) && futureCone.add(approver)) {
+                        nextLevel.add(approver);
+                    }
+                }
+            }
+            //a part of the cone would miss the paths from the tips, so the transactions are searched from the tips
+            if (futureCone.size() > EntryPointSelectorCumulativeWeightThreshold.MAX_SUBTANGLE_SIZE) {
+                return Collections.emptySet();
+            }
+            level = nextLevel;
+        }
+        return futureCone;
+    }
+
+    /**
+     * Collects the transactions of the future cone of the entry point that a tip references, including the tip. A
+     * path from the tip to such a transaction only passes transactions of the future cone, since they all reference
+     * the transaction and therefore the entry point.
+     */
+    private Set<Hash> getPastCone(Hash tip, Set<Hash> futureCone) throws Exception {
+        Set<Hash> pastCone = new HashSet<>();
+        Deque<Hash> queue = new ArrayDeque<>();
+        if (futureCone.contains(tip)) {
+            pastCone.add(tip);
+            queue.add(tip);
+        }
+        Hash hash;
+        while ((hash = queue.poll()) != null) {
+            TransactionVertex transaction = graph.getTransaction(hash);
+            for (Hash approvee : new Hash[]{transaction.getTrunk(), transaction.getBranch()}) {
+                if (futureCone.contains(approvee) && pastCone.add(approvee)) {
+                    queue.add(approvee);
+                }
+            }
+        }
+        return pastCone;
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) throws Exception {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : confidenceExecutor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
 }
@@ -2,10 +2,12 @@ package com.iota.iri.service.tipselection.impl;
 
 import com.iota.iri.LedgerValidator;
 import com.iota.iri.conf.TipSelConfig;
-import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.service.tipselection.WalkValidator;
 import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.TransactionVertex;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,7 +26,7 @@ import java.util.*;
  */
 public class WalkValidatorImpl implements WalkValidator {
 
-    private final Tangle tangle;
+    private final TangleGraph graph;
     private final Logger log = LoggerFactory.getLogger(WalkValidator.class);
     private final LedgerValidator ledgerValidator;
 
@@ -32,7 +34,11 @@ public class WalkValidatorImpl implements WalkValidator {
     private Set<Hash> myApprovedHashes;
 
     public WalkValidatorImpl(Tangle tangle, LedgerValidator ledgerValidator) {
-        this.tangle = tangle;
+        this(new StorageTangleGraph(tangle), ledgerValidator);
+    }
+
+    public WalkValidatorImpl(TangleGraph graph, LedgerValidator ledgerValidator) {
+        this.graph = graph;
         this.ledgerValidator = ledgerValidator;
 
         myDiff = new HashMap<>();
@@ -46,17 +52,17 @@ public class WalkValidatorImpl implements WalkValidator {
             return true; //Genesis
         }
 
-        TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(tangle, transactionHash);
-        if (transactionViewModel.getType() == TransactionViewModel.PREFILLED_SLOT) {
+        TransactionVertex transaction = graph.getTransaction(transactionHash);
+        if (!transaction.exists()) {
             log.debug("Validation failed: {} is missing in db", transactionHash);
             return false;
-        } else if (transactionViewModel.getCurrentIndex() != 0) {
+        } else if (transaction.getCurrentIndex() != 0) {
             log.debug("Validation failed: {} not a tail", transactionHash);
             return false;
-        } else if (!transactionViewModel.isSolid()) {
+        } else if (!graph.isSolid(transactionHash)) {
             log.debug("Validation failed: {} is not solid", transactionHash);
             return false;
-        } else if (!ledgerValidator.updateDiff(myApprovedHashes, myDiff, transactionViewModel.getHash())) {
+        } else if (!ledgerValidator.updateDiff(myApprovedHashes, myDiff, transaction.getHash())) {
             log.debug("Validation failed: {} is not consistent", transactionHash);
             return false;
         }
@@ -1,7 +1,6 @@
 package com.iota.iri.service.tipselection.impl;
 
 import com.iota.iri.conf.TipSelConfig;
-import com.iota.iri.controllers.ApproveeViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.HashId;
 import com.iota.iri.service.tipselection.TailFinder;
@@ -9,6 +8,8 @@ import com.iota.iri.service.tipselection.WalkValidator;
 import com.iota.iri.service.tipselection.Walker;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
 import com.iota.iri.zmq.MessageQ;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,14 +27,19 @@ public class WalkerAlpha implements Walker {
     private double alpha;
     private final Random random;
 
-    private final Tangle tangle;
+    private final TangleGraph graph;
     private final MessageQ messageQ;
     private final Logger log = LoggerFactory.getLogger(Walker.class);
 
     private final TailFinder tailFinder;
 
     public WalkerAlpha(TailFinder tailFinder, Tangle tangle, MessageQ messageQ, Random random, TipSelConfig config) {
-        this.tangle = tangle;
+        this(tailFinder, new StorageTangleGraph(tangle), messageQ, random, config);
+    }
+
+    public WalkerAlpha(TailFinder tailFinder, TangleGraph graph, MessageQ messageQ, Random random,
+                       TipSelConfig config) {
+        this.graph = graph;
         this.messageQ = messageQ;
         this.tailFinder = tailFinder;
         this.random = random;
@@ -76,8 +82,7 @@ public class WalkerAlpha implements Walker {
     }
 
     private Set<Hash> getApprovers(Hash tailHash) throws Exception {
-        ApproveeViewModel approveeViewModel = ApproveeViewModel.load(tangle, tailHash);
-        return approveeViewModel.getHashes();
+        return graph.getApprovers(tailHash);
     }
 
     private Optional<Hash> findNextValidTail(UnIterableMap<HashId, Integer> ratings, Set<Hash> approvers, WalkValidator walkValidator) throws Exception {
@@ -0,0 +1,333 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feeds the writes of the {@link Tangle} to a secondary {@link PersistenceProvider} (e.g. the
+ * {@link ZmqPublishProvider}) from its own worker thread, so slow secondary providers do not slow down ingestion.
+ *
+ * <p>
+ * Writes are queued in a bounded queue. If the queue is full, a write is either dropped or the writing thread blocks
+ * until there is space again, depending on the overflow policy. The writes of the wrapped provider are never reported
+ * as successful to the {@link Tangle}, so it must not be used for the main database. Reads are passed through to the
+ * wrapped provider directly and may run concurrently with the worker.
+ * </p>
+ * <p>
+ * The persisted models are handed to the worker by reference. Secondary providers should only rely on the parts of a
+ * model that do not change after it was stored.
+ * </p>
+ */
+public class AsyncPersistenceProvider implements PersistenceProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncPersistenceProvider.class);
+
+    private final PersistenceProvider provider;
+    private final BlockingQueue<Write> queue;
+    private final boolean dropOnOverflow;
+
+    private final AtomicLong completedWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong droppedWrites = new AtomicLong();
+
+    private volatile boolean shuttingDown = false;
+    private Thread worker;
+
+    /**
+     * @param provider the secondary provider the writes are passed to
+     * @param capacity the maximum number of queued writes
+     * @param dropOnOverflow <tt>true</tt> to drop writes if the queue is full, <tt>false</tt> to block the writing
+     *                       thread until there is space in the queue
+     */
+    public AsyncPersistenceProvider(PersistenceProvider provider, int capacity, boolean dropOnOverflow) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.provider = provider;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dropOnOverflow = dropOnOverflow;
+    }
+
+    @Override
+    public void init() throws Exception {
+        provider.init();
+        worker = new Thread(this::processWrites, "Async " + provider.getClass().getSimpleName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void processWrites() {
+        while (!shuttingDown) {
+            Write write;
+            try {
+                write = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            try {
+                write.apply(provider);
+                completedWrites.incrementAndGet();
+            } catch (Exception e) {
+                failedWrites.incrementAndGet();
+                log.error("Error in asynchronous write to " + provider.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return provider.isAvailable();
+    }
+
+    @Override
+    public void shutdown() {
+        shuttingDown = true;
+        try {
+            if (worker != null && worker.isAlive()) {
+                worker.interrupt();
+                worker.join();
+            }
+        } catch (Exception e) {
+            log.error("Error in shutdown", e);
+        }
+        log.info("Asynchronous {} statistics: {}", provider.getClass().getSimpleName(), this);
+        provider.shutdown();
+    }
+
+    private void enqueue(Write write) throws InterruptedException {
+        if (dropOnOverflow) {
+            if (!queue.offer(write)) {
+                droppedWrites.incrementAndGet();
+            }
+        } else {
+            queue.put(write);
+        }
+    }
+
+    @Override
+    public boolean save(Persistable model, Indexable index) throws Exception {
+        enqueue(provider -> provider.save(model, index));
+        return false;
+    }
+
+    @Override
+    public void delete(Class<?> model, Indexable index) throws Exception {
+        enqueue(provider -> provider.delete(model, index));
+    }
+
+    @Override
+    public boolean update(Persistable model, Indexable index, String item) throws Exception {
+        enqueue(provider -> provider.update(model, index, item));
+        return false;
+    }
+
+    @Override
+    public boolean updateBatch(List<Pair<Indexable, Persistable>> models, String item) throws Exception {
+        List<Pair<Indexable, Persistable>> copy = new ArrayList<>(models);
+        enqueue(provider -> provider.updateBatch(copy, item));
+        return false;
+    }
+
+    @Override
+    public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        List<Pair<Indexable, Persistable>> copy = new ArrayList<>(models);
+        enqueue(provider -> provider.saveBatch(copy));
+        return false;
+    }
+
+    @Override
+    public boolean saveBatchIfAbsent(Class<?> model, Indexable index, List<Pair<Indexable, Persistable>> models)
+            throws Exception {
+        //the wrapped provider is a secondary provider, it receives the batch through saveBatch once it was inserted
+        return false;
+    }
+
+    @Override
+    public Set<Indexable> saveBatchesIfAbsent(Class<?> model,
+                                              Map<Indexable, List<Pair<Indexable, Persistable>>> batches) {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models)
+            throws Exception {
+        List<Pair<Indexable, ? extends Class<? extends Persistable>>> copy = new ArrayList<>(models);
+        enqueue(provider -> provider.deleteBatch(copy));
+    }
+
+    @Override
+    public void removeFromIndex(Class<?> model, Map<Indexable, ? extends Collection<? extends Indexable>> removals)
+            throws Exception {
+        Map<Indexable, ? extends Collection<? extends Indexable>> copy = new HashMap<>(removals);
+        enqueue(provider -> provider.removeFromIndex(model, copy));
+    }
+
+    @Override
+    public void clear(Class<?> column) throws Exception {
+        enqueue(provider -> provider.clear(column));
+    }
+
+    @Override
+    public void clearMetadata(Class<?> column) throws Exception {
+        enqueue(provider -> provider.clearMetadata(column));
+    }
+
+    @Override
+    public void clearAll() throws Exception {
+        enqueue(PersistenceProvider::clearAll);
+    }
+
+    @Override
+    public boolean exists(Class<?> model, Indexable key) throws Exception {
+        return provider.exists(model, key);
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception {
+        return provider.latest(model, indexModel);
+    }
+
+    @Override
+    public Set<Indexable> keysWithMissingReferences(Class<?> modelClass, Class<?> otherClass) throws Exception {
+        return provider.keysWithMissingReferences(modelClass, otherClass);
+    }
+
+    @Override
+    public boolean scanMissingReferences(Class<?> modelClass, Class<?> otherClass, ScanVisitor visitor)
+            throws Exception {
+        return provider.scanMissingReferences(modelClass, otherClass, visitor);
+    }
+
+    @Override
+    public boolean scan(Class<?> model, byte[] from, byte[] to, boolean keysOnly, ScanVisitor visitor)
+            throws Exception {
+        return provider.scan(model, from, to, keysOnly, visitor);
+    }
+
+    @Override
+    public boolean scanArrivals(long from, long to, boolean newestFirst, ScanVisitor visitor) throws Exception {
+        return provider.scanArrivals(from, to, newestFirst, visitor);
+    }
+
+    @Override
+    public boolean createCheckpoint(String path) throws Exception {
+        return provider.createCheckpoint(path);
+    }
+
+    @Override
+    public Persistable get(Class<?> model, Indexable index) throws Exception {
+        return provider.get(model, index);
+    }
+
+    @Override
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        return provider.multiGet(model, indexes);
+    }
+
+    @Override
+    public boolean mayExist(Class<?> model, Indexable index) throws Exception {
+        return provider.mayExist(model, index);
+    }
+
+    @Override
+    public long count(Class<?> model) throws Exception {
+        return provider.count(model);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() throws Exception {
+        return provider.getCounters();
+    }
+
+    /**
+     * Adds the state of the queue to the metrics of the wrapped provider. Their names start with
+     * <tt>async.</tt> and the simple class name of the wrapped provider, e.g.
+     * <tt>async.ZmqPublishProvider.droppedWrites</tt>.
+     */
+    @Override
+    public Map<String, Long> getMetrics() throws Exception {
+        Map<String, Long> metrics = new HashMap<>(provider.getMetrics());
+        String prefix = "async." + provider.getClass().getSimpleName() + ".";
+        metrics.put(prefix + "queueDepth", (long) getQueueDepth());
+        metrics.put(prefix + "queueCapacity", (long) getCapacity());
+        metrics.put(prefix + "completedWrites", getCompletedWrites());
+        metrics.put(prefix + "failedWrites", getFailedWrites());
+        metrics.put(prefix + "droppedWrites", getDroppedWrites());
+        return metrics;
+    }
+
+    @Override
+    public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
+        return provider.keysStartingWith(modelClass, value);
+    }
+
+    @Override
+    public Persistable seek(Class<?> model, byte[] key) throws Exception {
+        return provider.seek(model, key);
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
+        return provider.next(model, index);
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception {
+        return provider.previous(model, index);
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> first(Class<?> model, Class<?> indexModel) throws Exception {
+        return provider.first(model, indexModel);
+    }
+
+    /**
+     * @return the number of writes that are waiting for the worker
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public long getCompletedWrites() {
+        return completedWrites.get();
+    }
+
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    public long getDroppedWrites() {
+        return droppedWrites.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queued=%d/%d completed=%d failed=%d dropped=%d", getQueueDepth(), getCapacity(),
+                getCompletedWrites(), getFailedWrites(), getDroppedWrites());
+    }
+
+    /**
+     * A write that is applied to the wrapped provider by the worker.
+     */
+    @FunctionalInterface
+    private interface Write {
+        void apply(PersistenceProvider provider) throws Exception;
+    }
+}
@@ -4,6 +4,7 @@ import com.iota.iri.utils.Pair;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -11,6 +12,17 @@ import java.util.Set;
  */
 public interface PersistenceProvider {
 
+    /**
+     * Name of the counter of the stored transactions that are solid.
+     */
+    String SOLID_TRANSACTIONS = "solidTransactions";
+
+    /**
+     * Name of the counter of the prefilled slots: transactions that are approved by stored transactions, but are not
+     * stored themselves.
+     */
+    String PREFILLED_SLOTS = "prefilledSlots";
+
     void init() throws Exception;
     boolean isAvailable();
     void shutdown();
@@ -19,18 +31,104 @@ public interface PersistenceProvider {
 
     boolean update(Persistable model, Indexable index, String item) throws Exception;
 
+    /**
+     * Atomically performs {@link #update(Persistable, Indexable, String)} on all {@code models}.
+     *
+     * @param models key value pairs that were updated
+     * @param item the <tt>|</tt> separated names of the updated fields
+     * @return <tt>true</tt> if the updates were written
+     * @throws Exception if the updates could not be written
+     */
+    boolean updateBatch(List<Pair<Indexable, Persistable>> models, String item) throws Exception;
+
     boolean exists(Class<?> model, Indexable key) throws Exception;
 
     Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception;
 
     Set<Indexable> keysWithMissingReferences(Class<?> modelClass, Class<?> otherClass) throws Exception;
 
+    /**
+     * Streams the keys of {@code modelClass} that are not present in {@code otherClass} to the {@code visitor}.
+     *
+     * @param modelClass the column whose keys are visited
+     * @param otherClass the column that is checked for the keys
+     * @param visitor receives the missing keys, the values are always <tt>null</tt>
+     * @return <tt>true</tt> if this provider performed the scan
+     * @throws Exception if the scan failed
+     */
+    boolean scanMissingReferences(Class<?> modelClass, Class<?> otherClass, ScanVisitor visitor) throws Exception;
+
+    /**
+     * Streams the entries of a column with keys in {@code [from, to)} to the {@code visitor} in ascending key order
+     * without materializing them. The scan stops as soon as the visitor returns <tt>false</tt>.
+     *
+     * @param model the column to scan
+     * @param from the first key to visit or <tt>null</tt> to start at the beginning of the column
+     * @param to the key at which the scan stops (exclusive) or <tt>null</tt> to scan to the end of the column
+     * @param keysOnly if <tt>true</tt> only the keys are passed to the visitor and the values are not read
+     * @param visitor receives the entries
+     * @return <tt>true</tt> if this provider performed the scan
+     * @throws Exception if the scan failed
+     */
+    boolean scan(Class<?> model, byte[] from, byte[] to, boolean keysOnly, ScanVisitor visitor) throws Exception;
+
+    /**
+     * Streams the hashes of the transactions that arrived in {@code [from, to)} to the {@code visitor}, ordered by
+     * their arrival time. Transactions without a known arrival time are not visited.
+     *
+     * @param from the earliest arrival time in milliseconds (inclusive)
+     * @param to the latest arrival time in milliseconds (exclusive)
+     * @param newestFirst <tt>true</tt> to visit the most recent transactions first
+     * @param visitor receives the transaction hashes, the values are always <tt>null</tt>
+     * @return <tt>true</tt> if this provider performed the scan
+     * @throws Exception if the scan failed
+     */
+    boolean scanArrivals(long from, long to, boolean newestFirst, ScanVisitor visitor) throws Exception;
+
+    /**
+     * Creates a consistent copy of the stored data while the provider stays available for reads and writes.
+     *
+     * @param path the folder of the checkpoint, which must not exist yet
+     * @return <tt>true</tt> if this provider created the checkpoint, <tt>false</tt> if it does not support checkpoints
+     * @throws Exception if the checkpoint could not be created
+     */
+    boolean createCheckpoint(String path) throws Exception;
+
     Persistable get(Class<?> model, Indexable index) throws Exception;
 
+    /**
+     * Performs {@link #get(Class, Indexable)} for several keys at once.
+     *
+     * @param model the class of the stored values
+     * @param indexes the keys to look up
+     * @return the values in the order of {@code indexes} or <tt>null</tt> if this provider does not store values
+     * @throws Exception if the values could not be read
+     */
+    List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception;
+
     boolean mayExist(Class<?> model, Indexable index) throws Exception;
 
     long count(Class<?> model) throws Exception;
 
+    /**
+     * Reads the counters of this provider: the number of keys of the models (by their simple class names),
+     * {@link #SOLID_TRANSACTIONS} and {@link #PREFILLED_SLOTS}. The counters are kept by the writes, so reading them does
+     * not scan the stored entries.
+     *
+     * @return the counters by name, without the counters that are not kept by this provider
+     * @throws Exception if the counters could not be read
+     */
+    Map<String, Long> getCounters() throws Exception;
+
+    /**
+     * Samples the metrics of the storage engine, e.g. cache hits, write stalls, compactions and file sizes, and of the
+     * write queue of the provider if it has one.
+     *
+     * @return the metrics by name, empty if the provider has no storage engine metrics
+     * @throws Exception if the metrics could not be read
+     */
+    Map<String, Long> getMetrics() throws Exception;
+
     Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value);
 
     Persistable seek(Class<?> model, byte[] key) throws Exception;
@@ -42,6 +140,32 @@ public interface PersistenceProvider {
 
     boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception;
 
+    /**
+     * Atomically performs {@link #saveBatch(List)} if no entry is stored under {@code index} in the column of
+     * {@code model}. The existence check does not read the stored value. Providers that do not store the models (e.g.
+     * publishers) never insert and return <tt>false</tt>, they receive the batch through {@link #saveBatch(List)} once
+     * it was inserted.
+     *
+     * @param model the column that is checked for {@code index}
+     * @param index the key that must not exist yet
+     * @param models key value pairs to write
+     * @return <tt>true</tt> if the batch was written, <tt>false</tt> if the entry already existed
+     * @throws Exception if the batch could not be written
+     */
+    boolean saveBatchIfAbsent(Class<?> model, Indexable index, List<Pair<Indexable, Persistable>> models)
+            throws Exception;
+
+    /**
+     * Performs {@link #saveBatchIfAbsent(Class, Indexable, List)} for several keys in a single write.
+     *
+     * @param model the column that is checked for the keys
+     * @param batches the key value pairs to write by the key that must not exist yet
+     * @return the keys whose batches were written
+     * @throws Exception if the batches could not be written
+     */
+    Set<Indexable> saveBatchesIfAbsent(Class<?> model, Map<Indexable, List<Pair<Indexable, Persistable>>> batches)
+            throws Exception;
+
     /**
      * Atomically delete all {@code models}.
      * @param models key value pairs that to be expunged from the db
@@ -49,6 +173,18 @@ public interface PersistenceProvider {
      */
     void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models) throws Exception;
 
+    /**
+     * Removes hashes from the entries of an index column. Every entry is read and overwritten without the removed
+     * hashes, or deleted if no hash is left. The other writes of the provider cannot interleave with the rewrite, so
+     * hashes that are appended to the entries at the same time are not lost.
+     *
+     * @param model the index column, its values must be {@link com.iota.iri.model.persistables.Hashes}
+     * @param removals the hashes to remove by the key of the entry they are removed from
+     * @throws Exception if the entries could not be read or written
+     */
+    void removeFromIndex(Class<?> model, Map<Indexable, ? extends Collection<? extends Indexable>> removals)
+            throws Exception;
+
     void clear(Class<?> column) throws Exception;
     void clearMetadata(Class<?> column) throws Exception;
     void clearAll() throws Exception;
@@ -0,0 +1,20 @@
+package com.iota.iri.storage;
+
+/**
+ * Receives the entries of a scan over a column, in ascending key order.
+ *
+ * @see PersistenceProvider#scan(Class, byte[], byte[], boolean, ScanVisitor)
+ */
+@FunctionalInterface
+public interface ScanVisitor {
+
+    /**
+     * Visits a single entry.
+     *
+     * @param key the key of the entry
+     * @param value the stored value or <tt>null</tt> if only the keys are scanned
+     * @return <tt>true</tt> to continue the scan, <tt>false</tt> to stop it
+     * @throws Exception if the entry could not be processed, this stops the scan
+     */
+    boolean visit(Indexable key, Persistable value) throws Exception;
+}
@@ -0,0 +1,29 @@
+package com.iota.iri.storage;
+
+/**
+ * A {@link Persistable} whose frequently updated fields are stored apart from the rest of its metadata. Updates that
+ * only touch these fields can then be written without re-serializing and rewriting the whole metadata.
+ */
+public interface StatefulPersistable extends Persistable {
+
+    /**
+     * @return the serialized frequently updated fields
+     */
+    byte[] state();
+
+    /**
+     * Reads the fields written by {@link #state()}. The values override the ones read from the metadata.
+     *
+     * @param bytes the serialized fields, <tt>null</tt> if no state was stored
+     */
+    void readState(byte[] bytes);
+
+    /**
+     * Tells whether an update only changes fields that are part of {@link #state()}.
+     *
+     * @param item the <tt>|</tt> separated names of the updated fields as passed to
+     *             {@link PersistenceProvider#update(Persistable, Indexable, String)}
+     * @return <tt>true</tt> if writing the state is sufficient to persist the update
+     */
+    boolean isStateUpdate(String item);
+}
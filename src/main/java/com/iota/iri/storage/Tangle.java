@@ -1,13 +1,22 @@
 package com.iota.iri.storage;
 
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.archive.TransactionArchive;
+import com.iota.iri.utils.IotaUtils;
 import com.iota.iri.utils.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Created by paul on 3/3/17 for iri.
@@ -16,11 +25,40 @@ public class Tangle {
     private static final Logger log = LoggerFactory.getLogger(Tangle.class);
 
     private final List<PersistenceProvider> persistenceProviders = new ArrayList<>();
+    private TransactionCache transactionCache;
+    private TransactionArchive archive;
 
     public void addPersistenceProvider(PersistenceProvider provider) {
         this.persistenceProviders.add(provider);
     }
 
+    /**
+     * Puts a write-through cache in front of all transaction loads. Must be called before the tangle is used.
+     *
+     * @param transactionCache the cache, <tt>null</tt> disables caching
+     */
+    public void setTransactionCache(TransactionCache transactionCache) {
+        this.transactionCache = transactionCache;
+    }
+
+    public TransactionCache getTransactionCache() {
+        return transactionCache;
+    }
+
+    /**
+     * Lets transaction loads fall through to an archive of pruned transactions. Must be called before the tangle is
+     * used.
+     *
+     * @param archive the archive, <tt>null</tt> disables the fall through
+     */
+    public void setArchive(TransactionArchive archive) {
+        this.archive = archive;
+    }
+
+    public TransactionArchive getArchive() {
+        return archive;
+    }
+
     public void init() throws Exception {
         for(PersistenceProvider provider: this.persistenceProviders) {
             provider.init();
@@ -30,52 +68,273 @@ public class Tangle {
 
     public void shutdown() throws Exception {
         log.info("Shutting down Tangle Persistence Providers... ");
+        if (transactionCache != null) {
+            log.info("Transaction cache statistics: {}", transactionCache);
+        }
         this.persistenceProviders.forEach(PersistenceProvider::shutdown);
         this.persistenceProviders.clear();
+        if (archive != null) {
+            archive.shutdown();
+        }
     }
 
     public Persistable load(Class<?> model, Indexable index) throws Exception {
+            boolean cached = transactionCache != null && model == Transaction.class;
+            long stamp = 0;
+            if (cached) {
+                Transaction transaction = transactionCache.get(index);
+                if (transaction != null) {
+                    return transaction;
+                }
+                stamp = transactionCache.stamp(index);
+            }
             Persistable out = null;
             for(PersistenceProvider provider: this.persistenceProviders) {
                 if((out = provider.get(model, index)) != null) {
                     break;
                 }
             }
+            if (mayBeArchived(model, out)) {
+                //archived transactions are not cached, they are not in the database anymore
+                Transaction archived = archive.load(index);
+                return archived == null ? out : archived;
+            }
+            if (cached && out != null) {
+                transactionCache.fill(index, (Transaction) out, stamp);
+            }
             return out;
     }
 
-    public Boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
-        boolean exists = false;
-        for(PersistenceProvider provider: persistenceProviders) {
-            if(exists) {
-                provider.saveBatch(models);
-            } else {
-                exists = provider.saveBatch(models);
+    /**
+     * Loads several entries of the same model at once. Cached transactions are served from the cache and all misses
+     * are read from the storage in a single batch.
+     *
+     * @param model the class of the stored values
+     * @param indexes the keys to look up
+     * @return the values in the order of {@code indexes}, entries are <tt>null</tt> if no provider stores values
+     */
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        boolean cached = transactionCache != null && model == Transaction.class;
+        Persistable[] out = new Persistable[indexes.size()];
+        List<Indexable> misses = new ArrayList<>(indexes.size());
+        int[] positions = new int[indexes.size()];
+        long[] stamps = new long[indexes.size()];
+        for (int i = 0; i < indexes.size(); i++) {
+            Indexable index = indexes.get(i);
+            if (cached) {
+                Transaction transaction = transactionCache.get(index);
+                if (transaction != null) {
+                    out[i] = transaction;
+                    continue;
+                }
+                stamps[misses.size()] = transactionCache.stamp(index);
+            }
+            positions[misses.size()] = i;
+            misses.add(index);
+        }
+
+        if (!misses.isEmpty()) {
+            List<Persistable> loaded = null;
+            for (PersistenceProvider provider : this.persistenceProviders) {
+                if ((loaded = provider.multiGet(model, misses)) != null) {
+                    break;
+                }
+            }
+            if (loaded != null) {
+                for (int i = 0; i < misses.size(); i++) {
+                    Persistable persistable = loaded.get(i);
+                    if (mayBeArchived(model, persistable)) {
+                        Transaction archived = archive.load(misses.get(i));
+                        out[positions[i]] = archived == null ? persistable : archived;
+                        continue;
+                    }
+                    out[positions[i]] = persistable;
+                    if (cached) {
+                        transactionCache.fill(misses.get(i), (Transaction) persistable, stamps[i]);
+                    }
+                }
             }
         }
-        return exists;
+        return Arrays.asList(out);
     }
-    public Boolean save(Persistable model, Indexable index) throws Exception {
+
+    private boolean mayBeArchived(Class<?> model, Persistable loaded) {
+        return archive != null && model == Transaction.class
+                && (loaded == null || ((Transaction) loaded).bytes() == null);
+    }
+
+    public Boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        List<Pair<Indexable, Persistable>> transactions = cachedTransactions(models);
+        int[] locks = lockTransactions(transactions.stream().map(pair -> pair.low).collect(Collectors.toList()));
+        try {
             boolean exists = false;
-            for(PersistenceProvider provider: persistenceProviders) {
-                if(exists) {
-                    provider.save(model, index);
+            for (PersistenceProvider provider : persistenceProviders) {
+                if (exists) {
+                    provider.saveBatch(models);
                 } else {
-                   exists = provider.save(model, index);
+                    exists = provider.saveBatch(models);
                 }
             }
+            for (Pair<Indexable, Persistable> pair : transactions) {
+                transactionCache.put(pair.low, (Transaction) pair.hi);
+            }
             return exists;
+        } finally {
+            unlockTransactions(locks);
+        }
+    }
+
+    /**
+     * Writes {@code models} unless an entry is already stored under {@code index} in the column of {@code model}. The
+     * providers that store the models decide whether the batch is inserted, the providers that only receive the
+     * writes (e.g. publishers) get the batch only if it was inserted.
+     *
+     * @param model the column that is checked for {@code index}
+     * @param index the key that must not exist yet
+     * @param models key value pairs to write
+     * @return <tt>true</tt> if the batch was written, <tt>false</tt> if the entry already existed
+     * @throws Exception if the batch could not be written
+     */
+    public boolean saveBatchIfAbsent(Class<?> model, Indexable index, List<Pair<Indexable, Persistable>> models)
+            throws Exception {
+        if (transactionCache != null && model == Transaction.class && transactionCache.contains(index)) {
+            return false;
+        }
+        List<Pair<Indexable, Persistable>> transactions = cachedTransactions(models);
+        int[] locks = lockTransactions(transactions.stream().map(pair -> pair.low).collect(Collectors.toList()));
+        try {
+            boolean inserted = false;
+            for (PersistenceProvider provider : persistenceProviders) {
+                if (inserted) {
+                    provider.saveBatch(models);
+                } else {
+                    inserted = provider.saveBatchIfAbsent(model, index, models);
+                }
+            }
+            if (inserted) {
+                for (Pair<Indexable, Persistable> pair : transactions) {
+                    transactionCache.put(pair.low, (Transaction) pair.hi);
+                }
+            }
+            return inserted;
+        } finally {
+            unlockTransactions(locks);
+        }
+    }
+
+    /**
+     * Performs {@link #saveBatchIfAbsent(Class, Indexable, List)} for several keys in a single write per provider.
+     *
+     * @param model the column that is checked for the keys
+     * @param batches the key value pairs to write by the key that must not exist yet
+     * @return the keys whose batches were written
+     * @throws Exception if the batches could not be written
+     */
+    public Set<Indexable> saveBatchesIfAbsent(Class<?> model,
+                                              Map<Indexable, List<Pair<Indexable, Persistable>>> batches)
+            throws Exception {
+        Map<Indexable, List<Pair<Indexable, Persistable>>> absent = new LinkedHashMap<>(batches);
+        if (transactionCache != null && model == Transaction.class) {
+            absent.keySet().removeIf(transactionCache::contains);
+        }
+        if (absent.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<Pair<Indexable, Persistable>> transactions = cachedTransactions(flatten(absent.values()));
+        int[] locks = lockTransactions(transactions.stream().map(pair -> pair.low).collect(Collectors.toList()));
+        try {
+            Set<Indexable> inserted = Collections.emptySet();
+            for (PersistenceProvider provider : persistenceProviders) {
+                if (!inserted.isEmpty()) {
+                    provider.saveBatch(flatten(inserted.stream().map(absent::get).collect(Collectors.toList())));
+                } else {
+                    inserted = provider.saveBatchesIfAbsent(model, absent);
+                }
+            }
+            for (Indexable key : inserted) {
+                for (Pair<Indexable, Persistable> pair : cachedTransactions(absent.get(key))) {
+                    transactionCache.put(pair.low, (Transaction) pair.hi);
+                }
+            }
+            return inserted;
+        } finally {
+            unlockTransactions(locks);
+        }
+    }
+
+    private static List<Pair<Indexable, Persistable>> flatten(
+            Collection<List<Pair<Indexable, Persistable>>> batches) {
+        List<Pair<Indexable, Persistable>> models = new ArrayList<>();
+        batches.forEach(models::addAll);
+        return models;
+    }
+
+    public Boolean save(Persistable model, Indexable index) throws Exception {
+            boolean cached = transactionCache != null && model instanceof Transaction;
+            int[] locks = cached ? transactionCache.lock(Collections.singleton(index)) : null;
+            try {
+                boolean exists = false;
+                for (PersistenceProvider provider : persistenceProviders) {
+                    if (exists) {
+                        provider.save(model, index);
+                    } else {
+                        exists = provider.save(model, index);
+                    }
+                }
+                if (cached) {
+                    transactionCache.put(index, (Transaction) model);
+                }
+                return exists;
+            } finally {
+                unlockTransactions(locks);
+            }
     }
 
     public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models) throws Exception {
-        for(PersistenceProvider provider: persistenceProviders) {
-            provider.deleteBatch(models);
+        List<Indexable> transactions = transactionCache == null ? Collections.emptyList() : models.stream()
+                .filter(pair -> pair.hi == Transaction.class)
+                .map(pair -> pair.low)
+                .collect(Collectors.toList());
+        int[] locks = lockTransactions(transactions);
+        try {
+            for (PersistenceProvider provider : persistenceProviders) {
+                provider.deleteBatch(models);
+            }
+            for (Indexable index : transactions) {
+                transactionCache.invalidate(index);
+            }
+        } finally {
+            unlockTransactions(locks);
+        }
+    }
+
+    /**
+     * Removes hashes from the entries of an index column, e.g. the hashes of pruned transactions.
+     *
+     * @see PersistenceProvider#removeFromIndex(Class, Map)
+     */
+    public void removeFromIndex(Class<?> model, Map<Indexable, ? extends Collection<? extends Indexable>> removals)
+            throws Exception {
+        if (removals.isEmpty()) {
+            return;
+        }
+        for (PersistenceProvider provider : persistenceProviders) {
+            provider.removeFromIndex(model, removals);
         }
     }
 
     public void delete(Class<?> model, Indexable index) throws Exception {
-            for(PersistenceProvider provider: persistenceProviders) {
-                provider.delete(model, index);
+            boolean cached = transactionCache != null && model == Transaction.class;
+            int[] locks = cached ? transactionCache.lock(Collections.singleton(index)) : null;
+            try {
+                for (PersistenceProvider provider : persistenceProviders) {
+                    provider.delete(model, index);
+                }
+                if (cached) {
+                    transactionCache.invalidate(index);
+                }
+            } finally {
+                unlockTransactions(locks);
             }
     }
 
@@ -90,15 +349,45 @@ public class Tangle {
     }
 
     public Boolean update(Persistable model, Indexable index, String item) throws Exception {
+            boolean cached = transactionCache != null && model instanceof Transaction;
+            int[] locks = cached ? transactionCache.lock(Collections.singleton(index)) : null;
+            try {
+                boolean success = false;
+                for (PersistenceProvider provider : this.persistenceProviders) {
+                    if (success) {
+                        provider.update(model, index, item);
+                    } else {
+                        success = provider.update(model, index, item);
+                    }
+                }
+                if (cached) {
+                    transactionCache.put(index, (Transaction) model);
+                }
+                return success;
+            } finally {
+                unlockTransactions(locks);
+            }
+    }
+
+    public Boolean updateBatch(List<Pair<Indexable, Persistable>> models, String item) throws Exception {
+        List<Pair<Indexable, Persistable>> transactions = cachedTransactions(models);
+        int[] locks = lockTransactions(transactions.stream().map(pair -> pair.low).collect(Collectors.toList()));
+        try {
             boolean success = false;
-            for(PersistenceProvider provider: this.persistenceProviders) {
-                if(success) {
-                    provider.update(model, index, item);
+            for (PersistenceProvider provider : this.persistenceProviders) {
+                if (success) {
+                    provider.updateBatch(models, item);
                 } else {
-                    success = provider.update(model, index, item);
+                    success = provider.updateBatch(models, item);
                 }
             }
+            for (Pair<Indexable, Persistable> pair : transactions) {
+                transactionCache.put(pair.low, (Transaction) pair.hi);
+            }
             return success;
+        } finally {
+            unlockTransactions(locks);
+        }
     }
 
     public Set<Indexable> keysWithMissingReferences(Class<?> modelClass, Class<?> referencedClass) throws Exception {
@@ -112,6 +401,70 @@ public class Tangle {
             return output;
     }
 
+    /**
+     * Streams the keys of {@code modelClass} that are not present in {@code referencedClass} with bounded memory.
+     *
+     * @see PersistenceProvider#scanMissingReferences(Class, Class, ScanVisitor)
+     */
+    public void scanMissingReferences(Class<?> modelClass, Class<?> referencedClass, ScanVisitor visitor)
+            throws Exception {
+        for (PersistenceProvider provider : this.persistenceProviders) {
+            if (provider.scanMissingReferences(modelClass, referencedClass, visitor)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Streams the entries of a column with keys in {@code [from, to)} to the {@code visitor}.
+     *
+     * @see PersistenceProvider#scan(Class, byte[], byte[], boolean, ScanVisitor)
+     */
+    public void scan(Class<?> model, byte[] from, byte[] to, boolean keysOnly, ScanVisitor visitor) throws Exception {
+        for (PersistenceProvider provider : this.persistenceProviders) {
+            if (provider.scan(model, from, to, keysOnly, visitor)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Streams the entries of a column whose keys start with {@code prefix} to the {@code visitor}.
+     *
+     * @see PersistenceProvider#scan(Class, byte[], byte[], boolean, ScanVisitor)
+     */
+    public void scanPrefix(Class<?> model, byte[] prefix, boolean keysOnly, ScanVisitor visitor) throws Exception {
+        scan(model, prefix, IotaUtils.getPrefixEnd(prefix), keysOnly, visitor);
+    }
+
+    /**
+     * Streams the hashes of the transactions that arrived in {@code [from, to)} to the {@code visitor}.
+     *
+     * @see PersistenceProvider#scanArrivals(long, long, boolean, ScanVisitor)
+     */
+    public void scanArrivals(long from, long to, boolean newestFirst, ScanVisitor visitor) throws Exception {
+        for (PersistenceProvider provider : this.persistenceProviders) {
+            if (provider.scanArrivals(from, to, newestFirst, visitor)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Creates a checkpoint with the first provider that supports checkpoints.
+     *
+     * @return <tt>true</tt> if a provider created the checkpoint
+     * @see PersistenceProvider#createCheckpoint(String)
+     */
+    public boolean createCheckpoint(String path) throws Exception {
+        for (PersistenceProvider provider : this.persistenceProviders) {
+            if (provider.createCheckpoint(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
             Set<Indexable> output = null;
             for(PersistenceProvider provider: this.persistenceProviders) {
@@ -124,6 +477,9 @@ public class Tangle {
     }
 
     public Boolean exists(Class<?> modelClass, Indexable hash) throws Exception {
+            if (transactionCache != null && modelClass == Transaction.class && transactionCache.contains(hash)) {
+                return true;
+            }
             for(PersistenceProvider provider: this.persistenceProviders) {
                 if (provider.exists(modelClass, hash)) {
                     return true;
@@ -151,6 +507,33 @@ public class Tangle {
             return value;
     }
 
+    /**
+     * Reads the counters of all providers. If several providers keep the same counter, the first one is used.
+     *
+     * @see PersistenceProvider#getCounters()
+     */
+    public Map<String, Long> getCounters() throws Exception {
+        Map<String, Long> counters = new HashMap<>();
+        for (PersistenceProvider provider : this.persistenceProviders) {
+            provider.getCounters().forEach(counters::putIfAbsent);
+        }
+        return counters;
+    }
+
+    /**
+     * Samples the storage engine metrics of all providers. If several providers report the same metric, the first one
+     * is used.
+     *
+     * @see PersistenceProvider#getMetrics()
+     */
+    public Map<String, Long> getMetrics() throws Exception {
+        Map<String, Long> metrics = new HashMap<>();
+        for (PersistenceProvider provider : this.persistenceProviders) {
+            provider.getMetrics().forEach(metrics::putIfAbsent);
+        }
+        return metrics;
+    }
+
     public Persistable find(Class<?> model, byte[] key) throws Exception {
             Persistable out = null;
             for (PersistenceProvider provider : this.persistenceProviders) {
@@ -195,31 +578,45 @@ public class Tangle {
         for(PersistenceProvider provider: persistenceProviders) {
             provider.clear(column);
         }
+        if (transactionCache != null && column == Transaction.class) {
+            transactionCache.clear();
+        }
     }
 
     public void clearMetadata(Class<?> column) throws Exception {
         for(PersistenceProvider provider: persistenceProviders) {
             provider.clearMetadata(column);
         }
+        if (transactionCache != null && column == Transaction.class) {
+            transactionCache.clear();
+        }
     }
 
     public void clearAll() throws Exception {
         for(PersistenceProvider provider: persistenceProviders) {
             provider.clearAll();
         }
+        if (transactionCache != null) {
+            transactionCache.clear();
+        }
     }
 
-    /*
-    public boolean merge(Persistable model, Indexable index) throws Exception {
-        boolean exists = false;
-        for(PersistenceProvider provider: persistenceProviders) {
-            if(exists) {
-                provider.save(model, index);
-            } else {
-                exists = provider.merge(model, index);
-            }
+    private List<Pair<Indexable, Persistable>> cachedTransactions(List<Pair<Indexable, Persistable>> models) {
+        if (transactionCache == null) {
+            return Collections.emptyList();
+        }
+        return models.stream()
+                .filter(pair -> pair.hi instanceof Transaction)
+                .collect(Collectors.toList());
+    }
+
+    private int[] lockTransactions(List<Indexable> indexes) {
+        return indexes.isEmpty() ? null : transactionCache.lock(indexes);
+    }
+
+    private void unlockTransactions(int[] locks) {
+        if (locks != null) {
+            transactionCache.unlock(locks);
         }
-        return exists;
     }
-    */
 }
@@ -0,0 +1,242 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.persistables.Transaction;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded LRU cache of {@link Transaction}s that sits in front of the persistence providers of the {@link Tangle}.
+ *
+ * <p>
+ * The cache keeps a decoded copy of every transaction and hands out a fresh copy of it on every hit, so hits neither
+ * parse the transaction again nor let callers mutate a cached entry. Only filled transactions are cached.
+ * </p>
+ * <p>
+ * Coherence with the underlying storage is kept by the {@link Tangle}: writes are performed while holding the
+ * stripe locks of the written keys ({@link #lock(Collection)}) and are then written through to the cache. Loads
+ * that missed the cache only fill it if no write happened to the same stripe in the meantime
+ * ({@link #stamp(Indexable)} / {@link #fill(Indexable, Transaction, long)}).
+ * </p>
+ */
+public class TransactionCache {
+
+    private static final int STRIPES = 64;
+
+    private final int capacity;
+    private final Map<ByteBuffer, Entry> entries;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final long[] generations = new long[STRIPES];
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity the maximum number of transactions held by the cache
+     */
+    public TransactionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<ByteBuffer, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Entry> eldest) {
+                if (size() > TransactionCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Looks up a transaction.
+     *
+     * @param index the hash of the transaction
+     * @return a fresh copy of the cached transaction or <tt>null</tt> on a cache miss
+     */
+    public Transaction get(Indexable index) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key(index));
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.toTransaction();
+    }
+
+    /**
+     * Checks whether a transaction is cached without touching the statistics or the LRU order.
+     *
+     * @param index the hash of the transaction
+     * @return <tt>true</tt> if the transaction is cached
+     */
+    public synchronized boolean contains(Indexable index) {
+        return entries.containsKey(key(index));
+    }
+
+    /**
+     * Returns the write generation of the stripe the given key belongs to. It has to be taken before the transaction
+     * is read from the storage and passed to {@link #fill(Indexable, Transaction, long)} afterwards.
+     *
+     * @param index the hash of the transaction
+     * @return the current generation of the key's stripe
+     */
+    public synchronized long stamp(Indexable index) {
+        return generations[stripe(index)];
+    }
+
+    /**
+     * Adds a transaction that was read from the storage after a cache miss. The transaction is discarded if the
+     * stripe of the key was written since <tt>stamp</tt> was taken, because it might be outdated already.
+     *
+     * @param index the hash of the transaction
+     * @param transaction the transaction that was read from the storage
+     * @param stamp the value of {@link #stamp(Indexable)} before the transaction was read
+     */
+    public void fill(Indexable index, Transaction transaction, long stamp) {
+        if (!isCacheable(transaction)) {
+            return;
+        }
+        Entry entry = new Entry(transaction);
+        synchronized (this) {
+            if (generations[stripe(index)] == stamp) {
+                entries.putIfAbsent(key(index), entry);
+            }
+        }
+    }
+
+    /**
+     * Writes a transaction through to the cache. If the transaction is not cacheable (i.e. it has no bytes) a stale
+     * entry for the same key is removed instead.
+     *
+     * @param index the hash of the transaction
+     * @param transaction the transaction that was just written to the storage
+     */
+    public void put(Indexable index, Transaction transaction) {
+        Entry entry = isCacheable(transaction) ? new Entry(transaction) : null;
+        synchronized (this) {
+            generations[stripe(index)]++;
+            if (entry == null) {
+                entries.remove(key(index));
+            } else {
+                entries.put(key(index), entry);
+            }
+        }
+    }
+
+    /**
+     * Removes a transaction from the cache.
+     *
+     * @param index the hash of the transaction
+     */
+    public synchronized void invalidate(Indexable index) {
+        generations[stripe(index)]++;
+        entries.remove(key(index));
+    }
+
+    /**
+     * Removes all transactions from the cache.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations[i]++;
+        }
+        entries.clear();
+    }
+
+    /**
+     * Acquires the write locks of all stripes the given keys belong to. Locks are always taken in ascending order so
+     * concurrent writers of overlapping key sets can not deadlock.
+     *
+     * @param indexes the keys that are about to be written
+     * @return the acquired stripes that have to be passed to {@link #unlock(int[])}
+     */
+    public int[] lock(Collection<? extends Indexable> indexes) {
+        int[] stripes = indexes.stream().mapToInt(TransactionCache::stripe).distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        return stripes;
+    }
+
+    /**
+     * Releases the stripes acquired by {@link #lock(Collection)}.
+     *
+     * @param stripes the acquired stripes
+     */
+    public void unlock(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d hits=%d misses=%d evictions=%d", size(), capacity, getHits(), getMisses(),
+                getEvictions());
+    }
+
+    private static boolean isCacheable(Transaction transaction) {
+        return transaction != null && transaction.bytes != null
+                && (transaction.parsed || transaction.address != null);
+    }
+
+    private static ByteBuffer key(Indexable index) {
+        return ByteBuffer.wrap(index.bytes());
+    }
+
+    private static int stripe(Indexable index) {
+        return (Arrays.hashCode(index.bytes()) & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    private static class Entry {
+        private final Transaction transaction;
+
+        private Entry(Transaction transaction) {
+            this.transaction = new Transaction(transaction);
+            //the cached transactions are stored with their metadata, so the copies must not fill it again
+            this.transaction.parsed = true;
+        }
+
+        private Transaction toTransaction() {
+            return new Transaction(transaction);
+        }
+    }
+}
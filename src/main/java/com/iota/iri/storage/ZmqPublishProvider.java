@@ -10,7 +10,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class ZmqPublishProvider implements PersistenceProvider {
@@ -47,6 +49,12 @@ public class ZmqPublishProvider implements PersistenceProvider {
 
     }
 
+    @Override
+    public void removeFromIndex(Class<?> model, Map<Indexable, ? extends Collection<? extends Indexable>> removals)
+            throws Exception {
+
+    }
+
     @Override
     public boolean update(Persistable model, Indexable index, String item) throws Exception {
         if(!(model instanceof Transaction)) {
@@ -65,6 +73,15 @@ public class ZmqPublishProvider implements PersistenceProvider {
         return true;
     }
 
+    @Override
+    public boolean updateBatch(List<Pair<Indexable, Persistable>> models, String item) throws Exception {
+        boolean published = false;
+        for (Pair<Indexable, Persistable> entry : models) {
+            published |= update(entry.hi, entry.low, item);
+        }
+        return published;
+    }
+
     private void publishTx(TransactionViewModel transactionViewModel) {
         StringBuilder txStringBuilder = new StringBuilder(600);
 
@@ -120,11 +137,38 @@ public class ZmqPublishProvider implements PersistenceProvider {
         return null;
     }
 
+    @Override
+    public boolean scanMissingReferences(Class<?> modelClass, Class<?> otherClass, ScanVisitor visitor)
+            throws Exception {
+        return false;
+    }
+
+    @Override
+    public boolean scan(Class<?> model, byte[] from, byte[] to, boolean keysOnly, ScanVisitor visitor)
+            throws Exception {
+        return false;
+    }
+
+    @Override
+    public boolean scanArrivals(long from, long to, boolean newestFirst, ScanVisitor visitor) throws Exception {
+        return false;
+    }
+
+    @Override
+    public boolean createCheckpoint(String path) throws Exception {
+        return false;
+    }
+
     @Override
     public Persistable get(Class<?> model, Indexable index) throws Exception {
         return null;
     }
 
+    @Override
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        return null;
+    }
+
     @Override
     public boolean mayExist(Class<?> model, Indexable index) throws Exception {
         return false;
@@ -135,6 +179,16 @@ public class ZmqPublishProvider implements PersistenceProvider {
         return 0;
     }
 
+    @Override
+    public Map<String, Long> getCounters() throws Exception {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Long> getMetrics() throws Exception {
+        return Collections.emptyMap();
+    }
+
     @Override
     public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
         return null;
@@ -160,11 +214,34 @@ public class ZmqPublishProvider implements PersistenceProvider {
         return null;
     }
 
+    /**
+     * Publishes transactions that are stored together with the neighbor they were received from. Transactions that
+     * get their sender assigned after they were stored are published by {@link #update(Persistable, Indexable, String)}.
+     */
     @Override
     public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        boolean published = false;
+        for (Pair<Indexable, Persistable> entry : models) {
+            if (entry.hi instanceof Transaction && !((Transaction) entry.hi).sender.isEmpty()) {
+                published |= update(entry.hi, entry.low, "sender");
+            }
+        }
+        return published;
+    }
+
+    @Override
+    public boolean saveBatchIfAbsent(Class<?> model, Indexable index, List<Pair<Indexable, Persistable>> models)
+            throws Exception {
         return false;
     }
 
+    @Override
+    public Set<Indexable> saveBatchesIfAbsent(Class<?> model,
+                                              Map<Indexable, List<Pair<Indexable, Persistable>>> batches)
+            throws Exception {
+        return Collections.emptySet();
+    }
+
     @Override
     public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models) throws Exception {
 
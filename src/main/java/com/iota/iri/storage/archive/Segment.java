@@ -0,0 +1,269 @@
+package com.iota.iri.storage.archive;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.utils.IotaUtils;
+import com.iota.iri.utils.Pair;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * An immutable file of archived transactions, sorted by hash.
+ *
+ * <p>
+ * The file consists of the compressed blocks of {@link #BLOCK_SIZE} transactions, the sparse index of the first hash
+ * and the offset of every block, the bloom filter of all hashes, and a footer with the offset of the index. A
+ * transaction is stored as a record of the length of its metadata, its hash, its metadata and its bytes.
+ * </p>
+ */
+class Segment {
+
+    /**
+     * The number of transactions in a compressed block.
+     */
+    static final int BLOCK_SIZE = 64;
+
+    static final int RECORD_HEADER_SIZE = Integer.BYTES;
+
+    private static final int MAGIC = 0x41524331;
+    private static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int BLOOM_BITS_PER_KEY = 10;
+    private static final int BLOOM_HASH_FUNCTIONS = 7;
+
+    private final MappedByteBuffer buffer;
+    private final byte[][] firstKeys;
+    private final long[] offsets;
+    private final long[] bloom;
+    private final int size;
+
+    private Segment(MappedByteBuffer buffer, byte[][] firstKeys, long[] offsets, long[] bloom, int size) {
+        this.buffer = buffer;
+        this.firstKeys = firstKeys;
+        this.offsets = offsets;
+        this.bloom = bloom;
+        this.size = size;
+    }
+
+    /**
+     * Maps a segment file and reads its index.
+     *
+     * @param file the segment file
+     * @return the segment
+     * @throws IOException if the file could not be read or is not a complete segment
+     */
+    static Segment open(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < FOOTER_SIZE || buffer.getInt(buffer.capacity() - Integer.BYTES) != MAGIC) {
+            throw new IOException("The archive segment " + file + " is incomplete");
+        }
+        ByteBuffer index = buffer.duplicate();
+        index.position((int) buffer.getLong(buffer.capacity() - FOOTER_SIZE));
+        int size = index.getInt();
+        int blocks = index.getInt();
+        byte[][] firstKeys = new byte[blocks][];
+        long[] offsets = new long[blocks + 1];
+        for (int i = 0; i < blocks; i++) {
+            firstKeys[i] = new byte[Hash.SIZE_IN_BYTES];
+            index.get(firstKeys[i]);
+            offsets[i] = index.getLong();
+        }
+        offsets[blocks] = index.getLong();
+        long[] bloom = new long[index.getInt()];
+        for (int i = 0; i < bloom.length; i++) {
+            bloom[i] = index.getLong();
+        }
+        return new Segment(buffer, firstKeys, offsets, bloom, size);
+    }
+
+    /**
+     * Writes a segment file.
+     *
+     * @param file the file to write
+     * @param transactions the hashes and transactions, sorted by hash
+     * @throws IOException if the file could not be written
+     */
+    static void write(File file, List<Pair<byte[], Transaction>> transactions) throws IOException {
+        int blocks = (transactions.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        long[] offsets = new long[blocks + 1];
+        long[] bloom = new long[Math.max(1, (transactions.size() * BLOOM_BITS_PER_KEY + Long.SIZE - 1) / Long.SIZE)];
+        try (FileOutputStream fileStream = new FileOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream))) {
+            for (int block = 0; block < blocks; block++) {
+                offsets[block] = out.size();
+                List<Pair<byte[], Transaction>> records = transactions.subList(block * BLOCK_SIZE,
+                        Math.min(transactions.size(), (block + 1) * BLOCK_SIZE));
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                Deflater deflater = new Deflater();
+                try (DataOutputStream blockOut = new DataOutputStream(new DeflaterOutputStream(compressed, deflater))) {
+                    blockOut.writeInt(records.size());
+                    for (Pair<byte[], Transaction> record : records) {
+                        writeRecord(blockOut, record.low, record.hi);
+                        addToBloom(bloom, record.low);
+                    }
+                } finally {
+                    deflater.end();
+                }
+                out.write(compressed.toByteArray());
+            }
+            offsets[blocks] = out.size();
+
+            long indexOffset = out.size();
+            out.writeInt(transactions.size());
+            out.writeInt(blocks);
+            for (int block = 0; block < blocks; block++) {
+                out.write(transactions.get(block * BLOCK_SIZE).low);
+                out.writeLong(offsets[block]);
+            }
+            out.writeLong(offsets[blocks]);
+            out.writeInt(bloom.length);
+            for (long word : bloom) {
+                out.writeLong(word);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            fileStream.getFD().sync();
+        }
+    }
+
+    /**
+     * @param key the hash of a transaction
+     * @return the transaction or <tt>null</tt> if it is not stored in this segment
+     * @throws IOException if the block of the transaction could not be inflated
+     */
+    Transaction get(byte[] key) throws IOException {
+        if (!mightContain(bloom, key)) {
+            return null;
+        }
+        //the block of the key is the last block that starts with a smaller or equal key
+        int low = 0;
+        int high = firstKeys.length - 1;
+        int block = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (IotaUtils.compareUnsigned(firstKeys[middle], key) <= 0) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (block < 0) {
+            return null;
+        }
+
+        ByteBuffer records = inflate(block);
+        for (int count = records.getInt(); count > 0; count--) {
+            Pair<byte[], Transaction> record = readRecord(records);
+            int comparison = IotaUtils.compareUnsigned(record.low, key);
+            if (comparison == 0) {
+                return record.hi;
+            }
+            if (comparison > 0) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private ByteBuffer inflate(int block) throws IOException {
+        byte[] compressed = new byte[(int) (offsets[block + 1] - offsets[block])];
+        ByteBuffer source = buffer.duplicate();
+        source.position((int) offsets[block]);
+        source.get(compressed);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream records = new ByteArrayOutputStream(compressed.length * 2);
+            byte[] chunk = new byte[16 * 1024];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(chunk);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("The archive block " + block + " is truncated");
+                }
+                records.write(chunk, 0, inflated);
+            }
+            return ByteBuffer.wrap(records.toByteArray());
+        } catch (DataFormatException e) {
+            throw new IOException("The archive block " + block + " is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static void writeRecord(DataOutputStream out, byte[] key, Transaction transaction) throws IOException {
+        byte[] metadata = transaction.metadata();
+        out.writeInt(metadata.length);
+        out.write(key);
+        out.write(metadata);
+        out.write(transaction.bytes());
+    }
+
+    /**
+     * @param header a buffer positioned at the start of a record, which is not moved
+     * @return the size of the record
+     */
+    static int recordSize(ByteBuffer header) {
+        return RECORD_HEADER_SIZE + Hash.SIZE_IN_BYTES + header.getInt(header.position()) + Transaction.SIZE;
+    }
+
+    static Pair<byte[], Transaction> readRecord(ByteBuffer records) {
+        byte[] metadata = new byte[records.getInt()];
+        byte[] key = new byte[Hash.SIZE_IN_BYTES];
+        byte[] bytes = new byte[Transaction.SIZE];
+        records.get(key);
+        records.get(metadata);
+        records.get(bytes);
+
+        Transaction transaction = new Transaction();
+        transaction.read(bytes);
+        transaction.readMetadata(metadata);
+        return new Pair<>(key, transaction);
+    }
+
+    private static void addToBloom(long[] bloom, byte[] key) {
+        long bits = (long) bloom.length * Long.SIZE;
+        int hash = Arrays.hashCode(key);
+        int step = Integer.rotateLeft(hash * 0x9E3779B9, 16) | 1;
+        for (int i = 0; i < BLOOM_HASH_FUNCTIONS; i++) {
+            long bit = ((hash + (long) i * step) & Long.MAX_VALUE) % bits;
+            bloom[(int) (bit / Long.SIZE)] |= 1L << (bit % Long.SIZE);
+        }
+    }
+
+    private static boolean mightContain(long[] bloom, byte[] key) {
+        long bits = (long) bloom.length * Long.SIZE;
+        int hash = Arrays.hashCode(key);
+        int step = Integer.rotateLeft(hash * 0x9E3779B9, 16) | 1;
+        for (int i = 0; i < BLOOM_HASH_FUNCTIONS; i++) {
+            long bit = ((hash + (long) i * step) & Long.MAX_VALUE) % bits;
+            if ((bloom[(int) (bit / Long.SIZE)] & (1L << (bit % Long.SIZE))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,275 @@
+package com.iota.iri.storage.archive;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.utils.IotaUtils;
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps old transactions outside of the database, in files that are never modified once written.
+ *
+ * <p>
+ * Archived transactions are appended to a journal first. Once the journal holds {@link #SEGMENT_SIZE} transactions, it
+ * is sealed into a segment: the transactions are sorted by hash and written in compressed blocks, with a sparse index
+ * of the first hash of every block and a bloom filter of all hashes. Segments are memory mapped, a lookup checks the
+ * bloom filters of the segments and inflates at most one block of every segment that may contain the transaction.
+ * </p>
+ * <p>
+ * The archive only supports lookups by transaction hash. The index entries (addresses, bundles, tags and approvees) of
+ * archived transactions are not kept.
+ * </p>
+ */
+public class TransactionArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchive.class);
+
+    /**
+     * The number of transactions in a sealed segment.
+     */
+    static final int SEGMENT_SIZE = 100_000;
+
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String FILE_NAME_FORMAT = "%s%010d";
+
+    private final File folder;
+    private final int segmentSize;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    // the offsets of the journaled transactions by hash
+    private final Map<ByteBuffer, Long> journalOffsets = new ConcurrentHashMap<>();
+    private RandomAccessFile journal;
+    private long journalNumber;
+    private long journalSize;
+
+    /**
+     * @param folder the folder of the archive files
+     */
+    public TransactionArchive(File folder) {
+        this(folder, SEGMENT_SIZE);
+    }
+
+    TransactionArchive(File folder, int segmentSize) {
+        this.folder = folder;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the segments and the journal. A journal that was not sealed completely is sealed again, a record that was
+     * not written completely is discarded.
+     *
+     * @throws IOException if the archive could not be opened
+     */
+    public void init() throws IOException {
+        Files.createDirectories(folder.toPath());
+        long lastNumber = 0;
+        File[] files = folder.listFiles();
+        if (files == null) {
+            throw new IOException("Unable to list the archive folder " + folder);
+        }
+        Arrays.sort(files);
+        List<File> journals = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(".tmp")) {
+                //a segment that was not written completely, its journal still exists
+                Files.delete(file.toPath());
+            } else if (name.startsWith(SEGMENT_PREFIX)) {
+                segments.add(Segment.open(file));
+                lastNumber = Math.max(lastNumber, Long.parseLong(name.substring(SEGMENT_PREFIX.length())));
+            } else if (name.startsWith(JOURNAL_PREFIX)) {
+                journals.add(file);
+            }
+        }
+        for (int i = 0; i < journals.size(); i++) {
+            File file = journals.get(i);
+            long number = Long.parseLong(file.getName().substring(JOURNAL_PREFIX.length()));
+            lastNumber = Math.max(lastNumber, number);
+            if (getFile(SEGMENT_PREFIX, number).exists()) {
+                //the journal was sealed, but not deleted
+                Files.delete(file.toPath());
+                continue;
+            }
+            openJournal(number);
+            //only the last journal stays open
+            if (i < journals.size() - 1 || journalOffsets.size() >= segmentSize) {
+                seal();
+            }
+        }
+        if (journal == null) {
+            openJournal(lastNumber + 1);
+        }
+        log.info("Opened the transaction archive {} with {} segments and {} journaled transactions", folder,
+                segments.size(), journalOffsets.size());
+    }
+
+    public synchronized void shutdown() {
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            log.error("Error while closing the archive journal", e);
+        }
+        segments.clear();
+    }
+
+    /**
+     * Archives transactions. The transactions are durable when this method returns.
+     *
+     * @param transactions the hashes and the transactions to archive
+     * @throws IOException if the transactions could not be written
+     */
+    public synchronized void append(List<Pair<Hash, Transaction>> transactions) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        List<Pair<byte[], Long>> offsets = new ArrayList<>(transactions.size());
+        for (Pair<Hash, Transaction> transaction : transactions) {
+            offsets.add(new Pair<>(transaction.low.bytes(), journalSize + out.size()));
+            Segment.writeRecord(out, transaction.low.bytes(), transaction.hi);
+        }
+        journal.seek(journalSize);
+        journal.write(records.toByteArray());
+        journal.getFD().sync();
+        journalSize += out.size();
+        for (Pair<byte[], Long> offset : offsets) {
+            journalOffsets.put(ByteBuffer.wrap(offset.low), offset.hi);
+        }
+        if (journalOffsets.size() >= segmentSize) {
+            seal();
+            openJournal(journalNumber + 1);
+        }
+    }
+
+    /**
+     * Looks up an archived transaction.
+     *
+     * @param hash the hash of the transaction
+     * @return the transaction or <tt>null</tt> if it is not archived
+     * @throws IOException if the archive could not be read
+     */
+    public Transaction load(Indexable hash) throws IOException {
+        byte[] key = hash.bytes();
+        Long offset = journalOffsets.get(ByteBuffer.wrap(key));
+        if (offset != null) {
+            Transaction transaction = readJournal(offset, key);
+            if (transaction != null) {
+                return transaction;
+            }
+        }
+        //the newest segments are checked first, they are the most likely to be requested
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Transaction transaction = segments.get(i).get(key);
+            if (transaction != null) {
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of archived transactions
+     */
+    public long size() {
+        long size = journalOffsets.size();
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private synchronized Transaction readJournal(long offset, byte[] key) throws IOException {
+        //the journal may have been sealed since the offset was read
+        if (journal == null || !Long.valueOf(offset).equals(journalOffsets.get(ByteBuffer.wrap(key)))) {
+            return null;
+        }
+        byte[] header = new byte[Segment.RECORD_HEADER_SIZE];
+        journal.seek(offset);
+        journal.readFully(header);
+        byte[] record = new byte[Segment.recordSize(ByteBuffer.wrap(header))];
+        journal.seek(offset);
+        journal.readFully(record);
+        return Segment.readRecord(ByteBuffer.wrap(record)).hi;
+    }
+
+    private void openJournal(long number) throws IOException {
+        journalNumber = number;
+        journalOffsets.clear();
+        journal = new RandomAccessFile(getFile(JOURNAL_PREFIX, number), "rw");
+        ByteBuffer records = readJournal();
+        while (records.remaining() >= Segment.RECORD_HEADER_SIZE) {
+            int offset = records.position();
+            int size = Segment.recordSize(records.duplicate());
+            if (records.remaining() < size) {
+                break;
+            }
+            journalOffsets.put(ByteBuffer.wrap(Segment.readRecord(records).low), (long) offset);
+        }
+        journalSize = records.position();
+        if (journalSize < journal.length()) {
+            log.warn("Discarding an incomplete record at the end of the archive journal {}", journalNumber);
+            journal.setLength(journalSize);
+        }
+    }
+
+    private ByteBuffer readJournal() throws IOException {
+        byte[] records = new byte[(int) journal.length()];
+        journal.seek(0);
+        journal.readFully(records);
+        return ByteBuffer.wrap(records);
+    }
+
+    /**
+     * Writes the journaled transactions to a new segment and deletes the journal.
+     */
+    private void seal() throws IOException {
+        File journalFile = getFile(JOURNAL_PREFIX, journalNumber);
+        if (journalOffsets.isEmpty()) {
+            closeJournal(journalFile);
+            return;
+        }
+        List<Pair<byte[], Transaction>> transactions = new ArrayList<>(journalOffsets.size());
+        ByteBuffer records = readJournal();
+        while (records.hasRemaining()) {
+            transactions.add(Segment.readRecord(records));
+        }
+        transactions.sort((a, b) -> IotaUtils.compareUnsigned(a.low, b.low));
+
+        File segmentFile = getFile(SEGMENT_PREFIX, journalNumber);
+        File temporaryFile = new File(segmentFile.getPath() + ".tmp");
+        Segment.write(temporaryFile, transactions);
+        Files.move(temporaryFile.toPath(), segmentFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        segments.add(Segment.open(segmentFile));
+        closeJournal(journalFile);
+        log.info("Sealed {} archived transactions into {}", transactions.size(), segmentFile);
+    }
+
+    private void closeJournal(File journalFile) throws IOException {
+        journal.close();
+        journal = null;
+        journalOffsets.clear();
+        Files.delete(journalFile.toPath());
+    }
+
+    private File getFile(String prefix, long number) {
+        return new File(folder, String.format(FILE_NAME_FORMAT, prefix, number));
+    }
+}
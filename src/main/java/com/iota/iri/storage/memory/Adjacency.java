@@ -0,0 +1,103 @@
+package com.iota.iri.storage.memory;
+
+import java.util.Arrays;
+
+/**
+ * Sets of <tt>int</tt> ids by <tt>int</tt> id, stored as growable <tt>int</tt> arrays. Used for the approvers of
+ * transactions. Not thread safe.
+ */
+final class Adjacency {
+
+    private static final int[] EMPTY = new int[0];
+
+    // null if no set is stored for the id
+    private int[][] lists = new int[1024][];
+    private int[] sizes = new int[1024];
+    private int count;
+
+    boolean contains(int id) {
+        return id >= 0 && id < lists.length && lists[id] != null;
+    }
+
+    /**
+     * @param id the id of the set
+     * @return a copy of the set, empty if no set is stored
+     */
+    int[] get(int id) {
+        return contains(id) ? Arrays.copyOf(lists[id], sizes[id]) : EMPTY;
+    }
+
+    /**
+     * Replaces the set of {@code id}.
+     */
+    void set(int id, int[] values) {
+        ensureCapacity(id);
+        if (lists[id] == null) {
+            count++;
+        }
+        lists[id] = EMPTY;
+        sizes[id] = 0;
+        for (int value : values) {
+            add(id, value);
+        }
+    }
+
+    /**
+     * Adds {@code value} to the set of {@code id}, creating the set if needed.
+     */
+    void add(int id, int value) {
+        ensureCapacity(id);
+        int[] list = lists[id];
+        if (list == null) {
+            list = lists[id] = new int[2];
+            count++;
+        }
+        int size = sizes[id];
+        for (int i = 0; i < size; i++) {
+            if (list[i] == value) {
+                return;
+            }
+        }
+        if (size == list.length) {
+            list = lists[id] = Arrays.copyOf(list, Math.max(2, size * 2));
+        }
+        list[size] = value;
+        sizes[id] = size + 1;
+    }
+
+    void remove(int id) {
+        if (contains(id)) {
+            lists[id] = null;
+            sizes[id] = 0;
+            count--;
+        }
+    }
+
+    /**
+     * @return the number of stored sets
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return the exclusive upper bound of the ids that may have a set
+     */
+    int idLimit() {
+        return lists.length;
+    }
+
+    void clear() {
+        lists = new int[1024][];
+        sizes = new int[1024];
+        count = 0;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= lists.length) {
+            int length = Math.max(id + 1, lists.length * 2);
+            lists = Arrays.copyOf(lists, length);
+            sizes = Arrays.copyOf(sizes, length);
+        }
+    }
+}
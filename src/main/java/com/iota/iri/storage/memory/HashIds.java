@@ -0,0 +1,145 @@
+package com.iota.iri.storage.memory;
+
+import java.util.Arrays;
+
+/**
+ * Assigns dense <tt>int</tt> ids to fixed length keys (i.e. hashes), using an open addressing table over a single
+ * key array instead of a map of boxed keys.
+ *
+ * <p>
+ * Ids are never reused, so the memory of a key is only released by {@link #clear()}. Not thread safe.
+ * </p>
+ */
+final class HashIds {
+
+    private static final int EMPTY = 0;
+
+    private final int keyLength;
+    private byte[] keys;
+    // id + 1 of the key hashed to the bucket, EMPTY for free buckets
+    private int[] table;
+    private int size;
+
+    /**
+     * @param keyLength the length of all keys in bytes
+     * @param initialCapacity the number of keys that can be added before the structures grow
+     */
+    HashIds(int keyLength, int initialCapacity) {
+        this.keyLength = keyLength;
+        this.keys = new byte[Math.max(1, initialCapacity) * keyLength];
+        this.table = new int[tableSizeFor(initialCapacity)];
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the id of the key or <tt>-1</tt> if the key has no id
+     */
+    int get(byte[] key) {
+        checkLength(key);
+        int mask = table.length - 1;
+        for (int bucket = hash(key) & mask; table[bucket] != EMPTY; bucket = (bucket + 1) & mask) {
+            if (matches(table[bucket] - 1, key)) {
+                return table[bucket] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the id of the key, a new id is assigned if the key has none yet
+     */
+    int add(byte[] key) {
+        checkLength(key);
+        int mask = table.length - 1;
+        int bucket = hash(key) & mask;
+        for (; table[bucket] != EMPTY; bucket = (bucket + 1) & mask) {
+            if (matches(table[bucket] - 1, key)) {
+                return table[bucket] - 1;
+            }
+        }
+
+        int id = size++;
+        if ((id + 1) * keyLength > keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        System.arraycopy(key, 0, keys, id * keyLength, keyLength);
+        table[bucket] = id + 1;
+        //keep the load factor below 0.5, so probe sequences stay short
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * @param id an id returned by {@link #add(byte[])}
+     * @return a copy of the key
+     */
+    byte[] key(int id) {
+        return Arrays.copyOfRange(keys, id * keyLength, (id + 1) * keyLength);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getKeyLength() {
+        return keyLength;
+    }
+
+    void clear() {
+        keys = new byte[keyLength];
+        table = new int[tableSizeFor(0)];
+        size = 0;
+    }
+
+    private boolean matches(int id, byte[] key) {
+        int offset = id * keyLength;
+        for (int i = 0; i < keyLength; i++) {
+            if (keys[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int tableSize) {
+        int[] rehashed = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int id = 0; id < size; id++) {
+            int bucket = hash(keys, id * keyLength) & mask;
+            while (rehashed[bucket] != EMPTY) {
+                bucket = (bucket + 1) & mask;
+            }
+            rehashed[bucket] = id + 1;
+        }
+        table = rehashed;
+    }
+
+    private int hash(byte[] key) {
+        return hash(key, 0);
+    }
+
+    private int hash(byte[] source, int offset) {
+        int hash = 1;
+        for (int i = offset; i < offset + keyLength; i++) {
+            hash = 31 * hash + source[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private void checkLength(byte[] key) {
+        if (key.length != keyLength) {
+            throw new IllegalArgumentException("keys must have " + keyLength + " bytes");
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int tableSize = 16;
+        while (tableSize < capacity * 2) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+}
@@ -0,0 +1,671 @@
+package com.iota.iri.storage.memory;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashFactory;
+import com.iota.iri.model.persistables.Approvee;
+import com.iota.iri.model.persistables.Hashes;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.PersistenceProvider;
+import com.iota.iri.storage.ScanVisitor;
+import com.iota.iri.utils.IotaUtils;
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link PersistenceProvider} that keeps everything in memory and is lost on shutdown. It is meant for short lived
+ * test networks, benchmarks and test suites that should not depend on disk I/O.
+ *
+ * <p>
+ * Transaction hashes are mapped to dense <tt>int</tt> ids ({@link HashIds}). Transactions are stored as fixed size
+ * records in direct buffers ({@link TransactionRecords}) and approvers as <tt>int</tt> arrays of ids
+ * ({@link Adjacency}). All other columns are kept in sorted maps.
+ * </p>
+ * <p>
+ * The transaction and approvee columns are not sorted. Ordered access to them ({@link #scan}, {@link #next},
+ * {@link #first}, ...) sorts the keys on demand and is only meant for tests and maintenance tasks.
+ * </p>
+ */
+public class InMemoryPersistenceProvider implements PersistenceProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryPersistenceProvider.class);
+
+    private static final Pair<Indexable, Persistable> PAIR_OF_NULLS = new Pair<>(null, null);
+    private static final byte DELIMITER = ',';
+    private static final int SCAN_CHUNK_SIZE = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SecureRandom seed = new SecureRandom();
+
+    private final HashIds transactionIds = new HashIds(Hash.SIZE_IN_BYTES, 1 << 16);
+    private final TransactionRecords transactions = new TransactionRecords();
+    private final Adjacency approvers = new Adjacency();
+    private final NavigableSet<Arrival> arrivals = new TreeSet<>();
+    private final Map<Class<?>, NavigableMap<byte[], Entry>> columns = new HashMap<>();
+
+    private volatile boolean available;
+
+    @Override
+    public void init() {
+        available = true;
+        log.info("In-memory persistence provider initialized.");
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public void shutdown() {
+        available = false;
+        try {
+            clearAll();
+        } catch (Exception e) {
+            log.error("Error in shutdown", e);
+        }
+    }
+
+    @Override
+    public boolean save(Persistable model, Indexable index) throws Exception {
+        return write(() -> {
+            put(model, index.bytes());
+            return true;
+        });
+    }
+
+    @Override
+    public void delete(Class<?> model, Indexable index) throws Exception {
+        write(() -> {
+            remove(model, index.bytes());
+            return null;
+        });
+    }
+
+    @Override
+    public boolean update(Persistable model, Indexable index, String item) throws Exception {
+        return write(() -> updateTransaction(model, index.bytes()));
+    }
+
+    @Override
+    public boolean updateBatch(List<Pair<Indexable, Persistable>> models, String item) throws Exception {
+        return write(() -> {
+            for (Pair<Indexable, Persistable> entry : models) {
+                updateTransaction(entry.hi, entry.low.bytes());
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        return write(() -> putAll(models));
+    }
+
+    @Override
+    public boolean saveBatchIfAbsent(Class<?> model, Indexable index, List<Pair<Indexable, Persistable>> models)
+            throws Exception {
+        return write(() -> !contains(model, index.bytes()) && putAll(models));
+    }
+
+    @Override
+    public Set<Indexable> saveBatchesIfAbsent(Class<?> model,
+                                              Map<Indexable, List<Pair<Indexable, Persistable>>> batches)
+            throws Exception {
+        return write(() -> {
+            Set<Indexable> inserted = new LinkedHashSet<>();
+            for (Map.Entry<Indexable, List<Pair<Indexable, Persistable>>> batch : batches.entrySet()) {
+                if (!contains(model, batch.getKey().bytes()) && putAll(batch.getValue())) {
+                    inserted.add(batch.getKey());
+                }
+            }
+            return inserted;
+        });
+    }
+
+    private boolean putAll(List<Pair<Indexable, Persistable>> models) {
+        for (Pair<Indexable, Persistable> entry : models) {
+            if (entry.hi.merge()) {
+                append(entry.hi, entry.low.bytes());
+            } else {
+                put(entry.hi, entry.low.bytes());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models)
+            throws Exception {
+        write(() -> {
+            for (Pair<Indexable, ? extends Class<? extends Persistable>> entry : models) {
+                remove(entry.hi, entry.low.bytes());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void removeFromIndex(Class<?> model, Map<Indexable, ? extends Collection<? extends Indexable>> removals)
+            throws Exception {
+        write(() -> {
+            for (Map.Entry<Indexable, ? extends Collection<? extends Indexable>> entry : removals.entrySet()) {
+                byte[] key = entry.getKey().bytes();
+                Hashes hashes = (Hashes) load(model, key);
+                if (hashes.set.removeAll(entry.getValue())) {
+                    if (hashes.set.isEmpty()) {
+                        remove(model, key);
+                    } else {
+                        put(hashes, key);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean exists(Class<?> model, Indexable key) throws Exception {
+        return read(() -> contains(model, key.bytes()));
+    }
+
+    @Override
+    public boolean mayExist(Class<?> model, Indexable index) throws Exception {
+        return exists(model, index);
+    }
+
+    @Override
+    public Persistable get(Class<?> model, Indexable index) throws Exception {
+        return read(() -> load(model, index == null ? null : index.bytes()));
+    }
+
+    @Override
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        return read(() -> {
+            List<Persistable> objects = new ArrayList<>(indexes.size());
+            for (Indexable index : indexes) {
+                objects.add(load(model, index == null ? null : index.bytes()));
+            }
+            return objects;
+        });
+    }
+
+    @Override
+    public long count(Class<?> model) throws Exception {
+        return read(() -> {
+            if (model == Transaction.class) {
+                return (long) transactions.size();
+            }
+            if (model == Approvee.class) {
+                return (long) approvers.count();
+            }
+            NavigableMap<byte[], Entry> column = columns.get(model);
+            return column == null ? 0L : column.size();
+        });
+    }
+
+    @Override
+    public Map<String, Long> getCounters() throws Exception {
+        return read(() -> {
+            Map<String, Long> counters = new HashMap<>();
+            counters.put(Transaction.class.getSimpleName(), (long) transactions.size());
+            counters.put(Approvee.class.getSimpleName(), (long) approvers.count());
+            columns.forEach((model, column) -> counters.put(model.getSimpleName(), (long) column.size()));
+            return counters;
+        });
+    }
+
+    @Override
+    public Map<String, Long> getMetrics() throws Exception {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public boolean createCheckpoint(String path) throws Exception {
+        return false;
+    }
+
+    @Override
+    public Set<Indexable> keysWithMissingReferences(Class<?> modelClass, Class<?> otherClass) throws Exception {
+        Set<Indexable> indexables = new HashSet<>();
+        scanMissingReferences(modelClass, otherClass, (key, value) -> {
+            indexables.add(key);
+            return true;
+        });
+        return indexables.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(indexables);
+    }
+
+    @Override
+    public boolean scanMissingReferences(Class<?> modelClass, Class<?> otherClass, ScanVisitor visitor)
+            throws Exception {
+        if (modelClass == Approvee.class && otherClass == Transaction.class) {
+            //approvees and transactions share the ids, so the missing ones are found without sorting any keys
+            List<byte[]> missing = read(() -> {
+                List<byte[]> keys = new ArrayList<>();
+                for (int id = 0; id < Math.min(approvers.idLimit(), transactionIds.size()); id++) {
+                    if (approvers.contains(id) && !transactions.contains(id)) {
+                        keys.add(transactionIds.key(id));
+                    }
+                }
+                return keys;
+            });
+            for (byte[] key : missing) {
+                if (!visitor.visit(HashFactory.GENERIC.create(modelClass, key), null)) {
+                    break;
+                }
+            }
+            return true;
+        }
+
+        for (byte[] key : sortedKeys(modelClass)) {
+            if (!read(() -> contains(otherClass, key))
+                    && !visitor.visit(HashFactory.GENERIC.create(modelClass, key), null)) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean scan(Class<?> model, byte[] from, byte[] to, boolean keysOnly, ScanVisitor visitor)
+            throws Exception {
+        NavigableSet<byte[]> keys = sortedKeys(model);
+        if (from != null) {
+            keys = keys.tailSet(from, true);
+        }
+        if (to != null) {
+            keys = keys.headSet(to, false);
+        }
+        for (byte[] key : keys) {
+            Persistable object = keysOnly ? null : read(() -> load(model, key));
+            if (!visitor.visit(HashFactory.GENERIC.create(model, key), object)) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean scanArrivals(long from, long to, boolean newestFirst, ScanVisitor visitor) throws Exception {
+        if (Math.max(0, to) <= Math.max(0, from)) {
+            return true;
+        }
+        //the arrivals are visited in chunks, so the visitor is never called while the lock is held
+        Arrival[] cursor = new Arrival[1];
+        while (true) {
+            List<Hash> chunk = read(() -> {
+                NavigableSet<Arrival> range = arrivals.subSet(new Arrival(from, Integer.MIN_VALUE), true,
+                        new Arrival(to, Integer.MIN_VALUE), false);
+                if (newestFirst) {
+                    range = range.descendingSet();
+                }
+                if (cursor[0] != null) {
+                    range = range.tailSet(cursor[0], false);
+                }
+                List<Hash> hashes = new ArrayList<>(SCAN_CHUNK_SIZE);
+                for (Arrival arrival : range) {
+                    hashes.add(HashFactory.TRANSACTION.create(transactionIds.key(arrival.id)));
+                    cursor[0] = arrival;
+                    if (hashes.size() == SCAN_CHUNK_SIZE) {
+                        break;
+                    }
+                }
+                return hashes;
+            });
+            for (Hash hash : chunk) {
+                if (!visitor.visit(hash, null)) {
+                    return true;
+                }
+            }
+            if (chunk.size() < SCAN_CHUNK_SIZE) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
+        Objects.requireNonNull(value, "value byte[] cannot be null");
+        Set<Indexable> keys = new HashSet<>();
+        try {
+            scan(modelClass, value, IotaUtils.getPrefixEnd(value), true, (key, object) -> {
+                keys.add(key);
+                return true;
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return keys.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public Persistable seek(Class<?> model, byte[] key) throws Exception {
+        //reservoir sampling picks a uniformly random match without collecting all of them
+        Indexable[] chosen = new Indexable[1];
+        int[] matches = {0};
+        scan(model, key, IotaUtils.getPrefixEnd(key), true, (index, value) -> {
+            if (seed.nextInt(++matches[0]) == 0) {
+                chosen[0] = index;
+            }
+            return true;
+        });
+        return get(model, chosen[0]);
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
+        return entry(model, index.getClass(), sortedKeys(model).higher(index.bytes()));
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception {
+        return entry(model, index.getClass(), sortedKeys(model).lower(index.bytes()));
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception {
+        NavigableSet<byte[]> keys = sortedKeys(model);
+        return entry(model, indexModel, keys.isEmpty() ? null : keys.last());
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> first(Class<?> model, Class<?> indexModel) throws Exception {
+        NavigableSet<byte[]> keys = sortedKeys(model);
+        return entry(model, indexModel, keys.isEmpty() ? null : keys.first());
+    }
+
+    @Override
+    public void clear(Class<?> column) throws Exception {
+        write(() -> {
+            if (column == Transaction.class) {
+                transactions.clear();
+                arrivals.clear();
+            } else if (column == Approvee.class) {
+                approvers.clear();
+            } else {
+                columns.remove(column);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void clearMetadata(Class<?> column) throws Exception {
+        write(() -> {
+            if (column == Transaction.class) {
+                transactions.clearMetadata();
+                //the arrival index is derived from the metadata
+                arrivals.clear();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void clearAll() throws Exception {
+        write(() -> {
+            transactions.clear();
+            arrivals.clear();
+            approvers.clear();
+            transactionIds.clear();
+            columns.clear();
+            return null;
+        });
+    }
+
+    private void put(Persistable model, byte[] key) {
+        if (model instanceof Transaction) {
+            Transaction transaction = (Transaction) model;
+            if (transaction.bytes == null) {
+                return;
+            }
+            int id = transactionIds.add(key);
+            if (transactions.contains(id)) {
+                arrivals.remove(new Arrival(transactions.indexedTime(id), id));
+            }
+            long indexedTime = transaction.arrivalTime;
+            transactions.put(id, transaction.bytes, transaction.metadata(), indexedTime);
+            if (transaction.hasArrivalTime()) {
+                arrivals.add(new Arrival(indexedTime, id));
+            }
+        } else if (model.getClass() == Approvee.class) {
+            approvers.set(transactionIds.add(key), ids(((Hashes) model).set));
+        } else {
+            column(model.getClass()).put(key.clone(), new Entry(model.bytes(), model.metadata()));
+        }
+    }
+
+    /**
+     * Appends the value the way the RocksDB string append operator does.
+     */
+    private void append(Persistable model, byte[] key) {
+        if (model.getClass() == Approvee.class) {
+            int id = transactionIds.add(key);
+            for (int approver : ids(((Hashes) model).set)) {
+                approvers.add(id, approver);
+            }
+        } else {
+            column(model.getClass()).merge(key.clone(), new Entry(model.bytes(), model.metadata()),
+                    (stored, operand) -> {
+                        byte[] bytes = new byte[stored.bytes.length + 1 + operand.bytes.length];
+                        System.arraycopy(stored.bytes, 0, bytes, 0, stored.bytes.length);
+                        bytes[stored.bytes.length] = DELIMITER;
+                        System.arraycopy(operand.bytes, 0, bytes, stored.bytes.length + 1, operand.bytes.length);
+                        return new Entry(bytes, stored.metadata);
+                    });
+        }
+    }
+
+    private boolean updateTransaction(Persistable model, byte[] key) {
+        if (!(model instanceof Transaction)) {
+            return false;
+        }
+        int id = transactionIds.get(key);
+        if (!transactions.contains(id)) {
+            return false;
+        }
+        Transaction transaction = (Transaction) model;
+        //the metadata contains the state, so there is nothing to gain from writing the state separately
+        transactions.setMetadata(id, transaction.metadata());
+        long indexedTime = transaction.arrivalTime;
+        if (indexedTime != transactions.indexedTime(id)) {
+            arrivals.remove(new Arrival(transactions.indexedTime(id), id));
+            transactions.setIndexedTime(id, indexedTime);
+            if (transaction.hasArrivalTime()) {
+                arrivals.add(new Arrival(indexedTime, id));
+            }
+        }
+        return true;
+    }
+
+    private void remove(Class<?> model, byte[] key) {
+        if (model == Transaction.class) {
+            int id = transactionIds.get(key);
+            if (transactions.contains(id)) {
+                arrivals.remove(new Arrival(transactions.indexedTime(id), id));
+                transactions.remove(id);
+            }
+        } else if (model == Approvee.class) {
+            int id = transactionIds.get(key);
+            if (id >= 0) {
+                approvers.remove(id);
+            }
+        } else {
+            NavigableMap<byte[], Entry> column = columns.get(model);
+            if (column != null) {
+                column.remove(key);
+            }
+        }
+    }
+
+    private boolean contains(Class<?> model, byte[] key) {
+        if (model == Transaction.class) {
+            return transactions.contains(transactionIds.get(key));
+        }
+        if (model == Approvee.class) {
+            return approvers.contains(transactionIds.get(key));
+        }
+        NavigableMap<byte[], Entry> column = columns.get(model);
+        return column != null && column.containsKey(key);
+    }
+
+    private Persistable load(Class<?> model, byte[] key) throws Exception {
+        Persistable object = (Persistable) model.newInstance();
+        if (key == null) {
+            return object;
+        }
+        if (model == Transaction.class) {
+            int id = transactionIds.get(key);
+            if (transactions.contains(id)) {
+                object.read(transactions.bytes(id));
+                object.readMetadata(transactions.metadata(id));
+            }
+        } else if (model == Approvee.class) {
+            int id = transactionIds.get(key);
+            Set<Hash> hashes = new LinkedHashSet<>();
+            for (int approver : approvers.get(id)) {
+                hashes.add(HashFactory.TRANSACTION.create(transactionIds.key(approver)));
+            }
+            ((Hashes) object).set = hashes;
+        } else {
+            NavigableMap<byte[], Entry> column = columns.get(model);
+            Entry entry = column == null ? null : column.get(key);
+            if (entry != null) {
+                object.read(entry.bytes);
+                object.readMetadata(entry.metadata);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * @return a snapshot of the keys of the column in the order of the RocksDB comparator
+     */
+    private NavigableSet<byte[]> sortedKeys(Class<?> model) throws Exception {
+        return read(() -> {
+            if (model == Transaction.class || model == Approvee.class) {
+                NavigableSet<byte[]> keys = new TreeSet<>(IotaUtils::compareUnsigned);
+                for (int id = 0; id < transactionIds.size(); id++) {
+                    if (model == Transaction.class ? transactions.contains(id) : approvers.contains(id)) {
+                        keys.add(transactionIds.key(id));
+                    }
+                }
+                return keys;
+            }
+            NavigableMap<byte[], Entry> column = columns.get(model);
+            return column == null ? new TreeSet<>(IotaUtils::compareUnsigned) : new TreeSet<>(column.navigableKeySet());
+        });
+    }
+
+    private Pair<Indexable, Persistable> entry(Class<?> model, Class<?> indexModel, byte[] key) throws Exception {
+        if (key == null) {
+            return PAIR_OF_NULLS;
+        }
+        Indexable indexable = (Indexable) indexModel.newInstance();
+        indexable.read(key);
+        return new Pair<>(indexable, read(() -> load(model, key)));
+    }
+
+    private NavigableMap<byte[], Entry> column(Class<?> model) {
+        return columns.computeIfAbsent(model, key -> new TreeMap<>(IotaUtils::compareUnsigned));
+    }
+
+    private int[] ids(Set<Hash> hashes) {
+        int[] ids = new int[hashes.size()];
+        int i = 0;
+        for (Hash hash : hashes) {
+            ids[i++] = transactionIds.add(hash.bytes());
+        }
+        return ids;
+    }
+
+    private <T> T read(Action<T> action) throws Exception {
+        lock.readLock().lock();
+        try {
+            return action.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Action<T> action) throws Exception {
+        lock.writeLock().lock();
+        try {
+            return action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Action<T> {
+        T run() throws Exception;
+    }
+
+    private static final class Entry {
+        private final byte[] bytes;
+        private final byte[] metadata;
+
+        private Entry(byte[] bytes, byte[] metadata) {
+            this.bytes = bytes;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * An entry of the arrival index, ordered by the indexed time and then by transaction id.
+     */
+    private static final class Arrival implements Comparable<Arrival> {
+        private final long time;
+        private final int id;
+
+        private Arrival(long time, int id) {
+            //negative times are treated as 0, like in the RocksDB index
+            this.time = Math.max(0, time);
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Arrival other) {
+            int comparison = Long.compare(time, other.time);
+            return comparison != 0 ? comparison : Integer.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Arrival)) {
+                return false;
+            }
+            Arrival arrival = (Arrival) o;
+            return time == arrival.time && id == arrival.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(time, id);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.iota.iri.storage.memory;
+
+import com.iota.iri.model.persistables.Transaction;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the fixed size transaction records off-heap, in large direct buffers, and their metadata by transaction id.
+ *
+ * <p>
+ * Records of deleted transactions are reused by later transactions. Not thread safe.
+ * </p>
+ */
+final class TransactionRecords {
+
+    private static final int RECORDS_PER_CHUNK = 4096;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    // record + 1 of every transaction id, 0 if the transaction is not stored
+    private int[] records = new int[RECORDS_PER_CHUNK];
+    private byte[][] metadata = new byte[RECORDS_PER_CHUNK][];
+    private long[] indexedTimes = new long[RECORDS_PER_CHUNK];
+
+    private int[] freeRecords = new int[16];
+    private int freeCount;
+    private int nextRecord;
+    private int size;
+
+    boolean contains(int id) {
+        return id >= 0 && id < records.length && records[id] != 0;
+    }
+
+    /**
+     * Stores or replaces a transaction.
+     *
+     * @param id the id of the transaction hash
+     * @param bytes the {@link Transaction#SIZE} bytes of the transaction
+     * @param metadata the serialized metadata
+     * @param indexedTime the time the transaction is indexed with in the arrival index
+     */
+    void put(int id, byte[] bytes, byte[] metadata, long indexedTime) {
+        if (id >= records.length) {
+            records = Arrays.copyOf(records, Math.max(id + 1, records.length * 2));
+        }
+        int record = records[id] - 1;
+        if (record < 0) {
+            record = freeCount > 0 ? freeRecords[--freeCount] : nextRecord++;
+            records[id] = record + 1;
+            size++;
+        }
+        if (record >= this.metadata.length) {
+            this.metadata = Arrays.copyOf(this.metadata, this.metadata.length * 2);
+            indexedTimes = Arrays.copyOf(indexedTimes, indexedTimes.length * 2);
+        }
+        if (record / RECORDS_PER_CHUNK == chunks.size()) {
+            chunks.add(ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * Transaction.SIZE));
+        }
+        ByteBuffer chunk = chunks.get(record / RECORDS_PER_CHUNK).duplicate();
+        chunk.position((record % RECORDS_PER_CHUNK) * Transaction.SIZE);
+        chunk.put(bytes, 0, Transaction.SIZE);
+        this.metadata[record] = metadata;
+        indexedTimes[record] = indexedTime;
+    }
+
+    /**
+     * @param id the id of the transaction hash
+     * @return a copy of the transaction bytes
+     */
+    byte[] bytes(int id) {
+        int record = records[id] - 1;
+        byte[] bytes = new byte[Transaction.SIZE];
+        ByteBuffer chunk = chunks.get(record / RECORDS_PER_CHUNK).duplicate();
+        chunk.position((record % RECORDS_PER_CHUNK) * Transaction.SIZE);
+        chunk.get(bytes);
+        return bytes;
+    }
+
+    byte[] metadata(int id) {
+        return metadata[records[id] - 1];
+    }
+
+    void setMetadata(int id, byte[] metadata) {
+        this.metadata[records[id] - 1] = metadata;
+    }
+
+    long indexedTime(int id) {
+        return indexedTimes[records[id] - 1];
+    }
+
+    void setIndexedTime(int id, long indexedTime) {
+        indexedTimes[records[id] - 1] = indexedTime;
+    }
+
+    /**
+     * @param id the id of the transaction hash
+     * @return <tt>true</tt> if the transaction was stored
+     */
+    boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        int record = records[id] - 1;
+        records[id] = 0;
+        metadata[record] = null;
+        if (freeCount == freeRecords.length) {
+            freeRecords = Arrays.copyOf(freeRecords, freeRecords.length * 2);
+        }
+        freeRecords[freeCount++] = record;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes the metadata of all transactions, keeping the transactions.
+     */
+    void clearMetadata() {
+        Arrays.fill(metadata, null);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        chunks.clear();
+        records = new int[RECORDS_PER_CHUNK];
+        metadata = new byte[RECORDS_PER_CHUNK][];
+        indexedTimes = new long[RECORDS_PER_CHUNK];
+        freeCount = 0;
+        nextRecord = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,209 @@
+package com.iota.iri.storage.rocksDB;
+
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompressionType;
+import org.rocksdb.Filter;
+import org.rocksdb.StringAppendOperator;
+import org.rocksdb.util.SizeUnit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tuning profiles for the column families of the {@link RocksDBPersistenceProvider}.
+ *
+ * <p>
+ * The columns differ a lot in their access patterns: the transaction column holds large values that are written
+ * once, the index columns hold small hash sets that are appended to by merges and the metadata columns hold small
+ * values that are overwritten all the time. Every profile gets its own share of the configured block cache, which is
+ * shared by all columns using the profile.
+ * </p>
+ */
+public enum ColumnFamilyProfile {
+
+    /**
+     * The options that are used for every column if per column tuning is disabled.
+     */
+    UNIFORM(1.0, 0) {
+        @Override
+        ColumnFamilyOptions createOptions(long blockCacheSize, Filter filter) {
+            BlockBasedTableConfig blockBasedTableConfig = new BlockBasedTableConfig()
+                .setFilter(filter)
+                .setCacheNumShardBits(2)
+                .setBlockSizeDeviation(10)
+                .setBlockRestartInterval(16)
+                .setBlockCacheSize(blockCacheSize)
+                .setBlockCacheCompressedNumShardBits(10)
+                .setBlockCacheCompressedSize(32 * SizeUnit.KB);
+
+            return new ColumnFamilyOptions()
+                .setMergeOperator(new StringAppendOperator())
+                .setTableFormatConfig(blockBasedTableConfig)
+                .setMaxWriteBufferNumber(2)
+                .setWriteBufferSize(2 * SizeUnit.MB);
+        }
+    },
+
+    /**
+     * Large (1604 bytes) immutable values that are looked up by their full hash.
+     */
+    TRANSACTION(0.5, 0) {
+        @Override
+        ColumnFamilyOptions createOptions(long blockCacheSize, Filter filter) {
+            BlockBasedTableConfig blockBasedTableConfig = new BlockBasedTableConfig()
+                .setFilter(filter)
+                .setBlockSize(16 * SizeUnit.KB)
+                .setCacheNumShardBits(4)
+                .setBlockCacheSize(blockCacheSize)
+                .setCacheIndexAndFilterBlocks(true)
+                .setPinL0FilterAndIndexBlocksInCache(true);
+
+            return new ColumnFamilyOptions()
+                .setMergeOperator(new StringAppendOperator())
+                .setTableFormatConfig(blockBasedTableConfig)
+                .setCompressionType(CompressionType.SNAPPY_COMPRESSION)
+                .setMaxWriteBufferNumber(3)
+                .setWriteBufferSize(32 * SizeUnit.MB)
+                .setTargetFileSizeBase(64 * SizeUnit.MB)
+                .setMaxBytesForLevelBase(512 * SizeUnit.MB);
+        }
+    },
+
+    /**
+     * Small, append heavy hash sets (approvees, addresses, bundles and tags) that are built with merges and looked up
+     * by hash or hash prefix.
+     */
+    INDEX(0.3, ColumnFamilyProfile.INDEX_PREFIX_LENGTH) {
+        @Override
+        ColumnFamilyOptions createOptions(long blockCacheSize, Filter filter) {
+            BlockBasedTableConfig blockBasedTableConfig = new BlockBasedTableConfig()
+                .setFilter(filter)
+                .setWholeKeyFiltering(true)
+                .setBlockSize(4 * SizeUnit.KB)
+                .setCacheNumShardBits(4)
+                .setBlockCacheSize(blockCacheSize)
+                .setCacheIndexAndFilterBlocks(true)
+                .setPinL0FilterAndIndexBlocksInCache(true);
+
+            return new ColumnFamilyOptions()
+                .setMergeOperator(new StringAppendOperator())
+                .setTableFormatConfig(blockBasedTableConfig)
+                .setCompressionType(CompressionType.SNAPPY_COMPRESSION)
+                .useFixedLengthPrefixExtractor(INDEX_PREFIX_LENGTH)
+                .setMemtablePrefixBloomSizeRatio(0.1)
+                //merge operands of the same key are combined when the memtables are flushed together
+                .setMaxWriteBufferNumber(4)
+                .setMinWriteBufferNumberToMerge(2)
+                .setWriteBufferSize(16 * SizeUnit.MB)
+                .setLevelZeroSlowdownWritesTrigger(40)
+                .setLevelZeroStopWritesTrigger(56)
+                .setTargetFileSizeBase(32 * SizeUnit.MB)
+                .setMaxBytesForLevelBase(256 * SizeUnit.MB);
+        }
+    },
+
+    /**
+     * Small fixed size values (metadata and state of transactions) that are overwritten frequently, and the arrival
+     * index, which only has keys.
+     */
+    METADATA(0.2, 0) {
+        @Override
+        ColumnFamilyOptions createOptions(long blockCacheSize, Filter filter) {
+            BlockBasedTableConfig blockBasedTableConfig = new BlockBasedTableConfig()
+                .setFilter(filter)
+                .setBlockSize(4 * SizeUnit.KB)
+                .setCacheNumShardBits(4)
+                .setBlockCacheSize(blockCacheSize)
+                .setCacheIndexAndFilterBlocks(true)
+                .setPinL0FilterAndIndexBlocksInCache(true);
+
+            return new ColumnFamilyOptions()
+                .setMergeOperator(new StringAppendOperator())
+                .setTableFormatConfig(blockBasedTableConfig)
+                .setCompressionType(CompressionType.NO_COMPRESSION)
+                .setMaxWriteBufferNumber(3)
+                .setWriteBufferSize(8 * SizeUnit.MB)
+                .setTargetFileSizeBase(16 * SizeUnit.MB)
+                .setMaxBytesForLevelBase(128 * SizeUnit.MB);
+        }
+    };
+
+    /**
+     * The number of leading key bytes the index columns build prefix blooms for.
+     */
+    public static final int INDEX_PREFIX_LENGTH = 8;
+
+    private final double cacheShare;
+    private final int prefixLength;
+
+    ColumnFamilyProfile(double cacheShare, int prefixLength) {
+        this.cacheShare = cacheShare;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * @param columnFamilyName the name of a column family of the {@link RocksDBPersistenceProvider}
+     * @return the profile that fits the access pattern of the column
+     */
+    public static ColumnFamilyProfile forColumnFamily(String columnFamilyName) {
+        switch (columnFamilyName) {
+            case "transaction":
+                return TRANSACTION;
+            case "transaction-metadata":
+            case "transaction-state":
+            case "transaction-arrival":
+            case "counters":
+            case "default":
+                return METADATA;
+            default:
+                return INDEX;
+        }
+    }
+
+    /**
+     * Parses the profiles that are assigned to columns explicitly, like <tt>tag:METADATA,transaction:UNIFORM</tt>.
+     *
+     * @param assignments comma separated pairs of a column name and a profile name, may be empty
+     * @return the assigned profiles by column name
+     * @throws IllegalArgumentException if an assignment is malformed or names an unknown profile
+     */
+    public static Map<String, ColumnFamilyProfile> parseAssignments(String assignments) {
+        Map<String, ColumnFamilyProfile> profiles = new HashMap<>();
+        for (String assignment : assignments.split(",")) {
+            if (assignment.trim().isEmpty()) {
+                continue;
+            }
+            String[] columnAndProfile = assignment.split(":");
+            if (columnAndProfile.length != 2) {
+                throw new IllegalArgumentException("column profile assignment must be <column>:<profile>, got "
+                        + assignment);
+            }
+            profiles.put(columnAndProfile[0].trim(), valueOf(columnAndProfile[1].trim().toUpperCase()));
+        }
+        return profiles;
+    }
+
+    /**
+     * Creates the options of the columns using this profile.
+     *
+     * @param blockCacheSize the size of the block cache shared by the columns in bytes
+     * @param filter the bloom filter of the tables
+     * @return new column family options that have to be closed by the caller
+     */
+    abstract ColumnFamilyOptions createOptions(long blockCacheSize, Filter filter);
+
+    /**
+     * @return the share of the configured block cache that is given to the columns using this profile
+     */
+    public double getCacheShare() {
+        return cacheShare;
+    }
+
+    /**
+     * @return the length of the prefixes that are extracted from the keys or 0 if no prefix extractor is used
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+}
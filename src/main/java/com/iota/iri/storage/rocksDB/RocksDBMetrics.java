@@ -0,0 +1,137 @@
+package com.iota.iri.storage.rocksDB;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.Statistics;
+import org.rocksdb.TickerType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the statistics and properties of a RocksDB instance.
+ *
+ * <p>
+ * The tickers of the {@link Statistics} are totals since the database was opened, the properties are the current
+ * values of the engine. A sample is reused for {@link #SAMPLE_INTERVAL} milliseconds, so the metrics can be polled
+ * by any number of API clients without reading the properties of every column each time.
+ * </p>
+ * <p>
+ * Only the statistics API of rocksdbjni 5.7 is used: the statistics are created with {@link Statistics#Statistics()}
+ * and set with {@link org.rocksdb.DBOptions#setStatistics(Statistics)}. Reading a property that the engine does not
+ * know fails, so all properties are read by the tests.
+ * </p>
+ */
+class RocksDBMetrics {
+
+    static final long SAMPLE_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+
+    static final String BLOCK_CACHE_HITS = "blockCacheHits";
+    static final String BLOCK_CACHE_MISSES = "blockCacheMisses";
+    static final String BLOCK_CACHE_HIT_RATIO = "blockCacheHitRatioPercent";
+    static final String SST_FILES_SIZE_PREFIX = "sstFilesSize.";
+
+    private static final Map<TickerType, String> TICKERS = new LinkedHashMap<>();
+    private static final Map<String, String> DB_PROPERTIES = new LinkedHashMap<>();
+    private static final Map<String, String> COLUMN_PROPERTIES = new LinkedHashMap<>();
+
+    static {
+        TICKERS.put(TickerType.BLOCK_CACHE_HIT, BLOCK_CACHE_HITS);
+        TICKERS.put(TickerType.BLOCK_CACHE_MISS, BLOCK_CACHE_MISSES);
+        TICKERS.put(TickerType.BLOCK_CACHE_BYTES_WRITE, "blockCacheBytesInserted");
+        TICKERS.put(TickerType.STALL_MICROS, "writeStallMicros");
+        TICKERS.put(TickerType.COMPACT_READ_BYTES, "compactionBytesRead");
+        TICKERS.put(TickerType.COMPACT_WRITE_BYTES, "compactionBytesWritten");
+        TICKERS.put(TickerType.BYTES_WRITTEN, "bytesWritten");
+        TICKERS.put(TickerType.BYTES_READ, "bytesRead");
+
+        DB_PROPERTIES.put("rocksdb.num-running-compactions", "runningCompactions");
+        DB_PROPERTIES.put("rocksdb.num-running-flushes", "runningFlushes");
+        DB_PROPERTIES.put("rocksdb.is-write-stopped", "writeStopped");
+        DB_PROPERTIES.put("rocksdb.actual-delayed-write-rate", "delayedWriteRate");
+
+        //summed over all columns
+        COLUMN_PROPERTIES.put("rocksdb.estimate-pending-compaction-bytes", "pendingCompactionBytes");
+        COLUMN_PROPERTIES.put("rocksdb.cur-size-all-mem-tables", "memTablesSize");
+    }
+
+    private final Statistics statistics = new Statistics();
+
+    private Map<String, Long> sample;
+    private long sampledAt;
+
+    /**
+     * @return the statistics that have to be set on the options of the database
+     */
+    Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the last sample, or takes a new one if it is older than {@link #SAMPLE_INTERVAL}.
+     *
+     * @param db the database of the statistics
+     * @param columns the column families by name
+     * @param now the current time in milliseconds
+     * @return the metrics by name
+     * @throws RocksDBException if a property could not be read
+     */
+    synchronized Map<String, Long> sample(RocksDB db, Map<String, ColumnFamilyHandle> columns, long now)
+            throws RocksDBException {
+        if (sample != null && now - sampledAt < SAMPLE_INTERVAL) {
+            return sample;
+        }
+        Map<String, Long> metrics = new HashMap<>();
+        for (Map.Entry<TickerType, String> ticker : TICKERS.entrySet()) {
+            metrics.put(ticker.getValue(), statistics.getTickerCount(ticker.getKey()));
+        }
+        for (Map.Entry<String, String> property : DB_PROPERTIES.entrySet()) {
+            metrics.put(property.getValue(), db.getLongProperty(property.getKey()));
+        }
+        for (Map.Entry<String, ColumnFamilyHandle> column : columns.entrySet()) {
+            for (Map.Entry<String, String> property : COLUMN_PROPERTIES.entrySet()) {
+                metrics.merge(property.getValue(), db.getLongProperty(column.getValue(), property.getKey()),
+                        Long::sum);
+            }
+            metrics.put(SST_FILES_SIZE_PREFIX + column.getKey(),
+                    db.getLongProperty(column.getValue(), "rocksdb.total-sst-files-size"));
+        }
+        putHitRatio(metrics);
+
+        sample = Collections.unmodifiableMap(metrics);
+        sampledAt = now;
+        return sample;
+    }
+
+    /**
+     * Adds up the metrics of several databases.
+     *
+     * @param samples the metrics of the databases
+     * @return the summed metrics, with the block cache hit ratio of all lookups
+     */
+    static Map<String, Long> merge(List<Map<String, Long>> samples) {
+        Map<String, Long> metrics = new HashMap<>();
+        for (Map<String, Long> sample : samples) {
+            sample.forEach((name, value) -> metrics.merge(name, value, Long::sum));
+        }
+        if (!metrics.isEmpty()) {
+            putHitRatio(metrics);
+        }
+        return metrics;
+    }
+
+    void close() {
+        statistics.close();
+    }
+
+    private static void putHitRatio(Map<String, Long> metrics) {
+        long hits = metrics.get(BLOCK_CACHE_HITS);
+        long lookups = hits + metrics.get(BLOCK_CACHE_MISSES);
+        metrics.put(BLOCK_CACHE_HIT_RATIO, lookups == 0 ? 0 : hits * 100 / lookups);
+    }
+}
@@ -4,14 +4,19 @@ import com.iota.iri.model.*;
 import com.iota.iri.model.persistables.Address;
 import com.iota.iri.model.persistables.Approvee;
 import com.iota.iri.model.persistables.Bundle;
+import com.iota.iri.model.persistables.Hashes;
 import com.iota.iri.model.persistables.ObsoleteTag;
 import com.iota.iri.model.persistables.Tag;
 import com.iota.iri.model.persistables.Transaction;
 import com.iota.iri.storage.Indexable;
 import com.iota.iri.storage.Persistable;
 import com.iota.iri.storage.PersistenceProvider;
+import com.iota.iri.storage.ScanVisitor;
+import com.iota.iri.storage.StatefulPersistable;
 import com.iota.iri.utils.IotaIOUtils;
+import com.iota.iri.utils.IotaUtils;
 import com.iota.iri.utils.Pair;
+import com.iota.iri.utils.Serializer;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.rocksdb.*;
@@ -20,9 +25,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 public class RocksDBPersistenceProvider implements PersistenceProvider {
@@ -31,6 +45,9 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     private static final int BLOOM_FILTER_BITS_PER_KEY = 10;
 
     private static final Pair<Indexable, Persistable> PAIR_OF_NULLS = new Pair<>(null, null);
+    private static final byte[] NO_VALUE = new byte[0];
+    private static final int KEY_LOCK_STRIPES = 64;
+    private static final String COUNTER_COLUMN = "counters";
 
     private final List<String> columnFamilyNames = Arrays.asList(
         new String(RocksDB.DEFAULT_COLUMN_FAMILY),
@@ -40,7 +57,10 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         "approvee",
         "bundle",
         "obsoleteTag",
-        "tag"
+        "tag",
+        "transaction-state",
+        "transaction-arrival",
+        COUNTER_COLUMN
     );
 
     private final List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
@@ -49,6 +69,8 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     private final String dbPath;
     private final String logPath;
     private final int cacheSize;
+    private final boolean tunedPerColumn;
+    private final Map<String, ColumnFamilyProfile> assignedProfiles;
 
     private ColumnFamilyHandle transactionHandle;
     private ColumnFamilyHandle transactionMetadataHandle;
@@ -57,20 +79,77 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     private ColumnFamilyHandle bundleHandle;
     private ColumnFamilyHandle obsoleteTagHandle;
     private ColumnFamilyHandle tagHandle;
+    private ColumnFamilyHandle transactionStateHandle;
+    // keys are the arrival time (8 bytes, big endian) followed by the transaction hash, values are empty
+    private ColumnFamilyHandle transactionArrivalHandle;
+    // keys are the counter names, values the counts as 64 bit little endian, changed by uint64add merges
+    private ColumnFamilyHandle counterHandle;
 
     private Map<Class<?>, ColumnFamilyHandle> classTreeMap;
     private Map<Class<?>, ColumnFamilyHandle> metadataReference;
+    private Map<Class<?>, ColumnFamilyHandle> stateReference;
 
     private RocksDB db;
     // DBOptions is only used in initDB(). However, it is closeable - so we keep a reference for shutdown.
     private DBOptions options;
     private BloomFilter bloomFilter;
+    private RocksDBMetrics metrics;
+    private final Map<String, ColumnFamilyHandle> columnsByName = new LinkedHashMap<>();
+    private final List<ColumnFamilyOptions> columnFamilyOptions = new ArrayList<>();
+    private final Map<ColumnFamilyHandle, ColumnFamilyProfile> columnFamilyProfiles = new HashMap<>();
+    // columns with a prefix extractor only iterate within the seeked prefix unless total order seek is requested
+    private ReadOptions totalOrderReadOptions;
+    private ReadOptions prefixReadOptions;
     private boolean available;
 
+    // the persisted counters by name. Every write adds its differences as merge operands in the same write batch.
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    // guard the existence checks of the written keys, by key, so the counted differences stay valid until the write
+    private final Lock[] keyLocks = new Lock[KEY_LOCK_STRIPES];
+    // the writes share this lock. The writes that read and rewrite index entries and the clears hold it exclusively,
+    // so no merge operand is written between their read and their write.
+    private final ReadWriteLock rewriteLock = new ReentrantReadWriteLock();
+
     public RocksDBPersistenceProvider(String dbPath, String logPath, int cacheSize) {
+        this(dbPath, logPath, cacheSize, true);
+    }
+
+    /**
+     * @param dbPath the folder of the database
+     * @param logPath the folder of the database logs
+     * @param cacheSize the size of the block cache in KB
+     * @param tunedPerColumn <tt>true</tt> to tune every column with its {@link ColumnFamilyProfile},
+     *                       <tt>false</tt> to use {@link ColumnFamilyProfile#UNIFORM} for all columns
+     */
+    public RocksDBPersistenceProvider(String dbPath, String logPath, int cacheSize, boolean tunedPerColumn) {
+        this(dbPath, logPath, cacheSize, tunedPerColumn, Collections.emptyMap());
+    }
+
+    /**
+     * @param dbPath the folder of the database
+     * @param logPath the folder of the database logs
+     * @param cacheSize the size of the block cache in KB
+     * @param tunedPerColumn <tt>true</tt> to tune every column with its {@link ColumnFamilyProfile},
+     *                       <tt>false</tt> to use {@link ColumnFamilyProfile#UNIFORM} for all columns
+     * @param assignedProfiles profiles by column name that are used instead of the default of the column
+     * @throws IllegalArgumentException if a profile is assigned to an unknown column
+     */
+    public RocksDBPersistenceProvider(String dbPath, String logPath, int cacheSize, boolean tunedPerColumn,
+                                      Map<String, ColumnFamilyProfile> assignedProfiles) {
+        for (String column : assignedProfiles.keySet()) {
+            if (!columnFamilyNames.contains(column)) {
+                throw new IllegalArgumentException("unknown column " + column + ", the columns are "
+                        + columnFamilyNames);
+            }
+        }
         this.dbPath = dbPath;
         this.logPath = logPath;
         this.cacheSize = cacheSize;
+        this.tunedPerColumn = tunedPerColumn;
+        this.assignedProfiles = new HashMap<>(assignedProfiles);
+        for (int i = 0; i < keyLocks.length; i++) {
+            keyLocks[i] = new ReentrantLock();
+        }
     }
 
     @Override
@@ -78,6 +157,8 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         log.info("Initializing Database Backend... ");
         initDB(dbPath, logPath);
         initClassTreeMap();
+        backfillArrivalIndex();
+        loadCounters();
         available = true;
         log.info("RocksDB persistence provider initialized.");
     }
@@ -100,67 +181,216 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         Map<Class<?>, ColumnFamilyHandle> metadataHashMap = new HashMap<>();
         metadataHashMap.put(Transaction.class, transactionMetadataHandle);
         metadataReference = metadataHashMap;
+
+        Map<Class<?>, ColumnFamilyHandle> stateHashMap = new HashMap<>();
+        stateHashMap.put(Transaction.class, transactionStateHandle);
+        stateReference = stateHashMap;
     }
 
     @Override
     public void shutdown() {
+        available = false;
         for (final ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
             IotaIOUtils.closeQuietly(columnFamilyHandle);
         }
-        IotaIOUtils.closeQuietly(db, options, bloomFilter);
+        IotaIOUtils.closeQuietly(db, options, bloomFilter, totalOrderReadOptions, prefixReadOptions);
+        columnFamilyOptions.forEach(IotaIOUtils::closeQuietly);
+        columnFamilyOptions.clear();
+        if (metrics != null) {
+            metrics.close();
+        }
     }
 
     @Override
     public boolean save(Persistable thing, Indexable index) throws Exception {
-        ColumnFamilyHandle handle = classTreeMap.get(thing.getClass());
-        db.put(handle, index.bytes(), thing.bytes());
-
-        ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
-        if (referenceHandle != null) {
-            db.put(referenceHandle, index.bytes(), thing.metadata());
+        CountedWrite counted = new CountedWrite();
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            addSave(writeBatch, counted, thing, index, false);
+            write(writeOptions, writeBatch, counted);
         }
         return true;
     }
 
     @Override
     public void delete(Class<?> model, Indexable index) throws Exception {
-        db.delete(classTreeMap.get(model), index.bytes());
+        CountedWrite counted = new CountedWrite();
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            addDelete(writeBatch, counted, model, index, false);
+            write(writeOptions, writeBatch, counted);
+        }
     }
 
     @Override
     public boolean exists(Class<?> model, Indexable key) throws Exception {
         ColumnFamilyHandle handle = classTreeMap.get(model);
-        return handle != null && db.get(handle, key.bytes()) != null;
+        //only the existence is needed, so no value is copied
+        return handle != null && db.get(handle, key.bytes(), NO_VALUE) != RocksDB.NOT_FOUND;
     }
 
     @Override
     public Set<Indexable> keysWithMissingReferences(Class<?> model, Class<?> other) throws Exception {
+        Set<Indexable> indexables = new HashSet<>();
+        scanMissingReferences(model, other, (key, value) -> {
+            indexables.add(key);
+            return true;
+        });
+        return indexables.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(indexables);
+    }
+
+    @Override
+    public boolean scanMissingReferences(Class<?> model, Class<?> other, ScanVisitor visitor) throws Exception {
         ColumnFamilyHandle handle = classTreeMap.get(model);
         ColumnFamilyHandle otherHandle = classTreeMap.get(other);
+        if (handle == null || otherHandle == null) {
+            return false;
+        }
 
-        try (RocksIterator iterator = db.newIterator(handle)) {
-            Set<Indexable> indexables = null;
-
+        //both columns are sorted by key, so they can be merge-joined instead of probing every key
+        try (RocksIterator iterator = db.newIterator(handle, totalOrderReadOptions);
+             RocksIterator otherIterator = db.newIterator(otherHandle, totalOrderReadOptions)) {
+            otherIterator.seekToFirst();
             for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
-                if (db.get(otherHandle, iterator.key()) == null) {
-                    indexables = indexables == null ? new HashSet<>() : indexables;
-                    indexables.add(HashFactory.GENERIC.create(model, iterator.key()));
+                byte[] key = iterator.key();
+                int comparison = -1;
+                while (otherIterator.isValid() && (comparison = IotaUtils.compareUnsigned(otherIterator.key(), key)) < 0) {
+                    otherIterator.next();
+                }
+                if (!otherIterator.isValid() || comparison > 0) {
+                    if (!visitor.visit(HashFactory.GENERIC.create(model, key), null)) {
+                        break;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean scan(Class<?> model, byte[] from, byte[] to, boolean keysOnly, ScanVisitor visitor)
+            throws Exception {
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        if (handle == null) {
+            return false;
+        }
+
+        //the metadata and the state share the keys of the column, so they are iterated alongside instead of being read
+        //key by key
+        ColumnFamilyHandle referenceHandle = keysOnly ? null : metadataReference.get(model);
+        ColumnFamilyHandle stateHandle = keysOnly ? null : stateReference.get(model);
+        try (RocksIterator iterator = newIterator(handle, from, to);
+             RocksIterator referenceIterator = referenceHandle == null ? null : newIterator(referenceHandle, from, to);
+             RocksIterator stateIterator = stateHandle == null ? null : newIterator(stateHandle, from, to)) {
+            if (from == null) {
+                iterator.seekToFirst();
+            } else {
+                iterator.seek(from);
+            }
+            if (iterator.isValid()) {
+                if (referenceIterator != null) {
+                    referenceIterator.seek(iterator.key());
+                }
+                if (stateIterator != null) {
+                    stateIterator.seek(iterator.key());
                 }
             }
-            return indexables == null ? Collections.emptySet() : Collections.unmodifiableSet(indexables);
+            for (; iterator.isValid(); iterator.next()) {
+                byte[] key = iterator.key();
+                if (to != null && IotaUtils.compareUnsigned(key, to) >= 0) {
+                    break;
+                }
+
+                Persistable object = null;
+                if (!keysOnly) {
+                    object = (Persistable) model.newInstance();
+                    object.read(iterator.value());
+                    if (referenceIterator != null) {
+                        object.readMetadata(valueAt(referenceIterator, key));
+                    }
+                    if (stateIterator != null) {
+                        ((StatefulPersistable) object).readState(valueAt(stateIterator, key));
+                    }
+                }
+                if (!visitor.visit(HashFactory.GENERIC.create(model, key), object)) {
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    private RocksIterator newIterator(ColumnFamilyHandle handle, byte[] from, byte[] to) {
+        return db.newIterator(handle, isWithinPrefix(handle, from, to) ? prefixReadOptions : totalOrderReadOptions);
+    }
+
+    /**
+     * Moves an iterator that runs alongside a scan forward to {@code key}. The iterated column shares its keys with the
+     * scanned column, so the iterator is usually at the key already.
+     *
+     * @return the value stored under {@code key} or <tt>null</tt> if there is none
+     */
+    private static byte[] valueAt(RocksIterator iterator, byte[] key) {
+        int comparison = -1;
+        while (iterator.isValid() && (comparison = IotaUtils.compareUnsigned(iterator.key(), key)) < 0) {
+            iterator.next();
         }
+        return iterator.isValid() && comparison == 0 ? iterator.value() : null;
     }
 
     @Override
     public Persistable get(Class<?> model, Indexable index) throws Exception {
+        if (metadataReference.containsKey(model) || stateReference.containsKey(model)) {
+            //the value, the metadata and the state are read in a single round trip
+            return multiGet(model, Collections.singletonList(index)).get(0);
+        }
         Persistable object = (Persistable) model.newInstance();
         object.read(db.get(classTreeMap.get(model), index == null ? new byte[0] : index.bytes()));
+        return object;
+    }
 
+    @Override
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        if (indexes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ColumnFamilyHandle> columns = new ArrayList<>(3);
+        columns.add(classTreeMap.get(model));
         ColumnFamilyHandle referenceHandle = metadataReference.get(model);
         if (referenceHandle != null) {
-            object.readMetadata(db.get(referenceHandle, index == null ? new byte[0] : index.bytes()));
+            columns.add(referenceHandle);
         }
-        return object;
+        ColumnFamilyHandle stateHandle = stateReference.get(model);
+        if (stateHandle != null) {
+            columns.add(stateHandle);
+        }
+
+        //the values are mapped by key identity, so every lookup needs its own key array
+        List<ColumnFamilyHandle> handles = new ArrayList<>(indexes.size() * columns.size());
+        List<byte[]> keys = new ArrayList<>(indexes.size() * columns.size());
+        for (Indexable index : indexes) {
+            byte[] key = index == null ? new byte[0] : index.bytes();
+            for (ColumnFamilyHandle column : columns) {
+                handles.add(column);
+                keys.add(key.clone());
+            }
+        }
+        Map<byte[], byte[]> values = db.multiGet(handles, keys);
+
+        List<Persistable> objects = new ArrayList<>(indexes.size());
+        int column = 0;
+        for (int i = 0; i < indexes.size(); i++) {
+            Persistable object = (Persistable) model.newInstance();
+            object.read(values.get(keys.get(column++)));
+            if (referenceHandle != null) {
+                object.readMetadata(values.get(keys.get(column++)));
+            }
+            if (stateHandle != null) {
+                ((StatefulPersistable) object).readState(values.get(keys.get(column++)));
+            }
+            objects.add(object);
+        }
+        return objects;
     }
 
     @Override
@@ -171,61 +401,238 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public long count(Class<?> model) throws Exception {
-        return getCountEstimate(model);
+        AtomicLong count = counters.get(model.getSimpleName());
+        return count == null ? 0 : count.get();
     }
 
-    private long getCountEstimate(Class<?> model) throws RocksDBException {
-        ColumnFamilyHandle handle = classTreeMap.get(model);
-        return db.getLongProperty(handle, "rocksdb.estimate-num-keys");
+    /**
+     * The counters are kept up to date by the writes, see {@link CountedWrite}, and are persisted with them.
+     */
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new HashMap<>();
+        counters.forEach((name, count) -> values.put(name, count.get()));
+        return Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public Map<String, Long> getMetrics() throws RocksDBException {
+        if (!available) {
+            return Collections.emptyMap();
+        }
+        return metrics.sample(db, columnsByName, System.currentTimeMillis());
     }
 
     @Override
     public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
         Objects.requireNonNull(value, "value byte[] cannot be null");
-        ColumnFamilyHandle handle = classTreeMap.get(modelClass);
-        Set<Indexable> keys = null;
-        if (handle != null) {
-            try (RocksIterator iterator = db.newIterator(handle)) {
-                iterator.seek(HashFactory.GENERIC.create(modelClass, value, 0, value.length).bytes());
-
-                byte[] found;
-                while (iterator.isValid() && keyStartsWithValue(value, found = iterator.key())) {
-                    keys = keys == null ? new HashSet<>() : keys;
-                    keys.add(HashFactory.GENERIC.create(modelClass, found));
-                    iterator.next();
+        Set<Indexable> keys = new HashSet<>();
+        try {
+            scan(modelClass, value, IotaUtils.getPrefixEnd(value), true, (key, object) -> {
+                keys.add(key);
+                return true;
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return keys.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public boolean scanArrivals(long from, long to, boolean newestFirst, ScanVisitor visitor) throws Exception {
+        try (ArrivalCursor cursor = openArrivals(from, to, newestFirst)) {
+            for (; cursor.isValid(); cursor.next()) {
+                if (!visitor.visit(cursor.getHash(), null)) {
+                    break;
                 }
             }
         }
-        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+        return true;
     }
 
     /**
-     * @param value What we are looking for.
-     * @param key   The bytes we are searching in.
-     * @return true If the {@code key} starts with the {@code value}.
+     * Opens a cursor over the transactions that arrived in {@code [from, to)}, in the order of
+     * {@link #scanArrivals(long, long, boolean, ScanVisitor)}. Unlike the scan, the cursor exposes the indexed times, so
+     * the arrivals of several databases can be merged.
+     *
+     * @param from the earliest arrival time in milliseconds (inclusive)
+     * @param to the latest arrival time in milliseconds (exclusive)
+     * @param newestFirst <tt>true</tt> to visit the most recent transactions first
+     * @return the cursor, which must be closed
      */
-    private static boolean keyStartsWithValue(byte[] value, byte[] key) {
-        if (key == null || key.length < value.length) {
-            return false;
+    public ArrivalCursor openArrivals(long from, long to, boolean newestFirst) {
+        return new ArrivalCursor(from, to, newestFirst);
+    }
+
+    /**
+     * Iterates over a range of the arrival index.
+     */
+    public final class ArrivalCursor implements AutoCloseable {
+
+        private final RocksIterator iterator;
+        private final byte[] fromKey;
+        private final byte[] toKey;
+        private final boolean newestFirst;
+        private byte[] key;
+
+        private ArrivalCursor(long from, long to, boolean newestFirst) {
+            this.fromKey = arrivalKey(from, null);
+            this.toKey = arrivalKey(to, null);
+            this.newestFirst = newestFirst;
+            this.iterator = db.newIterator(transactionArrivalHandle, totalOrderReadOptions);
+            if (IotaUtils.compareUnsigned(fromKey, toKey) >= 0) {
+                return;
+            }
+            if (newestFirst) {
+                //there is no seekForPrev, so step back from the first key outside of the range
+                iterator.seek(toKey);
+                if (iterator.isValid()) {
+                    iterator.prev();
+                } else {
+                    iterator.seekToLast();
+                }
+            } else {
+                iterator.seek(fromKey);
+            }
+            load();
+        }
+
+        public boolean isValid() {
+            return key != null;
         }
-        for (int n = 0; n < value.length; n++) {
-            if (value[n] != key[n]) {
-                return false;
+
+        public void next() {
+            if (newestFirst) {
+                iterator.prev();
+            } else {
+                iterator.next();
             }
+            load();
+        }
+
+        /**
+         * @return the indexed time of the current transaction
+         */
+        public long getTime() {
+            return ByteBuffer.wrap(key).getLong();
+        }
+
+        /**
+         * @return the hash of the current transaction
+         */
+        public Hash getHash() {
+            return HashFactory.TRANSACTION.create(key, Long.BYTES, key.length - Long.BYTES);
+        }
+
+        /**
+         * @return the index key of the current transaction, which orders the transactions by time and hash
+         */
+        byte[] getKey() {
+            return key;
+        }
+
+        private void load() {
+            key = iterator.isValid() ? iterator.key() : null;
+            if (key != null && (newestFirst ? IotaUtils.compareUnsigned(key, fromKey) < 0
+                    : IotaUtils.compareUnsigned(key, toKey) >= 0)) {
+                key = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            iterator.close();
         }
-        return true;
     }
 
-    @Override
-    public Persistable seek(Class<?> model, byte[] key) throws Exception {
-        Set<Indexable> hashes = keysStartingWith(model, key);
-        if (hashes.isEmpty()) {
-            return get(model, null);
+    private static byte[] arrivalKey(Transaction transaction, Indexable index) {
+        return arrivalKey(transaction.arrivalTime, index.bytes());
+    }
+
+    /**
+     * @param time the indexed time, negative times are treated as 0 so the keys sort like the times
+     * @param hash the transaction hash or <tt>null</tt> for the first key of the given time
+     */
+    private static byte[] arrivalKey(long time, byte[] hash) {
+        ByteBuffer key = ByteBuffer.allocate(Long.BYTES + (hash == null ? 0 : hash.length));
+        key.putLong(Math.max(0, time));
+        if (hash != null) {
+            key.put(hash);
+        }
+        return key.array();
+    }
+
+    private boolean isArrivalUpdate(Persistable thing, String item) {
+        return thing instanceof Transaction && Arrays.asList(item.split("\\|")).contains("arrivalTime");
+    }
+
+    /**
+     * Builds the arrival index of a database that was created before the index existed. Like on every write,
+     * transactions without a stored arrival time are not indexed.
+     */
+    private void backfillArrivalIndex() {
+        try {
+            try (RocksIterator iterator = db.newIterator(transactionArrivalHandle, totalOrderReadOptions)) {
+                iterator.seekToFirst();
+                if (iterator.isValid()) {
+                    return;
+                }
+            }
+            log.info("Building the transaction arrival index...");
+            long[] indexed = {0};
+            WriteBatch[] writeBatch = {new WriteBatch()};
+            try (WriteOptions writeOptions = new WriteOptions()) {
+                scan(Transaction.class, null, null, false, (key, value) -> {
+                    if (!((Transaction) value).hasArrivalTime()) {
+                        return true;
+                    }
+                    writeBatch[0].put(transactionArrivalHandle, arrivalKey((Transaction) value, key), NO_VALUE);
+                    if (++indexed[0] % 10000 == 0) {
+                        db.write(writeOptions, writeBatch[0]);
+                        writeBatch[0].close();
+                        writeBatch[0] = new WriteBatch();
+                        log.info("Indexed {} transactions", indexed[0]);
+                    }
+                    return true;
+                });
+                db.write(writeOptions, writeBatch[0]);
+            } finally {
+                writeBatch[0].close();
+            }
+            if (indexed[0] > 0) {
+                log.info("Indexed the arrival times of {} transactions", indexed[0]);
+            }
+        } catch (Exception e) {
+            log.error("Error while building the transaction arrival index", e);
         }
-        if (hashes.size() == 1) {
-            return get(model, (Indexable) hashes.toArray()[0]);
+    }
+
+    /**
+     * @return <tt>true</tt> if all keys in <tt>[from, to)</tt> share the prefix that is extracted from the keys of the
+     *         column, so the prefix blooms can be used for the scan
+     */
+    private boolean isWithinPrefix(ColumnFamilyHandle handle, byte[] from, byte[] to) {
+        ColumnFamilyProfile profile = columnFamilyProfiles.get(handle);
+        int prefixLength = profile == null ? 0 : profile.getPrefixLength();
+        if (prefixLength == 0 || from == null || to == null || from.length < prefixLength) {
+            return false;
         }
-        return get(model, (Indexable) hashes.toArray()[seed.nextInt(hashes.size())]);
+        byte[] prefixEnd = IotaUtils.getPrefixEnd(Arrays.copyOf(from, prefixLength));
+        return prefixEnd != null && IotaUtils.compareUnsigned(to, prefixEnd) <= 0;
+    }
+
+    @Override
+    public Persistable seek(Class<?> model, byte[] key) throws Exception {
+        //reservoir sampling picks a uniformly random match without collecting all of them
+        Indexable[] chosen = new Indexable[1];
+        int[] matches = {0};
+        scan(model, key, IotaUtils.getPrefixEnd(key), true, (index, value) -> {
+            if (seed.nextInt(++matches[0]) == 0) {
+                chosen[0] = index;
+            }
+            return true;
+        });
+        return get(model, chosen[0]);
     }
 
     private Pair<Indexable, Persistable> modelAndIndex(Class<?> model, Class<? extends Indexable> index, RocksIterator iterator)
@@ -240,17 +647,36 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
         Persistable object = (Persistable) model.newInstance();
         object.read(iterator.value());
+        readReferences(model, object, iterator.key());
+        return new Pair<>(indexable, object);
+    }
 
+    /**
+     * Reads the metadata and the state of {@code object} in a single round trip.
+     */
+    private void readReferences(Class<?> model, Persistable object, byte[] key) throws RocksDBException {
         ColumnFamilyHandle referenceHandle = metadataReference.get(model);
-        if (referenceHandle != null) {
-            object.readMetadata(db.get(referenceHandle, iterator.key()));
+        ColumnFamilyHandle stateHandle = stateReference.get(model);
+        if (referenceHandle == null || stateHandle == null) {
+            if (referenceHandle != null) {
+                object.readMetadata(db.get(referenceHandle, key));
+            }
+            if (stateHandle != null) {
+                ((StatefulPersistable) object).readState(db.get(stateHandle, key));
+            }
+            return;
         }
-        return new Pair<>(indexable, object);
+        //the values are mapped by key identity, so every lookup needs its own key array
+        byte[] stateKey = key.clone();
+        Map<byte[], byte[]> values = db.multiGet(Arrays.asList(referenceHandle, stateHandle),
+                Arrays.asList(key, stateKey));
+        object.readMetadata(values.get(key));
+        ((StatefulPersistable) object).readState(values.get(stateKey));
     }
 
     @Override
     public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), totalOrderReadOptions)) {
             iterator.seek(index.bytes());
             iterator.next();
             return modelAndIndex(model, index.getClass(), iterator);
@@ -259,7 +685,7 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), totalOrderReadOptions)) {
             iterator.seek(index.bytes());
             iterator.prev();
             return modelAndIndex(model, index.getClass(), iterator);
@@ -269,7 +695,7 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     @SuppressWarnings("unchecked")
     @Override
     public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), totalOrderReadOptions)) {
             iterator.seekToLast();
             return modelAndIndex(model, (Class<Indexable>) indexModel, iterator);
         }
@@ -278,87 +704,389 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     @SuppressWarnings("unchecked")
     @Override
     public Pair<Indexable, Persistable> first(Class<?> model, Class<?> index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), totalOrderReadOptions)) {
             iterator.seekToFirst();
             return modelAndIndex(model, (Class<Indexable>) index, iterator);
         }
     }
 
-    // 2018 March 28 - Unused code
-    public boolean merge(Persistable model, Indexable index) throws Exception {
-        boolean exists = mayExist(model.getClass(), index);
-        db.merge(classTreeMap.get(model.getClass()), index.bytes(), model.bytes());
-        return exists;
-    }
-
     @Override
     public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        CountedWrite counted = new CountedWrite();
         try (WriteBatch writeBatch = new WriteBatch();
              WriteOptions writeOptions = new WriteOptions()) {
-
             for (Pair<Indexable, Persistable> entry : models) {
+                addSave(writeBatch, counted, entry.hi, entry.low, entry.hi.merge());
+            }
+            write(writeOptions, writeBatch, counted);
+        }
+        return true;
+    }
 
-                Indexable key = entry.low;
-                Persistable value = entry.hi;
-
-                ColumnFamilyHandle handle = classTreeMap.get(value.getClass());
-                ColumnFamilyHandle referenceHandle = metadataReference.get(value.getClass());
+    @Override
+    public boolean saveBatchIfAbsent(Class<?> model, Indexable index, List<Pair<Indexable, Persistable>> models)
+            throws Exception {
+        return !saveBatchesIfAbsent(model, Collections.singletonMap(index, models)).isEmpty();
+    }
 
-                if (value.merge()) {
-                    writeBatch.merge(handle, key.bytes(), value.bytes());
-                } else {
-                    writeBatch.put(handle, key.bytes(), value.bytes());
+    @Override
+    public Set<Indexable> saveBatchesIfAbsent(Class<?> model,
+                                              Map<Indexable, List<Pair<Indexable, Persistable>>> batches)
+            throws Exception {
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        Set<Indexable> inserted = new LinkedHashSet<>();
+        Set<ByteBuffer> keys = new HashSet<>();
+        for (Map.Entry<Indexable, List<Pair<Indexable, Persistable>>> batch : batches.entrySet()) {
+            keys.add(ByteBuffer.wrap(batch.getKey().bytes()));
+            for (Pair<Indexable, Persistable> entry : batch.getValue()) {
+                keys.add(ByteBuffer.wrap(entry.low.bytes()));
+            }
+        }
+        CountedWrite counted = new CountedWrite();
+        rewriteLock.readLock().lock();
+        //the keys are locked, so an entry cannot be written between the check and the write
+        int[] stripes = lockKeys(keys);
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            for (Map.Entry<Indexable, List<Pair<Indexable, Persistable>>> batch : batches.entrySet()) {
+                byte[] key = batch.getKey().bytes();
+                if (keyExists(handle, key)) {
+                    continue;
                 }
-                if (referenceHandle != null) {
-                    writeBatch.put(referenceHandle, key.bytes(), value.metadata());
+                //the check decided that the entry is new, so it is counted without another read
+                counted.setStored(handle, key, false);
+                inserted.add(batch.getKey());
+                for (Pair<Indexable, Persistable> entry : batch.getValue()) {
+                    addSave(writeBatch, counted, entry.hi, entry.low, entry.hi.merge());
                 }
             }
+            if (!inserted.isEmpty()) {
+                counted.count(writeBatch);
+                db.write(writeOptions, writeBatch);
+                counted.apply();
+            }
+        } finally {
+            unlockKeys(stripes);
+            rewriteLock.readLock().unlock();
+        }
+        return inserted;
+    }
+
+    private void addSave(WriteBatch writeBatch, CountedWrite counted, Persistable value, Indexable key, boolean merge)
+            throws RocksDBException {
+        ColumnFamilyHandle handle = classTreeMap.get(value.getClass());
+        ColumnFamilyHandle referenceHandle = metadataReference.get(value.getClass());
+        ColumnFamilyHandle stateHandle = stateReference.get(value.getClass());
+
+        if (merge) {
+            writeBatch.merge(handle, key.bytes(), value.bytes());
+        } else {
+            writeBatch.put(handle, key.bytes(), value.bytes());
+        }
+        counted.put(handle, key.bytes());
+        if (referenceHandle != null) {
+            writeBatch.put(referenceHandle, key.bytes(), value.metadata());
+        }
+        if (stateHandle != null) {
+            writeBatch.put(stateHandle, key.bytes(), ((StatefulPersistable) value).state());
+        }
+        if (value instanceof Transaction) {
+            counted.setSolid(key.bytes(), ((Transaction) value).solid);
+            if (((Transaction) value).hasArrivalTime()) {
+                writeBatch.put(transactionArrivalHandle, arrivalKey((Transaction) value, key), NO_VALUE);
+            }
+        }
+    }
 
-            db.write(writeOptions, writeBatch);
-            return true;
+    /**
+     * Removes an entry and its state. The arrival index entry of a transaction is removed once the keys are locked,
+     * since it is found by the stored arrival time.
+     *
+     * @param withMetadata <tt>true</tt> to remove the metadata as well
+     */
+    private void addDelete(WriteBatch writeBatch, CountedWrite counted, Class<?> model, Indexable key,
+                           boolean withMetadata) throws RocksDBException {
+        byte[] keyBytes = key.bytes();
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        writeBatch.remove(handle, keyBytes);
+        counted.remove(handle, keyBytes);
+        ColumnFamilyHandle metadataHandle = metadataReference.get(model);
+        if (withMetadata && metadataHandle != null) {
+            writeBatch.remove(metadataHandle, keyBytes);
+        }
+        ColumnFamilyHandle stateHandle = stateReference.get(model);
+        if (stateHandle != null) {
+            writeBatch.remove(stateHandle, keyBytes);
+        }
+        if (model == Transaction.class) {
+            counted.setSolid(keyBytes, false);
+            counted.removeArrival(key);
         }
     }
 
     public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models)
             throws Exception {
-        if (CollectionUtils.isNotEmpty(models)) {
-            try (WriteBatch writeBatch = new WriteBatch()) {
-                models.forEach(entry -> {
-                    Indexable indexable = entry.low;
-                    byte[] keyBytes = indexable.bytes();
-                    ColumnFamilyHandle handle = classTreeMap.get(entry.hi);
-                    writeBatch.remove(handle, keyBytes);
-                    ColumnFamilyHandle metadataHandle = metadataReference.get(entry.hi);
-                    if (metadataHandle != null) {
-                        writeBatch.remove(metadataHandle, keyBytes);
-                    }
-                });
+        if (CollectionUtils.isEmpty(models)) {
+            return;
+        }
+        CountedWrite counted = new CountedWrite();
+        try (WriteBatch writeBatch = new WriteBatch()) {
+            for (Pair<Indexable, ? extends Class<? extends Persistable>> entry : models) {
+                addDelete(writeBatch, counted, entry.hi, entry.low, true);
+            }
 
-                WriteOptions writeOptions = new WriteOptions()
-                        //We are explicit about what happens if the node reboots before a flush to the db
-                        .setDisableWAL(false)
-                        //We want to make sure deleted data was indeed deleted
-                        .setSync(true);
-                db.write(writeOptions, writeBatch);
+            WriteOptions writeOptions = new WriteOptions()
+                    //We are explicit about what happens if the node reboots before a flush to the db
+                    .setDisableWAL(false)
+                    //We want to make sure deleted data was indeed deleted
+                    .setSync(true);
+            write(writeOptions, writeBatch, counted);
+        }
+    }
+
+    /**
+     * Writes a batch together with the counter differences of its keys. The keys are locked while their existence is
+     * read and written.
+     */
+    private void write(WriteOptions writeOptions, WriteBatch writeBatch, CountedWrite counted) throws Exception {
+        rewriteLock.readLock().lock();
+        int[] stripes = lockKeys(counted.keys());
+        try {
+            counted.removeArrivals(writeBatch);
+            counted.count(writeBatch);
+            db.write(writeOptions, writeBatch);
+            counted.apply();
+        } finally {
+            unlockKeys(stripes);
+            rewriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collects the keys a write batch creates and removes, and adds the resulting differences of the counters to it.
+     * Only the keys whose existence is not known yet are read, so the keys must stay locked from {@link
+     * #count(WriteBatch)} until the batch is written.
+     */
+    private final class CountedWrite {
+
+        // by column, the written keys and whether they exist after the write
+        private final Map<ColumnFamilyHandle, Map<ByteBuffer, Boolean>> written = new HashMap<>();
+        // by column, whether the written keys exist before the write
+        private final Map<ColumnFamilyHandle, Map<ByteBuffer, Boolean>> stored = new HashMap<>();
+        // the solid flags of the written transaction states
+        private final Map<ByteBuffer, Boolean> solid = new HashMap<>();
+        private final Map<ByteBuffer, Boolean> storedSolid = new HashMap<>();
+        private final List<Indexable> removedTransactions = new ArrayList<>();
+        private final Map<String, Long> differences = new HashMap<>();
+
+        private void put(ColumnFamilyHandle handle, byte[] key) {
+            written.computeIfAbsent(handle, h -> new HashMap<>()).put(ByteBuffer.wrap(key), true);
+        }
+
+        private void remove(ColumnFamilyHandle handle, byte[] key) {
+            written.computeIfAbsent(handle, h -> new HashMap<>()).put(ByteBuffer.wrap(key), false);
+        }
+
+        private void setSolid(byte[] key, boolean isSolid) {
+            solid.put(ByteBuffer.wrap(key), isSolid);
+        }
+
+        /**
+         * Records an existence the caller already read, so it is not read again.
+         */
+        private void setStored(ColumnFamilyHandle handle, byte[] key, boolean exists) {
+            stored.computeIfAbsent(handle, h -> new HashMap<>()).put(ByteBuffer.wrap(key), exists);
+        }
+
+        private void removeArrival(Indexable transaction) {
+            removedTransactions.add(transaction);
+        }
+
+        private Set<ByteBuffer> keys() {
+            Set<ByteBuffer> keys = new HashSet<>(solid.keySet());
+            for (Map<ByteBuffer, Boolean> columnKeys : written.values()) {
+                keys.addAll(columnKeys.keySet());
             }
+            return keys;
+        }
+
+        /**
+         * Removes the arrival index entries of the removed transactions, which are found by their stored arrival
+         * times. The stored transactions are read anyway, so their existence and solid flags are recorded as well.
+         */
+        private void removeArrivals(WriteBatch writeBatch) throws Exception {
+            List<Persistable> transactions = multiGet(Transaction.class, removedTransactions);
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = (Transaction) transactions.get(i);
+                byte[] key = removedTransactions.get(i).bytes();
+                setStored(transactionHandle, key, transaction.bytes != null);
+                storedSolid.put(ByteBuffer.wrap(key), transaction.solid);
+                if (transaction.bytes != null && transaction.hasArrivalTime()) {
+                    writeBatch.remove(transactionArrivalHandle, arrivalKey(transaction, removedTransactions.get(i)));
+                }
+            }
+        }
+
+        private void count(WriteBatch writeBatch) throws RocksDBException {
+            for (Map.Entry<Class<?>, ColumnFamilyHandle> column : classTreeMap.entrySet()) {
+                long difference = 0;
+                for (Map.Entry<ByteBuffer, Boolean> key : written.getOrDefault(column.getValue(),
+                        Collections.emptyMap()).entrySet()) {
+                    difference += Boolean.compare(key.getValue(), isStored(column.getValue(), key.getKey()));
+                }
+                add(column.getKey().getSimpleName(), difference);
+            }
+            long solidDifference = 0;
+            for (Map.Entry<ByteBuffer, Boolean> key : solid.entrySet()) {
+                solidDifference += Boolean.compare(key.getValue(), isStoredSolid(key.getKey()));
+            }
+            add(SOLID_TRANSACTIONS, solidDifference);
+            Set<ByteBuffer> slots = new HashSet<>(written.getOrDefault(transactionHandle, Collections.emptyMap())
+                    .keySet());
+            slots.addAll(written.getOrDefault(approveeHandle, Collections.emptyMap()).keySet());
+            long prefilledDifference = 0;
+            for (ByteBuffer key : slots) {
+                prefilledDifference += Boolean.compare(isPrefilled(key, true), isPrefilled(key, false));
+            }
+            add(PREFILLED_SLOTS, prefilledDifference);
+            for (Map.Entry<String, Long> difference : differences.entrySet()) {
+                writeBatch.merge(counterHandle, difference.getKey().getBytes(StandardCharsets.UTF_8),
+                        counterValue(difference.getValue()));
+            }
+        }
+
+        private void add(String counter, long difference) {
+            if (difference != 0) {
+                differences.put(counter, difference);
+            }
+        }
+
+        /**
+         * Applies the differences to the counters in memory, once the batch is written.
+         */
+        private void apply() {
+            differences.forEach((name, difference) -> counters.get(name).addAndGet(difference));
+        }
+
+        private boolean isPrefilled(ByteBuffer key, boolean afterWrite) throws RocksDBException {
+            //a prefilled slot is approved by a stored transaction, but is not stored itself
+            return exists(approveeHandle, key, afterWrite) && !exists(transactionHandle, key, afterWrite);
+        }
+
+        private boolean exists(ColumnFamilyHandle handle, ByteBuffer key, boolean afterWrite) throws RocksDBException {
+            Boolean exists = afterWrite ? written.getOrDefault(handle, Collections.emptyMap()).get(key) : null;
+            return exists != null ? exists : isStored(handle, key);
+        }
+
+        private boolean isStored(ColumnFamilyHandle handle, ByteBuffer key) throws RocksDBException {
+            Map<ByteBuffer, Boolean> known = stored.computeIfAbsent(handle, h -> new HashMap<>());
+            Boolean exists = known.get(key);
+            if (exists == null) {
+                exists = keyExists(handle, key.array());
+                known.put(key, exists);
+            }
+            return exists;
+        }
+
+        private boolean isStoredSolid(ByteBuffer key) throws RocksDBException {
+            Boolean isSolid = storedSolid.get(key);
+            if (isSolid == null) {
+                byte[] state = db.keyMayExist(transactionStateHandle, key.array(), new StringBuilder())
+                        ? db.get(transactionStateHandle, key.array()) : null;
+                Transaction transaction = new Transaction();
+                transaction.readState(state);
+                isSolid = state != null && transaction.solid;
+                storedSolid.put(key, isSolid);
+            }
+            return isSolid;
+        }
+    }
+
+    @Override
+    public void removeFromIndex(Class<?> model, Map<Indexable, ? extends Collection<? extends Indexable>> removals)
+            throws Exception {
+        if (removals.isEmpty()) {
+            return;
+        }
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        List<Indexable> indexes = new ArrayList<>(removals.keySet());
+        CountedWrite counted = new CountedWrite();
+        //no hash can be appended between the read and the rewrite of an entry
+        rewriteLock.writeLock().lock();
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            List<Persistable> stored = multiGet(model, indexes);
+            for (int i = 0; i < indexes.size(); i++) {
+                Hashes hashes = (Hashes) stored.get(i);
+                if (!hashes.set.removeAll(removals.get(indexes.get(i)))) {
+                    continue;
+                }
+                byte[] key = indexes.get(i).bytes();
+                if (hashes.set.isEmpty()) {
+                    writeBatch.remove(handle, key);
+                    counted.setStored(handle, key, true);
+                    counted.remove(handle, key);
+                } else {
+                    //a put replaces the stored value together with all of its merge operands
+                    writeBatch.put(handle, key, hashes.bytes());
+                }
+            }
+            counted.count(writeBatch);
+            db.write(writeOptions, writeBatch);
+            counted.apply();
+        } finally {
+            rewriteLock.writeLock().unlock();
         }
     }
 
     @Override
     public void clear(Class<?> column) throws Exception {
         log.info("Deleting: {} entries", column.getSimpleName());
-        flushHandle(classTreeMap.get(column));
+        rewriteLock.writeLock().lock();
+        try {
+            Map<String, Long> cleared = new HashMap<>(getCounters());
+            dropCounters();
+            flushHandle(classTreeMap.get(column));
+            if (column == Transaction.class) {
+                flushHandle(transactionArrivalHandle);
+                //every stored approvee is left without its transaction
+                cleared.put(PREFILLED_SLOTS, cleared.get(Approvee.class.getSimpleName()));
+            } else if (column == Approvee.class) {
+                cleared.put(PREFILLED_SLOTS, 0L);
+            }
+            cleared.put(column.getSimpleName(), 0L);
+            storeCounters(cleared);
+        } finally {
+            rewriteLock.writeLock().unlock();
+        }
     }
 
     @Override
     public void clearMetadata(Class<?> column) throws Exception {
         log.info("Deleting: {} metadata", column.getSimpleName());
-        flushHandle(metadataReference.get(column));
+        rewriteLock.writeLock().lock();
+        try {
+            Map<String, Long> cleared = new HashMap<>(getCounters());
+            dropCounters();
+            flushHandle(metadataReference.get(column));
+            ColumnFamilyHandle stateHandle = stateReference.get(column);
+            if (stateHandle != null) {
+                flushHandle(stateHandle);
+            }
+            if (column == Transaction.class) {
+                //the arrival index is derived from the metadata
+                flushHandle(transactionArrivalHandle);
+                cleared.put(SOLID_TRANSACTIONS, 0L);
+            }
+            storeCounters(cleared);
+        } finally {
+            rewriteLock.writeLock().unlock();
+        }
     }
 
     private void flushHandle(ColumnFamilyHandle handle) throws RocksDBException {
         List<byte[]> itemsToDelete = new ArrayList<>();
-        try (RocksIterator iterator = db.newIterator(handle)) {
+        try (RocksIterator iterator = db.newIterator(handle, totalOrderReadOptions)) {
 
             for (iterator.seekToLast(); iterator.isValid(); iterator.prev()) {
                 itemsToDelete.add(iterator.key());
@@ -378,51 +1106,229 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public boolean update(Persistable thing, Indexable index, String item) throws Exception {
-        ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
-        if (referenceHandle != null) {
-            db.put(referenceHandle, index.bytes(), thing.metadata());
+        if (metadataReference.containsKey(thing.getClass()) || stateReference.containsKey(thing.getClass())) {
+            updateBatch(Collections.singletonList(new Pair<>(index, thing)), item);
         }
         return false;
     }
 
     @Override
-    public void clearAll() throws Exception {
-        log.info("Deleting all entries");
-        for(ColumnFamilyHandle handle: classTreeMap.values()) {
-            flushHandle(handle);
+    public boolean updateBatch(List<Pair<Indexable, Persistable>> models, String item) throws Exception {
+        CountedWrite counted = new CountedWrite();
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            for (Pair<Indexable, Persistable> entry : models) {
+                addUpdate(writeBatch, counted, entry.hi, entry.low, item);
+            }
+            write(writeOptions, writeBatch, counted);
         }
+        return true;
+    }
 
-        log.info("Deleting all metadata entries");
-        for (ColumnFamilyHandle handle : metadataReference.values()) {
-            flushHandle(handle);
+    private void addUpdate(WriteBatch writeBatch, CountedWrite counted, Persistable thing, Indexable index,
+                           String item) throws Exception {
+        if (isArrivalUpdate(thing, item)) {
+            //the stored arrival time is needed to find the old index entry
+            Transaction stored = (Transaction) get(Transaction.class, index);
+            if (stored.bytes != null) {
+                writeBatch.remove(transactionArrivalHandle, arrivalKey(stored, index));
+                if (((Transaction) thing).hasArrivalTime()) {
+                    writeBatch.put(transactionArrivalHandle, arrivalKey((Transaction) thing, index), NO_VALUE);
+                }
+            }
+        }
+        ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
+        ColumnFamilyHandle stateHandle = stateReference.get(thing.getClass());
+        if (stateHandle == null || !((StatefulPersistable) thing).isStateUpdate(item)) {
+            if (referenceHandle != null) {
+                writeBatch.put(referenceHandle, index.bytes(), thing.metadata());
+            }
+        }
+        if (stateHandle != null) {
+            writeBatch.put(stateHandle, index.bytes(), ((StatefulPersistable) thing).state());
+        }
+        if (thing instanceof Transaction) {
+            //the solid transactions change where the stored state flips
+            counted.setSolid(index.bytes(), ((Transaction) thing).solid);
         }
     }
 
-    // 2018 March 28 - Unused Code
-    public void createBackup(String path) throws RocksDBException {
-        try (Env env = Env.getDefault();
-             BackupableDBOptions backupableDBOptions = new BackupableDBOptions(path);
-             BackupEngine backupEngine = BackupEngine.open(env, backupableDBOptions)) {
+    @Override
+    public void clearAll() throws Exception {
+        rewriteLock.writeLock().lock();
+        try {
+            dropCounters();
+            log.info("Deleting all entries");
+            for(ColumnFamilyHandle handle: classTreeMap.values()) {
+                flushHandle(handle);
+            }
 
-            backupEngine.createNewBackup(db, true);
+            log.info("Deleting all metadata entries");
+            for (ColumnFamilyHandle handle : metadataReference.values()) {
+                flushHandle(handle);
+            }
+            for (ColumnFamilyHandle handle : stateReference.values()) {
+                flushHandle(handle);
+            }
+            flushHandle(transactionArrivalHandle);
+            Map<String, Long> cleared = new HashMap<>();
+            for (String name : counterNames()) {
+                cleared.put(name, 0L);
+            }
+            storeCounters(cleared);
+        } finally {
+            rewriteLock.writeLock().unlock();
         }
     }
 
-    // 2018 March 28 - Unused Code
-    public void restoreBackup(String path, String logPath) throws Exception {
-        try (Env env = Env.getDefault();
-             BackupableDBOptions backupableDBOptions = new BackupableDBOptions(path)) {
+    private List<String> counterNames() {
+        List<String> names = new ArrayList<>();
+        for (Class<?> model : classTreeMap.keySet()) {
+            names.add(model.getSimpleName());
+        }
+        names.add(SOLID_TRANSACTIONS);
+        names.add(PREFILLED_SLOTS);
+        return names;
+    }
+
+    /**
+     * Loads the persisted counters. The entries of a database that was created before all of them were persisted are
+     * counted once.
+     */
+    private void loadCounters() {
+        for (String name : counterNames()) {
+            counters.put(name, new AtomicLong());
+        }
+        try {
+            Map<String, Long> loaded = new HashMap<>();
+            for (String name : counterNames()) {
+                byte[] stored = db.get(counterHandle, name.getBytes(StandardCharsets.UTF_8));
+                if (stored == null) {
+                    loaded = null;
+                    break;
+                }
+                loaded.put(name, readCounter(stored));
+            }
+            if (loaded == null) {
+                log.info("Counting the stored entries...");
+                //drops the counters of earlier versions
+                flushHandle(counterHandle);
+                loaded = countEntries();
+                storeCounters(loaded);
+                log.info("Counted the stored entries: {}", loaded);
+            } else {
+                loaded.forEach((name, count) -> counters.get(name).set(count));
+            }
+        } catch (Exception e) {
+            log.error("Error while loading the counters", e);
+        }
+    }
+
+    private Map<String, Long> countEntries() throws Exception {
+        Map<String, Long> counted = new HashMap<>();
+        for (Map.Entry<Class<?>, ColumnFamilyHandle> column : classTreeMap.entrySet()) {
+            counted.put(column.getKey().getSimpleName(), countKeys(column.getValue()));
+        }
+        long solid = 0;
+        try (RocksIterator iterator = db.newIterator(transactionStateHandle, totalOrderReadOptions)) {
+            Transaction transaction = new Transaction();
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                transaction.readState(iterator.value());
+                if (transaction.solid) {
+                    solid++;
+                }
+            }
+        }
+        counted.put(SOLID_TRANSACTIONS, solid);
+        long[] prefilled = {0};
+        scanMissingReferences(Approvee.class, Transaction.class, (key, value) -> {
+            prefilled[0]++;
+            return true;
+        });
+        counted.put(PREFILLED_SLOTS, prefilled[0]);
+        return counted;
+    }
 
-            // shutdown after successful creation of env and backupable ...
-            shutdown();
+    private long countKeys(ColumnFamilyHandle handle) {
+        long keys = 0;
+        try (RocksIterator iterator = db.newIterator(handle, totalOrderReadOptions)) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                keys++;
+            }
+        }
+        return keys;
+    }
 
-            try (BackupEngine backupEngine = BackupEngine.open(env, backupableDBOptions);
-                 RestoreOptions restoreOptions = new RestoreOptions(false)) {
+    /**
+     * Drops the persisted counters before a clear, so the entries are counted at the next start if the clear is
+     * interrupted.
+     */
+    private void dropCounters() throws RocksDBException {
+        for (String name : counterNames()) {
+            db.delete(counterHandle, name.getBytes(StandardCharsets.UTF_8));
+        }
+    }
 
-                backupEngine.restoreDbFromLatestBackup(path, logPath, restoreOptions);
+    private void storeCounters(Map<String, Long> values) throws RocksDBException {
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            //a put replaces all merge operands of a counter
+            for (Map.Entry<String, Long> value : values.entrySet()) {
+                writeBatch.put(counterHandle, value.getKey().getBytes(StandardCharsets.UTF_8),
+                        counterValue(value.getValue()));
             }
+            db.write(writeOptions, writeBatch);
+        }
+        values.forEach((name, count) -> counters.get(name).set(count));
+    }
+
+    /**
+     * Encodes a counter difference like the <tt>uint64add</tt> merge operator of the counter column expects it: 64 bit
+     * little endian, negative differences wrap around.
+     */
+    private static byte[] counterValue(long value) {
+        return ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+    }
+
+    private static long readCounter(byte[] value) {
+        return ByteBuffer.wrap(value).order(ByteOrder.LITTLE_ENDIAN).getLong();
+    }
+
+    private boolean keyExists(ColumnFamilyHandle handle, byte[] key) throws RocksDBException {
+        //the bloom filters rule out most new keys without a read, and only the existence is read of the others
+        return db.keyMayExist(handle, key, new StringBuilder()) && db.get(handle, key, NO_VALUE) != RocksDB.NOT_FOUND;
+    }
+
+    private int[] lockKeys(Collection<ByteBuffer> keys) {
+        int[] stripes = keys.stream()
+                .mapToInt(key -> Math.floorMod(key.hashCode(), keyLocks.length))
+                .distinct()
+                .sorted()
+                .toArray();
+        //always locked in the same order, so writes of overlapping keys cannot deadlock
+        for (int stripe : stripes) {
+            keyLocks[stripe].lock();
+        }
+        return stripes;
+    }
+
+    private void unlockKeys(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            keyLocks[stripes[i]].unlock();
+        }
+    }
+
+    /**
+     * Creates a RocksDB checkpoint, which hard links the immutable table files of the database instead of copying
+     * them. Only the memtables are flushed, so reads and writes continue while the checkpoint is created. Consecutive
+     * checkpoints on the same file system share the table files that did not change in between.
+     */
+    @Override
+    public boolean createCheckpoint(String path) throws Exception {
+        try (Checkpoint checkpoint = Checkpoint.create(db)) {
+            checkpoint.createCheckpoint(path);
         }
-        initDB(path, logPath);
+        return true;
     }
 
     private void initDB(String path, String logPath) {
@@ -464,32 +1370,39 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
             bloomFilter = new BloomFilter(BLOOM_FILTER_BITS_PER_KEY);
 
-            BlockBasedTableConfig blockBasedTableConfig = new BlockBasedTableConfig().setFilter(bloomFilter);
-            blockBasedTableConfig
-                .setFilter(bloomFilter)
-                .setCacheNumShardBits(2)
-                .setBlockSizeDeviation(10)
-                .setBlockRestartInterval(16)
-                .setBlockCacheSize(cacheSize * SizeUnit.KB)
-                .setBlockCacheCompressedNumShardBits(10)
-                .setBlockCacheCompressedSize(32 * SizeUnit.KB);
-
             options.setAllowConcurrentMemtableWrite(true);
 
-            MergeOperator mergeOperator = new StringAppendOperator();
-            ColumnFamilyOptions columnFamilyOptions = new ColumnFamilyOptions()
-                .setMergeOperator(mergeOperator)
-                .setTableFormatConfig(blockBasedTableConfig)
-                .setMaxWriteBufferNumber(2)
-                .setWriteBufferSize(2 * SizeUnit.MB);
+            metrics = new RocksDBMetrics();
+            options.setStatistics(metrics.getStatistics());
 
+            Map<ColumnFamilyProfile, ColumnFamilyOptions> optionsByProfile = new EnumMap<>(ColumnFamilyProfile.class);
             List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
             for (String name : columnFamilyNames) {
-                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name.getBytes(), columnFamilyOptions));
+                if (COUNTER_COLUMN.equals(name)) {
+                    //the counters are changed by adding merge operands, whatever profile is assigned to the column
+                    ColumnFamilyOptions counterOptions = new ColumnFamilyOptions().setMergeOperatorName("uint64add");
+                    columnFamilyOptions.add(counterOptions);
+                    columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name.getBytes(), counterOptions));
+                    continue;
+                }
+                ColumnFamilyProfile profile = getProfile(name);
+                ColumnFamilyOptions profileOptions = optionsByProfile.computeIfAbsent(profile, p -> {
+                    ColumnFamilyOptions created = p.createOptions(
+                            (long) (cacheSize * SizeUnit.KB * p.getCacheShare()), bloomFilter);
+                    columnFamilyOptions.add(created);
+                    return created;
+                });
+                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name.getBytes(), profileOptions));
             }
+            totalOrderReadOptions = new ReadOptions().setTotalOrderSeek(true);
+            prefixReadOptions = new ReadOptions().setPrefixSameAsStart(true);
 
             db = RocksDB.open(options, path, columnFamilyDescriptors, columnFamilyHandles);
             db.enableFileDeletions(true);
+            for (int i = 0; i < columnFamilyNames.size(); i++) {
+                columnFamilyProfiles.put(columnFamilyHandles.get(i), getProfile(columnFamilyNames.get(i)));
+                columnsByName.put(columnFamilyNames.get(i), columnFamilyHandles.get(i));
+            }
 
             fillModelColumnHandles();
 
@@ -499,6 +1412,14 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         }
     }
 
+    private ColumnFamilyProfile getProfile(String columnFamilyName) {
+        ColumnFamilyProfile assigned = assignedProfiles.get(columnFamilyName);
+        if (assigned != null) {
+            return assigned;
+        }
+        return tunedPerColumn ? ColumnFamilyProfile.forColumnFamily(columnFamilyName) : ColumnFamilyProfile.UNIFORM;
+    }
+
     private void fillModelColumnHandles() throws Exception {
         int i = 0;
         transactionHandle = columnFamilyHandles.get(++i);
@@ -508,6 +1429,9 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         bundleHandle = columnFamilyHandles.get(++i);
         obsoleteTagHandle = columnFamilyHandles.get(++i);
         tagHandle = columnFamilyHandles.get(++i);
+        transactionStateHandle = columnFamilyHandles.get(++i);
+        transactionArrivalHandle = columnFamilyHandles.get(++i);
+        counterHandle = columnFamilyHandles.get(++i);
 
         for (; ++i < columnFamilyHandles.size(); ) {
             db.dropColumnFamily(columnFamilyHandles.get(i));
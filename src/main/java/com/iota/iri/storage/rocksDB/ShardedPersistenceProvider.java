@@ -0,0 +1,536 @@
+package com.iota.iri.storage.rocksDB;
+
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.PersistenceProvider;
+import com.iota.iri.storage.ScanVisitor;
+import com.iota.iri.utils.IotaUtils;
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Partitions the stored data across several RocksDB databases, e.g. on different devices, so the writes, the write
+ * ahead logs and the compactions of the shards are spread across the devices.
+ *
+ * <p>
+ * The entries are routed by the first byte of their key, which is a hash for all columns. Every shard stores a
+ * contiguous range of first bytes, so a transaction, its approvees and its state are always stored in the same shard,
+ * and scans in key order visit the shards one after another. Only the arrival index is ordered by time, its scans
+ * merge the arrivals of all shards.
+ * </p>
+ * <p>
+ * Writes of several entries are atomic within each shard, but not across shards. The index entries of a transaction
+ * that were lost by a crash can be restored by a rescan. The number of shards must not change once data was stored,
+ * which is verified by a marker file in every shard.
+ * </p>
+ */
+public class ShardedPersistenceProvider implements PersistenceProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedPersistenceProvider.class);
+
+    private static final String SHARD_FOLDER_PREFIX = "shard-";
+    private static final String MARKER_FILE = "SHARD";
+
+    private final List<String> dbPaths;
+    private final List<RocksDBPersistenceProvider> shards = new ArrayList<>();
+
+    /**
+     * @param dbPaths the folders of the shards
+     * @param logPath the folder of the database logs, every shard logs to its own sub folder
+     * @param cacheSize the size of the block cache of every shard in KB
+     * @param tunedPerColumn <tt>true</tt> to tune every column with its {@link ColumnFamilyProfile}
+     */
+    public ShardedPersistenceProvider(List<String> dbPaths, String logPath, int cacheSize, boolean tunedPerColumn) {
+        this(dbPaths, logPath, cacheSize, tunedPerColumn, Collections.emptyMap());
+    }
+
+    /**
+     * @param dbPaths the folders of the shards
+     * @param logPath the folder of the database logs, every shard logs to its own sub folder
+     * @param cacheSize the size of the block cache of every shard in KB
+     * @param tunedPerColumn <tt>true</tt> to tune every column with its {@link ColumnFamilyProfile}
+     * @param assignedProfiles profiles by column name that are used instead of the default of the column
+     */
+    public ShardedPersistenceProvider(List<String> dbPaths, String logPath, int cacheSize, boolean tunedPerColumn,
+                                      Map<String, ColumnFamilyProfile> assignedProfiles) {
+        if (dbPaths.isEmpty() || dbPaths.size() > 256) {
+            throw new IllegalArgumentException("between 1 and 256 shards are supported");
+        }
+        this.dbPaths = new ArrayList<>(dbPaths);
+        for (int i = 0; i < dbPaths.size(); i++) {
+            shards.add(new RocksDBPersistenceProvider(dbPaths.get(i),
+                    new File(logPath, getShardFolderName(i)).getPath(), cacheSize, tunedPerColumn,
+                    assignedProfiles));
+        }
+    }
+
+    /**
+     * @param shard the number of a shard
+     * @return the name of the folder of the shard in checkpoints
+     */
+    public static String getShardFolderName(int shard) {
+        return SHARD_FOLDER_PREFIX + shard;
+    }
+
+    @Override
+    public void init() throws Exception {
+        for (int i = 0; i < shards.size(); i++) {
+            checkMarker(i);
+            shards.get(i).init();
+        }
+        log.info("Initialized {} database shards", shards.size());
+    }
+
+    /**
+     * Makes sure that a shard is not used at a different position, or with a different number of shards, than it was
+     * created with. An existing database without a marker was not created as a shard and is rejected as well.
+     */
+    private void checkMarker(int shard) throws IOException {
+        File folder = new File(dbPaths.get(shard));
+        File marker = new File(folder, MARKER_FILE);
+        String expected = shard + "/" + shards.size();
+        if (marker.exists()) {
+            String actual = new String(Files.readAllBytes(marker.toPath()), StandardCharsets.UTF_8).trim();
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("The database " + folder + " is shard " + actual
+                        + ", it cannot be used as shard " + expected);
+            }
+            return;
+        }
+        String[] existing = folder.list();
+        if (existing != null && existing.length > 0) {
+            throw new IllegalStateException("The database " + folder + " was not created as a shard");
+        }
+        Files.createDirectories(folder.toPath());
+        Files.write(marker.toPath(), expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return shards.stream().allMatch(RocksDBPersistenceProvider::isAvailable);
+    }
+
+    @Override
+    public void shutdown() {
+        shards.forEach(RocksDBPersistenceProvider::shutdown);
+    }
+
+    @Override
+    public boolean save(Persistable model, Indexable index) throws Exception {
+        return shard(index).save(model, index);
+    }
+
+    @Override
+    public void delete(Class<?> model, Indexable index) throws Exception {
+        shard(index).delete(model, index);
+    }
+
+    @Override
+    public boolean update(Persistable model, Indexable index, String item) throws Exception {
+        return shard(index).update(model, index, item);
+    }
+
+    @Override
+    public boolean updateBatch(List<Pair<Indexable, Persistable>> models, String item) throws Exception {
+        boolean updated = true;
+        for (Map.Entry<Integer, List<Pair<Indexable, Persistable>>> batch : partition(models, pair -> pair.low)
+                .entrySet()) {
+            updated &= shards.get(batch.getKey()).updateBatch(batch.getValue(), item);
+        }
+        return updated;
+    }
+
+    @Override
+    public void removeFromIndex(Class<?> model, Map<Indexable, ? extends Collection<? extends Indexable>> removals)
+            throws Exception {
+        Map<Integer, Map<Indexable, Collection<? extends Indexable>>> shardRemovals = new HashMap<>();
+        for (Map.Entry<Indexable, ? extends Collection<? extends Indexable>> entry : removals.entrySet()) {
+            shardRemovals.computeIfAbsent(shardNumber(entry.getKey()), shard -> new HashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Integer, Map<Indexable, Collection<? extends Indexable>>> shard : shardRemovals.entrySet()) {
+            shards.get(shard.getKey()).removeFromIndex(model, shard.getValue());
+        }
+    }
+
+    @Override
+    public boolean exists(Class<?> model, Indexable key) throws Exception {
+        return shard(key).exists(model, key);
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception {
+        return latest(model, indexModel, shards.size() - 1);
+    }
+
+    private Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel, int lastShard) throws Exception {
+        Pair<Indexable, Persistable> latest = null;
+        for (int i = lastShard; i >= 0 && (latest == null || latest.low == null); i--) {
+            latest = shards.get(i).latest(model, indexModel);
+        }
+        return latest;
+    }
+
+    @Override
+    public Set<Indexable> keysWithMissingReferences(Class<?> modelClass, Class<?> otherClass) throws Exception {
+        Set<Indexable> keys = new HashSet<>();
+        for (RocksDBPersistenceProvider shard : shards) {
+            keys.addAll(shard.keysWithMissingReferences(modelClass, otherClass));
+        }
+        return keys.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public boolean scanMissingReferences(Class<?> modelClass, Class<?> otherClass, ScanVisitor visitor)
+            throws Exception {
+        //the referenced keys are stored in the same shard as the keys that reference them
+        StoppableVisitor stoppable = new StoppableVisitor(visitor);
+        for (RocksDBPersistenceProvider shard : shards) {
+            if (!shard.scanMissingReferences(modelClass, otherClass, stoppable)) {
+                return false;
+            }
+            if (stoppable.stopped) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean scan(Class<?> model, byte[] from, byte[] to, boolean keysOnly, ScanVisitor visitor)
+            throws Exception {
+        int firstShard = from == null ? 0 : shardNumber(from);
+        int lastShard = to == null ? shards.size() - 1 : shardNumber(to);
+        StoppableVisitor stoppable = new StoppableVisitor(visitor);
+        for (int i = firstShard; i <= lastShard; i++) {
+            if (!shards.get(i).scan(model, from, to, keysOnly, stoppable)) {
+                return false;
+            }
+            if (stoppable.stopped) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean scanArrivals(long from, long to, boolean newestFirst, ScanVisitor visitor) throws Exception {
+        Comparator<RocksDBPersistenceProvider.ArrivalCursor> order =
+                (a, b) -> IotaUtils.compareUnsigned(a.getKey(), b.getKey());
+        PriorityQueue<RocksDBPersistenceProvider.ArrivalCursor> queue = new PriorityQueue<>(shards.size(),
+                newestFirst ? order.reversed() : order);
+        List<RocksDBPersistenceProvider.ArrivalCursor> cursors = new ArrayList<>(shards.size());
+        try {
+            for (RocksDBPersistenceProvider shard : shards) {
+                RocksDBPersistenceProvider.ArrivalCursor cursor = shard.openArrivals(from, to, newestFirst);
+                cursors.add(cursor);
+                if (cursor.isValid()) {
+                    queue.add(cursor);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RocksDBPersistenceProvider.ArrivalCursor cursor = queue.poll();
+                if (!visitor.visit(cursor.getHash(), null)) {
+                    break;
+                }
+                cursor.next();
+                if (cursor.isValid()) {
+                    queue.add(cursor);
+                }
+            }
+        } finally {
+            cursors.forEach(RocksDBPersistenceProvider.ArrivalCursor::close);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean createCheckpoint(String path) throws Exception {
+        for (int i = 0; i < shards.size(); i++) {
+            File folder = new File(path, getShardFolderName(i));
+            Files.createDirectories(folder.getParentFile().toPath());
+            if (!shards.get(i).createCheckpoint(folder.getPath())) {
+                return false;
+            }
+            //a node that is bootstrapped from the checkpoint uses the same shards
+            Files.copy(new File(dbPaths.get(i), MARKER_FILE).toPath(), new File(folder, MARKER_FILE).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        return true;
+    }
+
+    @Override
+    public Persistable get(Class<?> model, Indexable index) throws Exception {
+        return shard(index).get(model, index);
+    }
+
+    @Override
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        Persistable[] values = new Persistable[indexes.size()];
+        Map<Integer, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < indexes.size(); i++) {
+            positions.computeIfAbsent(shardNumber(indexes.get(i)), shard -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<Integer, List<Integer>> shardPositions : positions.entrySet()) {
+            List<Indexable> shardIndexes = new ArrayList<>(shardPositions.getValue().size());
+            for (int position : shardPositions.getValue()) {
+                shardIndexes.add(indexes.get(position));
+            }
+            List<Persistable> loaded = shards.get(shardPositions.getKey()).multiGet(model, shardIndexes);
+            for (int i = 0; i < loaded.size(); i++) {
+                values[shardPositions.getValue().get(i)] = loaded.get(i);
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    @Override
+    public boolean mayExist(Class<?> model, Indexable index) throws Exception {
+        return shard(index).mayExist(model, index);
+    }
+
+    @Override
+    public long count(Class<?> model) throws Exception {
+        long count = 0;
+        for (RocksDBPersistenceProvider shard : shards) {
+            count += shard.count(model);
+        }
+        return count;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() throws Exception {
+        Map<String, Long> counters = new HashMap<>();
+        for (RocksDBPersistenceProvider shard : shards) {
+            shard.getCounters().forEach((name, count) -> counters.merge(name, count, Long::sum));
+        }
+        return Collections.unmodifiableMap(counters);
+    }
+
+    @Override
+    public Map<String, Long> getMetrics() throws Exception {
+        List<Map<String, Long>> samples = new ArrayList<>(shards.size());
+        for (RocksDBPersistenceProvider shard : shards) {
+            samples.add(shard.getMetrics());
+        }
+        return Collections.unmodifiableMap(RocksDBMetrics.merge(samples));
+    }
+
+    @Override
+    public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
+        if (value.length > 0) {
+            return shards.get(shardNumber(value)).keysStartingWith(modelClass, value);
+        }
+        Set<Indexable> keys = new HashSet<>();
+        for (RocksDBPersistenceProvider shard : shards) {
+            keys.addAll(shard.keysStartingWith(modelClass, value));
+        }
+        return keys.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    @Override
+    public Persistable seek(Class<?> model, byte[] key) throws Exception {
+        if (key.length > 0) {
+            return shards.get(shardNumber(key)).seek(model, key);
+        }
+        //any key matches, so the shard is picked by its share of the keys to keep the pick uniform
+        long[] counts = new long[shards.size()];
+        long total = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            counts[i] = shards.get(i).count(model);
+            total += counts[i];
+        }
+        int shard = 0;
+        if (total > 0) {
+            long pick = ThreadLocalRandom.current().nextLong(total);
+            while (pick >= counts[shard]) {
+                pick -= counts[shard++];
+            }
+        }
+        return shards.get(shard).seek(model, key);
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
+        int shard = shardNumber(index);
+        Pair<Indexable, Persistable> next = shards.get(shard).next(model, index);
+        for (int i = shard + 1; i < shards.size() && next.low == null; i++) {
+            next = shards.get(i).first(model, index.getClass());
+        }
+        return next;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception {
+        int shard = shardNumber(index);
+        Pair<Indexable, Persistable> previous = shards.get(shard).previous(model, index);
+        if (previous.low == null && shard > 0) {
+            previous = latest(model, index.getClass(), shard - 1);
+        }
+        return previous;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> first(Class<?> model, Class<?> index) throws Exception {
+        Pair<Indexable, Persistable> first = null;
+        for (int i = 0; i < shards.size() && (first == null || first.low == null); i++) {
+            first = shards.get(i).first(model, index);
+        }
+        return first;
+    }
+
+    @Override
+    public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        for (Map.Entry<Integer, List<Pair<Indexable, Persistable>>> batch : partition(models, pair -> pair.low)
+                .entrySet()) {
+            shards.get(batch.getKey()).saveBatch(batch.getValue());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean saveBatchIfAbsent(Class<?> model, Indexable index, List<Pair<Indexable, Persistable>> models)
+            throws Exception {
+        int shard = shardNumber(index);
+        Map<Integer, List<Pair<Indexable, Persistable>>> batches = partition(models, pair -> pair.low);
+        //the shard of the key decides, the other shards only receive their entries once the batch was inserted
+        if (!shards.get(shard).saveBatchIfAbsent(model, index,
+                batches.getOrDefault(shard, Collections.emptyList()))) {
+            return false;
+        }
+        for (Map.Entry<Integer, List<Pair<Indexable, Persistable>>> batch : batches.entrySet()) {
+            if (batch.getKey() != shard) {
+                shards.get(batch.getKey()).saveBatch(batch.getValue());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<Indexable> saveBatchesIfAbsent(Class<?> model,
+                                              Map<Indexable, List<Pair<Indexable, Persistable>>> batches)
+            throws Exception {
+        Map<Indexable, Map<Integer, List<Pair<Indexable, Persistable>>>> partitioned = new HashMap<>();
+        Map<Integer, Map<Indexable, List<Pair<Indexable, Persistable>>>> deciding = new HashMap<>();
+        for (Map.Entry<Indexable, List<Pair<Indexable, Persistable>>> batch : batches.entrySet()) {
+            Map<Integer, List<Pair<Indexable, Persistable>>> shardBatches = partition(batch.getValue(),
+                    pair -> pair.low);
+            int shard = shardNumber(batch.getKey());
+            partitioned.put(batch.getKey(), shardBatches);
+            deciding.computeIfAbsent(shard, number -> new HashMap<>())
+                    .put(batch.getKey(), shardBatches.getOrDefault(shard, Collections.emptyList()));
+        }
+        //the shard of each key decides, the other shards only receive their entries once the batch was inserted
+        Set<Indexable> inserted = new HashSet<>();
+        Map<Integer, List<Pair<Indexable, Persistable>>> others = new HashMap<>();
+        for (Map.Entry<Integer, Map<Indexable, List<Pair<Indexable, Persistable>>>> shard : deciding.entrySet()) {
+            for (Indexable key : shards.get(shard.getKey()).saveBatchesIfAbsent(model, shard.getValue())) {
+                inserted.add(key);
+                partitioned.get(key).forEach((other, pairs) -> {
+                    if (!other.equals(shard.getKey())) {
+                        others.computeIfAbsent(other, number -> new ArrayList<>()).addAll(pairs);
+                    }
+                });
+            }
+        }
+        for (Map.Entry<Integer, List<Pair<Indexable, Persistable>>> batch : others.entrySet()) {
+            shards.get(batch.getKey()).saveBatch(batch.getValue());
+        }
+        return inserted;
+    }
+
+    @Override
+    public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models)
+            throws Exception {
+        for (Map.Entry<Integer, List<Pair<Indexable, ? extends Class<? extends Persistable>>>> batch :
+                partition(models, pair -> pair.low).entrySet()) {
+            shards.get(batch.getKey()).deleteBatch(batch.getValue());
+        }
+    }
+
+    @Override
+    public void clear(Class<?> column) throws Exception {
+        for (RocksDBPersistenceProvider shard : shards) {
+            shard.clear(column);
+        }
+    }
+
+    @Override
+    public void clearMetadata(Class<?> column) throws Exception {
+        for (RocksDBPersistenceProvider shard : shards) {
+            shard.clearMetadata(column);
+        }
+    }
+
+    @Override
+    public void clearAll() throws Exception {
+        for (RocksDBPersistenceProvider shard : shards) {
+            shard.clearAll();
+        }
+    }
+
+    private RocksDBPersistenceProvider shard(Indexable index) {
+        return shards.get(shardNumber(index));
+    }
+
+    private int shardNumber(Indexable index) {
+        return index == null ? 0 : shardNumber(index.bytes());
+    }
+
+    /**
+     * @return the shard whose range of first bytes contains the first byte of {@code key}
+     */
+    private int shardNumber(byte[] key) {
+        return key.length == 0 ? 0 : (key[0] & 0xFF) * shards.size() / 256;
+    }
+
+    /**
+     * Splits the entries of a batch by their shards, keeping the order of the entries within each shard.
+     */
+    private <T> Map<Integer, List<T>> partition(Collection<T> entries, Function<T, Indexable> key) {
+        Map<Integer, List<T>> batches = new HashMap<>();
+        for (T entry : entries) {
+            batches.computeIfAbsent(shardNumber(key.apply(entry)), shard -> new ArrayList<>()).add(entry);
+        }
+        return batches;
+    }
+
+    /**
+     * Remembers whether the visitor stopped a scan, so the scan does not continue with the next shard.
+     */
+    private static final class StoppableVisitor implements ScanVisitor {
+
+        private final ScanVisitor visitor;
+        private boolean stopped = false;
+
+        private StoppableVisitor(ScanVisitor visitor) {
+            this.visitor = visitor;
+        }
+
+        @Override
+        public boolean visit(Indexable key, Persistable value) throws Exception {
+            stopped = !visitor.visit(key, value);
+            return !stopped;
+        }
+    }
+}
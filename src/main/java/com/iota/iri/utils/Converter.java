@@ -146,6 +146,31 @@ public class Converter {
 
 
 
+    /**
+     * Converts a part of a bytes array to trits, without converting the whole array.<br>
+     *     this method will override the first {@code tritsLength} trits of {@code trits}
+     *
+     * @param bytes source bytes array
+     * @param tritOffset position of the first trit to convert, counted in trits of the whole bytes array
+     * @param trits destination trits array
+     * @param tritsLength amount of trits to convert
+     */
+    public static void getTrits(final byte[] bytes, final int tritOffset, final byte[] trits, final int tritsLength) {
+        int offset = 0;
+        int i = tritOffset / NUMBER_OF_TRITS_IN_A_BYTE;
+        int position = tritOffset % NUMBER_OF_TRITS_IN_A_BYTE;
+        while (offset < tritsLength && i < bytes.length) {
+            int length = Math.min(NUMBER_OF_TRITS_IN_A_BYTE - position, tritsLength - offset);
+            System.arraycopy(BYTE_TO_TRITS_MAPPINGS[bytes[i] < 0 ? (bytes[i] + BYTE_TO_TRITS_MAPPINGS.length) : bytes[i]], position, trits, offset, length);
+            offset += length;
+            position = 0;
+            i++;
+        }
+        while (offset < tritsLength) {
+            trits[offset++] = 0;
+        }
+    }
+
     // Trytes <-> Trits
     /**
      * Converts a tryte string to trits (bytes array) based on {@link #NUMBER_OF_TRITS_IN_A_TRYTE}.<br>
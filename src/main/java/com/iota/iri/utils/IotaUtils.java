@@ -38,6 +38,43 @@ public class IotaUtils {
         return ByteBuffer.wrap(Arrays.copyOf(hash.bytes(), length));
     }
 
+    /**
+     * Used to turn a key prefix into an exclusive upper bound of a range scan.
+     *
+     * @param prefix a key prefix
+     * @return the smallest key that is greater than all keys starting with {@code prefix} when comparing unsigned
+     * bytes, or <tt>null</tt> if there is no such key
+     */
+    public static byte[] getPrefixEnd(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] end = Arrays.copyOf(prefix, i + 1);
+                end[i]++;
+                return end;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares keys the way the default RocksDB comparator does: lexicographically by their unsigned bytes.
+     *
+     * @param a the first key
+     * @param b the second key
+     * @return a negative number, zero or a positive number if {@code a} is smaller than, equal to or greater than
+     *         {@code b}
+     */
+    public static int compareUnsigned(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
     /**
      * @param clazz Class to inspect
      * @return All the declared and inherited setter method of {@code clazz}
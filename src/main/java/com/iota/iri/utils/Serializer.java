@@ -1,5 +1,7 @@
 package com.iota.iri.utils;
 
+import java.nio.ByteBuffer;
+
 /**
  * Created by paul on 3/13/17 for iri-testnet.
  */
@@ -51,4 +53,38 @@ public class Serializer {
         }
         return res;
     }
+
+    /**
+     * Writes a value as a zigzag encoded varint: small positive and negative values take a single byte, the largest
+     * values take 10 bytes.
+     *
+     * @param buffer the buffer to write to
+     * @param value the value to write
+     */
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    /**
+     * Reads a value written by {@link #putVarLong(ByteBuffer, long)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     */
+    public static long getVarLong(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
 }
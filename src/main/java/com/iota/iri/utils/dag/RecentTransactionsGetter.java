@@ -5,7 +5,9 @@ import java.util.Collection;
 import com.iota.iri.model.Hash;
 
 /**
- * Get N most recent transactions
+ * Get N most recent solid transactions
+ *
+ * Transactions that are not solid are skipped, so the result can contain fewer than N transactions.
  */
 public interface RecentTransactionsGetter {
     Collection<Hash> getRecentTransactions(int count) throws Exception;
@@ -0,0 +1,58 @@
+package com.iota.iri.utils.dag;
+
+import com.iota.iri.model.Hash;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read access to the structure of the tangle: the approvees, approvers and bundle position of transactions.
+ */
+public interface TangleGraph extends RecentTransactionsGetter {
+
+    /**
+     * @param hash the hash of the transaction
+     * @return the vertex of the transaction, which does not {@link TransactionVertex#exists() exist} if the
+     *         transaction is missing
+     * @throws Exception if the transaction could not be loaded
+     */
+    TransactionVertex getTransaction(Hash hash) throws Exception;
+
+    /**
+     * @param hashes the hashes of the transactions
+     * @return the vertices of the transactions in the order of {@code hashes}
+     * @throws Exception if the transactions could not be loaded
+     */
+    List<TransactionVertex> getTransactions(List<Hash> hashes) throws Exception;
+
+    /**
+     * @param hash the hash of the transaction
+     * @return the direct approvers of the transaction, in a set that may be modified by the caller
+     * @throws Exception if the approvers could not be loaded
+     */
+    Set<Hash> getApprovers(Hash hash) throws Exception;
+
+    /**
+     * @param hashes the hashes of the transactions
+     * @return the direct approvers of the transactions in the order of {@code hashes}
+     * @throws Exception if the approvers could not be loaded
+     */
+    List<Set<Hash>> getApprovers(List<Hash> hashes) throws Exception;
+
+    /**
+     * @param hash the hash of the transaction
+     * @return <tt>true</tt> if the transaction is solid
+     * @throws Exception if the transaction could not be loaded
+     */
+    boolean isSolid(Hash hash) throws Exception;
+
+    /**
+     * Unlike {@link #getRecentTransactions(int)} the transactions that are not solid are included.
+     *
+     * @param count the maximum number of transactions
+     * @return the hashes of the latest transactions in the order of their arrival, the most recent first
+     * @throws Exception if the transactions could not be loaded
+     */
+    Collection<Hash> getLatestArrivals(int count) throws Exception;
+}
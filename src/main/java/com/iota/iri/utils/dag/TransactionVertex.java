@@ -0,0 +1,83 @@
+package com.iota.iri.utils.dag;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+
+/**
+ * The fields of a transaction that describe its place in the tangle.
+ */
+public class TransactionVertex {
+
+    private final Hash hash;
+    private final boolean exists;
+    private final Hash trunk;
+    private final Hash branch;
+    private final Hash bundle;
+    private final long currentIndex;
+    private final long arrivalTime;
+    private volatile boolean solid;
+
+    private TransactionVertex(TransactionViewModel transaction) {
+        this.hash = transaction.getHash();
+        this.exists = transaction.getType() != TransactionViewModel.PREFILLED_SLOT;
+        this.trunk = transaction.getTrunkTransactionHash();
+        this.branch = transaction.getBranchTransactionHash();
+        this.bundle = transaction.getBundleHash();
+        this.currentIndex = transaction.getCurrentIndex();
+        this.arrivalTime = transaction.getArrivalTime();
+        this.solid = transaction.isSolid();
+    }
+
+    /**
+     * @param transaction the transaction, which may be missing in the database
+     * @return the vertex of the transaction
+     */
+    public static TransactionVertex fromTransaction(TransactionViewModel transaction) {
+        return new TransactionVertex(transaction);
+    }
+
+    public Hash getHash() {
+        return hash;
+    }
+
+    /**
+     * @return <tt>false</tt> if the transaction is missing in the database
+     */
+    public boolean exists() {
+        return exists;
+    }
+
+    public Hash getTrunk() {
+        return trunk;
+    }
+
+    public Hash getBranch() {
+        return branch;
+    }
+
+    public Hash getBundle() {
+        return bundle;
+    }
+
+    public long getCurrentIndex() {
+        return currentIndex;
+    }
+
+    public long getArrivalTime() {
+        return arrivalTime;
+    }
+
+    /**
+     * @return <tt>true</tt> if the transaction was solid when the vertex was created or when it was marked solid
+     */
+    public boolean isSolid() {
+        return solid;
+    }
+
+    /**
+     * Marks the transaction as solid, once it became solid after the vertex was created.
+     */
+    public void setSolid() {
+        solid = true;
+    }
+}
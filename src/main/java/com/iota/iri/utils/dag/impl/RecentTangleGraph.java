@@ -0,0 +1,245 @@
+package com.iota.iri.utils.dag.impl;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.TransactionVertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of <tt>TangleGraph</tt> that keeps the latest transactions in memory.
+ *
+ * <p>
+ * The vertices of the latest <tt>capacity</tt> transactions and the approvals between them are kept, so tip selection
+ * in the recent part of the tangle does not read the database. The graph is filled from the arrival index on startup
+ * and is updated as transactions arrive and become solid. The oldest transactions are evicted in the order of their
+ * arrival. Transactions that are not in the graph are read from the database.
+ * </p>
+ * <p>
+ * The approvers of a transaction in the graph are the transactions in the graph that approve it. They are complete
+ * because approvers arrive after the transactions they approve, except for transactions that were received out of
+ * order.
+ * </p>
+ */
+public class RecentTangleGraph implements TangleGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(RecentTangleGraph.class);
+
+    private final TangleGraph storage;
+    private final int capacity;
+
+    private final Map<Hash, TransactionVertex> vertices = new ConcurrentHashMap<>();
+    private final Map<Hash, Set<Hash>> approvers = new ConcurrentHashMap<>();
+    //the hashes in the order of their arrival, guarded by this
+    private final Deque<Hash> arrivals = new ArrayDeque<>();
+
+    /**
+     * @param storage the graph of the transactions that are not kept in memory
+     * @param capacity the number of transactions that are kept in memory
+     */
+    public RecentTangleGraph(TangleGraph storage, int capacity) {
+        this.storage = storage;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Loads the latest transactions from the database.
+     *
+     * @throws Exception if the transactions could not be loaded
+     */
+    public void init() throws Exception {
+        List<Hash> latest = new ArrayList<>(storage.getLatestArrivals(capacity));
+        //oldest first, like they arrived
+        Collections.reverse(latest);
+        for (TransactionVertex vertex : storage.getTransactions(latest)) {
+            if (vertex.exists()) {
+                add(vertex);
+            }
+        }
+        log.info("Loaded {} recent transactions into the tangle graph", vertices.size());
+    }
+
+    /**
+     * Adds a transaction that was stored. Never reads the database.
+     *
+     * @param transaction the new transaction
+     */
+    public void addTransaction(TransactionViewModel transaction) {
+        add(TransactionVertex.fromTransaction(transaction));
+    }
+
+    /**
+     * Marks a transaction of the graph as solid.
+     *
+     * @param hash the hash of the transaction that became solid
+     */
+    public void setSolid(Hash hash) {
+        TransactionVertex vertex = vertices.get(hash);
+        if (vertex != null) {
+            vertex.setSolid();
+        }
+    }
+
+    /**
+     * @return the number of transactions in the graph
+     */
+    public int size() {
+        return vertices.size();
+    }
+
+    private synchronized void add(TransactionVertex vertex) {
+        Hash hash = vertex.getHash();
+        if (vertices.putIfAbsent(hash, vertex) != null) {
+            return;
+        }
+        approvers.computeIfAbsent(vertex.getTrunk(), approvee -> ConcurrentHashMap.newKeySet()).add(hash);
+        approvers.computeIfAbsent(vertex.getBranch(), approvee -> ConcurrentHashMap.newKeySet()).add(hash);
+        arrivals.addLast(hash);
+        if (arrivals.size() > capacity) {
+            evict(arrivals.pollFirst());
+        }
+    }
+
+    private void evict(Hash hash) {
+        TransactionVertex vertex = vertices.remove(hash);
+        //the approvers of an evicted transaction are read from the database
+        approvers.remove(hash);
+        removeApprover(vertex.getTrunk(), hash);
+        removeApprover(vertex.getBranch(), hash);
+    }
+
+    private void removeApprover(Hash approvee, Hash approver) {
+        Set<Hash> approveeApprovers = approvers.get(approvee);
+        if (approveeApprovers != null) {
+            approveeApprovers.remove(approver);
+            //approvees outside of the graph are only kept while they have approvers in the graph
+            if (approveeApprovers.isEmpty() && !vertices.containsKey(approvee)) {
+                approvers.remove(approvee);
+            }
+        }
+    }
+
+    @Override
+    public TransactionVertex getTransaction(Hash hash) throws Exception {
+        TransactionVertex vertex = vertices.get(hash);
+        return vertex != null ? vertex : storage.getTransaction(hash);
+    }
+
+    @Override
+    public List<TransactionVertex> getTransactions(List<Hash> hashes) throws Exception {
+        List<TransactionVertex> result = new ArrayList<>(hashes.size());
+        List<Hash> missing = new ArrayList<>();
+        for (Hash hash : hashes) {
+            TransactionVertex vertex = vertices.get(hash);
+            result.add(vertex);
+            if (vertex == null) {
+                missing.add(hash);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Iterator<TransactionVertex> loaded = storage.getTransactions(missing).iterator();
+            for (int i = 0; i < result.size(); i++) {
+                if (result.get(i) == null) {
+                    result.set(i, loaded.next());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Hash> getApprovers(Hash hash) throws Exception {
+        if (!vertices.containsKey(hash)) {
+            return storage.getApprovers(hash);
+        }
+        Set<Hash> hashApprovers = approvers.get(hash);
+        return hashApprovers != null ? new HashSet<>(hashApprovers) : new HashSet<>();
+    }
+
+    @Override
+    public List<Set<Hash>> getApprovers(List<Hash> hashes) throws Exception {
+        List<Set<Hash>> result = new ArrayList<>(hashes.size());
+        List<Hash> missing = new ArrayList<>();
+        for (Hash hash : hashes) {
+            if (vertices.containsKey(hash)) {
+                result.add(getApprovers(hash));
+            } else {
+                result.add(null);
+                missing.add(hash);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Iterator<Set<Hash>> loaded = storage.getApprovers(missing).iterator();
+            for (int i = 0; i < result.size(); i++) {
+                if (result.get(i) == null) {
+                    result.set(i, loaded.next());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isSolid(Hash hash) throws Exception {
+        TransactionVertex vertex = vertices.get(hash);
+        if (vertex != null && vertex.isSolid()) {
+            return true;
+        }
+        //transactions that were solidified in the database without notification are marked on the first check
+        boolean solid = storage.isSolid(hash);
+        if (solid && vertex != null) {
+            vertex.setSolid();
+        }
+        return solid;
+    }
+
+    /**
+     * Only the solid flags of the vertices are checked, the transactions in the graph that are not marked solid are
+     * skipped. If the graph does not contain enough solid transactions, the database is queried.
+     */
+    @Override
+    public Collection<Hash> getRecentTransactions(int count) throws Exception {
+        synchronized (this) {
+            List<Hash> latest = new ArrayList<>(count);
+            Iterator<Hash> newestFirst = arrivals.descendingIterator();
+            while (latest.size() < count && newestFirst.hasNext()) {
+                Hash hash = newestFirst.next();
+                if (vertices.get(hash).isSolid()) {
+                    latest.add(hash);
+                }
+            }
+            if (latest.size() == count) {
+                return latest;
+            }
+        }
+        return storage.getRecentTransactions(count);
+    }
+
+    @Override
+    public Collection<Hash> getLatestArrivals(int count) throws Exception {
+        synchronized (this) {
+            if (count <= arrivals.size()) {
+                List<Hash> latest = new ArrayList<>(count);
+                Iterator<Hash> newestFirst = arrivals.descendingIterator();
+                while (latest.size() < count) {
+                    latest.add(newestFirst.next());
+                }
+                return latest;
+            }
+        }
+        return storage.getLatestArrivals(count);
+    }
+}
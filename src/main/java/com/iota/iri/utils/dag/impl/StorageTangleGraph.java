@@ -0,0 +1,68 @@
+package com.iota.iri.utils.dag.impl;
+
+import com.iota.iri.controllers.ApproveeViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.dag.TangleGraph;
+import com.iota.iri.utils.dag.TransactionVertex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of <tt>TangleGraph</tt> that reads every vertex and edge from the database.
+ */
+public class StorageTangleGraph implements TangleGraph {
+
+    private final Tangle tangle;
+
+    public StorageTangleGraph(Tangle tangle) {
+        this.tangle = tangle;
+    }
+
+    @Override
+    public TransactionVertex getTransaction(Hash hash) throws Exception {
+        return TransactionVertex.fromTransaction(TransactionViewModel.fromHash(tangle, hash));
+    }
+
+    @Override
+    public List<TransactionVertex> getTransactions(List<Hash> hashes) throws Exception {
+        List<TransactionVertex> vertices = new ArrayList<>(hashes.size());
+        for (TransactionViewModel transaction : TransactionViewModel.fromHashes(tangle, hashes)) {
+            vertices.add(TransactionVertex.fromTransaction(transaction));
+        }
+        return vertices;
+    }
+
+    @Override
+    public Set<Hash> getApprovers(Hash hash) throws Exception {
+        return ApproveeViewModel.load(tangle, hash).getHashes();
+    }
+
+    @Override
+    public List<Set<Hash>> getApprovers(List<Hash> hashes) throws Exception {
+        List<Set<Hash>> approvers = new ArrayList<>(hashes.size());
+        for (ApproveeViewModel approveeViewModel : ApproveeViewModel.load(tangle, hashes)) {
+            approvers.add(approveeViewModel.getHashes());
+        }
+        return approvers;
+    }
+
+    @Override
+    public boolean isSolid(Hash hash) throws Exception {
+        return TransactionViewModel.fromHash(tangle, hash).isSolid();
+    }
+
+    @Override
+    public Collection<Hash> getRecentTransactions(int count) throws Exception {
+        return TransactionViewModel.latestSolidArrivals(tangle, count);
+    }
+
+    @Override
+    public Collection<Hash> getLatestArrivals(int count) throws Exception {
+        return TransactionViewModel.latestArrivals(tangle, count);
+    }
+}
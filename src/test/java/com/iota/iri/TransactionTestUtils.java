@@ -35,6 +35,8 @@ public class TransactionTestUtils {
         setLastIndex(tx, trunkTx.lastIndex());
         System.arraycopy(trunkTx.trits(), TransactionViewModel.BUNDLE_TRINARY_OFFSET, tx.trits(),
                 TransactionViewModel.BUNDLE_TRINARY_OFFSET, TransactionViewModel.BUNDLE_TRINARY_SIZE);
+        //the hashes are decoded from the stored bytes, so they have to contain the copied bundle hash
+        Converter.bytes(tx.trits(), tx.getBytes());
         return tx;
     }
 
@@ -16,6 +16,10 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static com.iota.iri.controllers.TransactionViewModelTest.*;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -96,6 +100,28 @@ public class TransactionValidatorTest {
     assertFalse(txValidator.checkSolidity(tx.getHash()));
   }
 
+  @Test
+  public void checkSolidityNotifiesTheSolidTransactionListeners() throws Exception {
+    TransactionViewModel leaf = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+    leaf.updateSolid(true);
+    leaf.store(tangle);
+    TransactionViewModel parent = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(leaf.getHash(),
+            leaf.getHash()), getRandomTransactionHash());
+    parent.store(tangle);
+    TransactionViewModel child = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(parent.getHash(),
+            leaf.getHash()), getRandomTransactionHash());
+    child.store(tangle);
+
+    Set<Hash> solidified = ConcurrentHashMap.newKeySet();
+    txValidator.addSolidTransactionListener(solidified::add);
+    assertTrue(txValidator.checkSolidity(child.getHash()));
+
+    assertTrue("Parent tx was expected to be reported", solidified.contains(parent.getHash()));
+    assertTrue("Child tx was expected to be reported", solidified.contains(child.getHash()));
+    assertFalse("Solid leaf tx was not expected to be reported", solidified.contains(leaf.getHash()));
+    txValidator.clearSolidTransactionsQueue();
+  }
+
   @Test
   public void addSolidTransactionWithoutErrors() {
     byte[] trits = getRandomTransactionTrits();
@@ -194,6 +220,28 @@ public class TransactionValidatorTest {
     assertFalse("GrandParent tx was expected to be not solid", grandParent.isSolid());
   }
 
+  @Test
+  public void testUpdateStatusOfBatch() throws Exception {
+    TransactionViewModel leaf = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+    leaf.updateSolid(true);
+    leaf.store(tangle);
+
+    TransactionViewModel first = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(leaf.getHash(),
+            leaf.getHash()), getRandomTransactionHash());
+    first.store(tangle);
+    TransactionViewModel second = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(leaf.getHash(),
+            getRandomTransactionHash()), getRandomTransactionHash());
+    second.store(tangle);
+
+    txValidator.updateStatus(Arrays.asList(first, second));
+
+    assertTrue("Tx with solid parents was expected to be solid",
+            TransactionViewModel.fromHash(tangle, first.getHash()).isSolid());
+    assertFalse("Tx with a missing parent was expected to be not solid",
+            TransactionViewModel.fromHash(tangle, second.getHash()).isSolid());
+    txValidator.clearSolidTransactionsQueue();
+  }
+
   @Test
   public void validateCorrectTimestamp() throws Exception {
     TransactionViewModel tx = getValidTxWithoutBranchAndTrunk(0, 0);
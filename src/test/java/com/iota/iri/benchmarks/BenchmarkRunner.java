@@ -1,8 +1,10 @@
 package com.iota.iri.benchmarks;
 
 import com.iota.iri.benchmarks.dbbenchmark.RocksDbBenchmark;
+import com.iota.iri.benchmarks.tipselection.CumulativeWeightBenchmark;
 import org.junit.Test;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -28,4 +30,21 @@ public class BenchmarkRunner {
         //possible to do assertions over run results
         new Runner(opts).run();
     }
+
+    @Test
+    public void launchCumulativeWeightBenchmarks() throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(CumulativeWeightBenchmark.class.getName() + ".*")
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .warmupIterations(5)
+                .forks(1)
+                .measurementIterations(10)
+                .shouldFailOnError(true)
+                //the allocation rate per calculation is reported next to the time
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opts).run();
+    }
 }
@@ -0,0 +1,22 @@
+package com.iota.iri.benchmarks.tipselection;
+
+import com.iota.iri.benchmarks.tipselection.states.SubtangleState;
+import com.iota.iri.model.HashId;
+import com.iota.iri.service.tipselection.impl.CumulativeWeightCalculator;
+import com.iota.iri.service.tipselection.impl.DenseCumulativeWeightCalculator;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+
+
+public class CumulativeWeightBenchmark {
+
+    @Benchmark
+    public UnIterableMap<HashId, Integer> cumulativeWeight(SubtangleState state) throws Exception {
+        return new CumulativeWeightCalculator(state.getTangle()).calculate(state.getEntryPoint());
+    }
+
+    @Benchmark
+    public UnIterableMap<HashId, Integer> denseCumulativeWeight(SubtangleState state) throws Exception {
+        return new DenseCumulativeWeightCalculator(state.getTangle()).calculate(state.getEntryPoint());
+    }
+}
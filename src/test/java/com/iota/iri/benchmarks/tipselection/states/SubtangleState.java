@@ -0,0 +1,83 @@
+package com.iota.iri.benchmarks.tipselection.states;
+
+import com.iota.iri.TransactionTestUtils;
+import com.iota.iri.conf.BaseIotaConfig;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.storage.PersistenceProvider;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A subtangle in which every transaction approves two of the latest transactions, like the tips of a busy network.
+ */
+@State(Scope.Benchmark)
+public class SubtangleState {
+    private static final int WIDTH = 30;
+
+    private final File dbFolder = new File("cw-db-bench");
+    private final File logFolder = new File("cw-db-log-bench");
+
+    private Tangle tangle;
+    private Hash entryPoint;
+
+    @Param({"1000", "6000"})
+    private int subtangleSize;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        System.out.println("-----------------------trial setup--------------------------------");
+        boolean mkdirs = dbFolder.mkdirs();
+        if (!mkdirs) {
+            throw new IllegalStateException("db didn't start with a clean slate. Please delete "
+                    + dbFolder.getAbsolutePath());
+        }
+        logFolder.mkdirs();
+        PersistenceProvider dbProvider = new RocksDBPersistenceProvider(dbFolder.getPath(), logFolder.getPath(),
+                BaseIotaConfig.Defaults.DB_CACHE_SIZE);
+        dbProvider.init();
+        tangle = new Tangle();
+        tangle.addPersistenceProvider(dbProvider);
+
+        Random random = new Random(1);
+        List<Hash> hashes = new ArrayList<>(subtangleSize);
+        String trytes = "";
+        for (int i = 0; i < subtangleSize; i++) {
+            trytes = TransactionTestUtils.nextWord(trytes);
+            TransactionViewModel tvm;
+            if (hashes.isEmpty()) {
+                tvm = TransactionTestUtils.createTransactionWithTrytes(trytes);
+            } else {
+                Hash trunk = hashes.get(Math.max(0, i - 1 - random.nextInt(WIDTH)));
+                Hash branch = hashes.get(Math.max(0, i - 1 - random.nextInt(WIDTH)));
+                tvm = TransactionTestUtils.createTransactionWithTrunkAndBranch(trytes, trunk, branch);
+            }
+            tvm.store(tangle);
+            hashes.add(tvm.getHash());
+        }
+        entryPoint = hashes.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        System.out.println("-----------------------trial teardown--------------------------------");
+        tangle.shutdown();
+        FileUtils.forceDelete(dbFolder);
+        FileUtils.forceDelete(logFolder);
+    }
+
+    public Tangle getTangle() {
+        return tangle;
+    }
+
+    public Hash getEntryPoint() {
+        return entryPoint;
+    }
+}
@@ -1,5 +1,6 @@
 package com.iota.iri.conf;
 
+import com.beust.jcommander.ParameterException;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
@@ -112,6 +113,13 @@ public class ConfigTest {
         Assert.assertEquals("The api interface should be open to the public", "0.0.0.0", iotaConfig.getApiHost());
     }
 
+    @Test(expected = ParameterException.class)
+    public void testConfidenceWalksMustBePositive() {
+        String[] args = {"--confidence-walks", "0"};
+        IotaConfig iotaConfig = ConfigFactory.createIotaConfig(false);
+        iotaConfig.parseConfigFromArgs(args);
+    }
+
     @Test
     public void testArgsParsingTestnet() {
         String[] args = {
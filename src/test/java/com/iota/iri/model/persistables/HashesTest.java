@@ -0,0 +1,54 @@
+package com.iota.iri.model.persistables;
+
+import com.iota.iri.model.Hash;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+
+public class HashesTest {
+
+    @Test
+    public void bytesAreReadBackInOrder() {
+        Hashes hashes = new Hashes();
+        List<Hash> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Hash hash = getRandomTransactionHash();
+            expected.add(hash);
+            hashes.set.add(hash);
+        }
+
+        byte[] bytes = hashes.bytes();
+        Hashes read = new Hashes();
+        read.read(bytes);
+
+        Assert.assertEquals(100 * (Hash.SIZE_IN_BYTES + 1) - 1, bytes.length);
+        Assert.assertEquals(expected, new ArrayList<>(read.set));
+    }
+
+    @Test
+    public void emptySetHasNoBytes() {
+        Hashes read = new Hashes();
+        read.read(new Hashes().bytes());
+
+        Assert.assertEquals(0, new Hashes().bytes().length);
+        Assert.assertTrue(read.set.isEmpty());
+    }
+
+    @Test
+    public void leadingDelimiterOfMergedValueIsSkipped() {
+        Hash hash = getRandomTransactionHash();
+        byte[] bytes = new byte[Hash.SIZE_IN_BYTES + 1];
+        bytes[0] = ',';
+        System.arraycopy(hash.bytes(), 0, bytes, 1, Hash.SIZE_IN_BYTES);
+
+        Hashes read = new Hashes();
+        read.read(bytes);
+
+        Assert.assertEquals(Arrays.asList(hash), new ArrayList<>(read.set));
+    }
+}
@@ -1,16 +1,31 @@
 package com.iota.iri.model.persistables;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
 
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Random;
 
 import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashFactory;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
 import com.iota.iri.utils.Converter;
+import com.iota.iri.utils.Pair;
+import com.iota.iri.utils.Serializer;
 
 import org.junit.Test;
 
 public class TransactionTest {
     private static final Random seed = new Random();
+    private static final int LEGACY_METADATA_SIZE = Hash.SIZE_IN_BYTES * 6 + Long.BYTES * 10 + Integer.BYTES * 2 + 1;
 
     @Test
     public void metadataParsedCorrectlyInHappyFlow() throws Exception {
@@ -20,17 +35,11 @@ public class TransactionTest {
         byte[] bytes = tx.metadata();
         fromMetaData.readMetadata(bytes);
 
-        assertEquals(tx.address, fromMetaData.address);
-        assertEquals(tx.bundle, fromMetaData.bundle);
-        assertEquals(tx.trunk, fromMetaData.trunk);
-        assertEquals(tx.branch, fromMetaData.branch);
-        assertEquals(tx.obsoleteTag, fromMetaData.obsoleteTag);
         assertEquals(tx.value, fromMetaData.value);
         assertEquals(tx.currentIndex, fromMetaData.currentIndex);
         assertEquals(tx.lastIndex, fromMetaData.lastIndex);
         assertEquals(tx.timestamp, fromMetaData.timestamp);
 
-        assertEquals(tx.tag, fromMetaData.tag);
         assertEquals(tx.attachmentTimestamp, fromMetaData.attachmentTimestamp);
         assertEquals(tx.attachmentTimestampLowerBound, fromMetaData.attachmentTimestampLowerBound);
         assertEquals(tx.attachmentTimestampUpperBound, fromMetaData.attachmentTimestampUpperBound);
@@ -42,6 +51,141 @@ public class TransactionTest {
         assertEquals(tx.solidificationTime, fromMetaData.solidificationTime);
 
         assertEquals(tx.solid, fromMetaData.solid);
+        assertEquals(tx.sender, fromMetaData.sender);
+        assertTrue(fromMetaData.parsed);
+    }
+
+    @Test
+    public void legacyMetadataIsReadAndRewrittenCompactly() throws Exception {
+        Hash address = HashFactory.ADDRESS.create(getRandomTransactionHash().bytes());
+        Hash bundle = HashFactory.BUNDLE.create(getRandomTransactionHash().bytes());
+        Hash trunk = getRandomTransactionHash();
+        Hash branch = getRandomTransactionHash();
+        Hash obsoleteTag = HashFactory.OBSOLETETAG.create(getRandomTransactionHash().bytes());
+        Hash tag = HashFactory.TAG.create(getRandomTransactionHash().bytes());
+        String sender = "127.0.0.1:14600";
+        //the fixed size layout that was written before the compact layout existed
+        ByteBuffer buffer = ByteBuffer.allocate(LEGACY_METADATA_SIZE + sender.length());
+        buffer.put(address.bytes());
+        buffer.put(bundle.bytes());
+        buffer.put(trunk.bytes());
+        buffer.put(branch.bytes());
+        buffer.put(obsoleteTag.bytes());
+        buffer.put(Serializer.serialize(-42L)); //value
+        buffer.put(Serializer.serialize(2L)); //currentIndex
+        buffer.put(Serializer.serialize(3L)); //lastIndex
+        buffer.put(Serializer.serialize(1500000000L)); //timestamp
+        buffer.put(tag.bytes());
+        buffer.put(Serializer.serialize(1500000001000L)); //attachmentTimestamp
+        buffer.put(Serializer.serialize(1500000000000L)); //attachmentTimestampLowerBound
+        buffer.put(Serializer.serialize(1500000002000L)); //attachmentTimestampUpperBound
+        buffer.put(Serializer.serialize(-1)); //validity
+        buffer.put(Serializer.serialize(2)); //type
+        buffer.put(Serializer.serialize(1500000003000L)); //arrivalTime
+        buffer.put(Serializer.serialize(7L)); //height
+        buffer.put(Serializer.serialize(1500000004000L)); //solidificationTime
+        buffer.put((byte) 1); //flags: solid
+        buffer.put(sender.getBytes());
+        byte[] legacy = buffer.array();
+
+        Transaction migrated = new Transaction();
+        migrated.readMetadata(legacy);
+        assertEquals(address, migrated.address);
+        assertEquals(bundle, migrated.bundle);
+        assertEquals(trunk, migrated.trunk);
+        assertEquals(branch, migrated.branch);
+        assertEquals(obsoleteTag, migrated.obsoleteTag);
+        assertEquals(tag, migrated.tag);
+        assertEquals(-42L, migrated.value);
+        assertEquals(2L, migrated.currentIndex);
+        assertEquals(3L, migrated.lastIndex);
+        assertEquals(1500000000L, migrated.timestamp);
+        assertEquals(1500000001000L, migrated.attachmentTimestamp);
+        assertEquals(1500000000000L, migrated.attachmentTimestampLowerBound);
+        assertEquals(1500000002000L, migrated.attachmentTimestampUpperBound);
+        assertEquals(-1, migrated.validity);
+        assertEquals(2, migrated.type);
+        assertEquals(1500000003000L, migrated.arrivalTime);
+        assertEquals(7L, migrated.height);
+        assertEquals(1500000004000L, migrated.solidificationTime);
+        assertTrue(migrated.solid);
+        assertEquals(sender, migrated.sender);
+        assertTrue(migrated.parsed);
+
+        byte[] compact = migrated.metadata();
+        assertEquals("rewritten in the compact layout", 0x7F, compact[0]);
+        assertTrue(compact.length < legacy.length);
+        Transaction rewritten = new Transaction();
+        rewritten.readMetadata(compact);
+        assertEquals(migrated.value, rewritten.value);
+        assertEquals(migrated.currentIndex, rewritten.currentIndex);
+        assertEquals(migrated.lastIndex, rewritten.lastIndex);
+        assertEquals(migrated.timestamp, rewritten.timestamp);
+        assertEquals(migrated.attachmentTimestamp, rewritten.attachmentTimestamp);
+        assertEquals(migrated.attachmentTimestampLowerBound, rewritten.attachmentTimestampLowerBound);
+        assertEquals(migrated.attachmentTimestampUpperBound, rewritten.attachmentTimestampUpperBound);
+        assertEquals(migrated.validity, rewritten.validity);
+        assertEquals(migrated.type, rewritten.type);
+        assertEquals(migrated.arrivalTime, rewritten.arrivalTime);
+        assertEquals(migrated.height, rewritten.height);
+        assertEquals(migrated.solidificationTime, rewritten.solidificationTime);
+        assertEquals(migrated.solid, rewritten.solid);
+        assertSame("senders are interned", migrated.sender, rewritten.sender);
+    }
+
+    @Test
+    public void hashesAreDecodedFromTransactionBytes() throws Exception {
+        TransactionViewModel original = new TransactionViewModel(getRandomTransactionTrits(),
+                getRandomTransactionHash());
+        List<Pair<Indexable, Persistable>> saveBatch = original.getSaveBatch();
+        byte[] metadata = saveBatch.get(saveBatch.size() - 1).hi.metadata();
+
+        Transaction stored = new Transaction();
+        stored.read(original.getBytes());
+        stored.readMetadata(metadata);
+        TransactionViewModel loaded = new TransactionViewModel(stored, original.getHash());
+
+        assertNull(stored.address);
+        assertEquals(original.getAddressHash(), loaded.getAddressHash());
+        assertEquals(original.getBundleHash(), loaded.getBundleHash());
+        assertEquals(original.getTrunkTransactionHash(), loaded.getTrunkTransactionHash());
+        assertEquals(original.getBranchTransactionHash(), loaded.getBranchTransactionHash());
+        assertEquals(original.getObsoleteTagValue(), loaded.getObsoleteTagValue());
+        assertEquals(original.getTagValue(), loaded.getTagValue());
+        assertEquals(original.getCurrentIndex(), loaded.getCurrentIndex());
+    }
+
+    @Test
+    public void stateOverridesMetadata() throws Exception {
+        Transaction tx = getRandomTransaction();
+        byte[] metadata = tx.metadata();
+        tx.validity = 1;
+        tx.arrivalTime = 1234L;
+        tx.height = 42L;
+        tx.solidificationTime = 5678L;
+        tx.solid = true;
+
+        Transaction fromStorage = new Transaction();
+        fromStorage.readMetadata(metadata);
+        fromStorage.readState(tx.state());
+
+        assertEquals(tx.value, fromStorage.value);
+        assertEquals(1, fromStorage.validity);
+        assertEquals(1234L, fromStorage.arrivalTime);
+        assertEquals(42L, fromStorage.height);
+        assertEquals(5678L, fromStorage.solidificationTime);
+        assertTrue(fromStorage.solid);
+    }
+
+    @Test
+    public void onlyHotFieldsAreStateUpdates() {
+        Transaction tx = new Transaction();
+
+        assertTrue(tx.isStateUpdate("solid|height"));
+        assertTrue(tx.isStateUpdate("height"));
+        assertTrue(tx.isStateUpdate("validity"));
+        assertFalse(tx.isStateUpdate("arrivalTime|sender"));
+        assertFalse(tx.isStateUpdate("sender"));
     }
 
     private Transaction getRandomTransaction() {
@@ -0,0 +1,79 @@
+package com.iota.iri.service;
+
+import com.iota.iri.conf.DbConfig;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
+
+public class DatabaseCheckpointerTest {
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+    private Tangle tangle;
+    private DatabaseCheckpointer checkpointer;
+
+    @Before
+    public void setUp() throws Exception {
+        folder.create();
+        tangle = createTangle(folder.newFolder("db"));
+
+        DbConfig config = Mockito.mock(DbConfig.class);
+        Mockito.when(config.getDbCheckpointPath()).thenReturn(new File(folder.getRoot(), "checkpoints").getPath());
+        Mockito.when(config.getDbCheckpointRetention()).thenReturn(1);
+        checkpointer = new DatabaseCheckpointer(tangle, config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tangle.shutdown();
+        folder.delete();
+    }
+
+    @Test
+    public void newNodeIsBootstrappedFromCheckpoint() throws Exception {
+        TransactionViewModel transaction = new TransactionViewModel(getRandomTransactionTrits(),
+                getRandomTransactionHash());
+        Assert.assertTrue(transaction.store(tangle));
+        File checkpoint = checkpointer.createCheckpoint();
+
+        File dbFolder = new File(folder.getRoot(), "bootstrapped");
+        Assert.assertTrue(DatabaseCheckpointer.bootstrap(checkpoint, dbFolder));
+        Tangle bootstrapped = createTangle(dbFolder);
+        try {
+            Assert.assertTrue(TransactionViewModel.exists(bootstrapped, transaction.getHash()));
+            Assert.assertEquals(1, TransactionViewModel.getNumberOfStoredTransactions(bootstrapped));
+        } finally {
+            bootstrapped.shutdown();
+        }
+        Assert.assertFalse("existing databases must not be replaced",
+                DatabaseCheckpointer.bootstrap(checkpoint, dbFolder));
+    }
+
+    @Test
+    public void onlyRetainedCheckpointsAreKept() throws Exception {
+        File first = checkpointer.createCheckpoint();
+        Thread.sleep(2);
+        File second = checkpointer.createCheckpoint();
+
+        Assert.assertFalse(first.exists());
+        Assert.assertTrue(second.isDirectory());
+    }
+
+    private Tangle createTangle(File dbFolder) throws Exception {
+        Tangle created = new Tangle();
+        created.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getAbsolutePath(),
+                new File(folder.getRoot(), "logs").getAbsolutePath(), 1000));
+        created.init();
+        return created;
+    }
+}
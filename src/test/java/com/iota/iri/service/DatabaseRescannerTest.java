@@ -0,0 +1,117 @@
+package com.iota.iri.service;
+
+import com.iota.iri.controllers.AddressViewModel;
+import com.iota.iri.controllers.ApproveeViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.model.persistables.Approvee;
+import com.iota.iri.model.persistables.Tag;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionWithTrunkAndBranch;
+
+public class DatabaseRescannerTest {
+
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private Tangle tangle;
+    private File checkpointFile;
+    private DatabaseRescanner rescanner;
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder.create();
+        logFolder.create();
+        tangle = new Tangle();
+        tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000));
+        tangle.init();
+        checkpointFile = new File(dbFolder.getRoot(), "db.rescan");
+        rescanner = new DatabaseRescanner(tangle, checkpointFile, 4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tangle.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Test
+    public void rescanRebuildsIndexes() throws Exception {
+        Hash trunk = getRandomTransactionHash();
+        TransactionViewModel[] transactions = new TransactionViewModel[20];
+        for (int i = 0; i < transactions.length; i++) {
+            transactions[i] = store(getRandomTransactionWithTrunkAndBranch(trunk, trunk));
+        }
+        tangle.clearColumn(Address.class);
+        tangle.clearColumn(Approvee.class);
+        tangle.clearColumn(Tag.class);
+
+        rescanner.rescan();
+
+        Assert.assertFalse(rescanner.hasCheckpoint());
+        Assert.assertEquals(transactions.length, ApproveeViewModel.load(tangle, trunk).size());
+        for (TransactionViewModel transaction : transactions) {
+            Assert.assertTrue(AddressViewModel.load(tangle, transaction.getAddressHash()).getHashes()
+                    .contains(transaction.getHash()));
+            Assert.assertFalse(tangle.keysStartingWith(Tag.class,
+                    Arrays.copyOf(transaction.getTagValue().bytes(), 15)).isEmpty());
+        }
+    }
+
+    @Test
+    public void interruptedRescanIsResumed() throws Exception {
+        TransactionViewModel pending = store(getRandomTransactionTrits());
+        TransactionViewModel done;
+        do {
+            done = store(getRandomTransactionTrits());
+        } while (range(done) == range(pending));
+
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("ranges", String.valueOf(DatabaseRescanner.RANGES));
+        for (int range = 0; range < DatabaseRescanner.RANGES; range++) {
+            if (range != range(pending)) {
+                checkpoint.setProperty("range." + range, "done");
+            }
+        }
+        try (OutputStream out = new FileOutputStream(checkpointFile)) {
+            checkpoint.store(out, null);
+        }
+        tangle.clearColumn(Address.class);
+
+        Assert.assertTrue(rescanner.hasCheckpoint());
+        rescanner.rescan();
+
+        Assert.assertFalse(rescanner.hasCheckpoint());
+        Assert.assertTrue(AddressViewModel.load(tangle, pending.getAddressHash()).getHashes()
+                .contains(pending.getHash()));
+        Assert.assertTrue("completed ranges must not be rescanned",
+                AddressViewModel.load(tangle, done.getAddressHash()).getHashes().isEmpty());
+    }
+
+    private TransactionViewModel store(byte[] trits) throws Exception {
+        TransactionViewModel transaction = new TransactionViewModel(trits, getRandomTransactionHash());
+        Assert.assertTrue(transaction.store(tangle));
+        return transaction;
+    }
+
+    private static int range(TransactionViewModel transaction) {
+        return (transaction.getHash().bytes()[0] & 0xFF) * DatabaseRescanner.RANGES / 256;
+    }
+}
@@ -0,0 +1,87 @@
+package com.iota.iri.service;
+
+import com.iota.iri.controllers.TipsViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionWithTrunkAndBranch;
+
+public class TipsPersisterTest {
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+    private Tangle tangle;
+    private File tipsFile;
+
+    @Before
+    public void setUp() throws Exception {
+        folder.create();
+        tangle = new Tangle();
+        tangle.addPersistenceProvider(new RocksDBPersistenceProvider(folder.newFolder("db").getAbsolutePath(),
+                folder.newFolder("logs").getAbsolutePath(), 1000));
+        tangle.init();
+        tipsFile = new File(folder.getRoot(), "db.tips");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tangle.shutdown();
+        folder.delete();
+    }
+
+    @Test
+    public void tipsAreRestoredAndValidatedLazily() throws Exception {
+        TransactionViewModel approved = storeSolid(Hash.NULL_HASH);
+        TransactionViewModel tip = storeSolid(approved.getHash());
+        Hash nonSolidTip = getRandomTransactionHash();
+
+        TipsViewModel tipsViewModel = new TipsViewModel(tangle);
+        tipsViewModel.addTipHash(nonSolidTip);
+        //the approved transaction became outdated after the tips were saved
+        tipsViewModel.restore(Collections.emptyList(), Arrays.asList(tip.getHash(), approved.getHash()));
+        new TipsPersister(tipsViewModel, tipsFile).save();
+
+        TipsViewModel restarted = new TipsViewModel(tangle);
+        Assert.assertTrue(new TipsPersister(restarted, tipsFile).restore());
+        Assert.assertEquals(Collections.singletonList(nonSolidTip), restarted.getNonSolidTips());
+        Assert.assertEquals(2, restarted.solidSize());
+
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(tip.getHash(), restarted.getRandomSolidTipHash());
+        }
+    }
+
+    @Test
+    public void outdatedTipsAreNotHandedOut() throws Exception {
+        TransactionViewModel approved = storeSolid(Hash.NULL_HASH);
+        storeSolid(approved.getHash());
+
+        TipsViewModel tipsViewModel = new TipsViewModel(tangle);
+        Assert.assertFalse(new TipsPersister(tipsViewModel, tipsFile).restore());
+        tipsViewModel.restore(Collections.emptyList(),
+                Arrays.asList(approved.getHash(), getRandomTransactionHash()));
+
+        Assert.assertEquals(Hash.NULL_HASH, tipsViewModel.getRandomSolidTipHash());
+        Assert.assertEquals("outdated tips are removed", 0, tipsViewModel.solidSize());
+    }
+
+    private TransactionViewModel storeSolid(Hash approved) throws Exception {
+        TransactionViewModel transaction = new TransactionViewModel(
+                getRandomTransactionWithTrunkAndBranch(approved, approved), getRandomTransactionHash());
+        transaction.store(tangle);
+        transaction.updateSolid(true);
+        transaction.update(tangle, "solid");
+        return transaction;
+    }
+}
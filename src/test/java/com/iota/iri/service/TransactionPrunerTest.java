@@ -0,0 +1,134 @@
+package com.iota.iri.service;
+
+import com.iota.iri.TransactionValidator;
+import com.iota.iri.conf.DbConfig;
+import com.iota.iri.controllers.AddressViewModel;
+import com.iota.iri.controllers.ApproveeViewModel;
+import com.iota.iri.controllers.TipsViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.network.TransactionRequester;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.archive.TransactionArchive;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import com.iota.iri.zmq.MessageQ;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionWithTrunkAndBranch;
+
+public class TransactionPrunerTest {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(1000);
+
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private Tangle tangle;
+    private TransactionPruner pruner;
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder.create();
+        logFolder.create();
+        tangle = new Tangle();
+        tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000));
+        tangle.init();
+
+        DbConfig config = Mockito.mock(DbConfig.class);
+        Mockito.when(config.getDbPruningAge()).thenReturn(1);
+        Mockito.when(config.getDbPruningBatchSize()).thenReturn(1);
+        pruner = new TransactionPruner(tangle, new TipsViewModel(tangle),
+                new TransactionRequester(tangle, Mockito.mock(MessageQ.class)), config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TransactionValidator.setLatestEpochTimestamp(0);
+        tangle.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Test
+    public void onlyExpiredTransactionsArePruned() throws Exception {
+        TransactionViewModel old = store(getRandomTransactionTrits(), NOW - TimeUnit.HOURS.toMillis(2));
+        TransactionViewModel recent = store(getRandomTransactionWithTrunkAndBranch(old.getHash(), old.getHash()),
+                NOW - TimeUnit.MINUTES.toMillis(10));
+
+        int pruned = 0;
+        for (int i = 0; i < 3; i++) {
+            pruned += pruner.pruneBatch(NOW);
+        }
+
+        Assert.assertEquals(1, pruned);
+        Assert.assertFalse(TransactionViewModel.exists(tangle, old.getHash()));
+        Assert.assertTrue(TransactionViewModel.exists(tangle, recent.getHash()));
+        Assert.assertFalse("pruned transactions must not be reported as missing",
+                TransactionViewModel.getMissingTransactions(tangle).contains(old.getHash()));
+    }
+
+    @Test
+    public void indexEntriesOfPrunedTransactionsAreRemoved() throws Exception {
+        TransactionViewModel old = store(getRandomTransactionTrits(), NOW - TimeUnit.HOURS.toMillis(2));
+
+        pruner.pruneBatch(NOW);
+
+        Assert.assertEquals(0, AddressViewModel.load(tangle, old.getAddressHash()).size());
+        Assert.assertEquals(0, ApproveeViewModel.load(tangle, old.getTrunkTransactionHash()).size());
+        Assert.assertEquals(1, pruner.getPrunedTransactions());
+    }
+
+    @Test
+    public void onlyPrunedHashesAreRemovedFromSharedIndexEntries() throws Exception {
+        Hash trunk = getRandomTransactionHash();
+        byte[] oldTrits = getRandomTransactionWithTrunkAndBranch(trunk, trunk);
+        byte[] recentTrits = getRandomTransactionWithTrunkAndBranch(trunk, trunk);
+        System.arraycopy(oldTrits, TransactionViewModel.ADDRESS_TRINARY_OFFSET, recentTrits,
+                TransactionViewModel.ADDRESS_TRINARY_OFFSET, TransactionViewModel.ADDRESS_TRINARY_SIZE);
+        TransactionViewModel old = store(oldTrits, NOW - TimeUnit.HOURS.toMillis(2));
+        TransactionViewModel recent = store(recentTrits, NOW - TimeUnit.MINUTES.toMillis(10));
+
+        pruner.pruneBatch(NOW);
+
+        Set<Hash> remaining = Collections.singleton(recent.getHash());
+        Assert.assertEquals(remaining, AddressViewModel.load(tangle, old.getAddressHash()).getHashes());
+        Assert.assertEquals(remaining, ApproveeViewModel.load(tangle, trunk).getHashes());
+        Assert.assertEquals("the entry should be overwritten instead of appended to", Hash.SIZE_IN_BYTES,
+                tangle.load(Address.class, old.getAddressHash()).bytes().length);
+    }
+
+    @Test
+    public void prunedTransactionsAreLoadedFromTheArchive() throws Exception {
+        TransactionArchive archive = new TransactionArchive(dbFolder.newFolder("archive"));
+        archive.init();
+        tangle.setArchive(archive);
+        TransactionViewModel old = store(getRandomTransactionTrits(), NOW - TimeUnit.HOURS.toMillis(2));
+
+        pruner.pruneBatch(NOW);
+
+        Assert.assertFalse(TransactionViewModel.exists(tangle, old.getHash()));
+        TransactionViewModel archived = TransactionViewModel.fromHash(tangle, old.getHash());
+        Assert.assertArrayEquals(old.getBytes(), archived.getBytes());
+        Assert.assertEquals(old.getArrivalTime(), archived.getArrivalTime());
+        Assert.assertEquals(1, archive.size());
+    }
+
+    private TransactionViewModel store(byte[] trits, long arrivalTime) throws Exception {
+        TransactionViewModel transaction = new TransactionViewModel(trits, getRandomTransactionHash());
+        transaction.setArrivalTime(arrivalTime);
+        transaction.store(tangle);
+        return transaction;
+    }
+}
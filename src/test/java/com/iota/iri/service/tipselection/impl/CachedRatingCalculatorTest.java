@@ -0,0 +1,96 @@
+package com.iota.iri.service.tipselection.impl;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashId;
+import com.iota.iri.service.tipselection.RatingCalculator;
+import com.iota.iri.utils.collections.impl.TransformingMap;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+
+public class CachedRatingCalculatorTest {
+
+    private static final long MAX_AGE = 1000;
+
+    private final AtomicLong now = new AtomicLong();
+    private RatingCalculator ratingCalculator;
+    private CachedRatingCalculator cachedRatingCalculator;
+    private Hash entryPoint;
+
+    @Before
+    public void setUp() {
+        ratingCalculator = Mockito.mock(RatingCalculator.class);
+        cachedRatingCalculator = new CachedRatingCalculator(ratingCalculator, MAX_AGE, now::get);
+        entryPoint = getRandomTransactionHash();
+    }
+
+    @Test
+    public void concurrentTipSelectionsWaitForTheSameCalculation() throws Exception {
+        UnIterableMap<HashId, Integer> ratings = new TransformingMap<>(null, null);
+        CountDownLatch calculating = new CountDownLatch(1);
+        CountDownLatch calculated = new CountDownLatch(1);
+        Mockito.when(ratingCalculator.calculate(entryPoint)).thenAnswer(invocation -> {
+            calculating.countDown();
+            calculated.await();
+            return ratings;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<UnIterableMap<HashId, Integer>> first = executor.submit(
+                    () -> cachedRatingCalculator.calculate(entryPoint));
+            calculating.await();
+            Future<UnIterableMap<HashId, Integer>> second = executor.submit(
+                    () -> cachedRatingCalculator.calculate(entryPoint));
+            //the second tip selection is waiting for the first calculation
+            Assert.assertFalse(second.isDone());
+            calculated.countDown();
+
+            Assert.assertSame(ratings, first.get(10, TimeUnit.SECONDS));
+            Assert.assertSame(ratings, second.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        Mockito.verify(ratingCalculator, Mockito.times(1)).calculate(entryPoint);
+    }
+
+    @Test
+    public void staleRatingsAreCalculatedAgain() throws Exception {
+        UnIterableMap<HashId, Integer> oldRatings = new TransformingMap<>(null, null);
+        UnIterableMap<HashId, Integer> newRatings = new TransformingMap<>(null, null);
+        Mockito.when(ratingCalculator.calculate(entryPoint)).thenReturn(oldRatings, newRatings);
+
+        Assert.assertSame(oldRatings, cachedRatingCalculator.calculate(entryPoint));
+        now.set(MAX_AGE - 1);
+        Assert.assertSame(oldRatings, cachedRatingCalculator.calculate(entryPoint));
+        now.set(MAX_AGE);
+        Assert.assertSame(newRatings, cachedRatingCalculator.calculate(entryPoint));
+    }
+
+    @Test
+    public void failedCalculationsAreNotShared() throws Exception {
+        UnIterableMap<HashId, Integer> ratings = new TransformingMap<>(null, null);
+        Mockito.when(ratingCalculator.calculate(entryPoint))
+                .thenThrow(new IllegalStateException("database closed"))
+                .thenReturn(ratings);
+
+        try {
+            cachedRatingCalculator.calculate(entryPoint);
+            Assert.fail("the failure of the calculation is not thrown");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("database closed", e.getMessage());
+        }
+        Assert.assertSame(ratings, cachedRatingCalculator.calculate(entryPoint));
+    }
+}
@@ -0,0 +1,103 @@
+package com.iota.iri.service.tipselection.impl;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.HashId;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.*;
+import static com.iota.iri.service.tipselection.impl.CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE;
+
+public class DenseCumulativeWeightCalculatorTest {
+    private static final TemporaryFolder dbFolder = new TemporaryFolder();
+    private static final TemporaryFolder logFolder = new TemporaryFolder();
+    private static Tangle tangle;
+    private static CumulativeWeightCalculator cumulativeWeightCalculator;
+    private static DenseCumulativeWeightCalculator denseCumulativeWeightCalculator;
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        tangle.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        tangle = new Tangle();
+        dbFolder.create();
+        logFolder.create();
+        tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(), logFolder
+                .getRoot().getAbsolutePath(), 1000));
+        tangle.init();
+        cumulativeWeightCalculator = new CumulativeWeightCalculator(tangle);
+        denseCumulativeWeightCalculator = new DenseCumulativeWeightCalculator(tangle);
+    }
+
+    @Test
+    public void weightsAreEqualToTheCumulativeWeights() throws Exception {
+        //wide enough that the future sets of the early transactions saturate
+        List<TransactionViewModel> transactions = storeRandomTangle(new Random(3), 1000, 20);
+
+        assertEqualWeights(transactions, transactions.get(0));
+        assertEqualWeights(transactions, transactions.get(500));
+    }
+
+    @Test
+    public void calculateSingleCountsTheWholeFutureSet() throws Exception {
+        List<TransactionViewModel> transactions = storeRandomTangle(new Random(5), 600, 3);
+
+        for (int i : new int[]{0, 300, 599}) {
+            Assert.assertEquals(cumulativeWeightCalculator.calculateSingle(transactions.get(i).getHash()),
+                    denseCumulativeWeightCalculator.calculateSingle(transactions.get(i).getHash()));
+        }
+    }
+
+    private static void assertEqualWeights(List<TransactionViewModel> transactions, TransactionViewModel entryPoint)
+            throws Exception {
+        UnIterableMap<HashId, Integer> expected = cumulativeWeightCalculator.calculate(entryPoint.getHash());
+        UnIterableMap<HashId, Integer> actual = denseCumulativeWeightCalculator.calculate(entryPoint.getHash());
+        Assert.assertEquals(expected.size(), actual.size());
+        for (TransactionViewModel transaction : transactions) {
+            Integer expectedWeight = expected.get(transaction.getHash());
+            Integer actualWeight = actual.get(transaction.getHash());
+            if (expectedWeight == null || expectedWeight.equals(actualWeight)) {
+                Assert.assertEquals(expectedWeight, actualWeight);
+                continue;
+            }
+            //the bounded sets of the CumulativeWeightCalculator lose approvers when they are merged close to the bound
+            Assert.assertTrue(expectedWeight < actualWeight);
+            int futureSetSize = cumulativeWeightCalculator.calculateSingle(transaction.getHash()) - 1;
+            Assert.assertEquals("weight of " + transaction.getHash(),
+                    Math.min(futureSetSize, MAX_FUTURE_SET_SIZE) + 1, actualWeight.intValue());
+        }
+    }
+
+    /**
+     * Stores transactions that approve two of the <tt>width</tt> latest transactions.
+     */
+    private static List<TransactionViewModel> storeRandomTangle(Random random, int size, int width) throws Exception {
+        List<TransactionViewModel> transactions = new ArrayList<>(size);
+        transactions.add(new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash()));
+        for (int i = 1; i < size; i++) {
+            TransactionViewModel trunk = transactions.get(Math.max(0, i - 1 - random.nextInt(width)));
+            TransactionViewModel branch = transactions.get(Math.max(0, i - 1 - random.nextInt(width)));
+            transactions.add(new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(trunk.getHash(),
+                    branch.getHash()), getRandomTransactionHash()));
+        }
+        for (TransactionViewModel transaction : transactions) {
+            transaction.store(tangle);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,156 @@
+package com.iota.iri.service.tipselection.impl;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashId;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.*;
+
+public class IncrementalCumulativeWeightCalculatorTest {
+    private static final TemporaryFolder dbFolder = new TemporaryFolder();
+    private static final TemporaryFolder logFolder = new TemporaryFolder();
+    private static Tangle tangle;
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        tangle.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        tangle = new Tangle();
+        dbFolder.create();
+        logFolder.create();
+        tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(), logFolder
+                .getRoot().getAbsolutePath(), 1000));
+        tangle.init();
+    }
+
+    @Test
+    public void weightsAreEqualToTheCalculatedWeights() throws Exception {
+        Random random = new Random(7);
+        List<TransactionViewModel> transactions = new ArrayList<>();
+        transactions.add(new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash()));
+        for (int i = 1; i < 60; i++) {
+            //approve recent transactions, like tips do
+            TransactionViewModel trunk = transactions.get(Math.max(0, i - 1 - random.nextInt(5)));
+            TransactionViewModel branch = transactions.get(Math.max(0, i - 1 - random.nextInt(5)));
+            transactions.add(new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(trunk.getHash(),
+                    branch.getHash()), getRandomTransactionHash()));
+        }
+
+        IncrementalCumulativeWeightCalculator incrementalCalculator = new IncrementalCumulativeWeightCalculator(tangle);
+        for (TransactionViewModel transaction : transactions) {
+            transaction.updateSolid(true);
+            transaction.store(tangle);
+            incrementalCalculator.update(transaction.getHash());
+        }
+
+        UnIterableMap<HashId, Integer> expected = new CumulativeWeightCalculator(tangle)
+                .calculate(transactions.get(0).getHash());
+        UnIterableMap<HashId, Integer> actual = incrementalCalculator.calculate(transactions.get(0).getHash());
+        for (TransactionViewModel transaction : transactions) {
+            Assert.assertEquals("weight of " + transaction.getHash(), expected.get(transaction.getHash()),
+                    actual.get(transaction.getHash()));
+            Assert.assertEquals(expected.get(transaction.getHash()).intValue(),
+                    incrementalCalculator.calculateSingle(transaction.getHash()));
+        }
+    }
+
+    @Test
+    public void weightsStopGrowingAtTheBound() throws Exception {
+        List<TransactionViewModel> chain = new ArrayList<>();
+        chain.add(new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash()));
+        for (int i = 1; i < CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE + 20; i++) {
+            TransactionViewModel approved = chain.get(i - 1);
+            chain.add(new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(approved.getHash(),
+                    approved.getHash()), getRandomTransactionHash()));
+        }
+        for (TransactionViewModel transaction : chain) {
+            transaction.updateSolid(true);
+            transaction.store(tangle);
+        }
+
+        //the earlier transactions are loaded from the database when the weights are initialized
+        IncrementalCumulativeWeightCalculator incrementalCalculator = new IncrementalCumulativeWeightCalculator(tangle);
+        incrementalCalculator.update(chain.get(chain.size() - 1).getHash());
+
+        UnIterableMap<HashId, Integer> weights = incrementalCalculator.calculate(chain.get(20).getHash());
+        Assert.assertEquals(CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE + 1,
+                weights.get(chain.get(19).getHash()).intValue());
+        Assert.assertEquals(CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE,
+                weights.get(chain.get(20).getHash()).intValue());
+        Assert.assertEquals(1, weights.get(chain.get(chain.size() - 1).getHash()).intValue());
+    }
+
+    @Test
+    public void approversAreCountedOnceTheyAreSolid() throws Exception {
+        TransactionViewModel approved = new TransactionViewModel(getRandomTransactionTrits(),
+                getRandomTransactionHash());
+        TransactionViewModel solidApprover = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                approved.getHash(), approved.getHash()), getRandomTransactionHash());
+        TransactionViewModel nonSolidApprover = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                approved.getHash(), approved.getHash()), getRandomTransactionHash());
+        approved.updateSolid(true);
+        approved.store(tangle);
+        solidApprover.updateSolid(true);
+        solidApprover.store(tangle);
+        nonSolidApprover.store(tangle);
+
+        //the future set of the approved transaction is loaded from the database
+        IncrementalCumulativeWeightCalculator incrementalCalculator = new IncrementalCumulativeWeightCalculator(tangle);
+        incrementalCalculator.update(solidApprover.getHash());
+        Assert.assertEquals(2, incrementalCalculator.calculateSingle(approved.getHash()));
+
+        nonSolidApprover.updateSolid(true);
+        nonSolidApprover.update(tangle, "solid");
+        incrementalCalculator.update(nonSolidApprover.getHash());
+        Assert.assertEquals(3, incrementalCalculator.calculateSingle(approved.getHash()));
+    }
+
+    @Test
+    public void evictedTransactionsAreRatedInTheFutureSetOfTheEntryPoint() throws Exception {
+        List<TransactionViewModel> chain = new ArrayList<>();
+        chain.add(new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash()));
+        for (int i = 1; i < 20; i++) {
+            TransactionViewModel approved = chain.get(i - 1);
+            chain.add(new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(approved.getHash(),
+                    approved.getHash()), getRandomTransactionHash()));
+        }
+
+        //far fewer transactions are kept than the chain has
+        StorageTangleGraph graph = new StorageTangleGraph(tangle);
+        IncrementalCumulativeWeightCalculator incrementalCalculator = new IncrementalCumulativeWeightCalculator(graph,
+                new DenseCumulativeWeightCalculator(graph), 3, 3);
+        for (TransactionViewModel transaction : chain) {
+            transaction.updateSolid(true);
+            transaction.store(tangle);
+            incrementalCalculator.update(transaction.getHash());
+        }
+        //the ancestors are loaded again from the latest to the oldest, so the oldest transaction is still kept while
+        //most of its future set is evicted
+        Hash entryPoint = chain.get(0).getHash();
+
+        UnIterableMap<HashId, Integer> expected = new CumulativeWeightCalculator(tangle).calculate(entryPoint);
+        UnIterableMap<HashId, Integer> actual = incrementalCalculator.calculate(entryPoint);
+        for (TransactionViewModel transaction : chain) {
+            Assert.assertEquals("weight of " + transaction.getHash(), expected.get(transaction.getHash()),
+                    actual.get(transaction.getHash()));
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.iota.iri.service.tipselection.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.iota.iri.LedgerValidator;
+import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.HashId;
 import com.iota.iri.service.tipselection.EntryPointSelector;
@@ -14,6 +17,7 @@ import com.iota.iri.service.tipselection.Walker;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
 import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import com.iota.iri.utils.dag.impl.StorageTangleGraph;
 
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -22,6 +26,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import static com.iota.iri.controllers.TransactionViewModelTest.*;
+
 public class TipSelectorImplTest {
     private static final TemporaryFolder dbFolder = new TemporaryFolder();
     private static final TemporaryFolder logFolder = new TemporaryFolder();
@@ -102,4 +108,78 @@ public class TipSelectorImplTest {
         Assert.assertEquals(1, result.size());
         Assert.assertTrue(result.get(0) > 0.5d);
     }
+
+    @Test
+    public void testGetConfidencesOfRatedTransactionsFromPastConesOfTips() throws Exception {
+        TransactionViewModel entryPoint = new TransactionViewModel(getRandomTransactionTrits(),
+                getRandomTransactionHash());
+        TransactionViewModel approver = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                entryPoint.getHash(), entryPoint.getHash()), getRandomTransactionHash());
+        TransactionViewModel firstTip = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                approver.getHash(), entryPoint.getHash()), getRandomTransactionHash());
+        TransactionViewModel secondTip = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                entryPoint.getHash(), entryPoint.getHash()), getRandomTransactionHash());
+        for (TransactionViewModel transaction : new TransactionViewModel[]{entryPoint, approver, firstTip, secondTip}) {
+            transaction.store(tangle);
+        }
+
+        EntryPointSelector entryPointSelector = Mockito.mock(EntryPointSelector.class);
+        Mockito.when(entryPointSelector.getEntryPoint()).thenReturn(entryPoint.getHash());
+        //every second walk ends in the second tip
+        AtomicInteger walks = new AtomicInteger();
+        Walker walker = (start, ratings, walkValidator) -> walks.getAndIncrement() % 2 == 0
+                ? firstTip.getHash() : secondTip.getHash();
+        ReferenceChecker referenceChecker = Mockito.mock(ReferenceChecker.class);
+        TipSelectorImpl tipSelector = new TipSelectorImpl(new StorageTangleGraph(tangle), ledgerValidator,
+                entryPointSelector, new CumulativeWeightCalculator(tangle), walker, referenceChecker, 10);
+
+        List<Double> result = tipSelector.getConfidences(Arrays.asList(entryPoint.getHash(), approver.getHash(),
+                secondTip.getHash()));
+
+        Assert.assertEquals(Arrays.asList(1d, 0.5d, 0.5d), result);
+        Assert.assertEquals(10, walks.get());
+        Mockito.verifyZeroInteractions(referenceChecker);
+    }
+
+    @Test
+    public void testGetConfidencesWithIncrementalWeights() throws Exception {
+        TransactionViewModel entryPoint = new TransactionViewModel(getRandomTransactionTrits(),
+                getRandomTransactionHash());
+        TransactionViewModel approver = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                entryPoint.getHash(), entryPoint.getHash()), getRandomTransactionHash());
+        Hash lateHash = getRandomTransactionHash();
+        TransactionViewModel late = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                approver.getHash(), approver.getHash()), lateHash);
+        TransactionViewModel tip = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                lateHash, lateHash), getRandomTransactionHash());
+        for (TransactionViewModel transaction : new TransactionViewModel[]{entryPoint, approver, tip}) {
+            transaction.updateSolid(true);
+            transaction.store(tangle);
+        }
+
+        IncrementalCumulativeWeightCalculator incrementalCalculator = new IncrementalCumulativeWeightCalculator(tangle);
+        incrementalCalculator.update(approver.getHash());
+        incrementalCalculator.update(tip.getHash());
+        //the weights are not updated yet with the transaction between the tip and the rated transactions
+        late.updateSolid(true);
+        late.store(tangle);
+        incrementalCalculator.onSolidTransaction(lateHash);
+        UnIterableMap<HashId, Integer> rating = incrementalCalculator.calculate(entryPoint.getHash());
+        Assert.assertTrue(rating.containsKey(tip.getHash()));
+        Assert.assertTrue(rating.containsKey(approver.getHash()));
+        Assert.assertFalse(rating.containsKey(lateHash));
+
+        EntryPointSelector entryPointSelector = Mockito.mock(EntryPointSelector.class);
+        Mockito.when(entryPointSelector.getEntryPoint()).thenReturn(entryPoint.getHash());
+        Walker walker = (start, ratings, walkValidator) -> tip.getHash();
+        ReferenceChecker referenceChecker = Mockito.mock(ReferenceChecker.class);
+        TipSelectorImpl tipSelector = new TipSelectorImpl(new StorageTangleGraph(tangle), ledgerValidator,
+                entryPointSelector, incrementalCalculator, walker, referenceChecker, 10);
+
+        List<Double> result = tipSelector.getConfidences(Arrays.asList(entryPoint.getHash(), approver.getHash(),
+                lateHash, tip.getHash()));
+
+        Assert.assertEquals(Arrays.asList(1d, 1d, 1d, 1d), result);
+        Mockito.verifyZeroInteractions(referenceChecker);
+    }
 }
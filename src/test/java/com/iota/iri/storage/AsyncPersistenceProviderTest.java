@@ -0,0 +1,66 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Transaction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+
+public class AsyncPersistenceProviderTest {
+
+    private final PersistenceProvider provider = Mockito.mock(PersistenceProvider.class);
+    private AsyncPersistenceProvider asyncProvider;
+
+    @After
+    public void tearDown() {
+        asyncProvider.shutdown();
+    }
+
+    @Test
+    public void writesArePassedToTheProvider() throws Exception {
+        asyncProvider = new AsyncPersistenceProvider(provider, 10, true);
+        asyncProvider.init();
+        Transaction transaction = new Transaction();
+        Hash hash = getRandomTransactionHash();
+
+        Assert.assertFalse(asyncProvider.update(transaction, hash, "sender"));
+
+        Mockito.verify(provider, Mockito.timeout(5000)).update(transaction, hash, "sender");
+        Assert.assertEquals(0, asyncProvider.getDroppedWrites());
+    }
+
+    @Test
+    public void writesAreDroppedIfTheQueueIsFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(provider.update(Mockito.any(), Mockito.any(), Mockito.eq("blocking"))).then(invocation -> {
+            blocked.countDown();
+            release.await();
+            return true;
+        });
+        asyncProvider = new AsyncPersistenceProvider(provider, 2, true);
+        asyncProvider.init();
+
+        asyncProvider.update(new Transaction(), getRandomTransactionHash(), "blocking");
+        blocked.await();
+        for (int i = 0; i < 3; i++) {
+            asyncProvider.update(new Transaction(), getRandomTransactionHash(), "sender");
+        }
+
+        Assert.assertEquals(2, asyncProvider.getQueueDepth());
+        Assert.assertEquals(1, asyncProvider.getDroppedWrites());
+        Map<String, Long> metrics = asyncProvider.getMetrics();
+        String prefix = "async." + provider.getClass().getSimpleName() + ".";
+        Assert.assertEquals(Long.valueOf(2), metrics.get(prefix + "queueDepth"));
+        Assert.assertEquals(Long.valueOf(1), metrics.get(prefix + "droppedWrites"));
+        release.countDown();
+        Mockito.verify(provider, Mockito.timeout(5000).times(2))
+                .update(Mockito.any(), Mockito.any(), Mockito.eq("sender"));
+    }
+}
@@ -5,6 +5,7 @@ import com.iota.iri.crypto.SpongeFactory;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.TransactionHash;
 import com.iota.iri.model.persistables.Tag;
+import com.iota.iri.model.persistables.Transaction;
 import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
 import com.iota.iri.utils.Converter;
 import org.junit.After;
@@ -54,6 +55,43 @@ public class TangleTest {
         Assert.assertNotEquals(tag.size(), 0);
     }
 
+    @Test
+    public void scanPrefixStopsWhenVisitorReturnsFalse() throws Exception {
+        byte[] trits = getRandomTransactionTrits();
+        TransactionViewModel transactionViewModel = new TransactionViewModel(trits, TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits));
+        transactionViewModel.store(tangle);
+        byte[] prefix = Arrays.copyOf(transactionViewModel.getHash().bytes(), 10);
+
+        List<Indexable> keys = new ArrayList<>();
+        List<Persistable> values = new ArrayList<>();
+        tangle.scanPrefix(Transaction.class, prefix, false, (key, value) -> {
+            keys.add(key);
+            values.add(value);
+            return false;
+        });
+
+        Assert.assertEquals(Collections.singletonList(transactionViewModel.getHash()), keys);
+        Assert.assertArrayEquals(transactionViewModel.getBytes(), values.get(0).bytes());
+    }
+
+    @Test
+    public void scanMissingReferencesStreamsUnknownApprovees() throws Exception {
+        byte[] trits = getRandomTransactionTrits();
+        TransactionViewModel transactionViewModel = new TransactionViewModel(trits, TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits));
+        transactionViewModel.store(tangle);
+
+        Set<Indexable> missing = new HashSet<>();
+        TransactionViewModel.scanMissingTransactions(tangle, (key, value) -> {
+            missing.add(key);
+            return true;
+        });
+
+        Set<Hash> expected = new HashSet<>(Arrays.asList(transactionViewModel.getTrunkTransactionHash(),
+                transactionViewModel.getBranchTransactionHash()));
+        Assert.assertEquals(expected, missing);
+        Assert.assertEquals(expected, TransactionViewModel.getMissingTransactions(tangle));
+    }
+
     @Test
     public void get() throws Exception {
     }
@@ -0,0 +1,177 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
+
+public class TransactionCacheTest {
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private Tangle tangle;
+    private TransactionCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder.create();
+        logFolder.create();
+        tangle = new Tangle();
+        tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000));
+        cache = new TransactionCache(2);
+        tangle.setTransactionCache(cache);
+        tangle.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tangle.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Test
+    public void storedTransactionIsServedFromCache() throws Exception {
+        TransactionViewModel transaction = storeRandomTransaction();
+
+        TransactionViewModel loaded = TransactionViewModel.fromHash(tangle, transaction.getHash());
+
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(0, cache.getMisses());
+        Assert.assertArrayEquals(transaction.getBytes(), loaded.getBytes());
+        Assert.assertEquals(transaction.getAddressHash(), loaded.getAddressHash());
+    }
+
+    @Test
+    public void cachedTransactionsAreCopies() throws Exception {
+        TransactionViewModel transaction = storeRandomTransaction();
+
+        TransactionViewModel.fromHash(tangle, transaction.getHash()).setArrivalTime(42);
+
+        Assert.assertEquals(0, TransactionViewModel.fromHash(tangle, transaction.getHash()).getArrivalTime());
+    }
+
+    @Test
+    public void hitsShareTheDecodedFields() throws Exception {
+        TransactionViewModel transaction = storeRandomTransaction();
+
+        Transaction first = cache.get(transaction.getHash());
+        Transaction second = cache.get(transaction.getHash());
+        first.bytes[0]++;
+
+        Assert.assertNotSame(first, second);
+        Assert.assertNotEquals(first.bytes[0], second.bytes[0]);
+        Assert.assertSame("the hashes should not be decoded again", first.address, second.address);
+        Assert.assertEquals(transaction.getAddressHash(), second.address);
+        Assert.assertTrue(second.parsed);
+    }
+
+    @Test
+    public void updatesAreWrittenThrough() throws Exception {
+        TransactionViewModel transaction = storeRandomTransaction();
+
+        TransactionViewModel loaded = TransactionViewModel.fromHash(tangle, transaction.getHash());
+        loaded.updateSolid(true);
+        loaded.update(tangle, "solid|height");
+
+        Assert.assertTrue(TransactionViewModel.fromHash(tangle, transaction.getHash()).isSolid());
+        cache.clear();
+        Assert.assertTrue("storage and cache diverged",
+                TransactionViewModel.fromHash(tangle, transaction.getHash()).isSolid());
+    }
+
+    @Test
+    public void deleteInvalidatesCache() throws Exception {
+        TransactionViewModel transaction = storeRandomTransaction();
+
+        transaction.delete(tangle);
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(TransactionViewModel.PREFILLED_SLOT,
+                TransactionViewModel.fromHash(tangle, transaction.getHash()).getType());
+    }
+
+    @Test
+    public void missesAreFilledFromStorage() throws Exception {
+        TransactionViewModel transaction = storeRandomTransaction();
+        cache.clear();
+
+        TransactionViewModel.fromHash(tangle, transaction.getHash());
+        TransactionViewModel.fromHash(tangle, transaction.getHash());
+
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void unknownTransactionsAreNotCached() throws Exception {
+        Hash hash = getRandomTransactionHash();
+
+        TransactionViewModel.fromHash(tangle, hash);
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertFalse(TransactionViewModel.exists(tangle, hash));
+    }
+
+    @Test
+    public void leastRecentlyUsedTransactionIsEvicted() throws Exception {
+        TransactionViewModel first = storeRandomTransaction();
+        TransactionViewModel second = storeRandomTransaction();
+        TransactionViewModel.fromHash(tangle, first.getHash());
+
+        TransactionViewModel third = storeRandomTransaction();
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertNotNull(cache.get(first.getHash()));
+        Assert.assertNull(cache.get(second.getHash()));
+        Assert.assertNotNull(cache.get(third.getHash()));
+    }
+
+    @Test
+    public void staleFillIsDiscarded() throws Exception {
+        TransactionViewModel transaction = storeRandomTransaction();
+        Transaction stale = (Transaction) tangle.load(Transaction.class, transaction.getHash());
+        cache.clear();
+
+        long stamp = cache.stamp(transaction.getHash());
+        cache.invalidate(transaction.getHash());
+        cache.fill(transaction.getHash(), stale, stamp);
+
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void multiGetOnlyLoadsMisses() throws Exception {
+        TransactionViewModel cached = storeRandomTransaction();
+        TransactionViewModel stored = storeRandomTransaction();
+        cache.invalidate(stored.getHash());
+
+        List<TransactionViewModel> loaded = TransactionViewModel.fromHashes(tangle,
+                Arrays.asList(cached.getHash(), stored.getHash()));
+
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertArrayEquals(cached.getBytes(), loaded.get(0).getBytes());
+        Assert.assertArrayEquals(stored.getBytes(), loaded.get(1).getBytes());
+        Assert.assertTrue("misses should be filled", cache.contains(stored.getHash()));
+    }
+
+    private TransactionViewModel storeRandomTransaction() throws Exception {
+        TransactionViewModel transaction = new TransactionViewModel(getRandomTransactionTrits(),
+                getRandomTransactionHash());
+        Assert.assertTrue(transaction.store(tangle));
+        return transaction;
+    }
+}
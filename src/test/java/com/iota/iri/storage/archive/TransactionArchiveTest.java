@@ -0,0 +1,106 @@
+package com.iota.iri.storage.archive;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.utils.Pair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
+
+public class TransactionArchiveTest {
+
+    private static final int SEGMENT_SIZE = 100;
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+    private TransactionArchive archive;
+
+    @Before
+    public void setUp() throws Exception {
+        folder.create();
+        archive = open();
+    }
+
+    @After
+    public void tearDown() {
+        archive.shutdown();
+        folder.delete();
+    }
+
+    @Test
+    public void transactionsAreLoadedFromJournalAndSegments() throws Exception {
+        List<Pair<Hash, Transaction>> transactions = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            transactions.add(createTransaction(i));
+        }
+        for (int i = 0; i < transactions.size(); i += 25) {
+            archive.append(transactions.subList(i, i + 25));
+        }
+
+        Assert.assertEquals(2, folder.getRoot().list((dir, name) -> name.startsWith("segment-")).length);
+        Assert.assertEquals(250, archive.size());
+        assertArchived(transactions);
+        Assert.assertNull(archive.load(getRandomTransactionHash()));
+
+        archive.shutdown();
+        archive = open();
+        Assert.assertEquals("the segments and the journal are reopened", 250, archive.size());
+        assertArchived(transactions);
+    }
+
+    @Test
+    public void incompleteRecordIsDiscarded() throws Exception {
+        Pair<Hash, Transaction> complete = createTransaction(1);
+        archive.append(Collections.singletonList(complete));
+        archive.shutdown();
+
+        File journal = folder.getRoot().listFiles((dir, name) -> name.startsWith("journal-"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.seek(file.length());
+            file.write(new byte[100]);
+        }
+
+        archive = open();
+        Assert.assertEquals(1, archive.size());
+        assertArchived(Collections.singletonList(complete));
+        Pair<Hash, Transaction> appended = createTransaction(2);
+        archive.append(Collections.singletonList(appended));
+        assertArchived(Collections.singletonList(appended));
+    }
+
+    private TransactionArchive open() throws Exception {
+        TransactionArchive opened = new TransactionArchive(folder.getRoot(), SEGMENT_SIZE);
+        opened.init();
+        return opened;
+    }
+
+    private void assertArchived(List<Pair<Hash, Transaction>> transactions) throws Exception {
+        for (Pair<Hash, Transaction> transaction : transactions) {
+            Transaction archived = archive.load(transaction.low);
+            Assert.assertNotNull(archived);
+            Assert.assertArrayEquals(transaction.hi.bytes(), archived.bytes());
+            Assert.assertEquals(transaction.hi.arrivalTime, archived.arrivalTime);
+        }
+    }
+
+    private static Pair<Hash, Transaction> createTransaction(long arrivalTime) throws Exception {
+        TransactionViewModel transaction = new TransactionViewModel(getRandomTransactionTrits(),
+                getRandomTransactionHash());
+        transaction.setArrivalTime(arrivalTime);
+        List<Pair<Indexable, Persistable>> saveBatch = transaction.getSaveBatch();
+        return new Pair<>(transaction.getHash(), (Transaction) saveBatch.get(saveBatch.size() - 1).hi);
+    }
+}
@@ -0,0 +1,143 @@
+package com.iota.iri.storage.memory;
+
+import com.iota.iri.controllers.AddressViewModel;
+import com.iota.iri.controllers.ApproveeViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Approvee;
+import com.iota.iri.model.persistables.Tag;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Tangle;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionWithTrunkAndBranch;
+
+public class InMemoryPersistenceProviderTest {
+
+    private Tangle tangle;
+
+    @Before
+    public void setUp() throws Exception {
+        tangle = new Tangle();
+        tangle.addPersistenceProvider(new InMemoryPersistenceProvider());
+        tangle.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tangle.shutdown();
+    }
+
+    @Test
+    public void storedTransactionsAreIndexed() throws Exception {
+        Hash trunk = getRandomTransactionHash();
+        Hash branch = getRandomTransactionHash();
+        TransactionViewModel transaction = store(getRandomTransactionWithTrunkAndBranch(trunk, branch), 1);
+
+        TransactionViewModel loaded = TransactionViewModel.fromHash(tangle, transaction.getHash());
+
+        Assert.assertArrayEquals(transaction.getBytes(), loaded.getBytes());
+        Assert.assertEquals(transaction.getAddressHash(), loaded.getAddressHash());
+        Assert.assertEquals(1, loaded.getArrivalTime());
+        Assert.assertTrue(ApproveeViewModel.load(tangle, trunk).getHashes().contains(transaction.getHash()));
+        Assert.assertTrue(AddressViewModel.load(tangle, transaction.getAddressHash()).getHashes()
+                .contains(transaction.getHash()));
+        Set<Indexable> tags = tangle.keysStartingWith(Tag.class,
+                Arrays.copyOf(transaction.getTagValue().bytes(), 15));
+        Assert.assertEquals(1, tags.size());
+    }
+
+    @Test
+    public void missingTransactionsAreFoundFromApprovees() throws Exception {
+        Hash trunk = getRandomTransactionHash();
+        TransactionViewModel transaction = store(getRandomTransactionWithTrunkAndBranch(trunk, trunk), 1);
+
+        Set<Indexable> missing = TransactionViewModel.getMissingTransactions(tangle);
+
+        Assert.assertTrue(missing.contains(trunk));
+        Assert.assertFalse(missing.contains(transaction.getHash()));
+    }
+
+    @Test
+    public void removedHashesLeaveTheOtherHashesOfAnEntry() throws Exception {
+        Hash trunk = getRandomTransactionHash();
+        TransactionViewModel first = store(getRandomTransactionWithTrunkAndBranch(trunk, trunk), 1);
+        TransactionViewModel second = store(getRandomTransactionWithTrunkAndBranch(trunk, trunk), 2);
+
+        tangle.removeFromIndex(Approvee.class, Collections.singletonMap(trunk,
+                Collections.singleton(first.getHash())));
+        Assert.assertEquals(Collections.singleton(second.getHash()), ApproveeViewModel.load(tangle, trunk).getHashes());
+
+        tangle.removeFromIndex(Approvee.class, Collections.singletonMap(trunk,
+                Collections.singleton(second.getHash())));
+        Assert.assertFalse(tangle.exists(Approvee.class, trunk));
+    }
+
+    @Test
+    public void arrivalsFollowUpdatesAndDeletes() throws Exception {
+        List<TransactionViewModel> transactions = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            transactions.add(store(getRandomTransactionTrits(), i * 10));
+        }
+
+        transactions.get(0).setArrivalTime(40);
+        transactions.get(0).update(tangle, "arrivalTime");
+        transactions.get(2).delete(tangle);
+
+        Assert.assertEquals(Arrays.asList(transactions.get(0).getHash(), transactions.get(1).getHash()),
+                TransactionViewModel.latestArrivals(tangle, 5));
+        Assert.assertEquals(1, TransactionViewModel.countArrivals(tangle, 15, 40));
+    }
+
+    @Test
+    public void transactionsWithoutArrivalTimeAreNotIndexed() throws Exception {
+        TransactionViewModel arrived = store(getRandomTransactionTrits(), 10);
+        TransactionViewModel unknown = store(getRandomTransactionTrits(), 0);
+
+        Assert.assertEquals(Collections.singletonList(arrived.getHash()), TransactionViewModel.latestArrivals(tangle, 5));
+
+        unknown.setArrivalTime(20);
+        unknown.update(tangle, "arrivalTime");
+        arrived.setArrivalTime(0);
+        arrived.update(tangle, "arrivalTime");
+        Assert.assertEquals(Collections.singletonList(unknown.getHash()), TransactionViewModel.latestArrivals(tangle, 5));
+    }
+
+    @Test
+    public void recordsAreReusedAfterDeletes() throws Exception {
+        List<TransactionViewModel> transactions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            transactions.add(store(getRandomTransactionTrits(), i + 1));
+        }
+        for (TransactionViewModel transaction : transactions.subList(0, 2500)) {
+            transaction.delete(tangle);
+        }
+        TransactionViewModel reused = store(getRandomTransactionTrits(), 1);
+
+        Assert.assertEquals(2501, tangle.getCount(Transaction.class).longValue());
+        Assert.assertFalse(TransactionViewModel.exists(tangle, transactions.get(0).getHash()));
+        for (TransactionViewModel transaction : Arrays.asList(transactions.get(2500), transactions.get(4999), reused)) {
+            Assert.assertArrayEquals(transaction.getBytes(),
+                    TransactionViewModel.fromHash(tangle, transaction.getHash()).getBytes());
+        }
+    }
+
+    private TransactionViewModel store(byte[] trits, long arrivalTime) throws Exception {
+        TransactionViewModel transaction = new TransactionViewModel(trits, getRandomTransactionHash());
+        transaction.setArrivalTime(arrivalTime);
+        Assert.assertTrue(transaction.store(tangle));
+        return transaction;
+    }
+}
@@ -1,10 +1,15 @@
 package com.iota.iri.storage.rocksDB;
 
-import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.controllers.TransactionViewModelTest;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashFactory;
 import com.iota.iri.model.IntegerIndex;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.model.persistables.Approvee;
 import com.iota.iri.model.persistables.Transaction;
 import com.iota.iri.storage.Indexable;
 import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.PersistenceProvider;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.utils.Pair;
 import org.apache.commons.io.FileUtils;
@@ -12,9 +17,16 @@ import org.junit.*;
 import org.junit.runners.MethodSorters;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -99,5 +111,339 @@ public class RocksDBPersistenceProviderTest {
         Assert.assertNull(rocksDBPersistenceProvider.get(Transaction.class, new IntegerIndex(1)).bytes());
     }
 
+    @Test
+    public void testSaveBatchAppendsToStoredIndexEntry() throws Exception {
+        Hash key = TransactionViewModelTest.getRandomTransactionHash();
+        List<Hash> approvers = IntStream.range(0, 3)
+                .mapToObj(i -> TransactionViewModelTest.getRandomTransactionHash())
+                .collect(Collectors.toList());
+
+        rocksDBPersistenceProvider.save(new Approvee(approvers.get(0)), key);
+        rocksDBPersistenceProvider.saveBatch(Collections.singletonList(new Pair<>(key, new Approvee(approvers.get(1)))));
+        rocksDBPersistenceProvider.saveBatch(Collections.singletonList(new Pair<>(key, new Approvee(approvers.get(2)))));
+
+        Approvee stored = (Approvee) rocksDBPersistenceProvider.get(Approvee.class, key);
+        Assert.assertEquals(approvers, new ArrayList<>(stored.set));
+    }
+
+    @Test
+    public void testSaveBatchIfAbsentOnlyInsertsOnce() throws Exception {
+        Hash key = TransactionViewModelTest.getRandomTransactionHash();
+        Hash approver = TransactionViewModelTest.getRandomTransactionHash();
+        Transaction tx = new Transaction();
+        tx.read(new byte[Transaction.SIZE]);
+        List<Pair<Indexable, Persistable>> batch = Arrays.asList(new Pair<>(key, tx),
+                new Pair<>(approver, new Approvee(key)));
+        long count = rocksDBPersistenceProvider.count(Transaction.class);
+
+        Assert.assertTrue(rocksDBPersistenceProvider.saveBatchIfAbsent(Transaction.class, key, batch));
+        Assert.assertFalse(rocksDBPersistenceProvider.saveBatchIfAbsent(Transaction.class, key, batch));
+
+        Assert.assertTrue(rocksDBPersistenceProvider.exists(Transaction.class, key));
+        Assert.assertEquals(count + 1, rocksDBPersistenceProvider.count(Transaction.class));
+        Approvee stored = (Approvee) rocksDBPersistenceProvider.get(Approvee.class, approver);
+        Assert.assertEquals(1, stored.set.size());
+    }
+
+    @Test
+    public void testMultiGetKeepsOrderOfKeys() throws Exception {
+        List<Hash> hashes = IntStream.range(0, 4)
+                .mapToObj(i -> TransactionViewModelTest.getRandomTransactionHash())
+                .collect(Collectors.toList());
+        List<Transaction> transactions = new ArrayList<>();
+        for (Hash hash : hashes.subList(0, 3)) {
+            Transaction tx = new Transaction();
+            byte[] bytes = new byte[Transaction.SIZE];
+            Arrays.fill(bytes, (byte) (transactions.size() + 1));
+            tx.read(bytes);
+            tx.readMetadata(bytes);
+            tx.arrivalTime = transactions.size() + 1;
+            rocksDBPersistenceProvider.save(tx, hash);
+            transactions.add(tx);
+        }
+
+        List<Persistable> loaded = rocksDBPersistenceProvider.multiGet(Transaction.class,
+                Arrays.asList(hashes.get(2), hashes.get(3), hashes.get(0), hashes.get(2)));
+
+        Assert.assertEquals(4, loaded.size());
+        Assert.assertArrayEquals(transactions.get(2).bytes(), loaded.get(0).bytes());
+        Assert.assertEquals(3, ((Transaction) loaded.get(0)).arrivalTime);
+        Assert.assertNull("missing keys should be empty", loaded.get(1).bytes());
+        Assert.assertArrayEquals(transactions.get(0).bytes(), loaded.get(2).bytes());
+        Assert.assertEquals(1, ((Transaction) loaded.get(2)).arrivalTime);
+        Assert.assertArrayEquals(transactions.get(2).bytes(), loaded.get(3).bytes());
+    }
+
+    @Test
+    public void testScanAndGetReadTheUpdatedState() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            Transaction tx = new Transaction();
+            byte[] bytes = new byte[Transaction.SIZE];
+            Arrays.fill(bytes, (byte) i);
+            tx.read(bytes);
+            tx.arrivalTime = i;
+            rocksDBPersistenceProvider.save(tx, new IntegerIndex(i));
+        }
+        Transaction updated = (Transaction) rocksDBPersistenceProvider.get(Transaction.class, new IntegerIndex(2));
+        updated.solid = true;
+        updated.height = 7;
+        rocksDBPersistenceProvider.update(updated, new IntegerIndex(2), "solid|height");
+
+        List<Transaction> scanned = new ArrayList<>();
+        rocksDBPersistenceProvider.scan(Transaction.class, null, null, false, (key, value) -> {
+            scanned.add((Transaction) value);
+            return true;
+        });
+
+        Assert.assertEquals(3, scanned.size());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(i + 1, scanned.get(i).arrivalTime);
+            Assert.assertEquals(i == 1, scanned.get(i).solid);
+        }
+        Assert.assertEquals(7, scanned.get(1).height);
+        Transaction loaded = (Transaction) rocksDBPersistenceProvider.get(Transaction.class, new IntegerIndex(2));
+        Assert.assertTrue(loaded.solid);
+        Assert.assertEquals(7, loaded.height);
+        Assert.assertEquals(2, loaded.arrivalTime);
+    }
+
+    @Test
+    public void testKeysStartingWithInsideAndAcrossIndexPrefixes() throws Exception {
+        byte[] base = TransactionViewModelTest.getRandomTransactionHash().bytes();
+        List<Hash> keys = new ArrayList<>();
+        //keys that share 4 bytes, pairs of them share a full index prefix
+        for (int i = 0; i < 4; i++) {
+            byte[] key = base.clone();
+            key[5] = (byte) (i / 2);
+            key[20] = (byte) i;
+            keys.add(HashFactory.ADDRESS.create(key));
+            rocksDBPersistenceProvider.save(new Approvee(keys.get(0)), keys.get(i));
+        }
+
+        Assert.assertEquals(4, rocksDBPersistenceProvider.keysStartingWith(Approvee.class,
+                Arrays.copyOf(base, 4)).size());
+        Assert.assertEquals(2, rocksDBPersistenceProvider.keysStartingWith(Approvee.class,
+                Arrays.copyOf(keys.get(2).bytes(), 10)).size());
+        Assert.assertEquals(1, rocksDBPersistenceProvider.keysStartingWith(Approvee.class,
+                Arrays.copyOf(keys.get(3).bytes(), 30)).size());
+    }
+
+    @Test
+    public void testScanArrivalsFollowsArrivalTimes() throws Exception {
+        List<Hash> hashes = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Transaction tx = new Transaction();
+            tx.read(new byte[Transaction.SIZE]);
+            tx.readMetadata(new byte[Transaction.SIZE]);
+            tx.arrivalTime = i * 10;
+            hashes.add(TransactionViewModelTest.getRandomTransactionHash());
+            transactions.add(tx);
+            rocksDBPersistenceProvider.saveBatch(Collections.singletonList(new Pair<>(hashes.get(i - 1), tx)));
+        }
+
+        Assert.assertEquals(Arrays.asList(hashes.get(1), hashes.get(2)), scanArrivals(15, 31, false));
+        Assert.assertEquals(Arrays.asList(hashes.get(1), hashes.get(0)), scanArrivals(10, 30, true));
+
+        transactions.get(0).arrivalTime = 40;
+        rocksDBPersistenceProvider.update(transactions.get(0), hashes.get(0), "arrivalTime");
+        rocksDBPersistenceProvider.delete(Transaction.class, hashes.get(2));
+
+        Assert.assertEquals(Arrays.asList(hashes.get(0), hashes.get(1)), scanArrivals(0, Long.MAX_VALUE, true));
+    }
+
+    @Test
+    public void testTransactionsWithoutArrivalTimeAreNotIndexed() throws Exception {
+        Transaction tx = new Transaction();
+        tx.read(new byte[Transaction.SIZE]);
+        tx.readMetadata(new byte[Transaction.SIZE]);
+        //chosen by the sender, so it must not decide where the transaction is indexed
+        tx.attachmentTimestamp = 20;
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        rocksDBPersistenceProvider.saveBatch(Collections.singletonList(new Pair<>(hash, tx)));
+        Assert.assertFalse(scanArrivals(0, Long.MAX_VALUE, false).contains(hash));
+
+        tx.arrivalTime = 30;
+        rocksDBPersistenceProvider.update(tx, hash, "arrivalTime");
+        Assert.assertEquals(Collections.singletonList(hash), scanArrivals(25, 35, false));
+
+        //e.g. when the metadata is rebuilt
+        tx.arrivalTime = 0;
+        rocksDBPersistenceProvider.update(tx, hash, "arrivalTime");
+        Assert.assertFalse(scanArrivals(0, Long.MAX_VALUE, false).contains(hash));
+    }
+
+    private static List<Indexable> scanArrivals(long from, long to, boolean newestFirst) throws Exception {
+        List<Indexable> hashes = new ArrayList<>();
+        rocksDBPersistenceProvider.scanArrivals(from, to, newestFirst, (key, value) -> hashes.add(key));
+        return hashes;
+    }
+
+    @Test
+    public void testAssignedProfilesReplaceTheDefaults() throws Exception {
+        String path = dbPath + "-assigned", logPath = dbLogPath + "-assigned";
+        Hash key = TransactionViewModelTest.getRandomTransactionHash();
+        Hash approver = TransactionViewModelTest.getRandomTransactionHash();
+        Map<String, ColumnFamilyProfile> profiles = ColumnFamilyProfile.parseAssignments(
+                "approvee:METADATA, transaction:uniform");
+        Assert.assertEquals(ColumnFamilyProfile.METADATA, profiles.get("approvee"));
+        Assert.assertEquals(ColumnFamilyProfile.UNIFORM, profiles.get("transaction"));
+        try {
+            RocksDBPersistenceProvider assigned = new RocksDBPersistenceProvider(path, logPath, 1000, true,
+                    profiles);
+            assigned.init();
+            assigned.save(new Approvee(approver), key);
+            Approvee stored = (Approvee) assigned.get(Approvee.class, key);
+            assigned.shutdown();
+            Assert.assertEquals(Collections.singleton(approver), stored.set);
+        } finally {
+            FileUtils.deleteQuietly(new File(path));
+            FileUtils.deleteQuietly(new File(logPath));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProfilesCannotBeAssignedToUnknownColumns() {
+        new RocksDBPersistenceProvider(dbPath, dbLogPath, 1000, true,
+                ColumnFamilyProfile.parseAssignments("approvers:INDEX"));
+    }
+
+    @Test
+    public void testReopenWithUniformTuning() throws Exception {
+        String path = dbPath + "-uniform", logPath = dbLogPath + "-uniform";
+        Hash key = TransactionViewModelTest.getRandomTransactionHash();
+        Hash approver = TransactionViewModelTest.getRandomTransactionHash();
+        try {
+            RocksDBPersistenceProvider tuned = new RocksDBPersistenceProvider(path, logPath, 1000, true);
+            tuned.init();
+            tuned.save(new Approvee(approver), key);
+            tuned.shutdown();
+
+            RocksDBPersistenceProvider uniform = new RocksDBPersistenceProvider(path, logPath, 1000, false);
+            uniform.init();
+            Approvee stored = (Approvee) uniform.get(Approvee.class, key);
+            uniform.shutdown();
+            Assert.assertEquals(Collections.singleton(approver), stored.set);
+        } finally {
+            FileUtils.deleteQuietly(new File(path));
+            FileUtils.deleteQuietly(new File(logPath));
+        }
+    }
+
+    @Test
+    public void testCountersAreExactAndPersisted() throws Exception {
+        String path = dbPath + "-counters", logPath = dbLogPath + "-counters";
+        Hash approved = TransactionViewModelTest.getRandomTransactionHash();
+        Hash other = TransactionViewModelTest.getRandomTransactionHash();
+        try {
+            RocksDBPersistenceProvider provider = new RocksDBPersistenceProvider(path, logPath, 1000);
+            provider.init();
+            provider.save(new Approvee(other), approved);
+            provider.save(new Approvee(other), approved);
+            Assert.assertEquals(1L, (long) provider.getCounters().get(PersistenceProvider.PREFILLED_SLOTS));
+            Assert.assertEquals(1, provider.count(Approvee.class));
+
+            Transaction tx = new Transaction();
+            tx.read(new byte[Transaction.SIZE]);
+            tx.readMetadata(new byte[Transaction.SIZE]);
+            List<Pair<Indexable, Persistable>> batch = Collections.singletonList(new Pair<>(approved, tx));
+            //inserting a transaction twice must only count it once
+            Assert.assertTrue(provider.saveBatchIfAbsent(Transaction.class, approved, batch));
+            Assert.assertFalse(provider.saveBatchIfAbsent(Transaction.class, approved, batch));
+            //saving rewrites a stored transaction
+            provider.saveBatch(batch);
+            Map<Indexable, List<Pair<Indexable, Persistable>>> batches = new HashMap<>();
+            batches.put(approved, batch);
+            batches.put(other, Arrays.<Pair<Indexable, Persistable>>asList(new Pair<>(other, tx), new Pair<>(other, new Address(approved))));
+            Assert.assertEquals(Collections.singleton(other), provider.saveBatchesIfAbsent(Transaction.class, batches));
+            tx.solid = true;
+            provider.update(tx, approved, "solid");
+            provider.update(tx, approved, "solid");
+
+            Map<String, Long> counters = provider.getCounters();
+            Assert.assertEquals(2L, (long) counters.get(Transaction.class.getSimpleName()));
+            Assert.assertEquals(1L, (long) counters.get(Address.class.getSimpleName()));
+            Assert.assertEquals(1L, (long) counters.get(PersistenceProvider.SOLID_TRANSACTIONS));
+            Assert.assertEquals(0L, (long) counters.get(PersistenceProvider.PREFILLED_SLOTS));
+
+            provider.deleteBatch(Collections.singletonList(new Pair<>(approved, Transaction.class)));
+            provider.deleteBatch(Collections.singletonList(new Pair<>(approved, Transaction.class)));
+            provider.removeFromIndex(Address.class, Collections.singletonMap(other, Collections.singleton(approved)));
+            Assert.assertEquals(1, provider.count(Transaction.class));
+            Assert.assertEquals(0, provider.count(Address.class));
+            provider.shutdown();
+
+            RocksDBPersistenceProvider reopened = new RocksDBPersistenceProvider(path, logPath, 1000);
+            reopened.init();
+            counters = reopened.getCounters();
+            Assert.assertEquals(1L, (long) counters.get(Transaction.class.getSimpleName()));
+            Assert.assertEquals(1L, (long) counters.get(Approvee.class.getSimpleName()));
+            Assert.assertEquals(0L, (long) counters.get(Address.class.getSimpleName()));
+            Assert.assertEquals(0L, (long) counters.get(PersistenceProvider.SOLID_TRANSACTIONS));
+            Assert.assertEquals(1L, (long) counters.get(PersistenceProvider.PREFILLED_SLOTS));
+
+            reopened.clear(Approvee.class);
+            Assert.assertEquals(0L, (long) reopened.getCounters().get(PersistenceProvider.PREFILLED_SLOTS));
+            reopened.clearAll();
+            Assert.assertEquals(0, reopened.count(Transaction.class));
+            reopened.shutdown();
+        } finally {
+            FileUtils.deleteQuietly(new File(path));
+            FileUtils.deleteQuietly(new File(logPath));
+        }
+    }
+
+    @Test
+    public void testConcurrentInsertsAreCountedOnce() throws Exception {
+        List<Hash> hashes = IntStream.range(0, 100)
+                .mapToObj(i -> TransactionViewModelTest.getRandomTransactionHash())
+                .collect(Collectors.toList());
+        long count = rocksDBPersistenceProvider.count(Transaction.class);
+        Transaction tx = new Transaction();
+        tx.read(new byte[Transaction.SIZE]);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> inserts = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                inserts.add(executor.submit(() -> {
+                    for (Hash hash : hashes) {
+                        rocksDBPersistenceProvider.saveBatchIfAbsent(Transaction.class, hash,
+                                Collections.singletonList(new Pair<>(hash, tx)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> insert : inserts) {
+                insert.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(count + hashes.size(), rocksDBPersistenceProvider.count(Transaction.class));
+    }
+
+    @Test
+    public void testMetricsAreSampled() throws Exception {
+        Transaction tx = new Transaction();
+        tx.read(new byte[Transaction.SIZE]);
+        tx.readMetadata(new byte[Transaction.SIZE]);
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        rocksDBPersistenceProvider.save(tx, hash);
+        rocksDBPersistenceProvider.get(Transaction.class, hash);
+
+        Map<String, Long> metrics = rocksDBPersistenceProvider.getMetrics();
+        Assert.assertTrue(metrics.get("bytesWritten") > 0);
+        Assert.assertNotNull(metrics.get(RocksDBMetrics.BLOCK_CACHE_HIT_RATIO));
+        Assert.assertNotNull(metrics.get("pendingCompactionBytes"));
+        for (String property : Arrays.asList("runningCompactions", "runningFlushes", "writeStopped",
+                "delayedWriteRate", "memTablesSize")) {
+            Assert.assertNotNull(property, metrics.get(property));
+        }
+        Assert.assertNotNull(metrics.get(RocksDBMetrics.SST_FILES_SIZE_PREFIX + "transaction"));
+        Assert.assertSame("samples are reused within the sample interval", metrics,
+                rocksDBPersistenceProvider.getMetrics());
+    }
 
-}
\ No newline at end of file
+}
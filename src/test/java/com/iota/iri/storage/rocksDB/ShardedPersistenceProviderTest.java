@@ -0,0 +1,118 @@
+package com.iota.iri.storage.rocksDB;
+
+import com.iota.iri.controllers.ApproveeViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.IotaUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionWithTrunkAndBranch;
+
+public class ShardedPersistenceProviderTest {
+
+    private static final int SHARDS = 4;
+
+    private final TemporaryFolder folder = new TemporaryFolder();
+    private Tangle tangle;
+    private ShardedPersistenceProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        folder.create();
+        provider = createProvider(SHARDS);
+        tangle = new Tangle();
+        tangle.addPersistenceProvider(provider);
+        tangle.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tangle.shutdown();
+        folder.delete();
+    }
+
+    @Test
+    public void transactionsAreRoutedToTheirShards() throws Exception {
+        Hash trunk = getRandomTransactionHash();
+        List<TransactionViewModel> transactions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            transactions.add(store(getRandomTransactionWithTrunkAndBranch(trunk, trunk), i + 1));
+        }
+
+        for (TransactionViewModel transaction : transactions) {
+            Assert.assertArrayEquals(transaction.getBytes(),
+                    TransactionViewModel.fromHash(tangle, transaction.getHash()).getBytes());
+        }
+        Assert.assertEquals(40, TransactionViewModel.getNumberOfStoredTransactions(tangle));
+        Assert.assertEquals(40, ApproveeViewModel.load(tangle, trunk).size());
+        Assert.assertFalse(transactions.get(0).store(tangle));
+
+        List<Indexable> keys = new ArrayList<>();
+        provider.scan(Transaction.class, null, null, true, (key, value) -> keys.add(key));
+        List<Indexable> sorted = new ArrayList<>(keys);
+        sorted.sort((a, b) -> IotaUtils.compareUnsigned(a.bytes(), b.bytes()));
+        Assert.assertEquals("the shards are scanned in key order", sorted, keys);
+        Assert.assertEquals(40, keys.size());
+    }
+
+    @Test
+    public void arrivalsAreMergedAcrossShards() throws Exception {
+        List<TransactionViewModel> transactions = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            transactions.add(store(getRandomTransactionTrits(), i * 10));
+        }
+        List<Hash> newestFirst = transactions.stream()
+                .sorted(Comparator.comparingLong(TransactionViewModel::getArrivalTime).reversed())
+                .map(TransactionViewModel::getHash)
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(newestFirst.subList(0, 5), TransactionViewModel.latestArrivals(tangle, 5));
+        Assert.assertEquals(10, TransactionViewModel.countArrivals(tangle, 45, 145));
+    }
+
+    @Test
+    public void shardsCannotBeReusedWithAnotherShardCount() throws Exception {
+        tangle.shutdown();
+        ShardedPersistenceProvider resharded = createProvider(SHARDS + 1);
+        try {
+            resharded.init();
+            Assert.fail("a shard must not be used with another number of shards");
+        } catch (IllegalStateException e) {
+            //expected
+        } finally {
+            resharded.shutdown();
+        }
+    }
+
+    private ShardedPersistenceProvider createProvider(int shards) {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            paths.add(folder.getRoot().toPath().resolve("db-" + i).toString());
+        }
+        return new ShardedPersistenceProvider(paths, folder.getRoot().toPath().resolve("logs").toString(), 1000,
+                true);
+    }
+
+    private TransactionViewModel store(byte[] trits, long arrivalTime) throws Exception {
+        TransactionViewModel transaction = new TransactionViewModel(trits, getRandomTransactionHash());
+        transaction.setArrivalTime(arrivalTime);
+        Assert.assertTrue(transaction.store(tangle));
+        return transaction;
+    }
+}
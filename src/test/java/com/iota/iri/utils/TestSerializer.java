@@ -19,6 +19,22 @@ public class TestSerializer {
 			Assert.assertArrayEquals(Serializer.serialize(i), bbSerialize(i));
 		
 	}
+
+	@Test
+	public void testVarLongRoundTrip() {
+		final long[] ltestvec = {0L, 1L, -1L, 63L, -64L, 64L, 1540000000000L, Long.MAX_VALUE, Long.MIN_VALUE};
+		ByteBuffer buffer = ByteBuffer.allocate(ltestvec.length * 10);
+		for(long l : ltestvec)
+			Serializer.putVarLong(buffer, l);
+		buffer.flip();
+		for(long l : ltestvec)
+			Assert.assertEquals(l, Serializer.getVarLong(buffer));
+		Assert.assertFalse(buffer.hasRemaining());
+
+		buffer.clear();
+		Serializer.putVarLong(buffer, -64L);
+		Assert.assertEquals(1, buffer.position());
+	}
 	
 	// reference for original bytebuffer code
     public static byte[] bbSerialize(Long value) {
@@ -7,7 +7,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-import com.iota.iri.controllers.TipsViewModel;
 import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.storage.Tangle;
@@ -19,13 +18,11 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
-import org.mockito.Mockito;
 
 public class RecentTransactionsGetterTest {
     private TemporaryFolder dbFolder;
     private TemporaryFolder logFolder;
     private Tangle tangle;
-    private TipsViewModel tipsViewModel;
 
     private int maxTransactions = 50;
 
@@ -45,19 +42,15 @@ public class RecentTransactionsGetterTest {
         tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
                 logFolder.getRoot().getAbsolutePath(), 1000));
         tangle.init();
-
-        tipsViewModel = Mockito.mock(TipsViewModel.class);
     }
 
     @Test
     public void correctNewestSetForStarShapeTangle() throws Exception {
-        List<Hash> transactions = makeStar(maxTransactions * 100, Hash.NULL_HASH, 1000);
+        List<Hash> transactions = makeStar(maxTransactions * 100, Hash.NULL_HASH, 1000, true);
         List<Hash> newestTransactions = transactions.subList(transactions.size() - maxTransactions, transactions.size());
 
-        RecentTransactionsGetter recentTransactionsGetter = new RecentTransactionsGetterImpl(tipsViewModel, tangle);
-        Mockito.when(tipsViewModel.getLatestSolidTips(Mockito.anyInt())).thenReturn(transactions);
+        RecentTransactionsGetter recentTransactionsGetter = new RecentTransactionsGetterImpl(tangle);
 
-        // Hash selectedTip = connectedComponentsCalculator.getTip();
         Collection<Hash> recentTxs = recentTransactionsGetter.getRecentTransactions(maxTransactions);
 
         Assert.assertEquals(maxTransactions, recentTxs.size());
@@ -69,13 +62,25 @@ public class RecentTransactionsGetterTest {
         }
     }
 
-    private List<Hash> makeStar(int length, Hash tip, long startArrivalTime) throws Exception {
+    @Test
+    public void newerTransactionsThatAreNotSolidAreSkipped() throws Exception {
+        List<Hash> solid = makeStar(maxTransactions, Hash.NULL_HASH, 1000, true);
+        makeStar(maxTransactions, Hash.NULL_HASH, 2000, false);
+
+        Collection<Hash> recentTxs = new RecentTransactionsGetterImpl(tangle).getRecentTransactions(maxTransactions);
+
+        Assert.assertEquals(maxTransactions, recentTxs.size());
+        Assert.assertTrue(recentTxs.containsAll(solid));
+    }
+
+    private List<Hash> makeStar(int length, Hash tip, long startArrivalTime, boolean solid) throws Exception {
         List<Hash> star = new ArrayList<>();
 
         for (int i = 0; i < length; i++) {
             TransactionViewModel newTip = new TransactionViewModel(
                     getRandomTransactionWithTrunkAndBranch(tip, tip), getRandomTransactionHash());
             newTip.setArrivalTime(startArrivalTime++);
+            newTip.updateSolid(solid);
             newTip.store(tangle);
             star.add(newTip.getHash());
         }
@@ -0,0 +1,130 @@
+package com.iota.iri.utils.dag.impl;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionWithTrunkAndBranch;
+
+public class RecentTangleGraphTest {
+    private TemporaryFolder dbFolder;
+    private TemporaryFolder logFolder;
+    private Tangle tangle;
+
+    @After
+    public void tearDown() throws Exception {
+        tangle.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder = new TemporaryFolder();
+        logFolder = new TemporaryFolder();
+        tangle = new Tangle();
+        dbFolder.create();
+        logFolder.create();
+        tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000));
+        tangle.init();
+    }
+
+    @Test
+    public void newTransactionsAreAddedWithoutTheDatabase() throws Exception {
+        List<Hash> chain = storeChain(3);
+        RecentTangleGraph graph = new RecentTangleGraph(new StorageTangleGraph(tangle), 10);
+        graph.init();
+        Assert.assertEquals(3, graph.size());
+
+        //never stored, so it can only be found in memory
+        TransactionViewModel approver = new TransactionViewModel(
+                getRandomTransactionWithTrunkAndBranch(chain.get(2), chain.get(1)), getRandomTransactionHash());
+        graph.addTransaction(approver);
+
+        Assert.assertEquals(new HashSet<>(Collections.singletonList(approver.getHash())),
+                graph.getApprovers(chain.get(2)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(chain.get(2), approver.getHash())),
+                graph.getApprovers(chain.get(1)));
+        Assert.assertEquals(chain.get(2), graph.getTransaction(approver.getHash()).getTrunk());
+        Assert.assertEquals(Arrays.asList(approver.getHash(), chain.get(2)), graph.getLatestArrivals(2));
+    }
+
+    @Test
+    public void evictedTransactionsAreReadFromTheDatabase() throws Exception {
+        List<Hash> chain = storeChain(4);
+        RecentTangleGraph graph = new RecentTangleGraph(new StorageTangleGraph(tangle), 2);
+        graph.init();
+        Assert.assertEquals(2, graph.size());
+
+        //the oldest transactions were never loaded
+        Assert.assertTrue(graph.getTransaction(chain.get(0)).exists());
+        Assert.assertEquals(new HashSet<>(Collections.singletonList(chain.get(1))), graph.getApprovers(chain.get(0)));
+
+        TransactionViewModel approver = new TransactionViewModel(
+                getRandomTransactionWithTrunkAndBranch(chain.get(3), chain.get(3)), getRandomTransactionHash());
+        approver.store(tangle);
+        graph.addTransaction(approver);
+        Assert.assertEquals(2, graph.size());
+
+        //the evicted transaction is read from the database again
+        Assert.assertEquals(chain.get(1), graph.getTransaction(chain.get(2)).getTrunk());
+        Assert.assertEquals(new HashSet<>(Collections.singletonList(chain.get(3))), graph.getApprovers(chain.get(2)));
+        Assert.assertEquals(4, graph.getLatestArrivals(4).size());
+    }
+
+    @Test
+    public void solidTransactionsAreMarked() throws Exception {
+        RecentTangleGraph graph = new RecentTangleGraph(new StorageTangleGraph(tangle), 10);
+        graph.init();
+        TransactionViewModel transaction = new TransactionViewModel(
+                getRandomTransactionWithTrunkAndBranch(Hash.NULL_HASH, Hash.NULL_HASH), getRandomTransactionHash());
+        graph.addTransaction(transaction);
+
+        Assert.assertFalse(graph.isSolid(transaction.getHash()));
+        graph.setSolid(transaction.getHash());
+        Assert.assertTrue(graph.isSolid(transaction.getHash()));
+    }
+
+    @Test
+    public void onlySolidTransactionsAreRecent() throws Exception {
+        List<Hash> chain = storeChain(3);
+        RecentTangleGraph graph = new RecentTangleGraph(new StorageTangleGraph(tangle), 10);
+        graph.init();
+        graph.setSolid(chain.get(0));
+        graph.setSolid(chain.get(2));
+
+        Assert.assertEquals(Arrays.asList(chain.get(2), chain.get(0)), graph.getRecentTransactions(2));
+        Assert.assertEquals(3, graph.getLatestArrivals(3).size());
+    }
+
+    /**
+     * Stores transactions that approve their predecessor, in the order of their arrival.
+     */
+    private List<Hash> storeChain(int length) throws Exception {
+        List<Hash> chain = new ArrayList<>(length);
+        Hash previous = Hash.NULL_HASH;
+        for (int i = 0; i < length; i++) {
+            TransactionViewModel transaction = new TransactionViewModel(
+                    getRandomTransactionWithTrunkAndBranch(previous, previous), getRandomTransactionHash());
+            transaction.setArrivalTime(1000 + i);
+            transaction.store(tangle);
+            previous = transaction.getHash();
+            chain.add(previous);
+        }
+        return chain;
+    }
+}